@@ -0,0 +1,34 @@
+package com.traderecon.jmh;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens the protected steps of {@link ReconciliationService} to the benchmarks.
+ */
+class ExposedReconciliationService extends ReconciliationService {
+
+    ExposedReconciliationService(AppConfig appConfig) {
+        super(appConfig);
+    }
+
+    @Override
+    public Map<String, Trade> mapTrades(List<Trade> system) {
+        return super.mapTrades(system);
+    }
+
+    @Override
+    public MatchResult compareTrades(Trade tradeA, Trade tradeB) {
+        return super.compareTrades(tradeA, tradeB);
+    }
+
+    @Override
+    public int getDifferenceMask(Trade tradeA, Trade tradeB) {
+        return super.getDifferenceMask(tradeA, tradeB);
+    }
+}
@@ -0,0 +1,45 @@
+package com.traderecon.jmh;
+
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * The generated pair loaded once per trial, as trade lists and as columnar stores.
+ */
+@State(Scope.Benchmark)
+public class LoadedTrades {
+
+    public List<Trade> systemA;
+    public List<Trade> systemB;
+    public TradeStore storeA;
+    public TradeStore storeB;
+    public PartitionedTradeStore partitionedA;
+    public PartitionedTradeStore partitionedB;
+
+    @Setup(Level.Trial)
+    public void load(TradeFiles files) {
+        MappedTradeCsvLoader loader = new MappedTradeCsvLoader();
+        systemA = loader.loadTrades(files.systemA.toString());
+        systemB = loader.loadTrades(files.systemB.toString());
+
+        SymbolDictionary symbols = new SymbolDictionary();
+        storeA = loader.loadStore(files.systemA.toString(), symbols);
+        storeB = loader.loadStore(files.systemB.toString(), symbols);
+    }
+
+    public void partition(int partitionCount) {
+        if (partitionedA == null || partitionedA.partitionCount() != partitionCount) {
+            partitionedA = PartitionedTradeStore.partition(storeA, partitionCount);
+            partitionedB = PartitionedTradeStore.partition(storeB, partitionCount);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.traderecon.jmh;
+
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeCsvLoader;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing one generated file with each loader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoaderBenchmarks {
+
+    private final TradeCsvLoader tradeCsvLoader = new TradeCsvLoader();
+    private final MappedTradeCsvLoader mappedLoader = new MappedTradeCsvLoader();
+
+    @Benchmark
+    public List<Trade> tradeCsvLoader(TradeFiles files) {
+        return tradeCsvLoader.loadTrades(files.systemA.toString());
+    }
+
+    @Benchmark
+    public List<Trade> mappedLoadTrades(TradeFiles files) {
+        return mappedLoader.loadTrades(files.systemA.toString());
+    }
+
+    @Benchmark
+    public TradeStore mappedLoadStore(TradeFiles files) {
+        return mappedLoader.loadStore(files.systemA.toString(), new SymbolDictionary());
+    }
+}
@@ -0,0 +1,77 @@
+package com.traderecon.jmh;
+
+import com.traderecon.compare.ParallelReconciler;
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciliation of the loaded pair with each strategy, plus load-and-reconcile end to end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ReconciliationBenchmarks {
+
+    @Param("8")
+    public int threads;
+
+    private final ReconciliationService service = new ReconciliationService(new AppConfig());
+
+    @Benchmark
+    public List<MatchResult> reconcileTrades(LoadedTrades trades) {
+        return service.reconcileTrades(trades.systemA, trades.systemB);
+    }
+
+    @Benchmark
+    public List<MatchResult> reconcileTradesHashJoin(LoadedTrades trades) {
+        return service.reconcileTradesHashJoin(trades.systemA, trades.systemB);
+    }
+
+    @Benchmark
+    public List<MatchResult> reconcileTradesParallel(LoadedTrades trades) {
+        return service.reconcileTradesParallel(trades.systemA, trades.systemB, threads);
+    }
+
+    @Benchmark
+    public List<MatchResult> reconcileStores(LoadedTrades trades) {
+        return service.reconcileStores(trades.storeA, trades.storeB);
+    }
+
+    @Benchmark
+    public List<MatchResult> reconcileStoresParallel(LoadedTrades trades) {
+        trades.partition(ParallelReconciler.partitionCount(threads));
+        return service.reconcileStoresParallel(trades.partitionedA, trades.partitionedB, threads);
+    }
+
+    /**
+     * What the runner does in its default mode: load both files into stores and reconcile them.
+     */
+    @Benchmark
+    public List<MatchResult> endToEnd(TradeFiles files) {
+        MappedTradeCsvLoader loader = new MappedTradeCsvLoader();
+        SymbolDictionary symbols = new SymbolDictionary();
+        TradeStore storeA = loader.loadStore(files.systemA.toString(), symbols);
+        TradeStore storeB = loader.loadStore(files.systemB.toString(), symbols);
+        return service.reconcileStores(storeA, storeB);
+    }
+}
@@ -0,0 +1,88 @@
+package com.traderecon.jmh;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The individual steps of the legacy reconciliation: mapping a system by trade id, and
+ * comparing pairs of trades with the same id.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StepBenchmarks {
+
+    private static final int PAIRS = 1 << 16;
+
+    private final ExposedReconciliationService service = new ExposedReconciliationService(new AppConfig());
+    private Trade[] pairsA;
+    private Trade[] pairsB;
+
+    @Setup(Level.Trial)
+    public void pairUp(LoadedTrades trades) {
+        Map<String, Trade> systemB = new HashMap<>();
+        for (Trade trade : trades.systemB) {
+            systemB.putIfAbsent(trade.tradeId(), trade);
+        }
+
+        pairsA = new Trade[PAIRS];
+        pairsB = new Trade[PAIRS];
+        int pairs = 0;
+        for (Trade tradeA : trades.systemA) {
+            Trade tradeB = systemB.get(tradeA.tradeId());
+            if (tradeB != null) {
+                pairsA[pairs % PAIRS] = tradeA;
+                pairsB[pairs % PAIRS] = tradeB;
+                pairs++;
+            }
+        }
+        if (pairs < PAIRS) {
+            throw new IllegalStateException("Need at least " + PAIRS + " matching ids, got " + pairs);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, Trade> mapTrades(LoadedTrades trades) {
+        return service.mapTrades(trades.systemA);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(PAIRS)
+    public void compareTrades(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(service.compareTrades(pairsA[i], pairsB[i]));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(PAIRS)
+    public void getDifferenceMask(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(service.getDifferenceMask(pairsA[i], pairsB[i]));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.traderecon.jmh;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparison with {@code rules} compiled tolerance rules against the global tolerances alone
+ * ({@code rules=0}). Rule {@code i} names symbol {@code SYM<i>} and every other rule also has a
+ * price band, so some symbols have two candidates; all of them keep the global tolerances, which
+ * setup checks by comparing every pair with and without the rules.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ToleranceRuleBenchmarks {
+
+    private static final int PAIRS = 1 << 16;
+
+    @Param({"0", "100", "10000"})
+    public int rules;
+
+    private ExposedReconciliationService service;
+    private Trade[] pairsA;
+    private Trade[] pairsB;
+
+    @Setup(Level.Trial)
+    public void configure(LoadedTrades trades) {
+        AppConfig defaults = new AppConfig();
+        Properties properties = defaults.getProperties();
+        StringJoiner names = new StringJoiner(",");
+        for (int i = 0; i < rules; i++) {
+            String prefix = "tolerance.rule.r" + i + ".";
+            names.add("r" + i);
+            properties.setProperty(prefix + "symbols", "SYM" + i);
+            properties.setProperty(prefix + "price.tolerance", String.valueOf(defaults.getPriceTolerance()));
+            if (i % 2 == 1) {
+                properties.setProperty(prefix + "price.band", "0,2500");
+            }
+        }
+        properties.setProperty("tolerance.rules", names.toString());
+        service = new ExposedReconciliationService(new AppConfig(properties));
+
+        Map<String, Trade> systemB = new HashMap<>();
+        for (Trade trade : trades.systemB) {
+            systemB.putIfAbsent(trade.tradeId(), trade);
+        }
+        pairsA = new Trade[PAIRS];
+        pairsB = new Trade[PAIRS];
+        int pairs = 0;
+        for (Trade tradeA : trades.systemA) {
+            Trade tradeB = systemB.get(tradeA.tradeId());
+            if (tradeB != null) {
+                pairsA[pairs % PAIRS] = tradeA;
+                pairsB[pairs % PAIRS] = tradeB;
+                pairs++;
+            }
+        }
+        if (pairs < PAIRS) {
+            throw new IllegalStateException("Need at least " + PAIRS + " matching ids, got " + pairs);
+        }
+
+        ExposedReconciliationService global = new ExposedReconciliationService(defaults);
+        for (int i = 0; i < PAIRS; i++) {
+            if (service.getDifferenceMask(pairsA[i], pairsB[i]) != global.getDifferenceMask(pairsA[i], pairsB[i])) {
+                throw new IllegalStateException("Rules changed the comparison of " + pairsA[i].tradeId());
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(PAIRS)
+    public void getDifferenceMask(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(service.getDifferenceMask(pairsA[i], pairsB[i]));
+        }
+    }
+
+    /**
+     * The columnar path, where a trade's rule is found by symbol code.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<MatchResult> reconcileStores(LoadedTrades trades) {
+        return service.reconcileStores(trades.storeA, trades.storeB);
+    }
+}
@@ -0,0 +1,68 @@
+package com.traderecon.jmh;
+
+import com.traderecon.bench.TradeFileGenerator;
+import com.traderecon.bench.TradeFileGenerator.MismatchMix;
+import com.traderecon.bench.TradeFileGenerator.PairSpec;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A generated System A / System B file pair, shared by every benchmark of a trial. The shape of
+ * the pair is set through JMH parameters, e.g. {@code -p rows=2000000 -p mismatchMix=EVEN}.
+ * Duplicates default to none because every reconciler logs each one.
+ */
+@State(Scope.Benchmark)
+public class TradeFiles {
+
+    @Param("1000000")
+    public int rows;
+
+    @Param("500")
+    public int symbols;
+
+    @Param("0.02")
+    public double missingRate;
+
+    @Param("0.01")
+    public double mismatchRate;
+
+    @Param("0")
+    public double duplicateRate;
+
+    @Param({"PRICE_ONLY"})
+    public String mismatchMix;
+
+    @Param("42")
+    public long seed;
+
+    public Path systemA;
+    public Path systemB;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        systemA = Files.createTempFile("jmh-systemA-", ".csv");
+        systemB = Files.createTempFile("jmh-systemB-", ".csv");
+
+        MismatchMix mix = switch (mismatchMix) {
+            case "PRICE_ONLY" -> MismatchMix.PRICE_ONLY;
+            case "EVEN" -> MismatchMix.EVEN;
+            default -> throw new IllegalArgumentException("Unknown mismatch mix: " + mismatchMix);
+        };
+        new TradeFileGenerator(seed, symbols)
+                .writePair(systemA, systemB, new PairSpec(rows, missingRate, mismatchRate, duplicateRate, mix));
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(systemA);
+        Files.deleteIfExists(systemB);
+    }
+}
@@ -1,20 +1,52 @@
 package com.traderecon.app;
 
+import com.traderecon.compare.ExternalSortReconciler;
+import com.traderecon.compare.FuzzyMatcher;
+import com.traderecon.compare.IncrementalReconciler;
+import com.traderecon.compare.ParallelReconciler;
+import com.traderecon.compare.PartitionCheckpoint;
+import com.traderecon.compare.ReconciliationState;
 import com.traderecon.compare.ReconciliationService;
 import com.traderecon.config.AppConfig;
+import com.traderecon.config.ConfigWatcher;
+import com.traderecon.core.AggregateMatchResult;
+import com.traderecon.core.BreakDelta;
 import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.MultiMatchResult;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.ReconciliationSummary;
+import com.traderecon.core.SymbolDictionary;
 import com.traderecon.core.Trade;
-import com.traderecon.core.TradeCsvLoader;
-
-import java.io.BufferedWriter;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.DeltaReportWriter;
+import com.traderecon.io.FileTypeTradeLoader;
+import com.traderecon.io.MultiReportWriter;
+import com.traderecon.io.ReportWriter;
+import com.traderecon.io.ReportWriters;
+import com.traderecon.io.SnapshotTradeLoader;
+import com.traderecon.io.SummaryReportWriter;
+import com.traderecon.io.TradeFileFormat;
+import com.traderecon.io.TradeLoader;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+import com.traderecon.server.ResultIndex;
+import com.traderecon.server.ResultQueryServer;
+import com.traderecon.shard.ShardCoordinator;
+
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 
 public class TradeReconciliationRunner {
+    private static final String UNSUPPORTED_INPUT =
+            "⚠️  Only CSV, JSON Lines (.jsonl) and FIX log (.fix, .log) files are supported.";
+
     private static Scanner scanner = new Scanner(System.in);
     private static UserConfig userConfig;
 
@@ -23,118 +55,508 @@ public class TradeReconciliationRunner {
     }
 
     protected static void runInteractive() {
-        UserConfig userConfig = getUserConfig();
+        ConfigWatcher configWatcher = startConfigWatcher();
+        AppConfig config = configWatcher != null ? configWatcher.current() : new AppConfig();
+        UserConfig userConfig = getUserConfig(config);
+        if (configWatcher != null) {
+            // the run keeps the snapshot that is current once the inputs are confirmed
+            config = configWatcher.current();
+        }
+        RunMetrics metrics = new RunMetrics();
+        List<MatchResult> served = userConfig.serve() ? new ArrayList<>() : null;
 
-        executeReconciliation(userConfig);
+        executeReconciliation(userConfig, config, metrics, served);
 
+        metrics.finish();
+        reportMetrics(config, metrics);
+        if (served != null) {
+            serveResults(served, config);
+        }
         System.out.println("Done");
     }
 
-    private static void executeReconciliation(UserConfig userConfig) {
-        AppConfig config = new AppConfig();
-        TradeCsvLoader loader = new TradeCsvLoader();
+    /**
+     * Watches the file named by the {@code traderecon.config} system property, if any, so edits
+     * made while the inputs are being entered still apply to the run.
+     */
+    private static ConfigWatcher startConfigWatcher() {
+        String configFile = System.getProperty(AppConfig.CONFIG_FILE_PROPERTY);
+        if (configFile == null || configFile.isBlank()) {
+            return null;
+        }
 
-        List<Trade> systemA = loader.loadTrades(userConfig.systemAPath());
-        ;
-        List<Trade> systemB = loader.loadTrades(userConfig.systemBPath());
+        try {
+            ConfigWatcher configWatcher = new ConfigWatcher(Path.of(configFile));
+            configWatcher.start();
+            System.out.println("Using configuration file: " + Path.of(configFile).toAbsolutePath());
+            return configWatcher;
+        } catch (IOException e) {
+            System.err.println("❌ Error reading configuration file: " + configFile + " - " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
 
-        ReconciliationService service = new ReconciliationService(config);
+    /**
+     * Results are handed to the console or the report writer as they are produced, in every mode.
+     * In server mode they are also added to {@code served}, and not printed unless exported.
+     */
+    private static void executeReconciliation(UserConfig userConfig, AppConfig config, RunMetrics metrics,
+                                              List<MatchResult> served) {
+        if (userConfig.incremental()) {
+            executeIncrementalReconciliation(userConfig, config, metrics);
+            return;
+        }
 
-        List<MatchResult> results;
-        if (!userConfig.parallel()) {
-            results = service.reconcileTrades(systemA, systemB);
-        } else {
-            results = service.reconcileTradesParallel(systemA, systemB, userConfig.threads());
+        if (userConfig.nWay()) {
+            executeNWayReconciliation(userConfig, config, metrics);
+            return;
         }
 
-        if (userConfig.export()) {
-            saveResultsToCsv(results, userConfig.outputPath());
-            System.out.println("Report saved to " + userConfig.outputPath());
-        } else {
-            results.forEach(System.out::println);
+        if (userConfig.sharded()) {
+            executeShardedReconciliation(userConfig, config, metrics);
+            return;
         }
-    }
 
-    private static UserConfig getUserConfig() {
-        while (true) {
-            printWelcome();
+        if (userConfig.summaryOnly()) {
+            executeSummaryReconciliation(userConfig, config, metrics);
+            return;
+        }
 
-            String systemAPath = askForFile("Enter path for System A file:", "src/main/resources/sample/systemA.csv", false);
-            String systemBPath = askForFile("Enter path for System B file:", "src/main/resources/sample/systemB.csv", false);
+        if (userConfig.checkpointed()) {
+            executeCheckpointedReconciliation(userConfig, config, metrics);
+            return;
+        }
 
-            boolean parallel = askYesNo("Run in parallel?", false);
-            int threads = (parallel ? askForThreads() : 1);
-            boolean export = askYesNo("Export results to file?", false);
-            String outputPath = (export ? askForFile("Enter output file path:", "results.csv", true) : null);
+        if (!userConfig.export()) {
+            TimedSink<MatchResult> sink = new TimedSink<>(served != null ? served::add : System.out::println);
+            reconcile(userConfig, config, metrics, sink);
+            sink.record(metrics.stage(RunMetrics.WRITE_REPORT));
+            return;
+        }
 
-            printSummary(systemAPath, systemBPath, parallel, threads, export, outputPath);
+        Path path = Path.of(userConfig.outputPath());
+        try (ReportWriter writer = ReportWriters.create(config.getReportFormat(), path)) {
+            Consumer<MatchResult> write = writer.asConsumer();
+            TimedSink<MatchResult> sink = new TimedSink<>(served != null ? write.andThen(served::add) : write);
+            reconcile(userConfig, config, metrics, sink);
+            StageMetrics writeStage = metrics.stage(RunMetrics.WRITE_REPORT);
+            sink.record(writeStage);
+            writeStage.addBytes(writer.bytesWritten());
+            System.out.println("✅ Results successfully saved to: " + path.toAbsolutePath());
 
-            boolean confirmed = askYesNo("Continue with reconciliation? (Y to continue, N to restart, Exit to quit)", true);
+        } catch (Exception e) {
+            System.err.println("Error writing report: " + e.getMessage());
+        }
+    }
 
-            if (!confirmed) {
-                System.out.println("Restarting the configuration...");
-            } else {
-               return new UserConfig(systemAPath, systemBPath, parallel, threads, export, outputPath);
+    /**
+     * Reports only the breaks opened, closed or changed since the previous run, then saves this
+     * run's state for the next one.
+     */
+    private static void executeIncrementalReconciliation(UserConfig userConfig, AppConfig config, RunMetrics metrics) {
+        Path statePath = Path.of(config.getIncrementalStateFile());
+        ReconciliationState previous;
+        try {
+            previous = ReconciliationState.load(statePath);
+        } catch (IOException e) {
+            System.err.println("⚠️ Ignoring unreadable reconciliation state (" + e.getMessage() + "), every break is reported as opened");
+            previous = ReconciliationState.empty();
+        }
+
+        TradeLoader loader = loader(config);
+        SymbolDictionary symbols = new SymbolDictionary();
+        TradeStore storeA = loader.loadStore(userConfig.systemAPath(), symbols, metrics.stage(RunMetrics.LOAD_A));
+        TradeStore storeB = loader.loadStore(userConfig.systemBPath(), symbols, metrics.stage(RunMetrics.LOAD_B));
+        IncrementalReconciler reconciler = new IncrementalReconciler(config);
+
+        StageMetrics compareStage = metrics.stage(RunMetrics.COMPARE);
+        StageMetrics writeStage = metrics.stage(RunMetrics.WRITE_REPORT);
+        long compareBegin = compareStage.begin();
+        ReconciliationState next;
+        if (!userConfig.export()) {
+            TimedSink<BreakDelta> sink = new TimedSink<>(System.out::println);
+            next = reconciler.reconcile(storeA, storeB, previous, sink);
+            sink.record(writeStage);
+        } else {
+            Path path = Path.of(userConfig.outputPath());
+            try (DeltaReportWriter writer = new DeltaReportWriter(config.getReportFormat(), path)) {
+                TimedSink<BreakDelta> sink = new TimedSink<>(writer.asConsumer());
+                next = reconciler.reconcile(storeA, storeB, previous, sink);
+                sink.record(writeStage);
+                writeStage.addBytes(writer.bytesWritten());
+                System.out.println("✅ Delta report successfully saved to: " + path.toAbsolutePath());
+            } catch (Exception e) {
+                System.err.println("Error writing report: " + e.getMessage());
+                return;
             }
         }
+        compareStage.end(compareBegin);
+        compareStage.addRowsIn(storeA.size() + storeB.size());
+        compareStage.addRowsOut(next.size());
+        System.out.println("♻️ Incremental reconciliation: " + next.size() + " trades, " + reconciler.recompared()
+                + " recompared, " + (next.size() - reconciler.recompared()) + " reused, "
+                + reconciler.deltas() + " break changes");
+
+        try {
+            next.save(statePath);
+        } catch (IOException e) {
+            System.err.println("Error saving reconciliation state: " + e.getMessage());
+        }
     }
 
-    private static void saveResultsToCsv(List<MatchResult> results, String outputPath) {
-        Path path = Path.of(outputPath);
+    /**
+     * Reconciles every system in one pass; systems are named after their files in the report.
+     */
+    private static void executeNWayReconciliation(UserConfig userConfig, AppConfig config, RunMetrics metrics) {
+        List<String> paths = userConfig.systemPaths();
+        TradeLoader loader = loader(config);
+        SymbolDictionary symbols = new SymbolDictionary();
+        List<TradeStore> stores = new ArrayList<>(paths.size());
+        for (int system = 0; system < paths.size(); system++) {
+            stores.add(loader.loadStore(paths.get(system), symbols, metrics.stage(loadStageName(system))));
+        }
+        ReconciliationService service = new ReconciliationService(config, metrics);
+
+        StageMetrics writeStage = metrics.stage(RunMetrics.WRITE_REPORT);
+        if (!userConfig.export()) {
+            TimedSink<MultiMatchResult> sink = new TimedSink<>(System.out::println);
+            service.reconcileNWay(stores, sink);
+            sink.record(writeStage);
+            return;
+        }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            writer.write("TradeID,Status,SymbolA,ActionA,PriceA,QuantityA,SymbolB,ActionB,PriceB,QuantityB,Differences");
-            writer.newLine();
+        Path path = Path.of(userConfig.outputPath());
+        try (MultiReportWriter writer = new MultiReportWriter(config.getReportFormat(), path, systemNames(paths))) {
+            TimedSink<MultiMatchResult> sink = new TimedSink<>(writer.asConsumer());
+            service.reconcileNWay(stores, sink);
+            sink.record(writeStage);
+            writeStage.addBytes(writer.bytesWritten());
+            System.out.println("✅ Results successfully saved to: " + path.toAbsolutePath());
+        } catch (Exception e) {
+            System.err.println("Error writing report: " + e.getMessage());
+        }
+    }
 
-            for (MatchResult match : results) {
-                String tradeId = match.tradeId();
-                String status = match.matchStatus().name();
+    /**
+     * {@code loadA}, {@code loadB}, then {@code loadC}, {@code loadD}, ... for further systems.
+     */
+    private static String loadStageName(int system) {
+        return switch (system) {
+            case 0 -> RunMetrics.LOAD_A;
+            case 1 -> RunMetrics.LOAD_B;
+            default -> "load" + (char) ('A' + system);
+        };
+    }
 
-                Trade tradeA = match.tradeA();
-                Trade tradeB = match.tradeB();
+    /**
+     * File names without extension, numbered where two files share a name.
+     */
+    private static List<String> systemNames(List<String> paths) {
+        List<String> names = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            String fileName = Path.of(path).getFileName().toString();
+            int dot = fileName.lastIndexOf('.');
+            String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+            names.add(names.contains(name) ? name + (names.size() + 1) : name);
+        }
+        return names;
+    }
 
-                String symbolA = tradeA != null ? tradeA.symbol() : "";
-                String actionA = tradeA != null ? tradeA.action().name() : "";
-                String priceA = tradeA != null ? String.valueOf(tradeA.price()) : "";
-                String quantityA = tradeA != null ? String.valueOf(tradeA.quantity()) : "";
+    /**
+     * Reports counts and notional per status, symbol and side instead of one result per trade.
+     */
+    private static void executeSummaryReconciliation(UserConfig userConfig, AppConfig config, RunMetrics metrics) {
+        ReconciliationService service = new ReconciliationService(config, metrics);
+        TradeLoader loader = loader(config);
+        SymbolDictionary symbols = new SymbolDictionary();
 
-                String symbolB = tradeB != null ? tradeB.symbol() : "";
-                String actionB = tradeB != null ? tradeB.action().name() : "";
-                String priceB = tradeB != null ? String.valueOf(tradeB.price()) : "";
-                String quantityB = tradeB != null ? String.valueOf(tradeB.quantity()) : "";
+        ReconciliationSummary summary;
+        if (!userConfig.parallel()) {
+            TradeStore storeA = loader.loadStore(userConfig.systemAPath(), symbols, metrics.stage(RunMetrics.LOAD_A));
+            TradeStore storeB = loader.loadStore(userConfig.systemBPath(), symbols, metrics.stage(RunMetrics.LOAD_B));
+            summary = service.summarizeStores(storeA, storeB);
+        } else {
+            int partitions = ParallelReconciler.partitionCount(userConfig.threads());
+            PartitionedTradeStore storeA = loader.loadPartitionedStore(userConfig.systemAPath(), symbols, partitions,
+                    config.getTradePartitioner(), metrics.stage(RunMetrics.LOAD_A));
+            PartitionedTradeStore storeB = loader.loadPartitionedStore(userConfig.systemBPath(), symbols, partitions,
+                    config.getTradePartitioner(), metrics.stage(RunMetrics.LOAD_B));
+            summary = service.summarizeStoresParallel(storeA, storeB, userConfig.threads());
+        }
 
-                String differences = match.differences() != null ? String.join(";", match.differences()) : "";
+        StageMetrics writeStage = metrics.stage(RunMetrics.WRITE_REPORT);
+        long begin = writeStage.begin();
+        List<ReconciliationSummary.Row> rows = summary.rows();
+        writeStage.addRowsIn(summary.total());
+        writeStage.addRowsOut(rows.size());
+        if (!userConfig.export()) {
+            for (ReconciliationSummary.Row row : rows) {
+                System.out.printf("%-12s %-12s %-4s %,12d %,22.2f%n", row.status(), row.symbol(), row.side(),
+                        row.count(), row.notional());
+            }
+        } else {
+            Path path = Path.of(userConfig.outputPath());
+            try (SummaryReportWriter writer = new SummaryReportWriter(config.getReportFormat(), path)) {
+                for (ReconciliationSummary.Row row : rows) {
+                    writer.write(row);
+                }
+                writeStage.addBytes(writer.bytesWritten());
+                System.out.println("✅ Summary successfully saved to: " + path.toAbsolutePath());
+            } catch (Exception e) {
+                System.err.println("Error writing report: " + e.getMessage());
+            }
+        }
+        writeStage.end(begin);
 
-                String row = String.join(",", tradeId, status,
-                        symbolA, actionA, priceA, quantityA,
-                        symbolB, actionB, priceB, quantityB,
-                        differences);
+        for (MatchStatus status : MatchStatus.values()) {
+            long count = summary.count(status);
+            if (count > 0) {
+                System.out.printf("%-12s %,12d trades, notional %,.2f%n", status, count, summary.notional(status));
+            }
+        }
+    }
 
-                writer.write(row);
-                writer.newLine();
+    /**
+     * Parallel run whose finished partitions survive a failure: a rerun over the same inputs
+     * picks up the checkpoint and only reconciles the partitions it is missing.
+     */
+    private static void executeCheckpointedReconciliation(UserConfig userConfig, AppConfig config, RunMetrics metrics) {
+        Path path = Path.of(userConfig.outputPath());
+        try {
+            PartitionCheckpoint checkpoint = PartitionCheckpoint.open(config, userConfig.exceptionsOnly(),
+                    ParallelReconciler.partitionCount(userConfig.threads()),
+                    Path.of(userConfig.systemAPath()), Path.of(userConfig.systemBPath()));
+            if (checkpoint.doneCount() > 0) {
+                System.out.println("♻️ Resuming from checkpoint " + checkpoint.directory().toAbsolutePath() + ": "
+                        + checkpoint.doneCount() + " of " + checkpoint.partitionCount() + " partitions already reconciled");
             }
 
+            TradeLoader loader = loader(config);
+            SymbolDictionary symbols = new SymbolDictionary();
+            PartitionedTradeStore storeA = loader.loadPartitionedStore(userConfig.systemAPath(), symbols,
+                    checkpoint.partitionCount(), config.getTradePartitioner(), metrics.stage(RunMetrics.LOAD_A));
+            PartitionedTradeStore storeB = loader.loadPartitionedStore(userConfig.systemBPath(), symbols,
+                    checkpoint.partitionCount(), config.getTradePartitioner(), metrics.stage(RunMetrics.LOAD_B));
+            new ReconciliationService(config, metrics).reconcileStoresParallel(storeA, storeB, userConfig.threads(),
+                    checkpoint, userConfig.exceptionsOnly());
+
+            StageMetrics mergeStage = metrics.stage(RunMetrics.MERGE);
+            long begin = mergeStage.begin();
+            mergeStage.addBytes(checkpoint.mergeReports(path));
+            mergeStage.end(begin);
+            checkpoint.delete();
             System.out.println("✅ Results successfully saved to: " + path.toAbsolutePath());
+        } catch (Exception e) {
+            System.err.println("Error in checkpointed reconciliation: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Reconciles shard by shard in worker processes; the merged report always goes to a file.
+     */
+    private static void executeShardedReconciliation(UserConfig userConfig, AppConfig config, RunMetrics metrics) {
+        Path path = Path.of(userConfig.outputPath());
+        try {
+            new ShardCoordinator(config, metrics).reconcile(userConfig.systemAPath(), userConfig.systemBPath(), path);
+            System.out.println("✅ Results successfully saved to: " + path.toAbsolutePath());
         } catch (Exception e) {
-            System.err.println("Error writing CSV file: " + e.getMessage());
+            System.err.println("Error in sharded reconciliation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the run's results and serves them over HTTP until Enter is pressed.
+     */
+    private static void serveResults(List<MatchResult> results, AppConfig config) {
+        long begin = System.nanoTime();
+        ResultIndex index = new ResultIndex(results, config.isCaseInsensitiveSymbols());
+        System.out.printf("Indexed %d results in %d ms%n", index.size(), (System.nanoTime() - begin) / 1_000_000);
+
+        try (ResultQueryServer server = new ResultQueryServer(index, config)) {
+            server.start();
+            System.out.println("🌐 Serving results at http://localhost:" + server.port() + "/results and /summary"
+                    + " - press Enter to stop");
+            scanner.nextLine();
+        } catch (IOException e) {
+            System.err.println("❌ Error starting the results server: " + e.getMessage());
+        }
+    }
+
+    private static TradeLoader loader(AppConfig config) {
+        return config.isSnapshotEnabled()
+                ? new SnapshotTradeLoader(new FileTypeTradeLoader())
+                : new FileTypeTradeLoader();
+    }
+
+    /**
+     * With fuzzy matching on, missing results are held back until the reconciliation is done and
+     * then paired; everything else still streams.
+     */
+    private static void reconcile(UserConfig userConfig, AppConfig config, RunMetrics metrics, Consumer<MatchResult> sink) {
+        ReconciliationService service = new ReconciliationService(config, metrics);
+        if (userConfig.exceptionsOnly()) {
+            // the store paths don't produce matched results at all; this drops them on the others
+            Consumer<MatchResult> breaks = sink;
+            sink = result -> {
+                if (result.matchStatus() != MatchStatus.MATCHED) {
+                    breaks.accept(result);
+                }
+            };
         }
+        if (!userConfig.fuzzy()) {
+            reconcile(userConfig, config, metrics, service, sink);
+            return;
+        }
+
+        FuzzyMatcher.DeferringSink deferringSink = new FuzzyMatcher(service).sink(sink);
+        reconcile(userConfig, config, metrics, service, deferringSink);
+        deferringSink.finish();
     }
 
+    private static void reconcile(UserConfig userConfig, AppConfig config, RunMetrics metrics,
+                                  ReconciliationService service, Consumer<MatchResult> sink) {
+        TradeLoader loader = loader(config);
+
+        if (userConfig.aggregated()) {
+            List<Trade> systemA = loadTrades(loader, userConfig.systemAPath(), metrics.stage(RunMetrics.LOAD_A));
+            List<Trade> systemB = loadTrades(loader, userConfig.systemBPath(), metrics.stage(RunMetrics.LOAD_B));
+            for (AggregateMatchResult result : service.reconcileAggregated(systemA, systemB, userConfig.threads())) {
+                sink.accept(result.result());
+            }
+        } else if (userConfig.pipelined()) {
+            service.reconcilePipelined(loader, userConfig.systemAPath(), userConfig.systemBPath(),
+                    userConfig.threads(), sink);
+        } else if (userConfig.outOfCore()) {
+            // loading, sorting and merging interleave, so the whole run is one stage
+            StageMetrics compareStage = metrics.stage(RunMetrics.COMPARE);
+            long begin = compareStage.begin();
+            new ExternalSortReconciler(config, service)
+                    .reconcile(loader, userConfig.systemAPath(), userConfig.systemBPath(), sink);
+            compareStage.end(begin);
+        } else if (!userConfig.parallel()) {
+            SymbolDictionary symbols = new SymbolDictionary();
+            TradeStore storeA = loader.loadStore(userConfig.systemAPath(), symbols, metrics.stage(RunMetrics.LOAD_A));
+            TradeStore storeB = loader.loadStore(userConfig.systemBPath(), symbols, metrics.stage(RunMetrics.LOAD_B));
+
+            if (userConfig.exceptionsOnly()) {
+                service.reconcileStoresExceptions(storeA, storeB, sink);
+            } else {
+                service.reconcileStores(storeA, storeB, sink);
+            }
+        } else {
+            SymbolDictionary symbols = new SymbolDictionary();
+            int partitions = ParallelReconciler.partitionCount(userConfig.threads());
+            PartitionedTradeStore storeA = loader.loadPartitionedStore(userConfig.systemAPath(), symbols, partitions,
+                    config.getTradePartitioner(), metrics.stage(RunMetrics.LOAD_A));
+            PartitionedTradeStore storeB = loader.loadPartitionedStore(userConfig.systemBPath(), symbols, partitions,
+                    config.getTradePartitioner(), metrics.stage(RunMetrics.LOAD_B));
+
+            if (userConfig.exceptionsOnly()) {
+                service.reconcileStoresParallelExceptions(storeA, storeB, userConfig.threads(), sink);
+            } else {
+                service.reconcileStoresParallel(storeA, storeB, userConfig.threads(), sink);
+            }
+        }
+    }
+
+    private static List<Trade> loadTrades(TradeLoader loader, String path, StageMetrics stage) {
+        List<Trade> trades = new ArrayList<>();
+        loader.forEachTrade(path, trades::add, stage);
+        return trades;
+    }
+
+    private static void reportMetrics(AppConfig config, RunMetrics metrics) {
+        System.out.print(metrics.summary());
+
+        if (config.getMetricsSummaryFile().isEmpty()) {
+            return;
+        }
+
+        Path path = Path.of(config.getMetricsSummaryFile());
+        try {
+            metrics.writeJson(path);
+            System.out.println("Run summary saved to: " + path.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("Error writing run summary: " + e.getMessage());
+        }
+    }
+
+    private static UserConfig getUserConfig(AppConfig config) {
+        while (true) {
+            printWelcome();
+
+            String systemAPath = askForFile("Enter path for System A file:", "src/main/resources/sample/systemA.csv", false, null);
+            String systemBPath = askForFile("Enter path for System B file:", "src/main/resources/sample/systemB.csv", false, null);
+
+            boolean nWay = askYesNo("Reconcile against more systems as well (N-way)?", false);
+            List<String> otherSystemPaths = nWay ? askForMoreSystems() : List.of();
+
+            boolean parallel = !nWay && askYesNo("Run in parallel?", false);
+            int threads = (parallel ? askForThreads() : 1);
+            boolean aggregated = !nWay && askYesNo("Match grouped trades many-to-one (e.g. orders against their fills)?", false);
+            // shard files are split and written line by line as CSV
+            boolean sharded = !nWay && !parallel && !aggregated && isCsv(systemAPath) && isCsv(systemBPath)
+                    && askYesNo("Split into " + config.getShardCount() + " shards reconciled by worker processes (sharded)?", false);
+            boolean pipelined = !nWay && !aggregated && !sharded && askYesNo("Overlap loading, comparing and writing (pipelined)?", false);
+            boolean outOfCore = !nWay && !parallel && !aggregated && !sharded && !pipelined && askYesNo("Use out-of-core sort-merge mode (inputs larger than memory)?", false);
+            boolean incremental = !nWay && !parallel && !aggregated && !sharded && !pipelined && !outOfCore
+                    && askYesNo("Report only breaks changed since the previous run (incremental)?", false);
+            boolean summaryOnly = !nWay && !aggregated && !sharded && !pipelined && !outOfCore && !incremental
+                    && askYesNo("Report only counts and notional per status, symbol and side (summary-only)?", false);
+            boolean fuzzy = !nWay && !incremental && !aggregated && !sharded && !summaryOnly
+                    && askYesNo("Pair missing trades booked under different ids (fuzzy matching)?", false);
+            boolean exceptionsOnly = !nWay && !incremental && !sharded && !summaryOnly
+                    && askYesNo("Report only mismatched and missing trades (exceptions-only)?", false);
+            boolean serve = !nWay && !incremental && !sharded && !summaryOnly
+                    && askYesNo("Serve the results over HTTP for queries once the run is done (server mode)?", false);
+            // the shard reports are merged into a file, there is no console output to fall back to
+            boolean export = sharded || askYesNo("Export results to file?", false);
+            String reportExtension = ReportWriters.extension(config.getReportFormat());
+            String outputPath = (export ? askForFile("Enter output file path:", "results." + reportExtension, true, reportExtension) : null);
+            // partition reports are merged into the output file, so results can't stream anywhere else
+            boolean checkpointed = export && parallel && !aggregated && !pipelined && !summaryOnly && !fuzzy && !serve
+                    && askYesNo("Checkpoint finished partitions so a failed run resumes where it stopped?", false);
+
+            printSummary(systemAPath, systemBPath, otherSystemPaths, parallel, threads, aggregated, sharded, pipelined, outOfCore, incremental, summaryOnly, fuzzy, exceptionsOnly, serve, export, outputPath, checkpointed);
+
+            boolean confirmed = askYesNo("Continue with reconciliation? (Y to continue, N to restart, Exit to quit)", true);
+
+            if (!confirmed) {
+                System.out.println("Restarting the configuration...");
+            } else {
+               return new UserConfig(systemAPath, systemBPath, otherSystemPaths, parallel, threads, aggregated, sharded, pipelined, outOfCore, incremental, summaryOnly, fuzzy, exceptionsOnly, serve, export, outputPath, checkpointed);
+            }
+        }
+    }
 
     private static void printSummary(
             String systemAPath,
             String systemBPath,
+            List<String> otherSystemPaths,
             boolean parallel,
             int threads,
+            boolean aggregated,
+            boolean sharded,
+            boolean pipelined,
+            boolean outOfCore,
+            boolean incremental,
+            boolean summaryOnly,
+            boolean fuzzy,
+            boolean exceptionsOnly,
+            boolean serve,
             boolean export,
-            String outputPath) {
+            String outputPath,
+            boolean checkpointed) {
 
         System.out.println("\nSummary of inputs:");
         System.out.println("-------------------");
 
         System.out.println("System A file: " + systemAPath);
         System.out.println("System B file: " + systemBPath);
+        for (int i = 0; i < otherSystemPaths.size(); i++) {
+            System.out.println("System " + (char) ('C' + i) + " file: " + otherSystemPaths.get(i));
+        }
 
         if (parallel) {
             System.out.println("Parallel mode: yes (threads: " + threads + ")");
@@ -142,15 +564,80 @@ public class TradeReconciliationRunner {
             System.out.println("Parallel mode: no");
         }
 
+        if (aggregated) {
+            System.out.println("Aggregation matching: yes (many-to-one, grouped by the configured aggregation.key)");
+        }
+
+        if (sharded) {
+            System.out.println("Sharded: yes (one worker process per shard, see shard.count)");
+        }
+
+        if (pipelined) {
+            System.out.println("Pipelined: yes (loading, comparing and writing overlap)");
+        }
+
+        if (outOfCore) {
+            System.out.println("Out-of-core sort-merge: yes");
+        }
+
+        if (incremental) {
+            System.out.println("Incremental: yes (delta against the previous run)");
+        }
+
+        if (summaryOnly) {
+            System.out.println("Summary only: yes (counts and notional per status, symbol and side)");
+        }
+
+        if (fuzzy) {
+            System.out.println("Fuzzy matching: yes (pairs missing trades by symbol, side, quantity, price and time)");
+        }
+
+        if (exceptionsOnly) {
+            System.out.println("Exceptions only: yes (matched trades are not reported)");
+        }
+
+        if (serve) {
+            System.out.println("Server mode: yes (results are queryable over HTTP after the run)");
+        }
+
         if (export) {
             System.out.println("Export results: yes (output: " + outputPath + ")");
         } else {
             System.out.println("Export results: no");
         }
 
+        if (checkpointed) {
+            System.out.println("Checkpointed: yes (finished partitions are kept under checkpoint.dir until the run completes)");
+        }
+
         System.out.println("-------------------\n");
     }
 
+    /**
+     * Asks for system C, D, ... files until an empty answer, at least one.
+     */
+    private static List<String> askForMoreSystems() {
+        List<String> paths = new ArrayList<>();
+        while (true) {
+            System.out.println("Enter path for System " + (char) ('C' + paths.size()) + " file"
+                    + (paths.isEmpty() ? ":" : " (empty to finish):"));
+            String input = scanner.nextLine().trim();
+
+            if (input.isEmpty()) {
+                if (!paths.isEmpty()) {
+                    return paths;
+                }
+                System.out.println("⚠️  N-way reconciliation needs at least a third system.");
+            } else if (!Files.exists(Path.of(input))) {
+                System.out.println("File not found. Try again.");
+            } else if (TradeFileFormat.of(Path.of(input)) == null) {
+                System.out.println(UNSUPPORTED_INPUT);
+            } else {
+                paths.add(input);
+            }
+        }
+    }
+
     private static int askForThreads() {
         while (true) {
             System.out.println("Please provide number of threads");
@@ -191,15 +678,22 @@ public class TradeReconciliationRunner {
         }
     }
 
-    private static String askForFile(String prompt, String defaultFilename, boolean isOutput) {
+    private static boolean isCsv(String path) {
+        return TradeFileFormat.of(Path.of(path)) == TradeFileFormat.CSV;
+    }
+
+    /**
+     * @param extension required of output files; inputs may be in any {@link TradeFileFormat}
+     */
+    private static String askForFile(String prompt, String defaultFilename, boolean isOutput, String extension) {
         System.out.println(prompt);
         String input = scanner.nextLine().trim();
 
         String filename = input.isEmpty() ? defaultFilename : input;
 
-        if (!filename.toLowerCase().endsWith(".csv")) {
-            System.out.println("⚠️  Only CSV files are supported for now. Please enter a .csv file.");
-            return askForFile(prompt, defaultFilename, isOutput);
+        if (isOutput && !filename.toLowerCase().endsWith("." + extension)) {
+            System.out.println("⚠️  Only " + extension.toUpperCase() + " files are supported for now. Please enter a ." + extension + " file.");
+            return askForFile(prompt, defaultFilename, isOutput, extension);
         }
 
         Path path;
@@ -232,8 +726,9 @@ public class TradeReconciliationRunner {
 
         } else {
             path = Path.of(filename);
-            while (!Files.exists(path)) {
-                System.out.print("File not found. Try again or type 'exit' to quit: ");
+            while (!Files.exists(path) || TradeFileFormat.of(path) == null) {
+                System.out.print((Files.exists(path) ? UNSUPPORTED_INPUT : "File not found.")
+                        + " Try again or type 'exit' to quit: ");
                 input = scanner.nextLine().trim();
 
                 if (input.equalsIgnoreCase("exit")) {
@@ -241,14 +736,7 @@ public class TradeReconciliationRunner {
                     System.exit(0);
                 }
 
-                filename = input;
-
-                if (!filename.toLowerCase().endsWith(".csv")) {
-                    System.out.println("⚠️  Only CSV files are supported for now.");
-                    continue;
-                }
-
-                path = Path.of(filename);
+                path = Path.of(input);
             }
 
             return path.toString();
@@ -266,8 +754,72 @@ public class TradeReconciliationRunner {
 record UserConfig(
         String systemAPath,
         String systemBPath,
+        List<String> otherSystemPaths,
         boolean parallel,
         int threads,
+        boolean aggregated,
+        boolean sharded,
+        boolean pipelined,
+        boolean outOfCore,
+        boolean incremental,
+        boolean summaryOnly,
+        boolean fuzzy,
+        boolean exceptionsOnly,
+        boolean serve,
         boolean export,
-        String outputPath
-) {}
\ No newline at end of file
+        String outputPath,
+        boolean checkpointed
+) {
+
+    boolean nWay() {
+        return !otherSystemPaths.isEmpty();
+    }
+
+    /**
+     * Every system's file, A and B first.
+     */
+    List<String> systemPaths() {
+        List<String> paths = new ArrayList<>();
+        paths.add(systemAPath);
+        paths.add(systemBPath);
+        paths.addAll(otherSystemPaths);
+        return paths;
+    }
+}
+
+/**
+ * Times every call to the wrapped sink locally and reports the totals once, so that the
+ * per-result cost of measuring the write stage stays at two clock reads.
+ */
+final class TimedSink<T> implements Consumer<T> {
+
+    private final Consumer<T> sink;
+    private long firstBegin = Long.MAX_VALUE;
+    private long lastEnd;
+    private long busyNanos;
+    private long count;
+
+    TimedSink(Consumer<T> sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void accept(T value) {
+        long begin = System.nanoTime();
+        sink.accept(value);
+        long end = System.nanoTime();
+
+        firstBegin = Math.min(firstBegin, begin);
+        lastEnd = end;
+        busyNanos += end - begin;
+        count++;
+    }
+
+    void record(StageMetrics stage) {
+        if (count > 0) {
+            stage.add(firstBegin, lastEnd, busyNanos);
+        }
+        stage.addRowsIn(count);
+        stage.addRowsOut(count);
+    }
+}
@@ -0,0 +1,59 @@
+package com.traderecon.bench;
+
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeLoader;
+import com.traderecon.io.TradeFileFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares the loaders of every {@link TradeFileFormat} on the same generated trades, written as
+ * CSV, JSON Lines and a FIX drop-copy log, by loading each file into a {@link TradeStore}. Rows
+ * per second compare the loaders per trade, MB per second per byte of input; a JSON or FIX line
+ * is several times longer than a CSV one.
+ * <p>
+ * Usage: {@code FeedLoaderBenchmark [rows] [iterations]}
+ */
+public class FeedLoaderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        for (TradeFileFormat format : TradeFileFormat.values()) {
+            Path file = Files.createTempFile("trades-", switch (format) {
+                case CSV -> ".csv";
+                case JSON_LINES -> ".jsonl";
+                case FIX -> ".fix";
+            });
+            try {
+                new TradeFileGenerator(42, 500).writeFile(file, rows, format);
+                run(format, format.newLoader(), file, iterations);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void run(TradeFileFormat format, MappedTradeLoader loader, Path file, int iterations)
+            throws IOException {
+        // first pass warms up the JIT and the page cache
+        loader.loadStore(file.toString(), new SymbolDictionary());
+
+        long best = Long.MAX_VALUE;
+        int loaded = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            TradeStore store = loader.loadStore(file.toString(), new SymbolDictionary());
+            best = Math.min(best, System.nanoTime() - start);
+            loaded = store.size();
+        }
+
+        long bytes = Files.size(file);
+        System.out.printf("%-10s %,12d rows  %,14d bytes  best %,8.1f ms  %,14.0f rows/sec  %,8.1f MB/sec%n",
+                format, loaded, bytes, best / 1e6, loaded / (best / 1e9), bytes / 1e6 / (best / 1e9));
+    }
+}
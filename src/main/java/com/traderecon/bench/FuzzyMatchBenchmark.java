@@ -0,0 +1,85 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times fuzzy matching over {@code rows} trades missing in B and as many missing in A. A share
+ * of B's trades ({@code rebookedRate}) are A's trades rebooked under a new id, with the price
+ * and timestamp nudged inside the tolerances; the rest have no counterpart. Reports how many
+ * rebooked pairs were recovered; {@code FuzzyMatcherTest} checks the pairs themselves.
+ * <p>
+ * Usage: {@code FuzzyMatchBenchmark [rows] [rebookedRate] [symbols]}
+ */
+public class FuzzyMatchBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        double rebookedRate = args.length > 1 ? Double.parseDouble(args[1]) : 0.5;
+        int symbols = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        AppConfig config = new AppConfig();
+        Random random = new Random(42);
+        long start = TradeStore.toEpochNanos(LocalDateTime.of(2024, 1, 2, 9, 0));
+        long toleranceNanos = config.getFuzzyTimestampToleranceMillis() * 1_000_000L;
+
+        List<MatchResult> missing = new ArrayList<>(2 * rows);
+        int rebooked = 0;
+        for (int i = 0; i < rows; i++) {
+            Trade tradeA = new Trade(String.format("A%09d", i), "SYM" + random.nextInt(symbols),
+                    Math.round((50 + random.nextDouble() * 100) * 100) / 100.0, 1 + random.nextInt(1000),
+                    random.nextBoolean() ? ActionEnum.BUY : ActionEnum.SELL,
+                    start + (long) (random.nextDouble() * 8 * 3_600_000_000_000L));
+            missing.add(MatchResult.missingInB(tradeA));
+
+            Trade tradeB;
+            if (random.nextDouble() < rebookedRate) {
+                tradeB = new Trade("R" + tradeA.tradeId(), tradeA.symbol(),
+                        tradeA.price() + (random.nextDouble() - 0.5) * config.getFuzzyPriceTolerance(),
+                        tradeA.quantity(), tradeA.action(),
+                        tradeA.timestamp() + (long) ((random.nextDouble() - 0.5) * toleranceNanos));
+                rebooked++;
+            } else {
+                tradeB = new Trade(String.format("B%09d", i), "SYM" + random.nextInt(symbols),
+                        Math.round((50 + random.nextDouble() * 100) * 100) / 100.0, 1 + random.nextInt(1000),
+                        random.nextBoolean() ? ActionEnum.BUY : ActionEnum.SELL,
+                        start + (long) (random.nextDouble() * 8 * 3_600_000_000_000L));
+            }
+            missing.add(MatchResult.missingInA(tradeB));
+        }
+
+        ReconciliationService service = new ReconciliationService(config);
+        List<MatchResult> results = null;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long begin = System.nanoTime();
+            results = service.matchFuzzy(missing);
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+
+        int pairs = 0;
+        int recovered = 0;
+        for (MatchResult result : results) {
+            if (result.matchStatus() == MatchStatus.FUZZY_MATCHED) {
+                pairs++;
+                if (result.tradeB().tradeId().equals("R" + result.tradeA().tradeId())) {
+                    recovered++;
+                }
+            }
+        }
+        System.out.printf("%,d missing in B, %,d missing in A (%,d rebooked): best %,.1f ms%n",
+                rows, rows, rebooked, best / 1e6);
+        System.out.printf("%,d fuzzy pairs, %,d of them the rebooked counterpart (%.1f%% of rebooked recovered)%n",
+                pairs, recovered, 100.0 * recovered / Math.max(1, rebooked));
+    }
+}
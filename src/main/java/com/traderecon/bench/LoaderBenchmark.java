@@ -0,0 +1,52 @@
+package com.traderecon.bench;
+
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeCsvLoader;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compares rows/sec of {@link TradeCsvLoader} and {@link MappedTradeCsvLoader} on a generated file.
+ * <p>
+ * Usage: {@code LoaderBenchmark [rows] [iterations]}
+ */
+public class LoaderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path file = Files.createTempFile("trades-", ".csv");
+        try {
+            new TradeFileGenerator(42, 500).writeFile(file, rows);
+            System.out.printf("Generated %,d rows (%,d bytes)%n", rows, Files.size(file));
+
+            run("TradeCsvLoader", new TradeCsvLoader(), file, iterations);
+            run("MappedTradeCsvLoader", new MappedTradeCsvLoader(), file, iterations);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void run(String name, TradeLoader loader, Path file, int iterations) {
+        // first pass warms up the JIT and the page cache
+        loader.loadTrades(file.toString());
+
+        long best = Long.MAX_VALUE;
+        int loaded = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            List<Trade> trades = loader.loadTrades(file.toString());
+            best = Math.min(best, System.nanoTime() - start);
+            loaded = trades.size();
+        }
+
+        System.out.printf("%-22s %,12d rows  best %,8.1f ms  %,14.0f rows/sec%n",
+                name, loaded, best / 1e6, loaded / (best / 1e9));
+    }
+}
@@ -0,0 +1,70 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.ParallelReconciler;
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures how {@link ReconciliationService#reconcileStoresParallel} scales with the number of
+ * threads (1, 2, 4, ... up to {@code maxThreads}). Speedup is relative to the single-threaded
+ * run; it can only approach linear while the thread count stays within the machine's cores.
+ * <p>
+ * Usage: {@code ParallelScalingBenchmark [rows] [maxThreads] [iterations]}
+ */
+public class ParallelScalingBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path fileA = Files.createTempFile("systemA-", ".csv");
+        Path fileB = Files.createTempFile("systemB-", ".csv");
+        try {
+            new TradeFileGenerator(42, 500).writePair(fileA, fileB, rows, 0.02, 0.01);
+            System.out.printf("%d rows per system, %d cores available%n", rows, Runtime.getRuntime().availableProcessors());
+
+            TradeLoader loader = new MappedTradeCsvLoader();
+            ReconciliationService service = new ReconciliationService(new AppConfig());
+
+            double baseline = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                SymbolDictionary symbols = new SymbolDictionary();
+                int partitions = ParallelReconciler.partitionCount(threads);
+                PartitionedTradeStore storeA = loader.loadPartitionedStore(fileA.toString(), symbols, partitions);
+                PartitionedTradeStore storeB = loader.loadPartitionedStore(fileB.toString(), symbols, partitions);
+
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    service.reconcileStoresParallel(storeA, storeB, threads);
+                }
+
+                long best = Long.MAX_VALUE;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    service.reconcileStoresParallel(storeA, storeB, threads);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+
+                double millis = best / 1e6;
+                if (threads == 1) {
+                    baseline = millis;
+                }
+                System.out.printf("threads %2d  partitions %4d  best %,9.1f ms  speedup %5.2fx  efficiency %5.1f%%%n",
+                        threads, partitions, millis, baseline / millis, 100 * baseline / millis / threads);
+            }
+        } finally {
+            Files.deleteIfExists(fileA);
+            Files.deleteIfExists(fileB);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.ReportWriter;
+import com.traderecon.io.ReportWriters;
+import com.traderecon.io.TradeLoader;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * End-to-end wall time of load, reconcile and CSV export for a generated pair of files, run
+ * sequentially (load A, load B, reconcile stores, write) and pipelined, next to the busy time
+ * of each pipelined stage.
+ * <p>
+ * Usage: {@code PipelineBenchmark [rows] [joiners] [iterations]}
+ */
+public class PipelineBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int joiners = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path fileA = Files.createTempFile("systemA-", ".csv");
+        Path fileB = Files.createTempFile("systemB-", ".csv");
+        Path report = Files.createTempFile("report-", ".csv");
+        try {
+            new TradeFileGenerator(42, 500).writePair(fileA, fileB, rows, 0.02, 0.05);
+            String pathA = fileA.toString();
+            String pathB = fileB.toString();
+            TradeLoader loader = new MappedTradeCsvLoader();
+            AppConfig config = new AppConfig();
+            System.out.printf("%d rows per system%n", rows);
+
+
+            run("sequential", iterations, () -> {
+                ReconciliationService service = new ReconciliationService(config);
+                SymbolDictionary symbols = new SymbolDictionary();
+                TradeStore storeA = loader.loadStore(pathA, symbols);
+                TradeStore storeB = loader.loadStore(pathB, symbols);
+                List<MatchResult> results = service.reconcileStores(storeA, storeB);
+                try (ReportWriter writer = ReportWriters.create("CSV", report)) {
+                    results.forEach(writer.asConsumer());
+                }
+                return null;
+            });
+
+            RunMetrics[] last = new RunMetrics[1];
+            run("pipelined (" + joiners + " joiners)", iterations, () -> {
+                RunMetrics metrics = new RunMetrics();
+                try (ReportWriter writer = ReportWriters.create("CSV", report)) {
+                    new ReconciliationService(config, metrics)
+                            .reconcilePipelined(loader, pathA, pathB, joiners, writer.asConsumer());
+                }
+                last[0] = metrics;
+                return null;
+            });
+
+            for (StageMetrics stage : last[0].stages()) {
+                System.out.printf("  %-8s busy %,8.1f ms  wall %,8.1f ms%n",
+                        stage.name(), stage.busyNanos() / 1e6, stage.wallNanos() / 1e6);
+            }
+        } finally {
+            Files.deleteIfExists(fileA);
+            Files.deleteIfExists(fileB);
+            Files.deleteIfExists(report);
+        }
+    }
+
+    private interface Job {
+        Void run() throws IOException;
+    }
+
+    private static void run(String name, int iterations, Job job) throws IOException {
+        job.run();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            job.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-22s best %,8.1f ms%n", name, best / 1e6);
+    }
+}
@@ -0,0 +1,148 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.LatencyHistogram;
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+import com.traderecon.server.ResultIndex;
+import com.traderecon.server.ResultQueryServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the results query server: reconciles a generated pair of files, indexes the
+ * results and serves them on a free port, then runs {@code clients} virtual-thread clients that
+ * send random filtered, paged {@code /results} queries and {@code /summary} queries for
+ * {@code seconds}. Reports queries per second and the p50/p99 latency seen by the clients.
+ * <p>
+ * Usage: {@code QueryServerLoadTest [rows] [clients] [seconds]}
+ */
+public class QueryServerLoadTest {
+
+    private static final int SYMBOLS = 500;
+    private static final MatchStatus[] STATUSES = MatchStatus.values();
+    private static final ActionEnum[] ACTIONS = ActionEnum.values();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        AppConfig config = new AppConfig();
+        List<MatchResult> results = reconcile(rows, config);
+
+        long begin = System.nanoTime();
+        ResultIndex index = new ResultIndex(results, config.isCaseInsensitiveSymbols());
+        System.out.printf("%,d results indexed in %,.1f ms%n", index.size(), (System.nanoTime() - begin) / 1e6);
+
+        try (ResultQueryServer server = new ResultQueryServer(index, 0, config.getServerMaxPageSize());
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            server.start();
+            String base = "http://localhost:" + server.port();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            AtomicLong errors = new AtomicLong();
+            List<LatencyHistogram> histograms = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                LatencyHistogram histogram = new LatencyHistogram();
+                histograms.add(histogram);
+                Random random = new Random(42 + i);
+                threads.add(Thread.ofVirtual().start(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(base + randomQuery(random))).build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            histogram.record(System.nanoTime() - sent);
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            LatencyHistogram latencies = new LatencyHistogram();
+            histograms.forEach(latencies::merge);
+            System.out.printf("%d clients for %d s: %,d queries, %,d errors, %,.0f queries/s%n",
+                    clients, seconds, latencies.count(), errors.get(), latencies.count() / (elapsed / 1e9));
+            System.out.printf("latency p50 %,.2f ms  p99 %,.2f ms  max %,.2f ms%n",
+                    latencies.percentileNanos(50) / 1e6, latencies.percentileNanos(99) / 1e6,
+                    latencies.max(TimeUnit.MICROSECONDS) / 1e3);
+        }
+    }
+
+    private static List<MatchResult> reconcile(int rows, AppConfig config) throws IOException {
+        Path fileA = Files.createTempFile("systemA-", ".csv");
+        Path fileB = Files.createTempFile("systemB-", ".csv");
+        try {
+            new TradeFileGenerator(42, SYMBOLS).writePair(fileA, fileB, rows, 0.02, 0.05);
+            TradeLoader loader = new MappedTradeCsvLoader();
+            SymbolDictionary symbols = new SymbolDictionary();
+            TradeStore storeA = loader.loadStore(fileA.toString(), symbols);
+            TradeStore storeB = loader.loadStore(fileB.toString(), symbols);
+            return new ReconciliationService(config).reconcileStores(storeA, storeB);
+        } finally {
+            Files.deleteIfExists(fileA);
+            Files.deleteIfExists(fileB);
+        }
+    }
+
+    /**
+     * Two in three queries are for a page of results, each filter set half of the time; the rest
+     * are summaries.
+     */
+    private static String randomQuery(Random random) {
+        boolean summary = random.nextInt(3) == 0;
+        StringJoiner query = new StringJoiner("&", summary ? "/summary?" : "/results?", "");
+        if (!summary && random.nextBoolean()) {
+            query.add("status=" + STATUSES[random.nextInt(STATUSES.length)]);
+        }
+        if (random.nextBoolean()) {
+            query.add("symbol=SYM" + random.nextInt(SYMBOLS));
+        }
+        if (random.nextBoolean()) {
+            query.add("side=" + ACTIONS[random.nextInt(ACTIONS.length)]);
+        }
+        if (!summary) {
+            query.add("offset=" + random.nextInt(5) * 100);
+            query.add("limit=100");
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Times {@link ReconciliationService#reconcileTrades} against
+ * {@link ReconciliationService#reconcileTradesHashJoin} on a generated pair. That both produce
+ * the same results is tested by {@code HashJoinReconcilerTest}.
+ * <p>
+ * Usage: {@code ReconciliationBenchmark [rows] [iterations]}
+ */
+public class ReconciliationBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path fileA = Files.createTempFile("systemA-", ".csv");
+        Path fileB = Files.createTempFile("systemB-", ".csv");
+        try {
+            new TradeFileGenerator(42, 500).writePair(fileA, fileB, rows, 0.02, 0.01);
+
+            TradeLoader loader = new MappedTradeCsvLoader();
+            List<Trade> systemA = loader.loadTrades(fileA.toString());
+            List<Trade> systemB = loader.loadTrades(fileB.toString());
+            ReconciliationService service = new ReconciliationService(new AppConfig());
+
+            run("reconcileTrades", service::reconcileTrades, systemA, systemB, iterations);
+            run("reconcileTradesHashJoin", service::reconcileTradesHashJoin, systemA, systemB, iterations);
+        } finally {
+            Files.deleteIfExists(fileA);
+            Files.deleteIfExists(fileB);
+        }
+    }
+
+    private static void run(String name, BiFunction<List<Trade>, List<Trade>, List<MatchResult>> strategy,
+                            List<Trade> systemA, List<Trade> systemB, int iterations) {
+        // first pass warms up the JIT
+        strategy.apply(systemA, systemB);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            strategy.apply(systemA, systemB);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-24s best %,8.1f ms  %,14.0f trades/sec%n",
+                name, best / 1e6, (systemA.size() + systemB.size()) / (best / 1e9));
+    }
+}
@@ -0,0 +1,100 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.ReportWriter;
+import com.traderecon.io.ReportWriters;
+import com.traderecon.io.TradeLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Output throughput in MB/s of the CSV and JSON Lines report writers, next to the
+ * {@code BufferedWriter} + {@code String.join} export the runner used before them.
+ * <p>
+ * Usage: {@code ReportWriterBenchmark [rows] [iterations]}
+ */
+public class ReportWriterBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path fileA = Files.createTempFile("systemA-", ".csv");
+        Path fileB = Files.createTempFile("systemB-", ".csv");
+        Path report = Files.createTempFile("report-", ".out");
+        try {
+            new TradeFileGenerator(42, 500).writePair(fileA, fileB, rows, 0.02, 0.05);
+
+            TradeLoader loader = new MappedTradeCsvLoader();
+            List<MatchResult> results = new ReconciliationService(new AppConfig()).reconcileTradesHashJoin(
+                    loader.loadTrades(fileA.toString()), loader.loadTrades(fileB.toString()));
+
+            run("String.join baseline", report, iterations, () -> writeBaseline(results, report));
+            run("CsvReportWriter", report, iterations, () -> write("CSV", results, report));
+            run("JsonLinesReportWriter", report, iterations, () -> write("JSON", results, report));
+        } finally {
+            Files.deleteIfExists(fileA);
+            Files.deleteIfExists(fileB);
+            Files.deleteIfExists(report);
+        }
+    }
+
+    private interface Job {
+        void run() throws IOException;
+    }
+
+    private static void run(String name, Path report, int iterations, Job job) throws IOException {
+        job.run();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            job.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        long bytes = Files.size(report);
+        System.out.printf("%-22s %,12d bytes  best %,8.1f ms  %,8.1f MB/s%n",
+                name, bytes, best / 1e6, bytes / 1e6 / (best / 1e9));
+    }
+
+    private static void write(String format, List<MatchResult> results, Path report) throws IOException {
+        try (ReportWriter writer = ReportWriters.create(format, report)) {
+            for (MatchResult result : results) {
+                writer.write(result);
+            }
+        }
+    }
+
+    private static void writeBaseline(List<MatchResult> results, Path report) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(report)) {
+            writer.write("TradeID,Status,SymbolA,ActionA,PriceA,QuantityA,SymbolB,ActionB,PriceB,QuantityB,Differences");
+            writer.newLine();
+
+            for (MatchResult match : results) {
+                Trade tradeA = match.tradeA();
+                Trade tradeB = match.tradeB();
+
+                writer.write(String.join(",", match.tradeId(), match.matchStatus().name(),
+                        tradeA != null ? tradeA.symbol() : "",
+                        tradeA != null ? tradeA.action().name() : "",
+                        tradeA != null ? String.valueOf(tradeA.price()) : "",
+                        tradeA != null ? String.valueOf(tradeA.quantity()) : "",
+                        tradeB != null ? tradeB.symbol() : "",
+                        tradeB != null ? tradeB.action().name() : "",
+                        tradeB != null ? String.valueOf(tradeB.price()) : "",
+                        tradeB != null ? String.valueOf(tradeB.quantity()) : "",
+                        String.join(";", match.differences())));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.traderecon.bench;
+
+import com.traderecon.compare.LatencyHistogram;
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.compare.StreamingReconciler;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.io.CsvReplayFeed;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeFeed;
+import com.traderecon.io.TradeLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Replays a generated pair of trade files through {@link StreamingReconciler} as timed feeds,
+ * both files at {@code tradesPerSecond} each, system B lagging by {@code lagMillis}, and reports
+ * p50/p99 match latency (arrival of the completing trade to emission of its result).
+ * <p>
+ * Usage: {@code StreamingReplayBenchmark [rows] [tradesPerSecond] [lagMillis] [windowMillis]}
+ */
+public class StreamingReplayBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        double tradesPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : 200_000;
+        long lagMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        long windowMillis = args.length > 3 ? Long.parseLong(args[3]) : new AppConfig().getStreamingWindowMillis();
+
+        Path fileA = Files.createTempFile("systemA-", ".csv");
+        Path fileB = Files.createTempFile("systemB-", ".csv");
+        try {
+            new TradeFileGenerator(42, 500).writePair(fileA, fileB, rows, 0.02, 0.01);
+
+            TradeLoader loader = new MappedTradeCsvLoader();
+            ReconciliationService service = new ReconciliationService(new AppConfig());
+
+            Map<MatchStatus, Integer> counts = new EnumMap<>(MatchStatus.class);
+            long start = System.nanoTime();
+            StreamingReconciler engine = replay(service,
+                    new CsvReplayFeed(loader, fileA.toString(), tradesPerSecond, 0, TimeUnit.MILLISECONDS),
+                    new CsvReplayFeed(loader, fileB.toString(), tradesPerSecond, lagMillis, TimeUnit.MILLISECONDS),
+                    Duration.ofMillis(windowMillis), new AppConfig().getStreamingMaxPending(),
+                    result -> counts.merge(result.matchStatus(), 1, Integer::sum));
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            LatencyHistogram latency = engine.matchLatency();
+            System.out.printf("replay at %,.0f trades/s per feed, B lagging %d ms, window %d ms: %.1f s%n",
+                    tradesPerSecond, lagMillis, windowMillis, seconds);
+            System.out.println("results: " + counts);
+            System.out.printf("match latency p50 %,d us  p99 %,d us  max %,d us (%,d matches)%n",
+                    latency.percentileNanos(50) / 1_000, latency.percentileNanos(99) / 1_000,
+                    latency.max(TimeUnit.MICROSECONDS), latency.count());
+            System.out.printf("peak window %,d ids, %,d expired early%n", engine.peakPending(), engine.expiredEarly());
+        } finally {
+            Files.deleteIfExists(fileA);
+            Files.deleteIfExists(fileB);
+        }
+    }
+
+    private static StreamingReconciler replay(ReconciliationService service, TradeFeed feedA, TradeFeed feedB,
+                                              Duration window, int maxPending, Consumer<MatchResult> sink)
+            throws InterruptedException {
+        StreamingReconciler engine = new StreamingReconciler(service, window, maxPending, sink);
+        engine.start();
+
+        Thread threadA = new Thread(() -> feedA.run(engine.systemA()), "feed-a");
+        Thread threadB = new Thread(() -> feedB.run(engine.systemB()), "feed-b");
+        threadA.start();
+        threadB.start();
+        threadA.join();
+        threadB.join();
+
+        engine.awaitCompletion();
+        return engine;
+    }
+}
@@ -0,0 +1,233 @@
+package com.traderecon.bench;
+
+import com.traderecon.io.TradeFileFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+/**
+ * Writes deterministic synthetic trade files in the same layout as the sample inputs. The same
+ * seed, symbol count and {@link PairSpec} always produce byte-identical files.
+ */
+public class TradeFileGenerator {
+
+    static final String HEADER = "tradeId,symbol,side,price,quantity";
+
+    private static final Instant FIRST_EXECUTION = Instant.parse("2024-01-02T09:00:00Z");
+    private static final DateTimeFormatter FIX_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+    private static final char SOH = '\u0001';
+
+    private final long seed;
+    private final int symbolCount;
+
+    /**
+     * @param symbolCount symbol cardinality: symbols are drawn uniformly from {@code SYM0..SYM<n-1>}
+     */
+    public TradeFileGenerator(long seed, int symbolCount) {
+        this.seed = seed;
+        this.symbolCount = symbolCount;
+    }
+
+    public void writeFile(Path path, int rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            for (int i = 0; i < rows; i++) {
+                writer.write(row(i, random));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes the trades of {@link #writeFile(Path, int)} in {@code format}, each with an execution
+     * time one millisecond after the previous one: CSV gets a timestamp column, JSON Lines one
+     * object per trade and FIX one execution report per trade, as a drop-copy log would.
+     */
+    public void writeFile(Path path, int rows, TradeFileFormat format) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            if (format == TradeFileFormat.CSV) {
+                writer.write(HEADER + ",timestamp");
+                writer.newLine();
+            }
+
+            for (int i = 0; i < rows; i++) {
+                String tradeId = String.format("T%09d", i);
+                String symbol = "SYM" + random.nextInt(symbolCount);
+                String side = random.nextBoolean() ? "BUY" : "SELL";
+                double price = Math.round(random.nextDouble(1, 5000) * 100) / 100.0;
+                int quantity = random.nextInt(1, 10_000);
+                Instant executed = FIRST_EXECUTION.plusMillis(i);
+
+                writer.write(switch (format) {
+                    case CSV -> row(tradeId, symbol, side, price, quantity) + "," + executed;
+                    case JSON_LINES -> "{\"tradeId\":\"" + tradeId + "\",\"symbol\":\"" + symbol + "\",\"side\":\""
+                            + side + "\",\"price\":" + price + ",\"quantity\":" + quantity + ",\"timestamp\":\""
+                            + executed + "\"}";
+                    case FIX -> executionReport(i + 1, tradeId, symbol, side, price, quantity, executed);
+                });
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * A filled FIX 4.4 execution report with a correct body length and checksum.
+     */
+    private static String executionReport(int sequence, String tradeId, String symbol, String side, double price,
+                                          int quantity, Instant executed) {
+        String time = FIX_TIME.format(executed);
+        String body = "35=8" + SOH + "49=BROKER" + SOH + "56=DESK" + SOH + "34=" + sequence + SOH + "52=" + time + SOH
+                + "37=O" + tradeId.substring(1) + SOH + "17=" + tradeId + SOH + "150=F" + SOH + "39=2" + SOH
+                + "55=" + symbol + SOH + "54=" + (side.equals("BUY") ? "1" : "2") + SOH + "32=" + quantity + SOH
+                + "31=" + price + SOH + "60=" + time + SOH;
+        String head = "8=FIX.4.4" + SOH + "9=" + body.getBytes(StandardCharsets.US_ASCII).length + SOH;
+
+        int checksum = 0;
+        for (byte b : (head + body).getBytes(StandardCharsets.US_ASCII)) {
+            checksum += b;
+        }
+        return head + body + String.format("10=%03d", checksum & 0xFF) + SOH;
+    }
+
+    /**
+     * Writes a System A / System B pair over the same trade ids. Each id is dropped from one of
+     * the two files with probability {@code missingRate} and has its price changed in System B
+     * with probability {@code mismatchRate}.
+     */
+    public void writePair(Path systemA, Path systemB, int rows, double missingRate, double mismatchRate)
+            throws IOException {
+        writePair(systemA, systemB, new PairSpec(rows, missingRate, mismatchRate, 0, MismatchMix.PRICE_ONLY));
+    }
+
+    /**
+     * Writes a System A / System B pair over the same trade ids, as described by {@code spec}.
+     * Trades that are neither missing nor mismatched match exactly, so the match rate is
+     * {@code 1 - missingRate - mismatchRate} (ignoring duplicates).
+     */
+    public void writePair(Path systemA, Path systemB, PairSpec spec) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        try (BufferedWriter writerA = Files.newBufferedWriter(systemA);
+             BufferedWriter writerB = Files.newBufferedWriter(systemB)) {
+            writerA.write(HEADER);
+            writerA.newLine();
+            writerB.write(HEADER);
+            writerB.newLine();
+
+            for (int i = 0; i < spec.rows(); i++) {
+                String tradeId = String.format("T%09d", i);
+                String symbol = "SYM" + random.nextInt(symbolCount);
+                String side = random.nextBoolean() ? "BUY" : "SELL";
+                double price = Math.round(random.nextDouble(1, 5000) * 100) / 100.0;
+                int quantity = random.nextInt(1, 10_000);
+
+                // every draw happens for every row, so changing one rate doesn't reshuffle the rest
+                double outcome = random.nextDouble();
+                boolean missingInA = random.nextBoolean();
+                double field = random.nextDouble();
+                boolean duplicateInA = random.nextDouble() < spec.duplicateRate();
+                boolean duplicateInB = random.nextDouble() < spec.duplicateRate();
+
+                boolean missing = outcome < spec.missingRate();
+                boolean mismatch = !missing && outcome < spec.missingRate() + spec.mismatchRate();
+
+                String symbolB = symbol;
+                String sideB = side;
+                double priceB = price;
+                int quantityB = quantity;
+                if (mismatch) {
+                    switch (spec.mismatchMix().pick(field)) {
+                        case PRICE -> priceB = price + 0.01;
+                        case QUANTITY -> quantityB = quantity + 1;
+                        case ACTION -> sideB = side.equals("BUY") ? "SELL" : "BUY";
+                        case SYMBOL -> symbolB = symbol + "X";
+                    }
+                }
+
+                if (!missing || !missingInA) {
+                    String row = row(tradeId, symbol, side, price, quantity);
+                    writeRow(writerA, row, duplicateInA);
+                }
+                if (!missing || missingInA) {
+                    String row = row(tradeId, symbolB, sideB, priceB, quantityB);
+                    writeRow(writerB, row, duplicateInB);
+                }
+            }
+        }
+    }
+
+    private static void writeRow(BufferedWriter writer, String row, boolean duplicate) throws IOException {
+        writer.write(row);
+        writer.newLine();
+        if (duplicate) {
+            writer.write(row);
+            writer.newLine();
+        }
+    }
+
+    private String row(int index, SplittableRandom random) {
+        String tradeId = String.format("T%09d", index);
+        String symbol = "SYM" + random.nextInt(symbolCount);
+        String side = random.nextBoolean() ? "BUY" : "SELL";
+        double price = Math.round(random.nextDouble(1, 5000) * 100) / 100.0;
+        int quantity = random.nextInt(1, 10_000);
+
+        return row(tradeId, symbol, side, price, quantity);
+    }
+
+    private static String row(String tradeId, String symbol, String side, double price, int quantity) {
+        // price before quantity: the loaders read column 4 as price
+        return tradeId + "," + symbol + "," + side + "," + price + "," + quantity;
+    }
+
+    /**
+     * Shape of a generated A/B pair.
+     *
+     * @param missingRate   probability that an id is dropped from one of the two files
+     * @param mismatchRate  probability that an id present in both files differs in System B
+     * @param duplicateRate probability, per file, that a row is written twice
+     * @param mismatchMix   which field a mismatch changes
+     */
+    public record PairSpec(int rows, double missingRate, double mismatchRate, double duplicateRate,
+                           MismatchMix mismatchMix) {
+    }
+
+    /**
+     * Relative weights of the fields a mismatch changes; they don't need to sum to one.
+     */
+    public record MismatchMix(double price, double quantity, double action, double symbol) {
+
+        public static final MismatchMix PRICE_ONLY = new MismatchMix(1, 0, 0, 0);
+        public static final MismatchMix EVEN = new MismatchMix(1, 1, 1, 1);
+
+        enum Field { PRICE, QUANTITY, ACTION, SYMBOL }
+
+        Field pick(double uniform) {
+            double point = uniform * (price + quantity + action + symbol);
+            if (point < price) {
+                return Field.PRICE;
+            }
+            if (point < price + quantity) {
+                return Field.QUANTITY;
+            }
+            if (point < price + quantity + action) {
+                return Field.ACTION;
+            }
+            return Field.SYMBOL;
+        }
+    }
+}
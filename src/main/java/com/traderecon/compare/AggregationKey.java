@@ -0,0 +1,83 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Group key of aggregation matching, configured as a comma-separated list of components
+ * ({@code aggregation.key}):
+ * <ul>
+ *     <li>{@code orderId}: the trade id up to its first {@code aggregation.order.separator}, so
+ *     fills {@code ORD1.1} and {@code ORD1.2} group with the parent {@code ORD1}</li>
+ *     <li>{@code symbol}: folded when symbols compare case-insensitively</li>
+ *     <li>{@code side}</li>
+ *     <li>{@code date}: the trade date of the timestamp</li>
+ * </ul>
+ */
+public final class AggregationKey {
+
+    private enum Component {
+        ORDER_ID, SYMBOL, SIDE, DATE
+    }
+
+    private final Component[] components;
+    private final String orderSeparator;
+    private final boolean caseInsensitiveSymbols;
+
+    private AggregationKey(Component[] components, String orderSeparator, boolean caseInsensitiveSymbols) {
+        this.components = components;
+        this.orderSeparator = orderSeparator;
+        this.caseInsensitiveSymbols = caseInsensitiveSymbols;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown or missing component
+     */
+    public static AggregationKey parse(String spec, String orderSeparator, boolean caseInsensitiveSymbols) {
+        List<Component> components = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String name = part.trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) {
+                continue;
+            }
+            components.add(switch (name) {
+                case "orderid", "order" -> Component.ORDER_ID;
+                case "symbol" -> Component.SYMBOL;
+                case "side", "action" -> Component.SIDE;
+                case "date" -> Component.DATE;
+                default -> throw new IllegalArgumentException("Unknown aggregation key component: " + part.trim());
+            });
+        }
+        if (components.isEmpty()) {
+            throw new IllegalArgumentException("Aggregation key has no components: " + spec);
+        }
+        return new AggregationKey(components.toArray(new Component[0]), orderSeparator, caseInsensitiveSymbols);
+    }
+
+    public String of(Trade trade) {
+        StringBuilder key = new StringBuilder();
+        for (Component component : components) {
+            if (!key.isEmpty()) {
+                key.append('|');
+            }
+            switch (component) {
+                case ORDER_ID -> key.append(orderId(trade.tradeId()));
+                case SYMBOL -> key.append(caseInsensitiveSymbols ? SymbolDictionary.fold(trade.symbol()) : trade.symbol());
+                case SIDE -> key.append(trade.action());
+                case DATE -> key.append(trade.timestamp() == TradeStore.NO_TIMESTAMP
+                        ? "-" : TradeStore.toLocalDateTime(trade.timestamp()).toLocalDate());
+            }
+        }
+        return key.toString();
+    }
+
+    private String orderId(String tradeId) {
+        int separator = orderSeparator.isEmpty() ? -1 : tradeId.indexOf(orderSeparator);
+        return separator > 0 ? tradeId.substring(0, separator) : tradeId;
+    }
+}
@@ -0,0 +1,203 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.AggregateMatchResult;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Many-to-one matching: instead of pairing trades by id, groups each system's trades by an
+ * {@link AggregationKey} (e.g. order id, or symbol + side + date) and compares the groups'
+ * summed quantity and quantity-weighted average price, so a parent order booked in one system
+ * matches the fills booked in the other.
+ * <p>
+ * Trades are grouped by counting sort into one row permutation per system, so a group is a
+ * range of that permutation: sums are accumulated in primitives straight from the trades, and
+ * {@link AggregateMatchResult}'s constituents are views over the input lists. Key extraction,
+ * aggregation and comparison run in parallel on the shared pool of {@link ParallelReconciler}.
+ */
+public class AggregationReconciler {
+
+    private final ReconciliationService reconciliationService;
+    private final AggregationKey key;
+    private final ForkJoinPool pool;
+
+    public AggregationReconciler(ReconciliationService reconciliationService, AggregationKey key, int numberOfThreads) {
+        this.reconciliationService = reconciliationService;
+        this.key = key;
+        this.pool = ParallelReconciler.pool(numberOfThreads);
+    }
+
+    /**
+     * @return one result per group key found in either system, in no particular order
+     */
+    public List<AggregateMatchResult> reconcile(List<Trade> systemA, List<Trade> systemB) {
+        RunMetrics metrics = reconciliationService.metrics();
+
+        StageMetrics mapStage = metrics.stage(RunMetrics.MAP);
+        long mapBegin = mapStage.begin();
+        String[] keysA = keys(systemA);
+        String[] keysB = keys(systemB);
+        Map<String, Integer> groupIds = new HashMap<>();
+        int[] groupsA = assignGroups(keysA, groupIds);
+        int[] groupsB = assignGroups(keysB, groupIds);
+        String[] groupKeys = new String[groupIds.size()];
+        groupIds.forEach((groupKey, group) -> groupKeys[group] = groupKey);
+
+        Groups sideA = new Groups(systemA, groupsA, groupKeys.length);
+        Groups sideB = new Groups(systemB, groupsB, groupKeys.length);
+        mapStage.end(mapBegin);
+        mapStage.addRowsIn(systemA.size() + systemB.size());
+        mapStage.addRowsOut(groupKeys.length);
+
+        StageMetrics compareStage = metrics.stage(RunMetrics.COMPARE);
+        long compareBegin = compareStage.begin();
+        List<AggregateMatchResult> results = pool.submit(() -> IntStream.range(0, groupKeys.length)
+                .parallel()
+                .mapToObj(group -> compare(groupKeys[group], sideA, sideB, group))
+                .toList()).join();
+        compareStage.end(compareBegin);
+        compareStage.addRowsIn(groupKeys.length);
+        compareStage.addRowsOut(results.size());
+
+        return results;
+    }
+
+    private AggregateMatchResult compare(String groupKey, Groups sideA, Groups sideB, int group) {
+        List<Trade> tradesA = sideA.constituents(group);
+        List<Trade> tradesB = sideB.constituents(group);
+        Trade summaryA = summary(groupKey, tradesA);
+        Trade summaryB = summary(groupKey, tradesB);
+
+        MatchResult result;
+        if (summaryB == null) {
+            result = MatchResult.missingInB(summaryA);
+        } else if (summaryA == null) {
+            result = MatchResult.missingInA(summaryB);
+        } else {
+            int differenceMask = reconciliationService.getDifferenceMask(summaryA, summaryB);
+            MatchStatus status = differenceMask == 0 ? MatchStatus.MATCHED : MatchStatus.MISMATCHED;
+            result = new MatchResult(status, groupKey, summaryA, summaryB, differenceMask);
+        }
+        return new AggregateMatchResult(result, tradesA, tradesB);
+    }
+
+    /**
+     * One trade standing for the whole group: summed quantity, quantity-weighted average price,
+     * the earliest timestamp, and symbol and side of the first constituent.
+     *
+     * @return {@code null} for an empty group
+     */
+    private static Trade summary(String groupKey, List<Trade> trades) {
+        if (trades.isEmpty()) {
+            return null;
+        }
+
+        double quantity = 0;
+        double notional = 0;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            quantity += trade.quantity();
+            notional += trade.quantity() * trade.price();
+            long timestamp = trade.timestamp();
+            if (timestamp != TradeStore.NO_TIMESTAMP) {
+                earliest = Math.min(earliest, timestamp);
+            }
+        }
+
+        Trade first = trades.get(0);
+        double averagePrice = quantity != 0 ? notional / quantity : first.price();
+        return new Trade(groupKey, first.symbol(), averagePrice, quantity, first.action(),
+                earliest == Long.MAX_VALUE ? TradeStore.NO_TIMESTAMP : earliest);
+    }
+
+    private String[] keys(List<Trade> trades) {
+        return pool.submit(() -> IntStream.range(0, trades.size())
+                .parallel()
+                .mapToObj(row -> key.of(trades.get(row)))
+                .toArray(String[]::new)).join();
+    }
+
+    private static int[] assignGroups(String[] keys, Map<String, Integer> groupIds) {
+        int[] groups = new int[keys.length];
+        for (int row = 0; row < keys.length; row++) {
+            Integer group = groupIds.putIfAbsent(keys[row], groupIds.size());
+            groups[row] = group != null ? group : groupIds.size() - 1;
+        }
+        return groups;
+    }
+
+    /**
+     * One system's rows ordered by group (counting sort, stable), with each group's range.
+     */
+    private static final class Groups {
+
+        private final List<Trade> trades;
+        private final int[] rows;
+        private final int[] starts;
+
+        private Groups(List<Trade> trades, int[] groupOfRow, int groupCount) {
+            this.trades = trades;
+            this.starts = new int[groupCount + 1];
+            for (int group : groupOfRow) {
+                starts[group + 1]++;
+            }
+            for (int group = 0; group < groupCount; group++) {
+                starts[group + 1] += starts[group];
+            }
+
+            this.rows = new int[groupOfRow.length];
+            int[] next = starts.clone();
+            for (int row = 0; row < groupOfRow.length; row++) {
+                rows[next[groupOfRow[row]]++] = row;
+            }
+        }
+
+        List<Trade> constituents(int group) {
+            return new Constituents(trades, rows, starts[group], starts[group + 1]);
+        }
+    }
+
+    /**
+     * Read-only view of the trades at {@code rows[from..to)} of a loaded list.
+     */
+    private static final class Constituents extends AbstractList<Trade> implements RandomAccess {
+
+        private final List<Trade> trades;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        private Constituents(List<Trade> trades, int[] rows, int from, int to) {
+            this.trades = trades;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Trade get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return trades.get(rows[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
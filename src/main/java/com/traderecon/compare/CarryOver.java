@@ -0,0 +1,212 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.StoreResultSink;
+import com.traderecon.core.TradeStore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The rows each partition found missing, when the inputs are split by time slice (see
+ * {@link com.traderecon.core.TradePartitioner}): a trade whose two bookings straddle a slice
+ * boundary shows up as missing from both partitions it landed in. {@link #hold} keeps a
+ * partition's missing rows back instead of reporting them, and {@link #reconcile} joins all of
+ * them by trade id once every partition is done, so only the trades that really are missing are
+ * reported as such.
+ * <p>
+ * {@link #hold} also records the trade ids each partition paired. A held row with one of those
+ * ids is a duplicate of a pair reconciled in another partition, and is dropped like the
+ * duplicate it would have been in the pair's partition under a split by trade id. The one
+ * divergence left: a trade id duplicated on both sides, whose copies pair up within two
+ * partitions, is reported once per partition, since pairs stream out as partitions finish.
+ * <p>
+ * Each partition only touches its own lists, so partitions may be held from different threads;
+ * {@link #reconcile} must happen after all of them.
+ */
+final class CarryOver {
+
+    private static final StoreResultSink DROP_PAIRS = new StoreResultSink() {
+        @Override
+        public void matched(TradeStore storeA, int rowA, TradeStore storeB, int rowB) {
+        }
+
+        @Override
+        public void mismatched(TradeStore storeA, int rowA, TradeStore storeB, int rowB, int differenceMask) {
+        }
+
+        @Override
+        public void missing(MatchStatus status, TradeStore store, int row) {
+        }
+    };
+
+    private final PartitionedTradeStore storeA;
+    private final PartitionedTradeStore storeB;
+    private final int[][] rowsA;
+    private final int[][] rowsB;
+    private final int[] sizesA;
+    private final int[] sizesB;
+    private final int[][] pairedRowsA;
+    private final int[] pairedSizes;
+
+    CarryOver(PartitionedTradeStore storeA, PartitionedTradeStore storeB) {
+        int partitionCount = storeA.partitionCount();
+        this.storeA = storeA;
+        this.storeB = storeB;
+        this.rowsA = new int[partitionCount][];
+        this.rowsB = new int[partitionCount][];
+        this.sizesA = new int[partitionCount];
+        this.sizesB = new int[partitionCount];
+        this.pairedRowsA = new int[partitionCount][];
+        this.pairedSizes = new int[partitionCount];
+    }
+
+    /**
+     * A sink for reconciling {@code partition} that passes pairs on to {@code downstream} and
+     * holds the missing rows back, noting which rows of A were paired. Forgets what an earlier
+     * attempt at the partition held.
+     */
+    StoreResultSink hold(int partition, StoreResultSink downstream) {
+        rowsA[partition] = new int[16];
+        rowsB[partition] = new int[16];
+        pairedRowsA[partition] = new int[16];
+        sizesA[partition] = 0;
+        sizesB[partition] = 0;
+        pairedSizes[partition] = 0;
+
+        return new StoreResultSink() {
+            @Override
+            public void matched(TradeStore partitionA, int rowA, TradeStore partitionB, int rowB) {
+                pairedRowsA[partition] = add(pairedRowsA[partition], pairedSizes[partition]++, rowA);
+                downstream.matched(partitionA, rowA, partitionB, rowB);
+            }
+
+            @Override
+            public void mismatched(TradeStore partitionA, int rowA, TradeStore partitionB, int rowB, int differenceMask) {
+                pairedRowsA[partition] = add(pairedRowsA[partition], pairedSizes[partition]++, rowA);
+                downstream.mismatched(partitionA, rowA, partitionB, rowB, differenceMask);
+            }
+
+            @Override
+            public void missing(MatchStatus status, TradeStore store, int row) {
+                if (status == MatchStatus.MISSING_IN_B) {
+                    rowsA[partition] = add(rowsA[partition], sizesA[partition]++, row);
+                } else {
+                    rowsB[partition] = add(rowsB[partition], sizesB[partition]++, row);
+                }
+            }
+        };
+    }
+
+    /**
+     * Holds the missing rows of a partition whose pairs were reported already, by an earlier
+     * run, and drops the pairs.
+     */
+    StoreResultSink hold(int partition) {
+        return hold(partition, DROP_PAIRS);
+    }
+
+    int partitionCount() {
+        return sizesA.length;
+    }
+
+    /**
+     * Number of rows held, of both inputs.
+     */
+    long size() {
+        long size = 0;
+        for (int partition = 0; partition < sizesA.length; partition++) {
+            size += sizesA[partition] + sizesB[partition];
+        }
+        return size;
+    }
+
+    /**
+     * Reconciles the held rows of every partition against each other, leaving out those whose
+     * trade id a partition paired. Rows are taken in partition order, so a trade id held more
+     * than once keeps the occurrence of the lowest partition.
+     */
+    void reconcile(StoreReconciler storeReconciler, StoreResultSink sink) {
+        TradeStore heldA = gather(storeA, rowsA, sizesA);
+        TradeStore heldB = gather(storeB, rowsB, sizesB);
+        BitSet pairedA = new BitSet(heldA.size());
+        BitSet pairedB = new BitSet(heldB.size());
+        markPaired(heldA, pairedA, heldB, pairedB);
+        storeReconciler.reconcile(without(heldA, pairedA), without(heldB, pairedB), sink);
+    }
+
+    /**
+     * Marks the held rows whose trade id was paired in some partition, probing an open-addressing
+     * table of the (few) held rows once per pair.
+     */
+    private void markPaired(TradeStore heldA, BitSet pairedA, TradeStore heldB, BitSet pairedB) {
+        int held = heldA.size() + heldB.size();
+        if (held == 0) {
+            return;
+        }
+
+        // entries are 1 + the row in A, or 1 + heldA.size() + the row in B; 0 is empty
+        int[] table = new int[Integer.highestOneBit(held) << 2];
+        int mask = table.length - 1;
+        for (int entry = 0; entry < held; entry++) {
+            int hash = entry < heldA.size() ? heldA.idHash(entry) : heldB.idHash(entry - heldA.size());
+            int slot = spread(hash) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+
+        for (int partition = 0; partition < pairedRowsA.length; partition++) {
+            TradeStore partitionA = storeA.partition(partition);
+            for (int i = 0; i < pairedSizes[partition]; i++) {
+                int row = pairedRowsA[partition][i];
+                for (int slot = spread(partitionA.idHash(row)) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                    int entry = table[slot] - 1;
+                    if (entry < heldA.size()) {
+                        if (partitionA.idEquals(row, heldA, entry)) {
+                            pairedA.set(entry);
+                        }
+                    } else if (partitionA.idEquals(row, heldB, entry - heldA.size())) {
+                        pairedB.set(entry - heldA.size());
+                    }
+                }
+            }
+        }
+    }
+
+    private static TradeStore without(TradeStore store, BitSet rows) {
+        if (rows.isEmpty()) {
+            return store;
+        }
+        TradeStore kept = new TradeStore(store.symbols(), store.size() - rows.cardinality());
+        for (int row = rows.nextClearBit(0); row < store.size(); row = rows.nextClearBit(row + 1)) {
+            kept.addRow(store, row);
+        }
+        return kept;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static TradeStore gather(PartitionedTradeStore store, int[][] rows, int[] sizes) {
+        TradeStore held = new TradeStore(store.symbols(), Arrays.stream(sizes).sum());
+        for (int partition = 0; partition < rows.length; partition++) {
+            TradeStore source = store.partition(partition);
+            for (int i = 0; i < sizes[partition]; i++) {
+                held.addRow(source, rows[partition][i]);
+            }
+        }
+        return held;
+    }
+
+    private static int[] add(int[] rows, int index, int row) {
+        if (index == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        }
+        rows[index] = row;
+        return rows;
+    }
+}
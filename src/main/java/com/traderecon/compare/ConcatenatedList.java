@@ -0,0 +1,72 @@
+package com.traderecon.compare;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only view over several lists in order, so per-partition results can be handed out as
+ * one list without copying them.
+ */
+class ConcatenatedList<T> extends AbstractList<T> {
+
+    private final List<? extends List<? extends T>> parts;
+    private final int[] offsets;
+
+    ConcatenatedList(List<? extends List<? extends T>> parts) {
+        this.parts = parts;
+        this.offsets = new int[parts.size() + 1];
+        for (int i = 0; i < parts.size(); i++) {
+            offsets[i + 1] = offsets[i] + parts.get(i).size();
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        int low = 0;
+        int high = parts.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return parts.get(low).get(index - offsets[low]);
+    }
+
+    @Override
+    public int size() {
+        return offsets[parts.size()];
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int part;
+            private Iterator<? extends T> current = parts.isEmpty() ? null : parts.get(0).iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (current != null && !current.hasNext()) {
+                    current = ++part < parts.size() ? parts.get(part).iterator() : null;
+                }
+                return current != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+}
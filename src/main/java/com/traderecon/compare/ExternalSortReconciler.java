@@ -0,0 +1,400 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+import com.traderecon.io.TradeLoader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Out-of-core reconciliation for inputs that don't fit in the heap.
+ * <p>
+ * Each input is streamed through a bounded in-memory buffer that is sorted by trade id and
+ * spilled to a run file whenever it exceeds half of {@link AppConfig#getSortMemoryBudgetBytes()}.
+ * The runs of both inputs are then k-way merged and joined in a single pass, so the join itself
+ * only ever holds the current trade of each run. Duplicate ids keep their first occurrence,
+ * like {@link ReconciliationService#mapTrades(List)}.
+ */
+public class ExternalSortReconciler {
+
+    private static final int MAX_FAN_IN = 64;
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+    private static final long TRADE_OVERHEAD_BYTES = 160;
+
+    private static final ActionEnum[] ACTIONS = ActionEnum.values();
+    private static final Comparator<Trade> BY_TRADE_ID = Comparator.comparing(Trade::tradeId);
+
+    private final AppConfig appConfig;
+    private final ReconciliationService reconciliationService;
+
+    public ExternalSortReconciler(AppConfig appConfig, ReconciliationService reconciliationService) {
+        this.appConfig = appConfig;
+        this.reconciliationService = reconciliationService;
+    }
+
+    public void reconcile(TradeLoader loader, String systemAPath, String systemBPath, Consumer<MatchResult> sink) {
+        long budgetPerInput = Math.max(1, appConfig.getSortMemoryBudgetBytes() / 2);
+        Path spillDirectory = null;
+
+        try {
+            Path parent = Path.of(appConfig.getSpillDirectory());
+            Files.createDirectories(parent);
+            spillDirectory = Files.createTempDirectory(parent, "trade-recon-");
+
+            SortedInput sortedA = sort(loader, systemAPath, spillDirectory.resolve("a"), budgetPerInput);
+            SortedInput sortedB = sort(loader, systemBPath, spillDirectory.resolve("b"), budgetPerInput);
+
+            try (TradeCursor cursorA = new DistinctCursor(sortedA.open());
+                 TradeCursor cursorB = new DistinctCursor(sortedB.open())) {
+                mergeJoin(cursorA, cursorB, sink);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Out-of-core reconciliation failed", e);
+        } finally {
+            if (spillDirectory != null) {
+                deleteRecursively(spillDirectory);
+            }
+        }
+    }
+
+    private void mergeJoin(TradeCursor cursorA, TradeCursor cursorB, Consumer<MatchResult> sink) throws IOException {
+        Trade tradeA = cursorA.next();
+        Trade tradeB = cursorB.next();
+
+        while (tradeA != null || tradeB != null) {
+            int order;
+            if (tradeA == null) {
+                order = 1;
+            } else if (tradeB == null) {
+                order = -1;
+            } else {
+                order = tradeA.tradeId().compareTo(tradeB.tradeId());
+            }
+
+            if (order == 0) {
+                sink.accept(reconciliationService.compareTrades(tradeA, tradeB));
+                tradeA = cursorA.next();
+                tradeB = cursorB.next();
+            } else if (order < 0) {
+                sink.accept(MatchResult.missingInB(tradeA));
+                tradeA = cursorA.next();
+            } else {
+                sink.accept(MatchResult.missingInA(tradeB));
+                tradeB = cursorB.next();
+            }
+        }
+    }
+
+    private SortedInput sort(TradeLoader loader, String filePath, Path runDirectory, long budget) throws IOException {
+        Files.createDirectories(runDirectory);
+        RunBuilder runBuilder = new RunBuilder(runDirectory, budget);
+
+        try {
+            loader.forEachTrade(filePath, runBuilder);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        List<Path> runs = runBuilder.finish();
+        while (runs.size() > MAX_FAN_IN) {
+            runs = mergeRuns(runs, runDirectory);
+        }
+
+        return runs.isEmpty() ? new SortedInput(runBuilder.buffer, List.of()) : new SortedInput(null, runs);
+    }
+
+    /**
+     * One intermediate merge pass that reduces the number of runs by a factor of {@link #MAX_FAN_IN}.
+     */
+    private List<Path> mergeRuns(List<Path> runs, Path runDirectory) throws IOException {
+        List<Path> merged = new ArrayList<>();
+
+        for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+            List<Path> group = runs.subList(from, Math.min(runs.size(), from + MAX_FAN_IN));
+            Path target = Files.createTempFile(runDirectory, "merge-", ".run");
+
+            try (TradeCursor cursor = MergeCursor.open(group);
+                 DataOutputStream out = openRun(target)) {
+                for (Trade trade = cursor.next(); trade != null; trade = cursor.next()) {
+                    writeTrade(out, trade);
+                }
+                out.writeBoolean(false);
+            }
+
+            for (Path run : group) {
+                Files.delete(run);
+            }
+            merged.add(target);
+        }
+
+        return merged;
+    }
+
+    private static long estimateSize(Trade trade) {
+        return TRADE_OVERHEAD_BYTES + 2L * (trade.tradeId().length() + trade.symbol().length());
+    }
+
+    private static DataOutputStream openRun(Path path) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), IO_BUFFER_BYTES));
+    }
+
+    private static void writeTrade(DataOutputStream out, Trade trade) throws IOException {
+        out.writeBoolean(true);
+        out.writeUTF(trade.tradeId());
+        out.writeUTF(trade.symbol());
+        out.writeDouble(trade.price());
+        out.writeDouble(trade.quantity());
+        out.writeByte(trade.action().ordinal());
+
+        out.writeLong(trade.timestamp());
+    }
+
+    private static Trade readTrade(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        String tradeId = in.readUTF();
+        String symbol = in.readUTF();
+        double price = in.readDouble();
+        double quantity = in.readDouble();
+        ActionEnum action = ACTIONS[in.readByte()];
+        long timestamp = in.readLong();
+
+        return new Trade(tradeId, symbol, price, quantity, action, timestamp);
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Could not delete spill file " + path + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Could not clean up spill directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Either a single in-memory sorted run (the input fit in the budget) or a list of run files.
+     */
+    private record SortedInput(List<Trade> inMemory, List<Path> runs) {
+
+        TradeCursor open() throws IOException {
+            if (inMemory != null) {
+                return new ListCursor(inMemory);
+            }
+            return runs.size() == 1 ? new RunCursor(runs.get(0)) : MergeCursor.open(runs);
+        }
+    }
+
+    /**
+     * Buffers trades until the budget is reached, then sorts and spills them as one run.
+     */
+    private static final class RunBuilder implements Consumer<Trade> {
+        private final Path runDirectory;
+        private final long budget;
+        private final List<Path> runs = new ArrayList<>();
+        private List<Trade> buffer = new ArrayList<>();
+        private long bufferedBytes;
+
+        RunBuilder(Path runDirectory, long budget) {
+            this.runDirectory = runDirectory;
+            this.budget = budget;
+        }
+
+        @Override
+        public void accept(Trade trade) {
+            buffer.add(trade);
+            bufferedBytes += estimateSize(trade);
+
+            if (bufferedBytes >= budget) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Returns the run files; if nothing was spilled the sorted trades stay in {@link #buffer}.
+         */
+        List<Path> finish() throws IOException {
+            if (runs.isEmpty()) {
+                buffer.sort(BY_TRADE_ID);
+            } else if (!buffer.isEmpty()) {
+                spill();
+            }
+            return runs;
+        }
+
+        private void spill() throws IOException {
+            // List.sort is stable, so duplicates keep file order within the run
+            buffer.sort(BY_TRADE_ID);
+            Path run = Files.createTempFile(runDirectory, "run-", ".run");
+
+            try (DataOutputStream out = openRun(run)) {
+                for (Trade trade : buffer) {
+                    writeTrade(out, trade);
+                }
+                out.writeBoolean(false);
+            }
+
+            runs.add(run);
+            buffer = new ArrayList<>();
+            bufferedBytes = 0;
+        }
+    }
+
+    private interface TradeCursor extends Closeable {
+        /**
+         * Returns the next trade in trade id order, or {@code null} when exhausted.
+         */
+        Trade next() throws IOException;
+    }
+
+    private static final class ListCursor implements TradeCursor {
+        private final List<Trade> trades;
+        private int index;
+
+        ListCursor(List<Trade> trades) {
+            this.trades = trades;
+        }
+
+        @Override
+        public Trade next() {
+            return index < trades.size() ? trades.get(index++) : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class RunCursor implements TradeCursor {
+        private final DataInputStream in;
+
+        RunCursor(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), IO_BUFFER_BYTES));
+        }
+
+        @Override
+        public Trade next() throws IOException {
+            return readTrade(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * K-way merge of sorted runs. Ties are broken by run index, and runs are created in file
+     * order, so equal ids come out in the order they appeared in the input.
+     */
+    private static final class MergeCursor implements TradeCursor {
+        private final List<RunCursor> cursors;
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.comparing((Head head) -> head.trade.tradeId()).thenComparingInt(head -> head.run));
+
+        private MergeCursor(List<RunCursor> cursors) throws IOException {
+            this.cursors = cursors;
+            for (int i = 0; i < cursors.size(); i++) {
+                Trade first = cursors.get(i).next();
+                if (first != null) {
+                    heads.add(new Head(first, i));
+                }
+            }
+        }
+
+        static MergeCursor open(List<Path> runs) throws IOException {
+            List<RunCursor> cursors = new ArrayList<>(runs.size());
+            try {
+                for (Path run : runs) {
+                    cursors.add(new RunCursor(run));
+                }
+                return new MergeCursor(cursors);
+            } catch (IOException e) {
+                for (RunCursor cursor : cursors) {
+                    cursor.close();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public Trade next() throws IOException {
+            Head head = heads.poll();
+            if (head == null) {
+                return null;
+            }
+
+            Trade following = cursors.get(head.run).next();
+            if (following != null) {
+                heads.add(new Head(following, head.run));
+            }
+            return head.trade;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+
+        private record Head(Trade trade, int run) {
+        }
+    }
+
+    /**
+     * Drops repeated ids from a sorted cursor, keeping the first one.
+     */
+    private static final class DistinctCursor implements TradeCursor {
+        private final TradeCursor delegate;
+        private String lastTradeId;
+
+        DistinctCursor(TradeCursor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Trade next() throws IOException {
+            Trade trade = delegate.next();
+            while (trade != null && trade.tradeId().equals(lastTradeId)) {
+                System.err.println("Duplicate trade id: " + trade.tradeId());
+                trade = delegate.next();
+            }
+            if (trade != null) {
+                lastTradeId = trade.tradeId();
+            }
+            return trade;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Second pass over the missing results of a reconciliation: pairs a trade missing in B with a
+ * trade missing in A when both have the same symbol (folded when symbols compare
+ * case-insensitively), side and quantity (within the quantity tolerance), and their price and
+ * timestamp are within {@code fuzzy.price.tolerance} and {@code fuzzy.timestamp.tolerance.ms}.
+ * Such pairs are the same trade booked under different ids and are reported as
+ * {@link MatchStatus#FUZZY_MATCHED}.
+ * <p>
+ * System B's leftovers are indexed per symbol and side, sorted by quantity and price, so each
+ * of A's leftovers only looks at the candidates inside its quantity and price window. A's
+ * leftovers are paired in trade id order, each with its closest free candidate by price (then
+ * timestamp), which makes the outcome independent of the order results arrived in.
+ */
+public class FuzzyMatcher {
+
+    private final ReconciliationService reconciliationService;
+    private final AppConfig appConfig;
+
+    public FuzzyMatcher(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+        this.appConfig = reconciliationService.appConfig();
+    }
+
+    /**
+     * Pairs the missing results among {@code results}; other results are returned unchanged.
+     *
+     * @return the untouched results, then the fuzzy pairs, then the missing results left unpaired
+     */
+    public List<MatchResult> match(List<MatchResult> results) {
+        List<MatchResult> matched = new ArrayList<>(results.size());
+        List<MatchResult> missing = new ArrayList<>();
+        for (MatchResult result : results) {
+            (isMissing(result) ? missing : matched).add(result);
+        }
+
+        pair(missing, matched::add);
+        return matched;
+    }
+
+    /**
+     * Wraps {@code downstream} in a sink that passes every result through except missing ones,
+     * which are held until {@link DeferringSink#finish()} pairs them.
+     */
+    public DeferringSink sink(Consumer<MatchResult> downstream) {
+        return new DeferringSink(downstream);
+    }
+
+    private void pair(List<MatchResult> missing, Consumer<MatchResult> sink) {
+        StageMetrics stage = reconciliationService.metrics().stage(RunMetrics.FUZZY_MATCH);
+        long begin = stage.begin();
+
+        List<Trade> leftoversA = new ArrayList<>();
+        Map<Key, List<Trade>> leftoversB = new HashMap<>();
+        for (MatchResult result : missing) {
+            if (result.matchStatus() == MatchStatus.MISSING_IN_B) {
+                leftoversA.add(result.tradeA());
+            } else {
+                leftoversB.computeIfAbsent(key(result.tradeB()), key -> new ArrayList<>()).add(result.tradeB());
+            }
+        }
+
+        Map<Key, Candidates> index = new HashMap<>(leftoversB.size() * 2);
+        leftoversB.forEach((key, trades) -> index.put(key, new Candidates(trades)));
+        leftoversA.sort(Comparator.comparing(Trade::tradeId));
+
+        int pairs = 0;
+        for (Trade tradeA : leftoversA) {
+            Candidates candidates = index.get(key(tradeA));
+            Trade tradeB = candidates == null ? null : candidates.claimClosest(tradeA);
+            if (tradeB == null) {
+                sink.accept(MatchResult.missingInB(tradeA));
+            } else {
+                sink.accept(MatchResult.fuzzyMatch(tradeA, tradeB,
+                        reconciliationService.getDifferenceMask(tradeA, tradeB)));
+                pairs++;
+            }
+        }
+        for (Candidates candidates : index.values()) {
+            candidates.forEachUnclaimed(tradeB -> sink.accept(MatchResult.missingInA(tradeB)));
+        }
+
+        stage.end(begin);
+        stage.addRowsIn(missing.size());
+        stage.addRowsOut(missing.size() - pairs);
+    }
+
+    private Key key(Trade trade) {
+        String symbol = trade.symbol();
+        return new Key(appConfig.isCaseInsensitiveSymbols() ? SymbolDictionary.fold(symbol) : symbol, trade.action());
+    }
+
+    private static boolean isMissing(MatchResult result) {
+        return result.matchStatus() == MatchStatus.MISSING_IN_A || result.matchStatus() == MatchStatus.MISSING_IN_B;
+    }
+
+    /**
+     * Sink returned by {@link #sink(Consumer)}.
+     */
+    public final class DeferringSink implements Consumer<MatchResult> {
+
+        private final Consumer<MatchResult> downstream;
+        private final List<MatchResult> missing = new ArrayList<>();
+
+        private DeferringSink(Consumer<MatchResult> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void accept(MatchResult result) {
+            if (isMissing(result)) {
+                missing.add(result);
+            } else {
+                downstream.accept(result);
+            }
+        }
+
+        /**
+         * Pairs the missing results received so far and emits the pairs and the unpaired ones.
+         */
+        public void finish() {
+            pair(missing, downstream);
+            missing.clear();
+        }
+    }
+
+    private record Key(String symbol, ActionEnum action) {
+    }
+
+    /**
+     * System B's leftovers for one symbol and side, sorted by quantity, then price, then id.
+     * Claimed candidates are skipped through {@code nextFree}, a union-find style pointer to
+     * the next unclaimed position, so dense price clusters aren't rescanned.
+     */
+    private final class Candidates {
+
+        private final Trade[] trades;
+        private final double[] quantities;
+        private final double[] prices;
+        private final long[] timestamps;
+        private final int[] nextFree;
+
+        private Candidates(List<Trade> leftovers) {
+            this.trades = leftovers.toArray(new Trade[0]);
+            Arrays.sort(trades, Comparator.comparingDouble(Trade::quantity)
+                    .thenComparingDouble(Trade::price)
+                    .thenComparing(Trade::tradeId));
+
+            int size = trades.length;
+            this.quantities = new double[size];
+            this.prices = new double[size];
+            this.timestamps = new long[size];
+            this.nextFree = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                quantities[i] = trades[i].quantity();
+                prices[i] = trades[i].price();
+                timestamps[i] = trades[i].timestamp();
+                nextFree[i] = i;
+            }
+            nextFree[size] = size;
+        }
+
+        /**
+         * Claims the free candidate closest in price to {@code tradeA} among those inside its
+         * quantity, price and timestamp tolerances.
+         *
+         * @return the claimed trade, or {@code null} if there is none
+         */
+        Trade claimClosest(Trade tradeA) {
+            double quantityTolerance = appConfig.getQuantityTolerance();
+            double priceTolerance = appConfig.getFuzzyPriceTolerance();
+            long timestampTolerance = appConfig.getFuzzyTimestampToleranceMillis() * 1_000_000L;
+            long timestampA = tradeA.timestamp();
+            double quantity = tradeA.quantity();
+            double price = tradeA.price();
+
+            int best = -1;
+            double bestPriceGap = Double.MAX_VALUE;
+            long bestTimestampGap = Long.MAX_VALUE;
+
+            int block = lowerBound(quantities, 0, trades.length, quantity - quantityTolerance);
+            while (block < trades.length && quantities[block] <= quantity + quantityTolerance) {
+                int blockEnd = upperBound(quantities, block, trades.length, quantities[block]);
+                if (Math.abs(quantities[block] - quantity) <= quantityTolerance) {
+                    for (int i = free(lowerBound(prices, block, blockEnd, price - priceTolerance));
+                         i < blockEnd && prices[i] <= price + priceTolerance;
+                         i = free(i + 1)) {
+                        double priceGap = Math.abs(prices[i] - price);
+                        long timestampGap = timestampGap(timestampA, timestamps[i]);
+                        if (priceGap <= priceTolerance && timestampGap <= timestampTolerance
+                                && (priceGap < bestPriceGap || priceGap == bestPriceGap && timestampGap < bestTimestampGap)) {
+                            best = i;
+                            bestPriceGap = priceGap;
+                            bestTimestampGap = timestampGap;
+                        }
+                    }
+                }
+                block = blockEnd;
+            }
+
+            if (best < 0) {
+                return null;
+            }
+            nextFree[best] = best + 1;
+            return trades[best];
+        }
+
+        void forEachUnclaimed(Consumer<Trade> consumer) {
+            for (int i = free(0); i < trades.length; i = free(i + 1)) {
+                consumer.accept(trades[i]);
+            }
+        }
+
+        /**
+         * @return the first unclaimed position at or after {@code position}
+         */
+        private int free(int position) {
+            int root = position;
+            while (nextFree[root] != root) {
+                root = nextFree[root];
+            }
+            while (nextFree[position] != root) {
+                int next = nextFree[position];
+                nextFree[position] = root;
+                position = next;
+            }
+            return root;
+        }
+
+        /**
+         * Timestamps are only compared when both trades have one.
+         */
+        private static long timestampGap(long timestampA, long timestampB) {
+            if (timestampA == TradeStore.NO_TIMESTAMP || timestampB == TradeStore.NO_TIMESTAMP) {
+                return 0;
+            }
+            return Math.abs(timestampA - timestampB);
+        }
+
+        private static int lowerBound(double[] values, int from, int to, double value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (values[mid] < value) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        private static int upperBound(double[] values, int from, int to, double value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (values[mid] <= value) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Build-and-probe reconciliation: only the smaller system is indexed, the larger one is
+ * streamed through the index. MATCHED, MISMATCHED and one side's MISSING results are emitted
+ * while probing; the build entries that were never probed are then swept as missing on the
+ * other side. Duplicate ids keep their first occurrence, exactly like
+ * {@link ReconciliationService#mapTrades(List)}, so the results equal those of
+ * {@link ReconciliationService#reconcileTrades(List, List)}.
+ */
+public class HashJoinReconciler {
+
+    private final ReconciliationService reconciliationService;
+
+    public HashJoinReconciler(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    public List<MatchResult> reconcile(List<Trade> systemA, List<Trade> systemB) {
+        List<MatchResult> matchResults = new ArrayList<>(Math.max(systemA.size(), systemB.size()));
+        reconcile(systemA, systemB, matchResults::add);
+        return matchResults;
+    }
+
+    public void reconcile(List<Trade> systemA, List<Trade> systemB, Consumer<MatchResult> sink) {
+        boolean buildOnA = systemA.size() <= systemB.size();
+        List<Trade> build = buildOnA ? systemA : systemB;
+        List<Trade> probe = buildOnA ? systemB : systemA;
+
+        StageMetrics indexMetrics = reconciliationService.metrics().stage(RunMetrics.INDEX);
+        long indexBegin = indexMetrics.begin();
+        TradeIndex index = new TradeIndex(build.size());
+        int indexed = 0;
+        for (Trade trade : build) {
+            if (index.add(trade)) {
+                indexed++;
+            } else {
+                System.err.println("Duplicate trade id: " + trade.tradeId());
+                indexMetrics.duplicate();
+            }
+        }
+        indexMetrics.end(indexBegin);
+        indexMetrics.addRowsIn(build.size());
+        indexMetrics.addRowsOut(indexed);
+
+        StageMetrics compareMetrics = reconciliationService.metrics().stage(RunMetrics.COMPARE);
+        long compareBegin = compareMetrics.begin();
+        long[] emitted = {0};
+        Consumer<MatchResult> counted = result -> {
+            emitted[0]++;
+            sink.accept(result);
+        };
+
+        MatchStatus missingOnBuildSide = buildOnA ? MatchStatus.MISSING_IN_A : MatchStatus.MISSING_IN_B;
+        MatchStatus missingOnProbeSide = buildOnA ? MatchStatus.MISSING_IN_B : MatchStatus.MISSING_IN_A;
+
+        // only ids without a counterpart are remembered, to drop their duplicates
+        Set<String> unmatchedProbeIds = new HashSet<>();
+
+        for (Trade trade : probe) {
+            String tradeId = trade.tradeId();
+            int slot = index.find(tradeId);
+
+            if (slot < 0) {
+                if (unmatchedProbeIds.add(tradeId)) {
+                    counted.accept(missing(missingOnBuildSide, trade));
+                } else {
+                    System.err.println("Duplicate trade id: " + tradeId);
+                    compareMetrics.duplicate();
+                }
+            } else if (index.markProbed(slot)) {
+                System.err.println("Duplicate trade id: " + tradeId);
+                compareMetrics.duplicate();
+            } else {
+                Trade counterpart = index.get(slot);
+                counted.accept(buildOnA
+                        ? reconciliationService.compareTrades(counterpart, trade)
+                        : reconciliationService.compareTrades(trade, counterpart));
+            }
+        }
+
+        index.forEachUnprobed(trade -> counted.accept(missing(missingOnProbeSide, trade)));
+
+        compareMetrics.end(compareBegin);
+        compareMetrics.addRowsIn(probe.size() + indexed);
+        compareMetrics.addRowsOut(emitted[0]);
+    }
+
+    private MatchResult missing(MatchStatus status, Trade trade) {
+        return status == MatchStatus.MISSING_IN_A ? MatchResult.missingInA(trade) : MatchResult.missingInB(trade);
+    }
+}
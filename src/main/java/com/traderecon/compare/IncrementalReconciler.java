@@ -0,0 +1,191 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.config.ToleranceRules;
+import com.traderecon.core.BreakChange;
+import com.traderecon.core.BreakDelta;
+import com.traderecon.core.Hashing;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+
+import java.util.function.Consumer;
+
+/**
+ * Reconciles two {@link TradeStore}s against the {@link ReconciliationState} of the previous
+ * run. Every trade is fingerprinted, but only ids whose fingerprints changed, appeared or
+ * disappeared are compared again; the rest keep their previous result. Instead of the full
+ * result set, the breaks that were opened, closed or changed are emitted.
+ * <p>
+ * Duplicate ids keep their first occurrence, as in {@link StoreReconciler}.
+ */
+public class IncrementalReconciler {
+
+    private final AppConfig appConfig;
+    private final StoreReconciler storeReconciler;
+
+    private ToleranceRules.SymbolTable toleranceRules;
+    private int recompared;
+    private int deltas;
+
+    public IncrementalReconciler(AppConfig appConfig) {
+        this.appConfig = appConfig;
+        this.storeReconciler = new StoreReconciler(appConfig);
+    }
+
+    /**
+     * @return the state to persist for the next run
+     */
+    public ReconciliationState reconcile(TradeStore storeA, TradeStore storeB, ReconciliationState previous,
+                                         Consumer<BreakDelta> deltaSink) {
+        if (storeA.symbols() != storeB.symbols()) {
+            throw new IllegalArgumentException("Stores must share one symbol dictionary");
+        }
+
+        long settingsFingerprint = settingsFingerprint();
+        boolean reusable = previous.settingsFingerprint() == settingsFingerprint;
+        long[] symbolHashes = symbolHashes(storeA.symbols());
+        toleranceRules = storeReconciler.toleranceRules(storeA.symbols());
+        ReconciliationState next = new ReconciliationState(settingsFingerprint, Math.max(storeA.size(), storeB.size()));
+        recompared = 0;
+        deltas = 0;
+
+        StoreIndex indexA = new StoreIndex(storeA);
+        StoreIndex indexB = new StoreIndex(storeB);
+        for (int row = 0; row < storeB.size(); row++) {
+            if (!indexB.add(row)) {
+                System.err.println("Duplicate trade id: " + storeB.tradeId(row));
+            }
+        }
+
+        for (int rowA = 0; rowA < storeA.size(); rowA++) {
+            if (!indexA.add(rowA)) {
+                System.err.println("Duplicate trade id: " + storeA.tradeId(rowA));
+                continue;
+            }
+
+            int slot = indexB.find(storeA, rowA);
+            int rowB = -1;
+            if (slot >= 0) {
+                indexB.markProbed(slot);
+                rowB = indexB.row(slot);
+            }
+            visit(storeA.tradeId(rowA), storeA, rowA, storeB, rowB, symbolHashes, previous, reusable, next, deltaSink);
+        }
+
+        indexB.forEachUnprobed(rowB ->
+                visit(storeB.tradeId(rowB), storeA, -1, storeB, rowB, symbolHashes, previous, reusable, next, deltaSink));
+
+        // ids gone from both systems: their breaks are closed
+        previous.forEach((tradeId, entry) -> {
+            if (entry.isBreak() && !next.contains(tradeId)) {
+                emit(deltaSink, new BreakDelta(BreakChange.CLOSED, tradeId, entry.status(), entry.differenceMask(), null));
+            }
+        });
+
+        return next;
+    }
+
+    private void visit(String tradeId, TradeStore storeA, int rowA, TradeStore storeB, int rowB, long[] symbolHashes,
+                       ReconciliationState previous, boolean reusable, ReconciliationState next,
+                       Consumer<BreakDelta> deltaSink) {
+        long fingerprintA = rowA < 0 ? ReconciliationState.ABSENT : fingerprint(storeA, rowA, symbolHashes);
+        long fingerprintB = rowB < 0 ? ReconciliationState.ABSENT : fingerprint(storeB, rowB, symbolHashes);
+        ReconciliationState.Entry before = previous.get(tradeId);
+
+        if (reusable && before != null && before.sameTrades(fingerprintA, fingerprintB)) {
+            next.put(tradeId, before);
+            return;
+        }
+
+        recompared++;
+        MatchResult result;
+        if (rowA < 0) {
+            result = StoreReconciler.missing(MatchStatus.MISSING_IN_A, storeB.trade(rowB));
+        } else if (rowB < 0) {
+            result = StoreReconciler.missing(MatchStatus.MISSING_IN_B, storeA.trade(rowA));
+        } else {
+            result = storeReconciler.compare(toleranceRules, storeA, rowA, storeB, rowB);
+        }
+
+        ReconciliationState.Entry after = new ReconciliationState.Entry(fingerprintA, fingerprintB,
+                result.matchStatus(), result.differenceMask());
+        next.put(tradeId, after);
+
+        BreakChange change = change(before, after);
+        if (change != null) {
+            emit(deltaSink, new BreakDelta(change, tradeId, before == null ? null : before.status(),
+                    before == null ? 0 : before.differenceMask(), result));
+        }
+    }
+
+    /**
+     * @return how the break moved, or {@code null} if there is nothing to report
+     */
+    private static BreakChange change(ReconciliationState.Entry before, ReconciliationState.Entry after) {
+        boolean wasBreak = before != null && before.isBreak();
+
+        if (!wasBreak) {
+            return after.isBreak() ? BreakChange.OPENED : null;
+        }
+        if (!after.isBreak()) {
+            return BreakChange.CLOSED;
+        }
+        if (before.status() != after.status() || before.differenceMask() != after.differenceMask()
+                || !before.sameTrades(after.fingerprintA(), after.fingerprintB())) {
+            return BreakChange.CHANGED;
+        }
+        return null;
+    }
+
+    private void emit(Consumer<BreakDelta> deltaSink, BreakDelta delta) {
+        deltas++;
+        deltaSink.accept(delta);
+    }
+
+    /**
+     * Number of trades compared again by the last run, as opposed to reused from the state.
+     */
+    public int recompared() {
+        return recompared;
+    }
+
+    /**
+     * Number of breaks the last run reported as opened, closed or changed.
+     */
+    public int deltas() {
+        return deltas;
+    }
+
+    /**
+     * Fingerprint of everything the comparison reads from a row. Symbols are hashed by name,
+     * since dictionary codes differ between runs. Never {@link ReconciliationState#ABSENT}.
+     */
+    private static long fingerprint(TradeStore store, int row, long[] symbolHashes) {
+        long hash = symbolHashes[store.symbolCode(row)];
+        hash = Hashing.mix(hash ^ store.action(row).ordinal());
+        hash = Hashing.mix(hash ^ Double.doubleToLongBits(store.price(row)));
+        hash = Hashing.mix(hash ^ Double.doubleToLongBits(store.quantity(row)));
+        hash = Hashing.mix(hash ^ store.timestampNanos(row));
+        return hash == ReconciliationState.ABSENT ? 1 : hash;
+    }
+
+    private static long[] symbolHashes(SymbolDictionary symbols) {
+        long[] hashes = new long[symbols.size()];
+        for (int code = 0; code < hashes.length; code++) {
+            long hash = 0;
+            String symbol = symbols.symbol(code);
+            for (int i = 0; i < symbol.length(); i++) {
+                hash = hash * 31 + symbol.charAt(i);
+            }
+            hashes[code] = Hashing.mix(hash);
+        }
+        return hashes;
+    }
+
+    private long settingsFingerprint() {
+        long hash = appConfig.comparisonFingerprint();
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,215 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.config.ToleranceRules;
+import com.traderecon.core.MultiMatchResult;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * N-way reconciliation of {@link TradeStore}s, e.g. front office, middle office and custodian
+ * in one pass instead of one job per pair. A single open-addressing index keyed by trade id is
+ * built over all stores; each entry is one unique trade with a row per system ({@code -1} where
+ * the system doesn't have it), so the index grows with the number of unique trades, not with
+ * the number of systems or system pairs. Each trade is then compared field by field against its
+ * reference, the row of the first system that has it, with the same checks as {@link StoreReconciler}.
+ * <p>
+ * A duplicate id within one system keeps its first occurrence, as in the two-way reconcilers.
+ * Results are emitted in the order trades were first seen.
+ */
+public class MultiStoreReconciler {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final StoreReconciler fieldComparison;
+    private final StageMetrics indexMetrics;
+    private final StageMetrics compareMetrics;
+
+    /**
+     * @param indexMetrics   receives building the shared index over every store
+     * @param compareMetrics receives comparing each unique trade across the systems
+     */
+    public MultiStoreReconciler(AppConfig appConfig, StageMetrics indexMetrics, StageMetrics compareMetrics) {
+        this.fieldComparison = new StoreReconciler(appConfig);
+        this.indexMetrics = indexMetrics;
+        this.compareMetrics = compareMetrics;
+    }
+
+    public List<MultiMatchResult> reconcile(List<TradeStore> stores) {
+        List<MultiMatchResult> results = new ArrayList<>();
+        reconcile(stores, results::add);
+        return results;
+    }
+
+    public void reconcile(List<TradeStore> stores, Consumer<MultiMatchResult> sink) {
+        if (stores.size() < 2) {
+            throw new IllegalArgumentException("N-way reconciliation needs at least two systems, got " + stores.size());
+        }
+        for (TradeStore store : stores) {
+            if (store.symbols() != stores.get(0).symbols()) {
+                throw new IllegalArgumentException("Stores must share one symbol dictionary");
+            }
+        }
+
+        long indexBegin = indexMetrics.begin();
+        SharedIndex index = new SharedIndex(stores);
+        long rowsIn = 0;
+        long duplicates = 0;
+        for (int system = 0; system < stores.size(); system++) {
+            TradeStore store = stores.get(system);
+            for (int row = 0; row < store.size(); row++) {
+                if (!index.add(system, row)) {
+                    System.err.println("Duplicate trade id: " + store.tradeId(row));
+                    indexMetrics.duplicate();
+                    duplicates++;
+                }
+            }
+            rowsIn += store.size();
+        }
+        indexMetrics.end(indexBegin);
+        indexMetrics.addRowsIn(rowsIn);
+        indexMetrics.addRowsOut(index.size());
+
+        long compareBegin = compareMetrics.begin();
+        int systems = stores.size();
+        ToleranceRules.SymbolTable rules = fieldComparison.toleranceRules(stores.get(0).symbols());
+        for (int trade = 0; trade < index.size(); trade++) {
+            sink.accept(compare(rules, stores, index, trade, systems));
+        }
+        compareMetrics.end(compareBegin);
+        compareMetrics.addRowsIn(rowsIn - duplicates);
+        compareMetrics.addRowsOut(index.size());
+    }
+
+    private MultiMatchResult compare(ToleranceRules.SymbolTable rules, List<TradeStore> stores, SharedIndex index, int trade, int systems) {
+        Trade[] trades = new Trade[systems];
+        int[] differenceMasks = new int[systems];
+
+        int reference = -1;
+        for (int system = 0; system < systems; system++) {
+            int row = index.row(trade, system);
+            if (row < 0) {
+                continue;
+            }
+            TradeStore store = stores.get(system);
+            trades[system] = store.trade(row);
+            if (reference < 0) {
+                reference = system;
+            } else {
+                differenceMasks[system] = fieldComparison.differenceMask(rules, stores.get(reference),
+                        index.row(trade, reference), store, row);
+            }
+        }
+
+        return new MultiMatchResult(trades[reference].tradeId(), Arrays.asList(trades), differenceMasks);
+    }
+
+    /**
+     * Open-addressing index of unique trade ids across all systems. Slots hold
+     * {@code trade + 1} ({@code 0} is empty); trade {@code t}'s row in system {@code s} is
+     * {@code rows[t * systems + s]}. Ids are compared against the trade's first row, which
+     * always belongs to the first system that had it.
+     */
+    private static final class SharedIndex {
+
+        private final List<TradeStore> stores;
+        private final int systems;
+        private int[] slots;
+        private int mask;
+        private int[] rows;
+        private int[] firstSystems;
+        private int size;
+
+        private SharedIndex(List<TradeStore> stores) {
+            this.stores = stores;
+            this.systems = stores.size();
+
+            int largest = 0;
+            for (TradeStore store : stores) {
+                largest = Math.max(largest, store.size());
+            }
+            // duplicates aside, there are at least as many unique trades as rows in the largest store
+            int capacity = MIN_CAPACITY;
+            while (capacity < largest * 2L) {
+                capacity <<= 1;
+            }
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            this.rows = new int[Math.max(MIN_CAPACITY, largest) * systems];
+            this.firstSystems = new int[Math.max(MIN_CAPACITY, largest)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int row(int trade, int system) {
+            return rows[trade * systems + system];
+        }
+
+        /**
+         * Records the row under its trade, adding the trade if its id is new.
+         *
+         * @return {@code false} if the system already had a row with this id
+         */
+        boolean add(int system, int row) {
+            TradeStore store = stores.get(system);
+            int slot = store.idHash(row) & mask;
+
+            while (slots[slot] != 0) {
+                int trade = slots[slot] - 1;
+                int firstSystem = firstSystems[trade];
+                if (stores.get(firstSystem).idEquals(row(trade, firstSystem), store, row)) {
+                    int cell = trade * systems + system;
+                    if (rows[cell] >= 0) {
+                        return false;
+                    }
+                    rows[cell] = row;
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int trade = newTrade(system, row);
+            slots[slot] = trade + 1;
+            if (size * 2L > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private int newTrade(int system, int row) {
+            if (size == firstSystems.length) {
+                int capacity = firstSystems.length * 2;
+                firstSystems = Arrays.copyOf(firstSystems, capacity);
+                rows = Arrays.copyOf(rows, capacity * systems);
+            }
+            int trade = size++;
+            Arrays.fill(rows, trade * systems, (trade + 1) * systems, -1);
+            rows[trade * systems + system] = row;
+            firstSystems[trade] = system;
+            return trade;
+        }
+
+        private void grow() {
+            int[] grown = new int[slots.length * 2];
+            int grownMask = grown.length - 1;
+            for (int trade = 0; trade < size; trade++) {
+                int firstSystem = firstSystems[trade];
+                int slot = stores.get(firstSystem).idHash(row(trade, firstSystem)) & grownMask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & grownMask;
+                }
+                grown[slot] = trade + 1;
+            }
+            this.slots = grown;
+            this.mask = grownMask;
+        }
+    }
+}
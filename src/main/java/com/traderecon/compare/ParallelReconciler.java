@@ -0,0 +1,379 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.ReconciliationSummary;
+import com.traderecon.core.StoreResultSink;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.ReportWriter;
+import com.traderecon.io.ReportWriters;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Hash-partitioned parallel reconciliation. Both inputs are split by trade id into the same
+ * number of partitions, so every partition owns disjoint slices of A and B and is joined on its
+ * own without shared maps. Partitions are processed by {@link ReconciliationTask}s on a
+ * work-stealing {@link ForkJoinPool} that is reused across runs, and the per-partition result
+ * lists are returned as one concatenated view instead of being copied.
+ * <p>
+ * Inputs split by time slice instead ({@link com.traderecon.core.TradePartitioner#byTimeSlice})
+ * may have a trade's bookings in two partitions, so the rows partitions find missing are
+ * reconciled once more by trade id in a last {@link CarryOver} pass, whose results come after
+ * those of the partitions.
+ */
+public class ParallelReconciler {
+
+    private static final int PARTITIONS_PER_THREAD = 8;
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final ReconciliationService reconciliationService;
+    private final ForkJoinPool pool;
+
+    public ParallelReconciler(ReconciliationService reconciliationService, int numberOfThreads) {
+        this.reconciliationService = reconciliationService;
+        this.pool = pool(numberOfThreads);
+    }
+
+    /**
+     * Returns the shared pool for the given parallelism, creating it on first use.
+     */
+    public static ForkJoinPool pool(int numberOfThreads) {
+        return POOLS.computeIfAbsent(Math.max(1, numberOfThreads), ForkJoinPool::new);
+    }
+
+    /**
+     * Number of partitions to split inputs into: several per thread so that stealing can
+     * rebalance skewed partitions.
+     */
+    public static int partitionCount(int numberOfThreads) {
+        return Math.max(1, numberOfThreads) * PARTITIONS_PER_THREAD;
+    }
+
+    public List<MatchResult> reconcile(PartitionedTradeStore storeA, PartitionedTradeStore storeB) {
+        checkPartitions(storeA, storeB);
+
+        StoreReconciler storeReconciler = reconciliationService.storeReconciler();
+        CarryOver carryOver = carryOver(storeA, storeB);
+        List<List<MatchResult>> results = new ArrayList<>(run(storeA.partitionCount(), partition -> {
+            TradeStore partitionA = storeA.partition(partition);
+            TradeStore partitionB = storeB.partition(partition);
+            return timed(partition, partitionA.size() + partitionB.size(), () -> {
+                List<MatchResult> partitionResults = new ArrayList<>(Math.max(partitionA.size(), partitionB.size()));
+                storeReconciler.reconcile(partitionA, partitionB,
+                        partitionSink(carryOver, partition, StoreResultSink.all(partitionResults::add)));
+                return partitionResults;
+            }, List::size);
+        }));
+
+        if (carryOver != null) {
+            results.add(reconcileCarryOver(carryOver, storeReconciler, StoreResultSink::all));
+        }
+        return new ConcatenatedList<>(results);
+    }
+
+    /**
+     * Streams each partition's results to the sink as soon as the partition is reconciled.
+     * Calls to the sink are serialized, so it doesn't have to be thread-safe.
+     */
+    public void reconcile(PartitionedTradeStore storeA, PartitionedTradeStore storeB, Consumer<MatchResult> sink) {
+        stream(storeA, storeB, StoreResultSink::all, sink);
+    }
+
+    /**
+     * Like {@link #reconcile(PartitionedTradeStore, PartitionedTradeStore, Consumer)}, but only
+     * the breaks are materialized and streamed; matched pairs allocate nothing.
+     */
+    public void reconcileExceptions(PartitionedTradeStore storeA, PartitionedTradeStore storeB,
+                                    Consumer<MatchResult> sink) {
+        stream(storeA, storeB, StoreResultSink::exceptions, sink);
+    }
+
+    /**
+     * Counts and notional per status, symbol and side. Each partition accumulates into a
+     * summary of its own, without locking; they are merged once all partitions are done.
+     */
+    public ReconciliationSummary summarize(PartitionedTradeStore storeA, PartitionedTradeStore storeB) {
+        checkPartitions(storeA, storeB);
+
+        StoreReconciler storeReconciler = reconciliationService.storeReconciler();
+        CarryOver carryOver = carryOver(storeA, storeB);
+        List<ReconciliationSummary> summaries = run(storeA.partitionCount(), partition -> timed(partition,
+                storeA.partition(partition).size() + storeB.partition(partition).size(),
+                () -> {
+                    ReconciliationSummary summary = new ReconciliationSummary(storeA.symbols());
+                    storeReconciler.reconcile(storeA.partition(partition), storeB.partition(partition),
+                            partitionSink(carryOver, partition, summary));
+                    return summary;
+                }, ReconciliationSummary::total));
+
+        ReconciliationSummary summary = new ReconciliationSummary(storeA.symbols());
+        summaries.forEach(summary::merge);
+        if (carryOver != null) {
+            summary.merge(timed(carryOver.partitionCount(), carryOver.size(), () -> {
+                ReconciliationSummary carried = new ReconciliationSummary(storeA.symbols());
+                carryOver.reconcile(storeReconciler, carried);
+                return carried;
+            }, ReconciliationSummary::total));
+        }
+        return summary;
+    }
+
+    /**
+     * Checkpointed variant of {@link #reconcile(PartitionedTradeStore, PartitionedTradeStore, Consumer)}
+     * for long runs: every partition writes its results to a report of its own in the
+     * checkpoint, and partitions the checkpoint already holds are skipped. A partition that
+     * throws is reconciled again, up to {@code partition.max.attempts} times in all; one that
+     * still fails is left out of the checkpoint while the other partitions finish, so the next
+     * run only has that one to redo.
+     *
+     * @param exceptionsOnly whether matched pairs are left out of the reports
+     * @throws IllegalStateException if partitions failed on their last attempt
+     */
+    public void reconcile(PartitionedTradeStore storeA, PartitionedTradeStore storeB, PartitionCheckpoint checkpoint,
+                          boolean exceptionsOnly) {
+        checkPartitions(storeA, storeB);
+        if (storeA.partitionCount() != checkpoint.partitionCount()) {
+            throw new IllegalArgumentException("Inputs must be split into the checkpoint's "
+                    + checkpoint.partitionCount() + " partitions");
+        }
+
+        StoreReconciler storeReconciler = reconciliationService.storeReconciler();
+        Function<Consumer<MatchResult>, StoreResultSink> mode = exceptionsOnly
+                ? StoreResultSink::exceptions : StoreResultSink::all;
+        int maxAttempts = reconciliationService.appConfig().getPartitionMaxAttempts();
+        CarryOver carryOver = carryOver(storeA, storeB);
+
+        run(storeA.partitionCount(), partition -> {
+            TradeStore partitionA = storeA.partition(partition);
+            TradeStore partitionB = storeB.partition(partition);
+            if (checkpoint.isDone(partition)) {
+                if (carryOver != null) {
+                    // the checkpoint only keeps the pairs, so the rows to carry over are found again
+                    timed(partition, partitionA.size() + partitionB.size(), () -> {
+                        storeReconciler.reconcile(partitionA, partitionB, carryOver.hold(partition));
+                        return 0L;
+                    }, Long::longValue);
+                }
+                return null;
+            }
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    timed(partition, partitionA.size() + partitionB.size(),
+                            () -> writePartition(storeReconciler, partitionA, partitionB,
+                                    write -> partitionSink(carryOver, partition, mode.apply(write)), checkpoint, partition),
+                            Long::longValue);
+                    checkpoint.commit(partition);
+                    return null;
+                } catch (IOException | RuntimeException e) {
+                    if (attempt >= maxAttempts) {
+                        System.err.println("❌ Partition " + partition + " failed after " + attempt + " attempts: " + e);
+                        failPartition(checkpoint, partition);
+                        return null;
+                    }
+                    System.err.println("⚠️ Partition " + partition + " failed (" + e + "), reconciling it again ("
+                            + "attempt " + (attempt + 1) + " of " + maxAttempts + ")");
+                }
+            }
+        });
+
+        List<Integer> failed = checkpoint.failedPartitions();
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Partitions " + failed + " failed after " + maxAttempts
+                    + " attempts; run again over the same inputs to resume from " + checkpoint.directory());
+        }
+
+        if (carryOver != null) {
+            timed(carryOver.partitionCount(), carryOver.size(), () -> {
+                long[] written = new long[1];
+                try (ReportWriter writer = ReportWriters.create(checkpoint.reportFormat(), checkpoint.carryOverReport())) {
+                    Consumer<MatchResult> write = writer.asConsumer();
+                    carryOver.reconcile(storeReconciler, mode.apply(result -> {
+                        write.accept(result);
+                        written[0]++;
+                    }));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return written[0];
+            }, Long::longValue);
+        }
+    }
+
+    /**
+     * @return the number of results written
+     */
+    private static long writePartition(StoreReconciler storeReconciler, TradeStore partitionA, TradeStore partitionB,
+                                       Function<Consumer<MatchResult>, StoreResultSink> mode,
+                                       PartitionCheckpoint checkpoint, int partition) {
+        long[] written = new long[1];
+        try (ReportWriter writer = ReportWriters.create(checkpoint.reportFormat(), checkpoint.temporaryReport(partition))) {
+            Consumer<MatchResult> write = writer.asConsumer();
+            storeReconciler.reconcile(partitionA, partitionB, mode.apply(result -> {
+                write.accept(result);
+                written[0]++;
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written[0];
+    }
+
+    private static void failPartition(PartitionCheckpoint checkpoint, int partition) {
+        try {
+            checkpoint.fail(partition);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void stream(PartitionedTradeStore storeA, PartitionedTradeStore storeB,
+                        Function<Consumer<MatchResult>, StoreResultSink> mode, Consumer<MatchResult> sink) {
+        checkPartitions(storeA, storeB);
+
+        StoreReconciler storeReconciler = reconciliationService.storeReconciler();
+        CarryOver carryOver = carryOver(storeA, storeB);
+        run(storeA.partitionCount(), partition -> {
+            List<MatchResult> results = timed(partition,
+                    storeA.partition(partition).size() + storeB.partition(partition).size(),
+                    () -> {
+                        List<MatchResult> partitionResults = new ArrayList<>();
+                        storeReconciler.reconcile(storeA.partition(partition), storeB.partition(partition),
+                                partitionSink(carryOver, partition, mode.apply(partitionResults::add)));
+                        return partitionResults;
+                    }, List::size);
+            synchronized (sink) {
+                results.forEach(sink);
+            }
+            return results.size();
+        });
+
+        if (carryOver != null) {
+            reconcileCarryOver(carryOver, storeReconciler, mode).forEach(sink);
+        }
+    }
+
+    /**
+     * A {@link CarryOver} for inputs split by time slice, or {@code null} when both bookings of a
+     * trade always share a partition.
+     */
+    private static CarryOver carryOver(PartitionedTradeStore storeA, PartitionedTradeStore storeB) {
+        return storeA.partitioner().isByTradeId() ? null : new CarryOver(storeA, storeB);
+    }
+
+    private static StoreResultSink partitionSink(CarryOver carryOver, int partition, StoreResultSink sink) {
+        return carryOver == null ? sink : carryOver.hold(partition, sink);
+    }
+
+    /**
+     * Runs the carry-over pass, recorded as one more task of the compare stage.
+     */
+    private List<MatchResult> reconcileCarryOver(CarryOver carryOver, StoreReconciler storeReconciler,
+                                                 Function<Consumer<MatchResult>, StoreResultSink> mode) {
+        return timed(carryOver.partitionCount(), carryOver.size(), () -> {
+            List<MatchResult> results = new ArrayList<>();
+            carryOver.reconcile(storeReconciler, mode.apply(results::add));
+            return results;
+        }, List::size);
+    }
+
+    private static void checkPartitions(PartitionedTradeStore storeA, PartitionedTradeStore storeB) {
+        if (storeA.partitionCount() != storeB.partitionCount()) {
+            throw new IllegalArgumentException("Inputs must be split into the same number of partitions");
+        }
+        if (!storeA.partitioner().equals(storeB.partitioner())) {
+            throw new IllegalArgumentException("Inputs must be split the same way, got " + storeA.partitioner()
+                    + " and " + storeB.partitioner());
+        }
+    }
+
+    /**
+     * Partitions both lists in parallel (keeping input order within each partition, so duplicate
+     * ids still keep their first occurrence) and hash-joins each partition.
+     */
+    public List<MatchResult> reconcile(List<Trade> systemA, List<Trade> systemB) {
+        int partitionCount = partitionCount(pool.getParallelism());
+        List<List<Trade>> partitionsA = partition(systemA, partitionCount);
+        List<List<Trade>> partitionsB = partition(systemB, partitionCount);
+
+        HashJoinReconciler hashJoin = new HashJoinReconciler(reconciliationService);
+        return new ConcatenatedList<>(run(partitionCount, partition -> timed(partition,
+                partitionsA.get(partition).size() + partitionsB.get(partition).size(),
+                () -> hashJoin.reconcile(partitionsA.get(partition), partitionsB.get(partition)), List::size)));
+    }
+
+    /**
+     * Reconciles one partition, recording it as a task of the compare stage so that skew
+     * between partitions and threads shows up in the run's metrics.
+     */
+    private <T> T timed(int partition, long rowsIn, Supplier<T> partitionReconciler, ToLongFunction<T> rowsOut) {
+        StageMetrics.Task task = reconciliationService.metrics().stage(RunMetrics.COMPARE).beginTask(partition);
+        T results = partitionReconciler.get();
+        task.end(rowsIn, rowsOut.applyAsLong(results));
+        return results;
+    }
+
+    /**
+     * @return what each partition produced, by partition
+     */
+    private <T> List<T> run(int partitionCount, IntFunction<T> partitionReconciler) {
+        @SuppressWarnings("unchecked")
+        T[] partitionResults = (T[]) new Object[partitionCount];
+
+        pool.invoke(new ReconciliationTask<>(partitionReconciler, partitionResults, 0, partitionCount));
+
+        return Arrays.asList(partitionResults);
+    }
+
+    private List<List<Trade>> partition(List<Trade> trades, int partitionCount) {
+        int slices = pool.getParallelism();
+
+        // a parallel stream started from inside the pool runs on the pool's workers
+        List<List<List<Trade>>> slicedBuckets = pool.submit(() -> IntStream.range(0, slices)
+                .parallel()
+                .mapToObj(slice -> bucket(trades.subList(
+                        (int) ((long) trades.size() * slice / slices),
+                        (int) ((long) trades.size() * (slice + 1) / slices)), partitionCount))
+                .toList()).join();
+
+        List<List<Trade>> partitions = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            int index = partition;
+            partitions.add(new ConcatenatedList<>(slicedBuckets.stream().map(buckets -> buckets.get(index)).toList()));
+        }
+        return partitions;
+    }
+
+    private static List<List<Trade>> bucket(List<Trade> slice, int partitionCount) {
+        List<List<Trade>> buckets = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            buckets.add(new ArrayList<>(slice.size() / partitionCount + 16));
+        }
+
+        for (Trade trade : slice) {
+            buckets.get(PartitionedTradeStore.partitionOf(mix(trade.tradeId().hashCode()), partitionCount)).add(trade);
+        }
+        return buckets;
+    }
+
+    private static int mix(int hash) {
+        return hash * 0x9E3779B9;
+    }
+}
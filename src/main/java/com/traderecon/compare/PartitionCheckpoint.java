@@ -0,0 +1,271 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.Hashing;
+import com.traderecon.io.ReportWriters;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * Durable progress of a checkpointed parallel reconciliation. Every partition that finishes
+ * leaves its results as a report of its own, and a manifest lists the partitions that are done
+ * and those that failed. The checkpoint's directory, under {@code checkpoint.dir}, is named after
+ * a fingerprint of the inputs (path, size and modification time) and of the settings that shape
+ * the results, so a rerun over the same inputs finds it and {@link ParallelReconciler} only
+ * reconciles the partitions it is missing.
+ * <p>
+ * A partition's report is written under a temporary name and renamed into place before the
+ * manifest, itself replaced by a rename, lists it: a run that dies halfway through a partition
+ * leaves nothing the next run would trust.
+ */
+public final class PartitionCheckpoint {
+
+    private static final String MANIFEST = "manifest.properties";
+    private static final String PARTITION_PREFIX = "partition-";
+
+    private final Path directory;
+    private final long fingerprint;
+    private final int partitionCount;
+    private final String reportFormat;
+    private final BitSet done;
+    private final BitSet failed = new BitSet();
+
+    private PartitionCheckpoint(Path directory, long fingerprint, int partitionCount, String reportFormat, BitSet done) {
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+        this.partitionCount = partitionCount;
+        this.reportFormat = reportFormat;
+        this.done = done;
+    }
+
+    /**
+     * Opens the checkpoint of these inputs and settings, or starts an empty one. An existing
+     * checkpoint keeps the partition count it was started with, so a rerun with another number
+     * of threads still resumes it.
+     *
+     * @param partitionCount partitions of a new checkpoint
+     */
+    public static PartitionCheckpoint open(AppConfig appConfig, boolean exceptionsOnly, int partitionCount,
+                                           Path systemA, Path systemB) throws IOException {
+        long fingerprint = fingerprint(appConfig, exceptionsOnly, systemA, systemB);
+        Path directory = Files.createDirectories(
+                Path.of(appConfig.getCheckpointDirectory()).resolve(String.format("recon-%016x", fingerprint)));
+        String reportFormat = appConfig.getReportFormat();
+
+        PartitionCheckpoint existing = read(directory, fingerprint, reportFormat);
+        if (existing != null) {
+            return existing;
+        }
+
+        deletePartitions(directory);
+        PartitionCheckpoint checkpoint = new PartitionCheckpoint(directory, fingerprint, partitionCount, reportFormat,
+                new BitSet(partitionCount));
+        checkpoint.writeManifest();
+        return checkpoint;
+    }
+
+    /**
+     * @return {@code null} if there is no usable manifest in {@code directory}
+     */
+    private static PartitionCheckpoint read(Path directory, long fingerprint, String reportFormat) throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(manifest)) {
+            properties.load(reader);
+        }
+        try {
+            if (Long.parseUnsignedLong(properties.getProperty("fingerprint", ""), 16) != fingerprint) {
+                return null;
+            }
+            int partitionCount = Integer.parseInt(properties.getProperty("partitions", "").trim());
+            BitSet done = new BitSet(partitionCount);
+            PartitionCheckpoint checkpoint = new PartitionCheckpoint(directory, fingerprint, partitionCount,
+                    reportFormat, done);
+            for (String partition : properties.getProperty("done", "").split(",")) {
+                int index = partition.isBlank() ? -1 : Integer.parseInt(partition.trim());
+                // a report that has gone missing is simply reconciled again
+                if (index >= 0 && index < partitionCount && Files.exists(checkpoint.report(index))) {
+                    done.set(index);
+                }
+            }
+            return checkpoint;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Everything a partition's report depends on besides the partition count, which the
+     * manifest keeps.
+     */
+    static long fingerprint(AppConfig appConfig, boolean exceptionsOnly, Path systemA, Path systemB)
+            throws IOException {
+        long hash = Hashing.mix(appConfig.comparisonFingerprint() ^ appConfig.getTradePartitioner().sliceNanos());
+        hash = Hashing.mix(hash ^ ReportWriters.extension(appConfig.getReportFormat()).hashCode());
+        hash = Hashing.mix(hash ^ (exceptionsOnly ? 1 : 2));
+        for (Path input : new Path[]{systemA, systemB}) {
+            hash = Hashing.mix(hash ^ input.toAbsolutePath().normalize().toString().hashCode());
+            hash = Hashing.mix(hash ^ Files.size(input));
+            hash = Hashing.mix(hash ^ Files.getLastModifiedTime(input).toMillis());
+        }
+        return hash;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    public String reportFormat() {
+        return reportFormat;
+    }
+
+    public synchronized boolean isDone(int partition) {
+        return done.get(partition);
+    }
+
+    public synchronized int doneCount() {
+        return done.cardinality();
+    }
+
+    /**
+     * Partitions that failed on their last attempt in this run.
+     */
+    public synchronized List<Integer> failedPartitions() {
+        return failed.stream().boxed().toList();
+    }
+
+    /**
+     * Where a partition's report is written until {@link #commit} moves it into the checkpoint.
+     */
+    Path temporaryReport(int partition) {
+        return directory.resolve(PARTITION_PREFIX + partition + ".tmp");
+    }
+
+    Path report(int partition) {
+        return directory.resolve(PARTITION_PREFIX + partition + "." + ReportWriters.extension(reportFormat));
+    }
+
+    /**
+     * Where a run over partitions split by time slice writes the results of its carry-over pass
+     * (see {@link CarryOver}), which {@link #mergeReports} adds after the partitions. Written
+     * again by every run, since the checkpoint doesn't keep the rows carried over.
+     */
+    Path carryOverReport() {
+        return directory.resolve(PARTITION_PREFIX + "carry-over." + ReportWriters.extension(reportFormat));
+    }
+
+    /**
+     * Moves the partition's finished report into place and records the partition as done.
+     */
+    synchronized void commit(int partition) throws IOException {
+        Files.move(temporaryReport(partition), report(partition),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        done.set(partition);
+        failed.clear(partition);
+        writeManifest();
+    }
+
+    /**
+     * Records that the partition failed on its last attempt; the next run reconciles it again.
+     */
+    synchronized void fail(int partition) throws IOException {
+        failed.set(partition);
+        writeManifest();
+        try {
+            Files.deleteIfExists(temporaryReport(partition));
+        } catch (IOException e) {
+            // the next attempt at the partition overwrites it anyway
+        }
+    }
+
+    /**
+     * Concatenates the partition reports, in partition order, and the carry-over report if there
+     * is one, into {@code target}.
+     *
+     * @return the size of {@code target}
+     * @throws IllegalStateException if a partition is not done
+     */
+    public synchronized long mergeReports(Path target) throws IOException {
+        List<Path> reports = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            if (!done.get(partition)) {
+                throw new IllegalStateException("Partition " + partition + " of checkpoint " + directory + " is not done");
+            }
+            reports.add(report(partition));
+        }
+        if (Files.exists(carryOverReport())) {
+            reports.add(carryOverReport());
+        }
+        return ReportWriters.concatenate(reportFormat, reports, target);
+    }
+
+    /**
+     * Deletes the checkpoint, once its reports have been merged.
+     */
+    public void delete() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("fingerprint", Long.toHexString(fingerprint));
+        properties.setProperty("partitions", Integer.toString(partitionCount));
+        properties.setProperty("report.format", reportFormat);
+        properties.setProperty("done", list(done));
+        properties.setProperty("failed", list(failed));
+
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary)) {
+            properties.store(writer, "Reconciliation checkpoint: " + done.cardinality() + " of " + partitionCount
+                    + " partitions done");
+        }
+        Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String list(BitSet partitions) {
+        StringJoiner list = new StringJoiner(",");
+        partitions.stream().forEach(partition -> list.add(Integer.toString(partition)));
+        return list.toString();
+    }
+
+    /**
+     * Clears what a checkpoint for other settings or an unreadable manifest left behind.
+     */
+    private static void deletePartitions(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.filter(path -> path.getFileName().toString().startsWith(PARTITION_PREFIX)).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
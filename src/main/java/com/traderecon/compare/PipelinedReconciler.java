@@ -0,0 +1,241 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.Trade;
+import com.traderecon.io.TradeLoader;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Overlaps loading, comparing and writing instead of running them one after the other. Each
+ * system is parsed on its own virtual thread and routed by trade id into batches for
+ * {@code joiners} join threads; each joiner runs a symmetric hash join over its share of the
+ * ids, emitting a pair as soon as its second trade arrives, and hands results in batches to a
+ * single writer thread that feeds the sink. Trades left unpaired once both inputs are done are
+ * emitted as missing.
+ * <p>
+ * Every hand-over goes through a bounded queue, so a slow joiner or sink blocks the stages in
+ * front of it instead of letting batches pile up: what is in flight is bounded by the queue
+ * capacities, and the join state holds only unpaired trades and the ids already paired (to drop
+ * later duplicates, which keeps each id's first occurrence like the batch reconcilers).
+ */
+public class PipelinedReconciler {
+
+    private static final int BATCH_SIZE = 2048;
+    private static final int QUEUED_BATCHES_PER_JOINER = 8;
+    private static final int SIDE_A = 0;
+    private static final int SIDE_B = 1;
+
+    /**
+     * Marks the end of one joiner's results; compared by identity.
+     */
+    private static final List<MatchResult> END_OF_RESULTS = new ArrayList<>(0);
+
+    private final ReconciliationService reconciliationService;
+    private final int joiners;
+
+    public PipelinedReconciler(ReconciliationService reconciliationService, int joiners) {
+        this.reconciliationService = reconciliationService;
+        this.joiners = Math.max(1, joiners);
+    }
+
+    /**
+     * Reconciles the two files, calling the sink from one thread only. Returns once every result
+     * has been handed to the sink; the first failure of any stage stops the others and is rethrown.
+     */
+    public void reconcile(TradeLoader loader, String pathA, String pathB, Consumer<MatchResult> sink) {
+        RunMetrics metrics = reconciliationService.metrics();
+        List<BlockingQueue<Batch>> inputs = new ArrayList<>(joiners);
+        for (int i = 0; i < joiners; i++) {
+            inputs.add(new ArrayBlockingQueue<>(QUEUED_BATCHES_PER_JOINER));
+        }
+        BlockingQueue<List<MatchResult>> results = new ArrayBlockingQueue<>(QUEUED_BATCHES_PER_JOINER * joiners);
+        StageMetrics loadStageA = metrics.stage(RunMetrics.LOAD_A);
+        StageMetrics loadStageB = metrics.stage(RunMetrics.LOAD_B);
+        StageMetrics compareStage = metrics.stage(RunMetrics.COMPARE);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+            stages.submit(() -> load(loader, pathA, SIDE_A, inputs, loadStageA));
+            stages.submit(() -> load(loader, pathB, SIDE_B, inputs, loadStageB));
+            for (BlockingQueue<Batch> input : inputs) {
+                stages.submit(() -> join(input, results, compareStage));
+            }
+            stages.submit(() -> write(results, sink));
+
+            awaitAll(stages, executor, 3 + joiners);
+        }
+    }
+
+    private void awaitAll(CompletionService<Void> stages, ExecutorService executor, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                stages.take().get();
+            }
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Pipelined reconciliation failed", e.getCause());
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the pipelined reconciliation", e);
+        }
+    }
+
+    /**
+     * Parses one file, routing every trade to the joiner owning its id. The stage's time includes
+     * waiting for joiners to make room.
+     */
+    private Void load(TradeLoader loader, String path, int side, List<BlockingQueue<Batch>> inputs,
+                      StageMetrics stage) {
+        List<List<Trade>> batches = new ArrayList<>(joiners);
+        for (int i = 0; i < joiners; i++) {
+            batches.add(new ArrayList<>(BATCH_SIZE));
+        }
+
+        loader.forEachTrade(path, trade -> {
+            int joiner = PartitionedTradeStore.partitionOf(mix(trade.tradeId().hashCode()), joiners);
+            List<Trade> batch = batches.get(joiner);
+            batch.add(trade);
+            if (batch.size() == BATCH_SIZE) {
+                put(inputs.get(joiner), new Batch(side, batch));
+                batches.set(joiner, new ArrayList<>(BATCH_SIZE));
+            }
+        }, stage);
+
+        for (int i = 0; i < joiners; i++) {
+            if (!batches.get(i).isEmpty()) {
+                put(inputs.get(i), new Batch(side, batches.get(i)));
+            }
+            put(inputs.get(i), new Batch(side, null));
+        }
+        return null;
+    }
+
+    private Void join(BlockingQueue<Batch> input, BlockingQueue<List<MatchResult>> output, StageMetrics stage)
+            throws InterruptedException {
+        Map<String, Trade> pendingA = new HashMap<>();
+        Map<String, Trade> pendingB = new HashMap<>();
+        Set<String> paired = new HashSet<>();
+        List<MatchResult> results = new ArrayList<>(BATCH_SIZE);
+
+        long firstBegin = Long.MAX_VALUE;
+        long busyNanos = 0;
+        long rowsIn = 0;
+        long rowsOut = 0;
+        int completedSides = 0;
+
+        while (completedSides < 2) {
+            Batch batch = input.take();
+            if (batch.trades() == null) {
+                completedSides++;
+                continue;
+            }
+
+            long begin = System.nanoTime();
+            firstBegin = Math.min(firstBegin, begin);
+            boolean fromA = batch.side() == SIDE_A;
+            Map<String, Trade> own = fromA ? pendingA : pendingB;
+            Map<String, Trade> other = fromA ? pendingB : pendingA;
+
+            for (Trade trade : batch.trades()) {
+                String tradeId = trade.tradeId();
+                Trade counterpart = other.remove(tradeId);
+                if (counterpart != null) {
+                    paired.add(tradeId);
+                    results.add(fromA
+                            ? reconciliationService.compareTrades(trade, counterpart)
+                            : reconciliationService.compareTrades(counterpart, trade));
+                } else if (paired.contains(tradeId) || own.putIfAbsent(tradeId, trade) != null) {
+                    System.err.println("Duplicate trade id: " + tradeId);
+                    stage.duplicate();
+                }
+            }
+            rowsIn += batch.trades().size();
+            busyNanos += System.nanoTime() - begin;
+
+            if (results.size() >= BATCH_SIZE) {
+                rowsOut += results.size();
+                output.put(results);
+                results = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+
+        long begin = System.nanoTime();
+        firstBegin = Math.min(firstBegin, begin);
+        for (Trade trade : pendingA.values()) {
+            results.add(MatchResult.missingInB(trade));
+        }
+        for (Trade trade : pendingB.values()) {
+            results.add(MatchResult.missingInA(trade));
+        }
+        long end = System.nanoTime();
+        busyNanos += end - begin;
+
+        rowsOut += results.size();
+        stage.add(firstBegin, end, busyNanos);
+        stage.addRowsIn(rowsIn);
+        stage.addRowsOut(rowsOut);
+
+        if (!results.isEmpty()) {
+            output.put(results);
+        }
+        output.put(END_OF_RESULTS);
+        return null;
+    }
+
+    private Void write(BlockingQueue<List<MatchResult>> results, Consumer<MatchResult> sink)
+            throws InterruptedException {
+        int completedJoiners = 0;
+        while (completedJoiners < joiners) {
+            List<MatchResult> batch = results.take();
+            if (batch == END_OF_RESULTS) {
+                completedJoiners++;
+            } else {
+                batch.forEach(sink);
+            }
+        }
+        return null;
+    }
+
+    private static void put(BlockingQueue<Batch> queue, Batch batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while feeding the pipelined reconciler", e);
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash * 0x9E3779B9;
+    }
+
+    /**
+     * Trades of one system bound for one joiner; {@code null} trades mark the end of that system.
+     */
+    private record Batch(int side, List<Trade> trades) {
+    }
+}
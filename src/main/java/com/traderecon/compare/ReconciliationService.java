@@ -1,33 +1,206 @@
 package com.traderecon.compare;
 
 import com.traderecon.config.AppConfig;
+import com.traderecon.config.ToleranceRules;
+import com.traderecon.core.AggregateMatchResult;
+import com.traderecon.core.BreakDelta;
 import com.traderecon.core.MatchResult;
 import com.traderecon.core.MatchStatus;
+import com.traderecon.core.MultiMatchResult;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.ReconciliationSummary;
+import com.traderecon.core.StoreResultSink;
+import com.traderecon.core.SymbolDictionary;
 import com.traderecon.core.Trade;
+import com.traderecon.core.TradeField;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.TradeLoader;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 public class ReconciliationService {
 
+    /**
+     * Codes the symbols of the {@code Trade}s this service compares, so that the object path
+     * resolves tolerance rules and compares symbols by code like the store path does.
+     */
+    private final SymbolDictionary tradeSymbols;
     private final AppConfig appConfig;
+    private final RunMetrics metrics;
+    private volatile ToleranceRules.SymbolTable tradeRules;
 
     public ReconciliationService(AppConfig appConfig) {
+        this(appConfig, new RunMetrics());
+    }
+
+    /**
+     * @param metrics receives the map/index and compare stages of every reconciliation
+     */
+    public ReconciliationService(AppConfig appConfig, RunMetrics metrics) {
+        this(appConfig, metrics, new SymbolDictionary());
+    }
+
+    private ReconciliationService(AppConfig appConfig, RunMetrics metrics, SymbolDictionary tradeSymbols) {
         this.appConfig = appConfig;
+        this.metrics = metrics;
+        this.tradeSymbols = tradeSymbols;
     }
 
     public List<MatchResult> reconcileTrades(List<Trade> systemA, List<Trade> systemB) {
-        System.out.println("ReconciliationService reconcileTrades");
+        StageMetrics mapStage = metrics.stage(RunMetrics.MAP);
+        long mapBegin = mapStage.begin();
         Map<String, Trade> mapA = mapTrades(systemA);
         Map<String, Trade> mapB = mapTrades(systemB);
+        mapStage.end(mapBegin);
+        mapStage.addRowsIn(systemA.size() + systemB.size());
+        mapStage.addRowsOut(mapA.size() + mapB.size());
 
+        StageMetrics compareStage = metrics.stage(RunMetrics.COMPARE);
+        long compareBegin = compareStage.begin();
         Set<String> allTradeIds = new HashSet<>();
         allTradeIds.addAll(mapA.keySet());
         allTradeIds.addAll(mapB.keySet());
 
-        return buildReconciliationResults(allTradeIds, mapA, mapB);
+        List<MatchResult> matchResults = buildReconciliationResults(allTradeIds, mapA, mapB);
+        compareStage.end(compareBegin);
+        compareStage.addRowsIn(mapA.size() + mapB.size());
+        compareStage.addRowsOut(matchResults.size());
+        return matchResults;
+    }
+
+    RunMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * A service for another configuration snapshot, recording into the same metrics.
+     */
+    public ReconciliationService withConfig(AppConfig appConfig) {
+        return appConfig == this.appConfig ? this : new ReconciliationService(appConfig, metrics, tradeSymbols);
+    }
+
+    AppConfig appConfig() {
+        return appConfig;
+    }
+
+    /**
+     * Same results as {@link #reconcileTrades(List, List)}, but indexes only the smaller system.
+     *
+     * @see HashJoinReconciler
+     */
+    public List<MatchResult> reconcileTradesHashJoin(List<Trade> systemA, List<Trade> systemB) {
+        return new HashJoinReconciler(this).reconcile(systemA, systemB);
+    }
+
+    /**
+     * Reconciles two columnar stores without materializing {@code Trade}s for the comparison.
+     * Both stores must share one {@link com.traderecon.core.SymbolDictionary}.
+     *
+     * @see StoreReconciler
+     */
+    public List<MatchResult> reconcileStores(TradeStore storeA, TradeStore storeB) {
+        return storeReconciler().reconcile(storeA, storeB);
+    }
+
+    /**
+     * Streaming variant of {@link #reconcileStores(TradeStore, TradeStore)}.
+     */
+    public void reconcileStores(TradeStore storeA, TradeStore storeB, Consumer<MatchResult> sink) {
+        storeReconciler().reconcile(storeA, storeB, sink);
+    }
+
+    /**
+     * Streams only the breaks, {@link MatchStatus#MISMATCHED} and missing results, for books
+     * where nearly every trade matches: matched pairs are compared from the columns and dropped
+     * without materializing a {@code MatchResult} or {@code Trade}.
+     */
+    public void reconcileStoresExceptions(TradeStore storeA, TradeStore storeB, Consumer<MatchResult> sink) {
+        storeReconciler().reconcile(storeA, storeB, StoreResultSink.exceptions(sink));
+    }
+
+    /**
+     * Reconciles into counts and notional per status, symbol and side only; no result is
+     * materialized for any trade.
+     */
+    public ReconciliationSummary summarizeStores(TradeStore storeA, TradeStore storeB) {
+        ReconciliationSummary summary = new ReconciliationSummary(storeA.symbols());
+        storeReconciler().reconcile(storeA, storeB, summary);
+        return summary;
+    }
+
+    /**
+     * Reconciles three or more systems (two work too) in one pass over a shared index of their
+     * trade ids, instead of one reconciliation per pair. All stores must share one
+     * {@link com.traderecon.core.SymbolDictionary}.
+     *
+     * @return one result per unique trade id, in the order ids were first seen
+     * @see MultiStoreReconciler
+     */
+    public List<MultiMatchResult> reconcileNWay(List<TradeStore> stores) {
+        return multiStoreReconciler().reconcile(stores);
+    }
+
+    /**
+     * Streaming variant of {@link #reconcileNWay(List)}.
+     */
+    public void reconcileNWay(List<TradeStore> stores, Consumer<MultiMatchResult> sink) {
+        multiStoreReconciler().reconcile(stores, sink);
+    }
+
+    private MultiStoreReconciler multiStoreReconciler() {
+        return new MultiStoreReconciler(appConfig, metrics.stage(RunMetrics.INDEX), metrics.stage(RunMetrics.COMPARE));
+    }
+
+    StoreReconciler storeReconciler() {
+        return new StoreReconciler(appConfig, metrics.stage(RunMetrics.INDEX), metrics.stage(RunMetrics.COMPARE));
+    }
+
+    /**
+     * Loads both files concurrently and reconciles trades as they are parsed, streaming results
+     * to the sink while the inputs are still being read. Calls to the sink are serialized.
+     *
+     * @see PipelinedReconciler
+     */
+    public void reconcilePipelined(TradeLoader loader, String systemAPath, String systemBPath, int joiners,
+                                   Consumer<MatchResult> sink) {
+        new PipelinedReconciler(this, joiners).reconcile(loader, systemAPath, systemBPath, sink);
+    }
+
+    /**
+     * Many-to-one reconciliation: compares the systems' trades grouped by the configured
+     * {@code aggregation.key} instead of one to one by id.
+     *
+     * @see AggregationReconciler
+     */
+    public List<AggregateMatchResult> reconcileAggregated(List<Trade> systemA, List<Trade> systemB, int numberOfThreads) {
+        AggregationKey key = AggregationKey.parse(appConfig.getAggregationKey(), appConfig.getAggregationOrderSeparator(),
+                appConfig.isCaseInsensitiveSymbols());
+        return new AggregationReconciler(this, key, numberOfThreads).reconcile(systemA, systemB);
+    }
+
+    /**
+     * Pairs the missing results that are the same trade booked under different ids, see
+     * {@link FuzzyMatcher}.
+     *
+     * @return the other results, then the {@link MatchStatus#FUZZY_MATCHED} pairs, then the
+     * missing results left unpaired
+     */
+    public List<MatchResult> matchFuzzy(List<MatchResult> results) {
+        return new FuzzyMatcher(this).match(results);
+    }
+
+    /**
+     * Reconciles only the trades that changed since the run that produced {@code previous} and
+     * emits the breaks that were opened, closed or changed.
+     *
+     * @return the state to persist for the next run
+     */
+    public ReconciliationState reconcileIncremental(TradeStore storeA, TradeStore storeB, ReconciliationState previous,
+                                                    Consumer<BreakDelta> deltaSink) {
+        return new IncrementalReconciler(appConfig).reconcile(storeA, storeB, previous, deltaSink);
     }
 
     private List<MatchResult> buildReconciliationResults(Set<String> allTradeIds, Map<String, Trade> mapA, Map<String, Trade> mapB) {
@@ -39,9 +212,9 @@ public class ReconciliationService {
             if (tradeA != null && tradeB != null) {
                 matchResults.add(compareTrades(tradeA, tradeB));
             } else if (tradeA == null) {
-                matchResults.add(new MatchResult(MatchStatus.MISSING_IN_A, tradeId, null, tradeB, getMissingTradeIdDifferencesAsList()));
+                matchResults.add(MatchResult.missingInA(tradeB));
             } else {
-                matchResults.add(new MatchResult(MatchStatus.MISSING_IN_B, tradeId, tradeA, null, getMissingTradeIdDifferencesAsList()));
+                matchResults.add(MatchResult.missingInB(tradeA));
             }
         }
 
@@ -49,12 +222,7 @@ public class ReconciliationService {
     }
 
     public List<String> getMissingTradeIdDifferencesAsList() {
-        return Arrays.asList(
-                "Action missing",
-                "Symbol missing",
-                "Price missing",
-                "Quantity missing"
-        );
+        return MatchResult.MISSING_DIFFERENCES;
     }
 
     protected Map<String, Trade> mapTrades(List<Trade> system) {
@@ -64,6 +232,7 @@ public class ReconciliationService {
             String tradeId = trade.tradeId();
             if (result.containsKey(tradeId)) {
                 System.err.println("Duplicate trade id: " + tradeId);
+                metrics.stage(RunMetrics.MAP).duplicate();
             } else {
                 result.put(tradeId, trade);
             }
@@ -74,94 +243,130 @@ public class ReconciliationService {
 
 
     protected MatchResult compareTrades(Trade tradeA, Trade tradeB) {
-       List<String> differences = getDifferences(tradeA, tradeB);
+        int differenceMask = getDifferenceMask(tradeA, tradeB);
 
-        MatchStatus status = differences.isEmpty() ? MatchStatus.MATCHED : MatchStatus.MISMATCHED;
+        MatchStatus status = differenceMask == 0 ? MatchStatus.MATCHED : MatchStatus.MISMATCHED;
 
-        return new MatchResult(status, tradeA.tradeId(), tradeA, tradeB, differences);
+        return new MatchResult(status, tradeA.tradeId(), tradeA, tradeB, differenceMask);
     }
 
 
-    protected List<String> getDifferences(Trade tradeA, Trade tradeB) {
-        List<String> differences = new ArrayList<>();
+    /**
+     * Compares the fields, with the tolerances, of the {@link ToleranceRules tolerance rule}
+     * that applies to {@code tradeA}. Symbols are coded in a dictionary of the symbols compared
+     * so far: the rule is found by code, and symbols compare by (folded) code, as in
+     * {@link StoreReconciler}.
+     *
+     * @return the {@link TradeField#mask()}s of the fields that differ, or {@code 0}
+     */
+    protected int getDifferenceMask(Trade tradeA, Trade tradeB) {
+        ToleranceRules rules = appConfig.getToleranceRules();
+        int symbolA = tradeSymbols.code(tradeA.symbol());
+        int rule = tradeRules(rules, symbolA).rule(symbolA, tradeA.price());
+        int differenceMask = 0;
 
         if (!tradeA.action().equals(tradeB.action())) {
-            differences.add("Action " + tradeA.action() + " != Action " + tradeB.action());
+            differenceMask |= TradeField.ACTION.mask();
         }
 
-        if (appConfig.isCaseInsensitiveSymbols()) {
-            if (!tradeA.symbol().equalsIgnoreCase(tradeB.symbol())) {
-                differences.add("Symbol " + tradeA.symbol() + " != Symbol " + tradeB.symbol());
-            }
-        } else {
-            if (!tradeA.symbol().equals(tradeB.symbol())) {
-                differences.add("Symbol " + tradeA.symbol() + " != Symbol " + tradeB.symbol());
-            }
+        int symbolB = tradeSymbols.code(tradeB.symbol());
+        boolean sameSymbol = appConfig.isCaseInsensitiveSymbols()
+                ? tradeSymbols.foldedCode(symbolA) == tradeSymbols.foldedCode(symbolB)
+                : symbolA == symbolB;
+        if (!sameSymbol) {
+            differenceMask |= TradeField.SYMBOL.mask();
         }
 
-        if (Math.abs(tradeA.price() - tradeB.price()) > appConfig.getPriceTolerance()) {
-            differences.add("Price " + tradeA.price() + " != " + tradeB.price());
+        if (Math.abs(tradeA.price() - tradeB.price()) > rules.priceTolerance(rule)) {
+            differenceMask |= TradeField.PRICE.mask();
         }
 
-        if (Math.abs(tradeA.quantity() - tradeB.quantity()) > appConfig.getQuantityTolerance()) {
-            differences.add("Quantity " + tradeA.quantity() + " != Quantity " + tradeB.quantity());
+        if (Math.abs(tradeA.quantity() - tradeB.quantity()) > rules.quantityTolerance(rule)) {
+            differenceMask |= TradeField.QUANTITY.mask();
         }
 
-        return differences;
-    }
-
-    public List<MatchResult> reconcileTradesParallel(List<Trade> systemA, List<Trade> systemB, int numberOfThreads) {
-        Map<String, Trade> mapA = mapTrades(systemA);
-        Map<String, Trade> mapB = mapTrades(systemB);
-
-        Set<String> allTradeIds = new HashSet<>();
-        allTradeIds.addAll(mapA.keySet());
-        allTradeIds.addAll(mapB.keySet());
-
-        List<Set<String>> partitions = partitionTradeIds(allTradeIds, numberOfThreads);
-
-        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
-        List<Future<List<MatchResult>>> futures = new ArrayList<>();
-
-        for (Set<String> partition : partitions) {
-            System.out.println("Submitting a new task");
-            ReconciliationTask task = new ReconciliationTask(partition, mapA, mapB, appConfig, this);
-            futures.add(executor.submit(task));
-
+        if (Math.abs(tradeA.price() * tradeA.quantity() - tradeB.price() * tradeB.quantity()) > rules.notionalTolerance(rule)) {
+            differenceMask |= TradeField.NOTIONAL.mask();
         }
 
-        List<MatchResult> allResults = new ArrayList<>();
-        for (Future<List<MatchResult>> future : futures) {
-            try {
-                allResults.addAll(future.get());
-            } catch (ExecutionException | InterruptedException e) {
-                System.err.println("Error in thread: " + e.getMessage());
-            }
+        if (rules.timestampsDiffer(rule, tradeA.timestamp(), tradeB.timestamp())) {
+            differenceMask |= TradeField.TIMESTAMP.mask();
         }
 
-        executor.shutdown();
+        return differenceMask & rules.comparedFields(rule);
+    }
 
-        return allResults;
+    /**
+     * The rule table of {@link #tradeSymbols}, rebuilt when the rules change or once the symbols
+     * seen have doubled past it, so that growing it costs O(1) per symbol; the codes it doesn't
+     * cover yet are resolved by name.
+     */
+    private ToleranceRules.SymbolTable tradeRules(ToleranceRules rules, int symbolCode) {
+        ToleranceRules.SymbolTable table = tradeRules;
+        if (table == null || table.rules() != rules || symbolCode >= 2 * table.size()) {
+            table = rules.forSymbols(tradeSymbols);
+            tradeRules = table;
+        }
+        return table;
     }
 
-    private List<Set<String>> partitionTradeIds(Set<String> allTradeIds, int numberOfThreads) {
-        List<Set<String>> partitions = new ArrayList<>();
-        int chunkSize = Math.max(1, (int) Math.ceil((double) allTradeIds.size() / numberOfThreads));
-        Set<String> currentChunk = new HashSet<>();
+    /**
+     * Hash-partitions both systems by trade id and reconciles the partitions on a reusable
+     * work-stealing pool.
+     *
+     * @see ParallelReconciler
+     */
+    public List<MatchResult> reconcileTradesParallel(List<Trade> systemA, List<Trade> systemB, int numberOfThreads) {
+        return new ParallelReconciler(this, numberOfThreads).reconcile(systemA, systemB);
+    }
 
-        for (String tradeId : allTradeIds) {
-            currentChunk.add(tradeId);
-            if (currentChunk.size() == chunkSize) {
-                partitions.add(currentChunk);
-                currentChunk = new HashSet<>();
-            }
-        }
+    /**
+     * Parallel reconciliation of inputs that were already partitioned at load time, see
+     * {@link com.traderecon.io.TradeLoader#loadPartitionedStore}.
+     */
+    public List<MatchResult> reconcileStoresParallel(PartitionedTradeStore storeA, PartitionedTradeStore storeB,
+                                                     int numberOfThreads) {
+        return new ParallelReconciler(this, numberOfThreads).reconcile(storeA, storeB);
+    }
 
-        if (!currentChunk.isEmpty()) {
-            partitions.add(currentChunk);
-        }
+    /**
+     * Streaming variant of {@link #reconcileStoresParallel(PartitionedTradeStore, PartitionedTradeStore, int)}:
+     * each partition's results go to the sink as soon as the partition is done. Calls to the
+     * sink are serialized.
+     */
+    public void reconcileStoresParallel(PartitionedTradeStore storeA, PartitionedTradeStore storeB,
+                                        int numberOfThreads, Consumer<MatchResult> sink) {
+        new ParallelReconciler(this, numberOfThreads).reconcile(storeA, storeB, sink);
+    }
+
+    /**
+     * Parallel variant of {@link #reconcileStoresExceptions}. Calls to the sink are serialized.
+     */
+    public void reconcileStoresParallelExceptions(PartitionedTradeStore storeA, PartitionedTradeStore storeB,
+                                                  int numberOfThreads, Consumer<MatchResult> sink) {
+        new ParallelReconciler(this, numberOfThreads).reconcileExceptions(storeA, storeB, sink);
+    }
 
+    /**
+     * Checkpointed parallel reconciliation for long runs: each partition's results are kept in
+     * {@code checkpoint} as soon as the partition is done, partitions already there are
+     * skipped, and failing partitions are retried. Merge the partition reports with
+     * {@link PartitionCheckpoint#mergeReports} once this returns.
+     *
+     * @throws IllegalStateException if partitions still failed after their last attempt; they
+     *                               are redone by the next run over the same inputs
+     */
+    public void reconcileStoresParallel(PartitionedTradeStore storeA, PartitionedTradeStore storeB, int numberOfThreads,
+                                        PartitionCheckpoint checkpoint, boolean exceptionsOnly) {
+        new ParallelReconciler(this, numberOfThreads).reconcile(storeA, storeB, checkpoint, exceptionsOnly);
+    }
 
-        return partitions;
+    /**
+     * Parallel variant of {@link #summarizeStores}: every partition accumulates its own summary
+     * and they are merged at the end.
+     */
+    public ReconciliationSummary summarizeStoresParallel(PartitionedTradeStore storeA, PartitionedTradeStore storeB,
+                                                         int numberOfThreads) {
+        return new ParallelReconciler(this, numberOfThreads).summarize(storeA, storeB);
     }
 }
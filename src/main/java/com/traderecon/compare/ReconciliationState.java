@@ -0,0 +1,157 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.MatchStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * What an incremental reconciliation remembers between runs: per trade id, a fingerprint of
+ * each side's trade and the result they reconciled to. The state also records a fingerprint
+ * of the comparison settings, since results computed under other tolerances can't be reused.
+ */
+public class ReconciliationState {
+
+    private static final long MAGIC = 0x5452535441544531L; // "TRSTATE1"
+    private static final int VERSION = 1;
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final MatchStatus[] STATUSES = MatchStatus.values();
+
+    /**
+     * Fingerprint of a side the trade is absent from.
+     */
+    static final long ABSENT = 0;
+
+    private final long settingsFingerprint;
+    private final Map<String, Entry> entries;
+
+    ReconciliationState(long settingsFingerprint, int expectedSize) {
+        this.settingsFingerprint = settingsFingerprint;
+        this.entries = HashMap.newHashMap(expectedSize);
+    }
+
+    /**
+     * State of a first run: nothing is known, so every break will be reported as opened.
+     */
+    public static ReconciliationState empty() {
+        return new ReconciliationState(0, 0);
+    }
+
+    /**
+     * Reads the state saved by a previous run; a missing file is an empty state.
+     *
+     * @throws IOException if the file exists but can't be read or isn't a state file
+     */
+    public static ReconciliationState load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), IO_BUFFER_BYTES))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a reconciliation state file: " + path);
+            }
+
+            long settingsFingerprint = in.readLong();
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException("Not a reconciliation state file: " + path);
+            }
+            ReconciliationState state = new ReconciliationState(settingsFingerprint, size);
+            for (int i = 0; i < size; i++) {
+                String tradeId = in.readUTF();
+                long fingerprintA = in.readLong();
+                long fingerprintB = in.readLong();
+                int ordinal = in.readUnsignedByte();
+                if (ordinal >= STATUSES.length) {
+                    throw new IOException("Not a reconciliation state file: " + path);
+                }
+                MatchStatus status = STATUSES[ordinal];
+                int differenceMask = in.readInt();
+                state.put(tradeId, new Entry(fingerprintA, fingerprintB, status, differenceMask));
+            }
+            return state;
+        } catch (EOFException e) {
+            throw new IOException("Truncated reconciliation state file: " + path, e);
+        }
+    }
+
+    /**
+     * Writes the state to a temporary file next to {@code path} and moves it into place, so an
+     * interrupted save leaves the previous state intact.
+     */
+    public void save(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), IO_BUFFER_BYTES))) {
+                out.writeLong(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(settingsFingerprint);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.fingerprintA());
+                    out.writeLong(entry.fingerprintB());
+                    out.writeByte(entry.status().ordinal());
+                    out.writeInt(entry.differenceMask());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    long settingsFingerprint() {
+        return settingsFingerprint;
+    }
+
+    Entry get(String tradeId) {
+        return entries.get(tradeId);
+    }
+
+    boolean contains(String tradeId) {
+        return entries.containsKey(tradeId);
+    }
+
+    void put(String tradeId, Entry entry) {
+        entries.put(tradeId, entry);
+    }
+
+    void forEach(BiConsumer<String, Entry> action) {
+        entries.forEach(action);
+    }
+
+    /**
+     * @param fingerprintA fingerprint of the trade in system A, or {@link #ABSENT}
+     * @param fingerprintB fingerprint of the trade in system B, or {@link #ABSENT}
+     */
+    record Entry(long fingerprintA, long fingerprintB, MatchStatus status, int differenceMask) {
+
+        boolean isBreak() {
+            return status != MatchStatus.MATCHED;
+        }
+
+        boolean sameTrades(long fingerprintA, long fingerprintB) {
+            return this.fingerprintA == fingerprintA && this.fingerprintB == fingerprintB;
+        }
+    }
+}
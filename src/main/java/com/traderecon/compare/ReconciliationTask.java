@@ -1,48 +1,47 @@
 package com.traderecon.compare;
 
-import com.traderecon.config.AppConfig;
-import com.traderecon.core.MatchResult;
-import com.traderecon.core.MatchStatus;
-import com.traderecon.core.Trade;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Callable;
-
-public class ReconciliationTask implements Callable<List<MatchResult>> {
-    protected Set<String> partition;
-    protected Map<String, Trade> mapA;
-    protected Map<String, Trade> mapB;
-    protected AppConfig appConfig;
-    protected ReconciliationService reconciliationService;
-
-    public ReconciliationTask(Set<String> partition, Map<String, Trade> mapA, Map<String, Trade> mapB, AppConfig appConfig, ReconciliationService reconciliationService) {
-        this.partition = partition;
-        this.mapA = mapA;
-        this.mapB = mapB;
-        this.appConfig = appConfig;
-        this.reconciliationService = reconciliationService;
+import java.io.Serial;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+/**
+ * Reconciles a range of partitions by splitting it in halves until a single partition is left.
+ * Idle workers steal the unsplit halves, which evens out skewed partitions.
+ *
+ * @param <T> what a partition produces: its results, or an accumulator such as a
+ *            {@link com.traderecon.core.ReconciliationSummary}
+ */
+public class ReconciliationTask<T> extends RecursiveAction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    protected final transient IntFunction<T> partitionReconciler;
+    protected final transient T[] partitionResults;
+    protected final int from;
+    protected final int to;
+
+    /**
+     * @param partitionReconciler reconciles one partition by index
+     * @param partitionResults    receives the results of partition {@code i} at index {@code i}
+     */
+    public ReconciliationTask(IntFunction<T> partitionReconciler, T[] partitionResults, int from, int to) {
+        this.partitionReconciler = partitionReconciler;
+        this.partitionResults = partitionResults;
+        this.from = from;
+        this.to = to;
     }
 
     @Override
-    public List<MatchResult> call() throws Exception {
-        List<MatchResult> matchResults = new ArrayList<MatchResult>();
-
-        for (String tradeId : partition) {
-            Trade tradeA = mapA.get(tradeId);
-            Trade tradeB = mapB.get(tradeId);
-
-            if (tradeA != null && tradeB != null) {
-                matchResults.add(reconciliationService.compareTrades(tradeA, tradeB));
-            } else if (tradeA == null) {
-                matchResults.add(new MatchResult(MatchStatus.MISSING_IN_A, tradeId, null, tradeB, reconciliationService.getMissingTradeIdDifferencesAsList()));
-            } else {
-                matchResults.add(new MatchResult(MatchStatus.MISSING_IN_B, tradeId, tradeA, null, reconciliationService.getMissingTradeIdDifferencesAsList()));
+    protected void compute() {
+        if (to - from <= 1) {
+            if (from < to) {
+                partitionResults[from] = partitionReconciler.apply(from);
             }
+            return;
         }
 
-        return matchResults;
+        int middle = (from + to) >>> 1;
+        invokeAll(new ReconciliationTask<>(partitionReconciler, partitionResults, from, middle),
+                new ReconciliationTask<>(partitionReconciler, partitionResults, middle, to));
     }
 }
@@ -0,0 +1,91 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.TradeStore;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing hash index over the rows of one {@link TradeStore}, keyed by trade id, with
+ * a "probed" flag per entry. Slots hold {@code row + 1} so that {@code 0} means empty, and the
+ * per-row id hash precomputed by the store is reused for both building and probing.
+ */
+class StoreIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final TradeStore store;
+    private final int[] slots;
+    private final long[] probed;
+    private final int mask;
+
+    StoreIndex(TradeStore store) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < store.size() * 2L) {
+            capacity <<= 1;
+        }
+        this.store = store;
+        this.slots = new int[capacity];
+        this.probed = new long[(capacity + 63) >>> 6];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Indexes the row unless its id is already indexed.
+     *
+     * @return {@code false} if the id is a duplicate
+     */
+    boolean add(int row) {
+        int slot = store.idHash(row) & mask;
+
+        while (slots[slot] != 0) {
+            if (store.idEquals(slots[slot] - 1, store, row)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        slots[slot] = row + 1;
+        return true;
+    }
+
+    /**
+     * @return the slot holding the id of {@code otherRow} in {@code other}, or {@code -1}
+     */
+    int find(TradeStore other, int otherRow) {
+        int slot = other.idHash(otherRow) & mask;
+
+        while (slots[slot] != 0) {
+            if (store.idEquals(slots[slot] - 1, other, otherRow)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    int row(int slot) {
+        return slots[slot] - 1;
+    }
+
+    /**
+     * Marks the slot as probed.
+     *
+     * @return {@code true} if it had already been probed
+     */
+    boolean markProbed(int slot) {
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        boolean alreadyProbed = (probed[word] & bit) != 0;
+        probed[word] |= bit;
+        return alreadyProbed;
+    }
+
+    void forEachUnprobed(IntConsumer rows) {
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != 0 && (probed[slot >>> 6] & (1L << slot)) == 0) {
+                rows.accept(slots[slot] - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.config.ToleranceRules;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.StoreResultSink;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeField;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Build-and-probe reconciliation of two {@link TradeStore}s. Ids are hashed and compared by
+ * their packed key or bytes, fields as primitives and symbols by (folded) dictionary code;
+ * {@code Trade} views are only created for the results that are emitted, and with a
+ * {@link StoreResultSink} not even for those unless the sink asks. Produces the same results as
+ * {@link HashJoinReconciler} on the equivalent lists.
+ */
+public class StoreReconciler {
+
+    private final AppConfig appConfig;
+    private final StageMetrics indexMetrics;
+    private final StageMetrics compareMetrics;
+
+    public StoreReconciler(AppConfig appConfig) {
+        this(appConfig, StageMetrics.detached(RunMetrics.INDEX), StageMetrics.detached(RunMetrics.COMPARE));
+    }
+
+    /**
+     * @param indexMetrics   receives building the index over the smaller store
+     * @param compareMetrics receives probing it with the larger store and sweeping the rest
+     */
+    public StoreReconciler(AppConfig appConfig, StageMetrics indexMetrics, StageMetrics compareMetrics) {
+        this.appConfig = appConfig;
+        this.indexMetrics = indexMetrics;
+        this.compareMetrics = compareMetrics;
+    }
+
+    public List<MatchResult> reconcile(TradeStore storeA, TradeStore storeB) {
+        List<MatchResult> matchResults = new ArrayList<>(Math.max(storeA.size(), storeB.size()));
+        reconcile(storeA, storeB, matchResults::add);
+        return matchResults;
+    }
+
+    public void reconcile(TradeStore storeA, TradeStore storeB, Consumer<MatchResult> sink) {
+        reconcile(storeA, storeB, StoreResultSink.all(sink));
+    }
+
+    /**
+     * Hands every trade id's outcome to {@code sink} as row indexes; nothing is allocated per
+     * matched pair unless the sink does.
+     */
+    public void reconcile(TradeStore storeA, TradeStore storeB, StoreResultSink sink) {
+        if (storeA.symbols() != storeB.symbols()) {
+            throw new IllegalArgumentException("Stores must share one symbol dictionary");
+        }
+
+        ToleranceRules.SymbolTable rules = toleranceRules(storeA.symbols());
+        boolean buildOnA = storeA.size() <= storeB.size();
+        TradeStore build = buildOnA ? storeA : storeB;
+        TradeStore probe = buildOnA ? storeB : storeA;
+
+        long indexBegin = indexMetrics.begin();
+        StoreIndex index = new StoreIndex(build);
+        int indexed = 0;
+        for (int row = 0; row < build.size(); row++) {
+            if (index.add(row)) {
+                indexed++;
+            } else {
+                System.err.println("Duplicate trade id: " + build.tradeId(row));
+                indexMetrics.duplicate();
+            }
+        }
+        indexMetrics.end(indexBegin);
+        indexMetrics.addRowsIn(build.size());
+        indexMetrics.addRowsOut(indexed);
+
+        long compareBegin = compareMetrics.begin();
+        long emitted = 0;
+
+        MatchStatus missingOnBuildSide = buildOnA ? MatchStatus.MISSING_IN_A : MatchStatus.MISSING_IN_B;
+        MatchStatus missingOnProbeSide = buildOnA ? MatchStatus.MISSING_IN_B : MatchStatus.MISSING_IN_A;
+        Set<String> unmatchedProbeIds = new HashSet<>();
+
+        for (int row = 0; row < probe.size(); row++) {
+            int slot = index.find(probe, row);
+
+            if (slot < 0) {
+                String tradeId = probe.tradeId(row);
+                if (unmatchedProbeIds.add(tradeId)) {
+                    sink.missing(missingOnBuildSide, probe, row);
+                    emitted++;
+                } else {
+                    System.err.println("Duplicate trade id: " + tradeId);
+                    compareMetrics.duplicate();
+                }
+            } else if (index.markProbed(slot)) {
+                System.err.println("Duplicate trade id: " + probe.tradeId(row));
+                compareMetrics.duplicate();
+            } else {
+                if (buildOnA) {
+                    compare(rules, build, index.row(slot), probe, row, sink);
+                } else {
+                    compare(rules, probe, row, build, index.row(slot), sink);
+                }
+                emitted++;
+            }
+        }
+
+        int[] unprobed = {0};
+        index.forEachUnprobed(row -> {
+            sink.missing(missingOnProbeSide, build, row);
+            unprobed[0]++;
+        });
+        emitted += unprobed[0];
+
+        compareMetrics.end(compareBegin);
+        compareMetrics.addRowsIn(probe.size() + indexed);
+        compareMetrics.addRowsOut(emitted);
+    }
+
+    private void compare(ToleranceRules.SymbolTable rules, TradeStore storeA, int rowA, TradeStore storeB, int rowB,
+                         StoreResultSink sink) {
+        int differenceMask = differenceMask(rules, storeA, rowA, storeB, rowB);
+        if (differenceMask == 0) {
+            sink.matched(storeA, rowA, storeB, rowB);
+        } else {
+            sink.mismatched(storeA, rowA, storeB, rowB, differenceMask);
+        }
+    }
+
+    /**
+     * @param rules the tolerance rules of this reconciler's configuration, bound to the stores' symbols
+     */
+    MatchResult compare(ToleranceRules.SymbolTable rules, TradeStore storeA, int rowA, TradeStore storeB, int rowB) {
+        int differenceMask = differenceMask(rules, storeA, rowA, storeB, rowB);
+        MatchStatus status = differenceMask == 0 ? MatchStatus.MATCHED : MatchStatus.MISMATCHED;
+
+        Trade tradeA = storeA.trade(rowA);
+        return new MatchResult(status, tradeA.tradeId(), tradeA, storeB.trade(rowB), differenceMask);
+    }
+
+    /**
+     * The stores' symbols bound to this reconciler's tolerance rules, for {@link #compare} and
+     * {@link #differenceMask}.
+     */
+    ToleranceRules.SymbolTable toleranceRules(SymbolDictionary symbols) {
+        return appConfig.getToleranceRules().forSymbols(symbols);
+    }
+
+    /**
+     * Primitive version of {@link ReconciliationService#getDifferenceMask}: same checks, read
+     * straight from the columns, with the trade's rule found by symbol code.
+     */
+    int differenceMask(ToleranceRules.SymbolTable rules, TradeStore storeA, int rowA, TradeStore storeB, int rowB) {
+        double priceA = storeA.price(rowA);
+        double priceB = storeB.price(rowB);
+        double quantityA = storeA.quantity(rowA);
+        double quantityB = storeB.quantity(rowB);
+        int rule = rules.rule(storeA.symbolCode(rowA), priceA);
+        ToleranceRules compiled = rules.rules();
+        int differenceMask = 0;
+
+        if (storeA.action(rowA) != storeB.action(rowB)) {
+            differenceMask |= TradeField.ACTION.mask();
+        }
+
+        if (appConfig.isCaseInsensitiveSymbols()) {
+            SymbolDictionary symbols = storeA.symbols();
+            if (symbols.foldedCode(storeA.symbolCode(rowA)) != symbols.foldedCode(storeB.symbolCode(rowB))) {
+                differenceMask |= TradeField.SYMBOL.mask();
+            }
+        } else if (storeA.symbolCode(rowA) != storeB.symbolCode(rowB)) {
+            differenceMask |= TradeField.SYMBOL.mask();
+        }
+
+        if (Math.abs(priceA - priceB) > compiled.priceTolerance(rule)) {
+            differenceMask |= TradeField.PRICE.mask();
+        }
+
+        if (Math.abs(quantityA - quantityB) > compiled.quantityTolerance(rule)) {
+            differenceMask |= TradeField.QUANTITY.mask();
+        }
+
+        if (Math.abs(priceA * quantityA - priceB * quantityB) > compiled.notionalTolerance(rule)) {
+            differenceMask |= TradeField.NOTIONAL.mask();
+        }
+
+        if (compiled.timestampsDiffer(rule, storeA.timestampNanos(rowA), storeB.timestampNanos(rowB))) {
+            differenceMask |= TradeField.TIMESTAMP.mask();
+        }
+
+        return differenceMask & compiled.comparedFields(rule);
+    }
+
+    static MatchResult missing(MatchStatus status, Trade trade) {
+        return status == MatchStatus.MISSING_IN_A ? MatchResult.missingInA(trade) : MatchResult.missingInB(trade);
+    }
+}
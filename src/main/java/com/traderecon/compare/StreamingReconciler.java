@@ -0,0 +1,271 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+import com.traderecon.io.TradeFeed;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reconciles two unbounded {@link TradeFeed}s as trades arrive. A trade whose counterpart hasn't
+ * arrived yet waits in a matching window keyed by trade id; the counterpart's arrival emits
+ * MATCHED or MISMATCHED immediately, and a trade still waiting when the window expires is
+ * emitted as MISSING_IN_A or MISSING_IN_B.
+ * <p>
+ * Memory is bounded by the window: feeds hand trades to a bounded queue (blocking when it is
+ * full), and at most {@code maxPending} ids are held, the oldest being expired early beyond
+ * that. Matched ids stay in the window as tombstones until it expires, so a duplicate arriving
+ * within the window is dropped just as the batch reconcilers drop later occurrences.
+ * <p>
+ * All matching happens on one engine thread, so the sink is called from that thread only.
+ * <p>
+ * Given a source of configuration snapshots (typically {@link com.traderecon.config.ConfigWatcher#current()}),
+ * the engine takes the latest snapshot once per window length and compares with it until the
+ * next one, so new tolerances apply without restarting the stream. The window length itself is
+ * fixed for the life of the engine.
+ */
+public class StreamingReconciler implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final int SIDE_A = 0;
+    private static final int SIDE_B = 1;
+
+    private final Supplier<AppConfig> snapshots;
+    private final long windowNanos;
+    private final int maxPending;
+    private final Consumer<MatchResult> sink;
+
+    private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LinkedHashMap<String, Pending> window = new LinkedHashMap<>();
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+    private final Thread engine;
+
+    private ReconciliationService reconciliationService;
+    private long pinnedAt;
+    private int completedFeeds;
+    private long expiredEarly;
+    private int peakPending;
+
+    public StreamingReconciler(ReconciliationService reconciliationService, Duration window, int maxPending,
+                               Consumer<MatchResult> sink) {
+        this(reconciliationService, null, window, maxPending, sink);
+    }
+
+    /**
+     * @param snapshots polled once per window for the configuration to compare with; with
+     *                  {@code null}, the service's configuration is used throughout
+     */
+    public StreamingReconciler(ReconciliationService reconciliationService, Supplier<AppConfig> snapshots,
+                               Duration window, int maxPending, Consumer<MatchResult> sink) {
+        this.reconciliationService = reconciliationService;
+        this.snapshots = snapshots;
+        this.windowNanos = window.toNanos();
+        this.maxPending = maxPending;
+        this.sink = sink;
+        this.engine = new Thread(this::run, "streaming-reconciler");
+    }
+
+    /**
+     * Starts the engine thread. Feeds may push before this; they block once the queue is full.
+     */
+    public void start() {
+        engine.start();
+    }
+
+    public TradeFeed.Listener systemA() {
+        return new SideListener(SIDE_A);
+    }
+
+    public TradeFeed.Listener systemB() {
+        return new SideListener(SIDE_B);
+    }
+
+    /**
+     * Waits until both feeds completed and every trade still waiting has been emitted as missing.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        engine.join();
+    }
+
+    /**
+     * Stops the engine without emitting the trades still in the window.
+     */
+    @Override
+    public void close() {
+        engine.interrupt();
+    }
+
+    /**
+     * Time from the arrival of the trade that completes a pair to the emission of its result.
+     * Read it after {@link #awaitCompletion()}.
+     */
+    public LatencyHistogram matchLatency() {
+        return matchLatency;
+    }
+
+    /**
+     * Trades emitted as missing before their window expired, because {@code maxPending} was reached.
+     */
+    public long expiredEarly() {
+        return expiredEarly;
+    }
+
+    public int peakPending() {
+        return peakPending;
+    }
+
+    private void run() {
+        try {
+            pinnedAt = System.nanoTime();
+            while (completedFeeds < 2) {
+                Event event = queue.poll(nanosUntilNextExpiry(), TimeUnit.NANOSECONDS);
+                long now = System.nanoTime();
+                expire(now);
+                if (snapshots != null && now - pinnedAt >= windowNanos) {
+                    pinLatestSnapshot(now);
+                }
+
+                if (event == null) {
+                    continue;
+                }
+                if (event.trade() == null) {
+                    completedFeeds++;
+                } else {
+                    onTrade(event);
+                }
+            }
+            expire(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onTrade(Event event) {
+        Trade trade = event.trade();
+        Pending pending = window.get(trade.tradeId());
+
+        if (pending == null) {
+            window.put(trade.tradeId(), new Pending(event.side(), trade, event.arrivalNanos()));
+            peakPending = Math.max(peakPending, window.size());
+            if (window.size() > maxPending) {
+                expireEldest();
+            }
+            return;
+        }
+
+        if (pending.matched || pending.side == event.side()) {
+            System.err.println("Duplicate trade id: " + trade.tradeId());
+            return;
+        }
+
+        MatchResult result = pending.side == SIDE_A
+                ? reconciliationService.compareTrades(pending.trade, trade)
+                : reconciliationService.compareTrades(trade, pending.trade);
+        pending.matched = true;
+        pending.trade = null;
+        sink.accept(result);
+        matchLatency.record(System.nanoTime() - event.arrivalNanos());
+    }
+
+    private void pinLatestSnapshot(long now) {
+        pinnedAt = now;
+        reconciliationService = reconciliationService.withConfig(snapshots.get());
+    }
+
+    /**
+     * Emits every unmatched trade that arrived more than a window before {@code now} and drops
+     * expired tombstones. Arrival order is insertion order, so only the head needs checking.
+     */
+    private void expire(long now) {
+        Iterator<Pending> iterator = window.values().iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (now != Long.MAX_VALUE && now - pending.arrivalNanos < windowNanos) {
+                return;
+            }
+            iterator.remove();
+            emitMissing(pending);
+        }
+    }
+
+    private void expireEldest() {
+        Iterator<Pending> iterator = window.values().iterator();
+        Pending eldest = iterator.next();
+        iterator.remove();
+        if (!eldest.matched) {
+            expiredEarly++;
+        }
+        emitMissing(eldest);
+    }
+
+    private void emitMissing(Pending pending) {
+        if (!pending.matched) {
+            sink.accept(pending.side == SIDE_A ? MatchResult.missingInB(pending.trade) : MatchResult.missingInA(pending.trade));
+        }
+    }
+
+    private long nanosUntilNextExpiry() {
+        if (window.isEmpty()) {
+            return windowNanos;
+        }
+        Map.Entry<String, Pending> eldest = window.firstEntry();
+        return Math.max(0, eldest.getValue().arrivalNanos + windowNanos - System.nanoTime());
+    }
+
+    private final class SideListener implements TradeFeed.Listener {
+
+        private final int side;
+
+        private SideListener(int side) {
+            this.side = side;
+        }
+
+        @Override
+        public void onTrade(Trade trade) {
+            put(new Event(side, trade, System.nanoTime()));
+        }
+
+        @Override
+        public void onComplete() {
+            put(new Event(side, null, System.nanoTime()));
+        }
+
+        private void put(Event event) {
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while feeding the streaming reconciler", e);
+            }
+        }
+    }
+
+    /**
+     * A trade handed over by a feed; a {@code null} trade marks the end of that feed.
+     */
+    private record Event(int side, Trade trade, long arrivalNanos) {
+    }
+
+    private static final class Pending {
+
+        private final int side;
+        private final long arrivalNanos;
+        private Trade trade;
+        private boolean matched;
+
+        private Pending(int side, Trade trade, long arrivalNanos) {
+            this.side = side;
+            this.trade = trade;
+            this.arrivalNanos = arrivalNanos;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.Trade;
+
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash index of trades by trade id with a "probed" flag per entry.
+ * <p>
+ * Unlike a {@code HashMap<String, Trade>} it allocates no entry objects, and a probe marks
+ * its hit in place so the unprobed entries can be swept afterwards without a second map.
+ */
+class TradeIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final Trade[] slots;
+    private final long[] probed;
+    private final int mask;
+    private int size;
+
+    TradeIndex(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        this.slots = new Trade[capacity];
+        this.probed = new long[(capacity + 63) >>> 6];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds the trade unless its id is already indexed.
+     *
+     * @return {@code false} if the id is a duplicate
+     */
+    boolean add(Trade trade) {
+        String tradeId = trade.tradeId();
+        int slot = spread(tradeId.hashCode()) & mask;
+
+        while (slots[slot] != null) {
+            if (slots[slot].tradeId().equals(tradeId)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        slots[slot] = trade;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return the slot holding the id, or {@code -1}
+     */
+    int find(String tradeId) {
+        int slot = spread(tradeId.hashCode()) & mask;
+
+        while (slots[slot] != null) {
+            if (slots[slot].tradeId().equals(tradeId)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    Trade get(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * Marks the slot as probed.
+     *
+     * @return {@code true} if it had already been probed
+     */
+    boolean markProbed(int slot) {
+        long bit = 1L << slot;
+        int word = slot >>> 6;
+        boolean alreadyProbed = (probed[word] & bit) != 0;
+        probed[word] |= bit;
+        return alreadyProbed;
+    }
+
+    void forEachUnprobed(Consumer<Trade> consumer) {
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != null && (probed[slot >>> 6] & (1L << slot)) == 0) {
+                consumer.accept(slots[slot]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
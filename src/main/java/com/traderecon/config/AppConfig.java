@@ -1,99 +1,246 @@
 package com.traderecon.config;
 
+import com.traderecon.core.Hashing;
+import com.traderecon.core.TradePartitioner;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Properties;
 
-public class AppConfig {
+/**
+ * Immutable snapshot of the configuration. A run, or a streaming window, holds on to one
+ * snapshot and reads it without any locking; picking up changed settings means taking a new
+ * snapshot, see {@link #reload()} and {@link ConfigWatcher}.
+ * <p>
+ * Keys are the dotted ones of {@code config.properties} ({@code price.tolerance}, ...); the
+ * camelCase keys of earlier versions ({@code priceTolerance}, ...) are still read when the dotted
+ * key is absent. Missing or unparsable values fall back to their defaults, except in tolerance
+ * rules, see {@link ToleranceRules}.
+ */
+public final class AppConfig {
+
+    /**
+     * System property naming an external properties file to use instead of the classpath
+     * resource, e.g. {@code -Dtraderecon.config=/etc/recon/config.properties}.
+     */
+    public static final String CONFIG_FILE_PROPERTY = "traderecon.config";
+
+    private static final String RESOURCE = "config.properties";
 
-    private Properties properties;
-    private double priceTolerance;
-    private double quantityTolerance;
-    private boolean caseInsensitiveSymbols;
-    private String reportFormat;
+    private static final double DEFAULT_PRICE_TOLERANCE = 0.0001;
+    private static final double DEFAULT_QUANTITY_TOLERANCE = 0;
+    private static final long DEFAULT_SORT_MEMORY_BUDGET_MB = 256;
+    private static final long DEFAULT_STREAMING_WINDOW_MS = 60_000;
+    private static final int DEFAULT_STREAMING_MAX_PENDING = 1_000_000;
+    private static final String DEFAULT_INCREMENTAL_STATE_FILE = "src/main/resources/state/reconciliation.state";
+    private static final String DEFAULT_METRICS_SUMMARY_FILE = "src/main/resources/report/run-summary.json";
+    private static final double DEFAULT_FUZZY_PRICE_TOLERANCE = 0.01;
+    private static final long DEFAULT_FUZZY_TIMESTAMP_TOLERANCE_MS = 300_000;
+    private static final String DEFAULT_AGGREGATION_KEY = "orderId";
+    private static final String DEFAULT_AGGREGATION_ORDER_SEPARATOR = ".";
+    private static final int DEFAULT_SHARD_COUNT = 4;
+    private static final int DEFAULT_SHARD_MAX_ATTEMPTS = 3;
+    private static final String DEFAULT_CHECKPOINT_DIRECTORY = "src/main/resources/state/checkpoints";
+    private static final int DEFAULT_PARTITION_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_PARTITION_TIME_SLICE_MS = 3_600_000;
+    private static final int DEFAULT_SERVER_PORT = 8080;
+    private static final int DEFAULT_SERVER_MAX_PAGE_SIZE = 1000;
 
+    /**
+     * File the snapshot was read from, or {@code null} for the classpath resource.
+     */
+    private final Path source;
+    private final Properties properties;
+    private final double priceTolerance;
+    private final double quantityTolerance;
+    private final long timestampToleranceNanos;
+    private final boolean caseInsensitiveSymbols;
+    private final ToleranceRules toleranceRules;
+    private final String reportFormat;
+    private final long sortMemoryBudgetBytes;
+    private final String spillDirectory;
+    private final boolean snapshotEnabled;
+    private final String incrementalStateFile;
+    private final long streamingWindowMillis;
+    private final int streamingMaxPending;
+    private final String metricsSummaryFile;
+    private final double fuzzyPriceTolerance;
+    private final long fuzzyTimestampToleranceMillis;
+    private final String aggregationKey;
+    private final String aggregationOrderSeparator;
+    private final int shardCount;
+    private final String shardDirectory;
+    private final int shardMaxAttempts;
+    private final String shardWorkerJvmOptions;
+    private final String checkpointDirectory;
+    private final int partitionMaxAttempts;
+    private final TradePartitioner tradePartitioner;
+    private final int serverPort;
+    private final int serverMaxPageSize;
+
+    /**
+     * Reads {@code config.properties} from the classpath, or uses the defaults if there is none.
+     */
     public AppConfig() {
+        this(null, loadResource());
+    }
+
+    /**
+     * A snapshot of the given settings; later changes to {@code properties} don't affect it.
+     */
+    public AppConfig(Properties properties) {
+        this(null, properties);
+    }
+
+    private AppConfig(Path source, Properties properties) {
+        this.source = source;
+        this.properties = copy(properties);
+
+        this.priceTolerance = parseDouble("price.tolerance", "priceTolerance", DEFAULT_PRICE_TOLERANCE, Double.NEGATIVE_INFINITY);
+        this.quantityTolerance = parseDouble("quantity.tolerance", "quantityTolerance", DEFAULT_QUANTITY_TOLERANCE, Double.NEGATIVE_INFINITY);
+        double timestampToleranceMillis = parseDouble("timestamp.tolerance.ms", null, -1, Double.NEGATIVE_INFINITY);
+        this.timestampToleranceNanos = timestampToleranceMillis < 0 ? -1 : Math.round(timestampToleranceMillis * 1_000_000);
+        String caseInsensitiveSymbols = property("compare.symbols.caseInsensitive", "compareSymbolsCaseInsensitive");
+        this.caseInsensitiveSymbols = caseInsensitiveSymbols == null || Boolean.parseBoolean(caseInsensitiveSymbols.trim());
+        this.toleranceRules = ToleranceRules.compile(this.properties, priceTolerance, quantityTolerance,
+                timestampToleranceNanos, this.caseInsensitiveSymbols);
+        this.reportFormat = Objects.requireNonNullElse(property("report.format", "reportFormat"), "CSV");
+
+        this.sortMemoryBudgetBytes = parseLong("sort.memory.budget.mb", DEFAULT_SORT_MEMORY_BUDGET_MB, 1) << 20;
+        this.spillDirectory = Objects.requireNonNullElse(property("sort.spill.dir", null), System.getProperty("java.io.tmpdir"));
+        String snapshotEnabled = property("snapshot.enabled", null);
+        this.snapshotEnabled = snapshotEnabled == null || Boolean.parseBoolean(snapshotEnabled.trim());
+        this.incrementalStateFile = Objects.requireNonNullElse(property("incremental.state.file", null), DEFAULT_INCREMENTAL_STATE_FILE);
+
+        this.streamingWindowMillis = parseLong("streaming.window.ms", DEFAULT_STREAMING_WINDOW_MS, 1);
+        this.streamingMaxPending = (int) Math.min(Integer.MAX_VALUE,
+                parseLong("streaming.max.pending", DEFAULT_STREAMING_MAX_PENDING, 1));
+        this.metricsSummaryFile = Objects.requireNonNullElse(property("metrics.summary.file", null), DEFAULT_METRICS_SUMMARY_FILE).trim();
+
+        this.fuzzyPriceTolerance = parseDouble("fuzzy.price.tolerance", null, DEFAULT_FUZZY_PRICE_TOLERANCE, 0);
+        this.fuzzyTimestampToleranceMillis = parseLong("fuzzy.timestamp.tolerance.ms", DEFAULT_FUZZY_TIMESTAMP_TOLERANCE_MS, 0);
+
+        String aggregationKey = property("aggregation.key", null);
+        this.aggregationKey = aggregationKey == null || aggregationKey.isBlank() ? DEFAULT_AGGREGATION_KEY : aggregationKey.trim();
+        this.aggregationOrderSeparator = Objects.requireNonNullElse(property("aggregation.order.separator", null),
+                DEFAULT_AGGREGATION_ORDER_SEPARATOR).trim();
+
+        this.shardCount = (int) Math.min(Integer.MAX_VALUE, parseLong("shard.count", DEFAULT_SHARD_COUNT, 1));
+        String shardDirectory = property("shard.dir", null);
+        this.shardDirectory = shardDirectory == null || shardDirectory.isBlank()
+                ? System.getProperty("java.io.tmpdir") : shardDirectory.trim();
+        this.shardMaxAttempts = (int) Math.min(Integer.MAX_VALUE, parseLong("shard.max.attempts", DEFAULT_SHARD_MAX_ATTEMPTS, 1));
+        this.shardWorkerJvmOptions = Objects.requireNonNullElse(property("shard.worker.jvm.options", null), "").trim();
+
+        String checkpointDirectory = property("checkpoint.dir", null);
+        this.checkpointDirectory = checkpointDirectory == null || checkpointDirectory.isBlank()
+                ? DEFAULT_CHECKPOINT_DIRECTORY : checkpointDirectory.trim();
+        this.partitionMaxAttempts = (int) Math.min(Integer.MAX_VALUE,
+                parseLong("partition.max.attempts", DEFAULT_PARTITION_MAX_ATTEMPTS, 1));
+        String partitionKey = Objects.requireNonNullElse(property("partition.key", null), "").trim();
+        this.tradePartitioner = partitionKey.toLowerCase(Locale.ROOT).equals("timestamp")
+                ? TradePartitioner.byTimeSlice(Duration.ofMillis(
+                parseLong("partition.time.slice.ms", DEFAULT_PARTITION_TIME_SLICE_MS, 1)))
+                : TradePartitioner.BY_TRADE_ID;
+
+        this.serverPort = (int) Math.min(65535, parseLong("server.port", DEFAULT_SERVER_PORT, 0));
+        this.serverMaxPageSize = (int) Math.min(Integer.MAX_VALUE, parseLong("server.max.page.size", DEFAULT_SERVER_MAX_PAGE_SIZE, 1));
+    }
+
+    /**
+     * Reads a properties file, e.g. one kept outside the application and watched by a
+     * {@link ConfigWatcher}.
+     *
+     * @throws IllegalArgumentException if a tolerance rule is malformed
+     */
+    public static AppConfig load(Path path) throws IOException {
         Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        }
+        return new AppConfig(path, properties);
+    }
+
+    /**
+     * The file named by {@value #CONFIG_FILE_PROPERTY} if that system property is set, else the
+     * classpath resource.
+     */
+    public static AppConfig fromSystemProperty() throws IOException {
+        String file = System.getProperty(CONFIG_FILE_PROPERTY);
+        return file == null || file.isBlank() ? new AppConfig() : load(Path.of(file));
+    }
 
-        init(properties);
+    /**
+     * Reads this snapshot's source (its file, or the classpath resource) again.
+     *
+     * @return a new snapshot; this one is left unchanged
+     */
+    public AppConfig reload() throws IOException {
+        return source != null ? load(source) : new AppConfig();
     }
 
-    private void init(Properties properties) {
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties")) {
+    private static Properties loadResource() {
+        Properties properties = new Properties();
+        try (InputStream input = AppConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
             if (input == null) {
-                setDefaults();
                 System.out.println("config.properties not found, using defaults");
             } else {
                 properties.load(input);
-                this.properties = properties;
-                parsePriceTolerance();
-                parseQuantityTolerance();
-                parseCaseInsensitiveSymbols();
-                parseReportFormat();
             }
         } catch (IOException e) {
-            setDefaults();
-            throw new RuntimeException("Failed to load configuration", e);
+            throw new UncheckedIOException("Failed to load configuration", e);
         }
+        return properties;
     }
 
-    private void setDefaults() {
-        this.priceTolerance = 0.0001;
-        this.quantityTolerance = 0;
-        this.caseInsensitiveSymbols = true;
-        this.reportFormat = "CSV";
+    private static Properties copy(Properties properties) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
     }
 
-    private void parsePriceTolerance() {
-        String priceString = properties.getProperty("priceTolerance");
-
-        if (priceString == null) {
-            this.priceTolerance = 0.0001;
-        } else {
-            try {
-                this.priceTolerance = Double.parseDouble(priceString);
-            } catch (NumberFormatException e) {
-                this.priceTolerance = 0.0001;
-            }
-        }
+    private String property(String key, String legacyKey) {
+        String value = properties.getProperty(key);
+        return value != null || legacyKey == null ? value : properties.getProperty(legacyKey);
     }
 
-    private void parseQuantityTolerance() {
-        String quantityTolerance = properties.getProperty("quantityTolerance");
-
-        if (quantityTolerance == null) {
-            this.quantityTolerance = 0;
-        } else {
-            try {
-                this.quantityTolerance = Double.parseDouble(quantityTolerance);
-            } catch (NumberFormatException e) {
-                this.quantityTolerance = 0;
-            }
+    private double parseDouble(String key, String legacyKey, double defaultValue, double min) {
+        String value = property(key, legacyKey);
+        try {
+            return value == null ? defaultValue : Math.max(min, Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 
-    private void parseCaseInsensitiveSymbols() {
-        String caseInsensitiveSymbols = properties.getProperty("compareSymbolsCaseInsensitive");
-
-        if (caseInsensitiveSymbols == null) {
-            this.caseInsensitiveSymbols = true;
-        } else {
-            try {
-                this.caseInsensitiveSymbols = Boolean.parseBoolean(caseInsensitiveSymbols);
-            } catch (NumberFormatException e) {
-                this.caseInsensitiveSymbols = true;
-            }
+    private long parseLong(String key, long defaultValue, long min) {
+        String value = property(key, null);
+        try {
+            return value == null ? defaultValue : Math.max(min, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 
-    private void parseReportFormat() {
-        String reportFormat = properties.getProperty("reportFormat");
-        this.reportFormat = Objects.requireNonNullElse(reportFormat, "CSV");
+    /**
+     * The file this snapshot was read from, or {@code null} if it came from the classpath or
+     * from a {@code Properties} object.
+     */
+    public Path getSource() {
+        return source;
     }
 
+    /**
+     * A copy of the settings this snapshot was built from.
+     */
     public Properties getProperties() {
-        return properties;
+        return copy(properties);
     }
 
     public double getPriceTolerance() {
@@ -104,18 +251,187 @@ public class AppConfig {
         return quantityTolerance;
     }
 
+    /**
+     * Largest difference of execution timestamps for a pair to match, in nanos, or {@code -1} if
+     * timestamps aren't compared (unless a tolerance rule asks for it). From
+     * {@code timestamp.tolerance.ms}, which takes fractions of a millisecond.
+     */
+    public long getTimestampToleranceNanos() {
+        return timestampToleranceNanos;
+    }
+
     public boolean isCaseInsensitiveSymbols() {
         return caseInsensitiveSymbols;
     }
 
+    /**
+     * The {@code tolerance.rules} of this snapshot, compiled, with the global tolerances as
+     * {@link ToleranceRules#DEFAULT_RULE}.
+     */
+    public ToleranceRules getToleranceRules() {
+        return toleranceRules;
+    }
+
+    /**
+     * Hash of every setting that decides how a pair of trades compares: the tolerances, symbol
+     * case and tolerance rules. Results reconciled under settings of another fingerprint can't be
+     * reused.
+     */
+    public long comparisonFingerprint() {
+        long hash = Hashing.mix(Double.doubleToLongBits(priceTolerance));
+        hash = Hashing.mix(hash ^ Double.doubleToLongBits(quantityTolerance));
+        hash = Hashing.mix(hash ^ timestampToleranceNanos);
+        hash = Hashing.mix(hash ^ (caseInsensitiveSymbols ? 1 : 2));
+        return Hashing.mix(hash ^ toleranceRules.fingerprint());
+    }
+
     public String getReportFormat() {
         return reportFormat;
     }
 
-    //TODO
-    public void reload() {
-        this.properties = new Properties();
-        init(properties);
+    /**
+     * Memory the out-of-core sort may use for its in-memory runs, across both inputs.
+     */
+    public long getSortMemoryBudgetBytes() {
+        return sortMemoryBudgetBytes;
     }
 
+    /**
+     * Directory where the out-of-core sort writes its spill runs.
+     */
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Whether parsed inputs are cached as binary snapshots next to the source files.
+     */
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    /**
+     * Where incremental reconciliation keeps the previous run's per-trade state.
+     */
+    public String getIncrementalStateFile() {
+        return incrementalStateFile;
+    }
+
+    /**
+     * How long the streaming engine waits for a trade's counterpart before reporting it missing.
+     */
+    public long getStreamingWindowMillis() {
+        return streamingWindowMillis;
+    }
+
+    /**
+     * Most trade ids the streaming engine holds in its window at once.
+     */
+    public int getStreamingMaxPending() {
+        return streamingMaxPending;
+    }
+
+    /**
+     * Where the JSON summary of each run's stage metrics is written; empty to skip it.
+     */
+    public String getMetricsSummaryFile() {
+        return metricsSummaryFile;
+    }
+
+    /**
+     * Largest absolute price difference for fuzzy matching to pair two trades with different ids.
+     */
+    public double getFuzzyPriceTolerance() {
+        return fuzzyPriceTolerance;
+    }
+
+    /**
+     * Largest timestamp difference for fuzzy matching to pair two trades with different ids.
+     */
+    public long getFuzzyTimestampToleranceMillis() {
+        return fuzzyTimestampToleranceMillis;
+    }
+
+    /**
+     * Comma-separated components of the aggregation matching group key, see
+     * {@link com.traderecon.compare.AggregationKey}.
+     */
+    public String getAggregationKey() {
+        return aggregationKey;
+    }
+
+    /**
+     * Separator between the order id and the fill suffix of a trade id, for the {@code orderId}
+     * aggregation key component.
+     */
+    public String getAggregationOrderSeparator() {
+        return aggregationOrderSeparator;
+    }
+
+    /**
+     * Number of shards, and of worker processes, in sharded mode.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Directory under which sharded mode creates its working directory of shard files, worker
+     * reports and logs.
+     */
+    public String getShardDirectory() {
+        return shardDirectory;
+    }
+
+    /**
+     * How many times sharded mode runs a shard's worker before giving up on the run.
+     */
+    public int getShardMaxAttempts() {
+        return shardMaxAttempts;
+    }
+
+    /**
+     * Whitespace-separated JVM options for the worker processes of sharded mode, e.g. {@code -Xmx4g}.
+     */
+    public String getShardWorkerJvmOptions() {
+        return shardWorkerJvmOptions;
+    }
+
+    /**
+     * Directory under which checkpointed parallel runs keep their partition reports and
+     * manifest, one subdirectory per inputs and settings.
+     */
+    public String getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    /**
+     * How many times a checkpointed parallel run reconciles a partition before leaving it for
+     * the next run.
+     */
+    public int getPartitionMaxAttempts() {
+        return partitionMaxAttempts;
+    }
+
+    /**
+     * How parallel runs split their inputs into partitions: by trade id, or by time slices of
+     * {@code partition.time.slice.ms} with {@code partition.key=timestamp}.
+     */
+    public TradePartitioner getTradePartitioner() {
+        return tradePartitioner;
+    }
+
+    /**
+     * Port of the results query server; {@code 0} picks a free one.
+     */
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    /**
+     * Most results the query server returns in one page.
+     */
+    public int getServerMaxPageSize() {
+        return serverMaxPageSize;
+    }
 }
@@ -0,0 +1,137 @@
+package com.traderecon.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the current {@link AppConfig} snapshot of an external properties file and swaps in a new
+ * snapshot whenever the file changes, watched through a {@link WatchService}. Readers call
+ * {@link #current()} once per run (or per streaming window) and keep that snapshot, so settings
+ * never change under a comparison in progress and reading them takes no lock.
+ * <p>
+ * A file that can't be read keeps the previous snapshot in place. Editors often save in several
+ * writes, so changes are picked up once the file has been quiet for {@value #QUIET_MILLIS} ms.
+ */
+public class ConfigWatcher implements AutoCloseable {
+
+    private static final long QUIET_MILLIS = 200;
+
+    private final Path path;
+    private final List<Consumer<AppConfig>> listeners = new CopyOnWriteArrayList<>();
+    private volatile AppConfig current;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * @throws IOException if the file can't be read for the first snapshot
+     */
+    public ConfigWatcher(Path path) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.current = AppConfig.load(this.path);
+    }
+
+    /**
+     * The latest snapshot. Callers should keep it for the duration of a run rather than call
+     * this per comparison.
+     */
+    public AppConfig current() {
+        return current;
+    }
+
+    /**
+     * Called with every new snapshot, on the watcher thread.
+     */
+    public void onChange(Consumer<AppConfig> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads the file into a new snapshot and makes it current.
+     *
+     * @return {@code false} if the file couldn't be read and the previous snapshot was kept
+     */
+    public boolean reload() {
+        AppConfig next;
+        try {
+            next = AppConfig.load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("⚠️ Keeping the previous configuration, could not read " + path + ": " + e.getMessage());
+            return false;
+        }
+
+        current = next;
+        for (Consumer<AppConfig> listener : listeners) {
+            listener.accept(next);
+        }
+        return true;
+    }
+
+    /**
+     * Starts watching the file on a daemon thread.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = Thread.ofPlatform().daemon().name("config-watcher").start(this::watch);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread != null) {
+            watchService.close();
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!changed(watchService.take())) {
+                    continue;
+                }
+                // wait until the file has been quiet for a while, swallowing the rest of a save
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed(key);
+                }
+                if (reload()) {
+                    System.out.println("Configuration reloaded from " + path);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // close() stops the watcher this way
+        }
+    }
+
+    /**
+     * Consumes the key's events and re-arms it.
+     *
+     * @return whether any of them concerns the watched file
+     */
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || path.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
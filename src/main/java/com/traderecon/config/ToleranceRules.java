@@ -0,0 +1,455 @@
+package com.traderecon.config;
+
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeField;
+import com.traderecon.core.TradeStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-symbol, per-asset-class and per-price-band tolerances, compiled once per configuration
+ * snapshot from the {@code tolerance.rules} settings:
+ * <pre>
+ * asset.class.FX=EURUSD,GBPUSD
+ * tolerance.rules=fx,pennies,brk
+ * tolerance.rule.fx.asset.class=FX
+ * tolerance.rule.fx.price.tolerance=0.00001
+ * tolerance.rule.pennies.price.band=0,1
+ * tolerance.rule.pennies.price.tolerance=0.000001
+ * tolerance.rule.brk.symbols=BRK.A
+ * tolerance.rule.brk.notional.tolerance=1
+ * tolerance.rule.brk.fields=ACTION,SYMBOL,NOTIONAL
+ * tolerance.rule.brk.timestamp.tolerance.ms=500
+ * </pre>
+ * Rules are tried in the order listed and the first one whose symbols (or asset class) and
+ * price band match the trade of system A applies; a rule without symbols or asset class applies
+ * to every symbol. Tolerances a rule leaves out are the global ones, and trades no rule matches
+ * are compared with the global settings, as {@link #DEFAULT_RULE}.
+ * <p>
+ * Rules are compiled into flat per-rule columns (compared fields, tolerances, band) and, per
+ * symbol, the short list of rules that can apply to it, ending with one that always matches.
+ * Finding a trade's rule is then one table hit by symbol code ({@link #forSymbols}) or one map
+ * hit by symbol, plus a band check per candidate; the number of rules doesn't matter.
+ * <p>
+ * Malformed rules throw {@link IllegalArgumentException}, so a bad edit of a watched file keeps
+ * the previous snapshot instead of silently comparing with the wrong tolerances.
+ */
+public final class ToleranceRules {
+
+    /**
+     * The global tolerances, comparing action, symbol, price and quantity, and the timestamp if
+     * {@code timestamp.tolerance.ms} is set.
+     */
+    public static final int DEFAULT_RULE = 0;
+
+    private static final int DEFAULT_FIELDS = TradeField.ACTION.mask() | TradeField.SYMBOL.mask()
+            | TradeField.PRICE.mask() | TradeField.QUANTITY.mask();
+    private static final int[] DEFAULT_ONLY = {DEFAULT_RULE};
+
+    private final String[] names;
+    private final int[] comparedFields;
+    private final double[] priceTolerances;
+    private final double[] quantityTolerances;
+    private final double[] notionalTolerances;
+    private final long[] timestampTolerances;
+    private final double[] minPrices;
+    private final double[] maxPrices;
+
+    private final boolean caseInsensitive;
+    /**
+     * Candidates of the symbols some rule names, by symbol (folded if case-insensitive).
+     */
+    private final Map<String, int[]> listedCandidates;
+    /**
+     * Candidates of every other symbol: the rules that name no symbols.
+     */
+    private final int[] otherCandidates;
+    private final Map<String, int[]> candidatesBySymbol = new ConcurrentHashMap<>();
+    private final long fingerprint;
+    private volatile SymbolTable lastTable;
+
+    private ToleranceRules(List<Rule> rules, boolean caseInsensitive, Map<String, List<Integer>> listed,
+                           List<Integer> unlisted, long fingerprint) {
+        int size = rules.size();
+        this.names = new String[size];
+        this.comparedFields = new int[size];
+        this.priceTolerances = new double[size];
+        this.quantityTolerances = new double[size];
+        this.notionalTolerances = new double[size];
+        this.timestampTolerances = new long[size];
+        this.minPrices = new double[size];
+        this.maxPrices = new double[size];
+        for (int i = 0; i < size; i++) {
+            Rule rule = rules.get(i);
+            names[i] = rule.name();
+            comparedFields[i] = rule.fields();
+            priceTolerances[i] = rule.priceTolerance();
+            quantityTolerances[i] = rule.quantityTolerance();
+            notionalTolerances[i] = rule.notionalTolerance();
+            timestampTolerances[i] = rule.timestampTolerance();
+            minPrices[i] = rule.minPrice();
+            maxPrices[i] = rule.maxPrice();
+        }
+
+        this.caseInsensitive = caseInsensitive;
+        // symbols with the same candidates share one array
+        Map<List<Integer>, int[]> shared = new HashMap<>();
+        this.otherCandidates = candidates(unlisted, shared);
+        this.listedCandidates = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : listed.entrySet()) {
+            listedCandidates.put(entry.getKey(), candidates(merge(entry.getValue(), unlisted), shared));
+        }
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Compiles the rules of {@code properties}; the global tolerances fill in what a rule leaves out.
+     *
+     * @param timestampTolerance in nanos, or negative if timestamps aren't compared by default
+     * @throws IllegalArgumentException if a rule is malformed
+     */
+    static ToleranceRules compile(Properties properties, double priceTolerance, double quantityTolerance,
+                                  long timestampTolerance, boolean caseInsensitive) {
+        Rule defaults = timestampTolerance >= 0
+                ? new Rule("default", DEFAULT_FIELDS | TradeField.TIMESTAMP.mask(), priceTolerance, quantityTolerance,
+                Double.POSITIVE_INFINITY, timestampTolerance, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)
+                : new Rule("default", DEFAULT_FIELDS, priceTolerance, quantityTolerance, Double.POSITIVE_INFINITY,
+                Long.MAX_VALUE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        List<Rule> rules = new ArrayList<>();
+        rules.add(defaults);
+
+        Map<String, List<Integer>> listed = new HashMap<>();
+        List<Integer> unlisted = new ArrayList<>();
+        for (String name : list(properties.getProperty("tolerance.rules"))) {
+            int index = rules.size();
+            String prefix = "tolerance.rule." + name + ".";
+            rules.add(parseRule(name, prefix, properties, defaults));
+
+            TreeSet<String> symbols = new TreeSet<>(list(properties.getProperty(prefix + "symbols")));
+            String assetClass = properties.getProperty(prefix + "asset.class");
+            if (assetClass != null && !assetClass.isBlank()) {
+                String members = properties.getProperty("asset.class." + assetClass.trim());
+                if (members == null) {
+                    throw new IllegalArgumentException("Rule " + name + " refers to undefined asset class "
+                            + assetClass.trim() + " (expected asset.class." + assetClass.trim() + "=...)");
+                }
+                symbols.addAll(list(members));
+            }
+
+            if (symbols.isEmpty()) {
+                unlisted.add(index);
+            }
+            for (String symbol : symbols) {
+                List<Integer> symbolRules = listed.computeIfAbsent(key(symbol, caseInsensitive), key -> new ArrayList<>());
+                if (symbolRules.isEmpty() || symbolRules.get(symbolRules.size() - 1) != index) {
+                    symbolRules.add(index);
+                }
+            }
+        }
+
+        return new ToleranceRules(rules, caseInsensitive, listed, unlisted, fingerprint(properties));
+    }
+
+    private static Rule parseRule(String name, String prefix, Properties properties, Rule defaults) {
+        double notionalTolerance = parseTolerance(properties, prefix + "notional.tolerance", Double.POSITIVE_INFINITY);
+        String timestampKey = prefix + "timestamp.tolerance.ms";
+        double timestampMillis = parseTolerance(properties, timestampKey, Double.NaN);
+        // a negative tolerance leaves timestamps out of the rule, as it does globally
+        boolean timestampsOff = timestampMillis < 0;
+        long timestampTolerance = Double.isNaN(timestampMillis) ? defaults.timestampTolerance()
+                : timestampsOff ? Long.MAX_VALUE : Math.round(timestampMillis * 1_000_000);
+
+        int fields = defaults.fields();
+        String fieldList = properties.getProperty(prefix + "fields");
+        if (fieldList != null && !fieldList.isBlank()) {
+            fields = 0;
+            for (String field : list(fieldList)) {
+                try {
+                    fields |= TradeField.valueOf(field.toUpperCase(Locale.ROOT)).mask();
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown field in " + prefix + "fields: " + field);
+                }
+            }
+        } else {
+            if (notionalTolerance != Double.POSITIVE_INFINITY) {
+                fields |= TradeField.NOTIONAL.mask();
+            }
+            if (timestampMillis >= 0) {
+                fields |= TradeField.TIMESTAMP.mask();
+            }
+        }
+        if (timestampsOff) {
+            fields &= ~TradeField.TIMESTAMP.mask();
+        }
+
+        double minPrice = Double.NEGATIVE_INFINITY;
+        double maxPrice = Double.POSITIVE_INFINITY;
+        String band = properties.getProperty(prefix + "price.band");
+        if (band != null && !band.isBlank()) {
+            String[] bounds = band.split(",", -1);
+            try {
+                if (bounds.length != 2) {
+                    throw new NumberFormatException();
+                }
+                if (!bounds[0].isBlank()) {
+                    minPrice = Double.parseDouble(bounds[0].trim());
+                }
+                if (!bounds[1].isBlank()) {
+                    maxPrice = Double.parseDouble(bounds[1].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected " + prefix + "price.band=<min>,<max>, got " + band);
+            }
+            if (!(minPrice < maxPrice)) {
+                throw new IllegalArgumentException("Empty price band in " + prefix + "price.band: " + band);
+            }
+        }
+
+        return new Rule(name, fields,
+                parseTolerance(properties, prefix + "price.tolerance", defaults.priceTolerance()),
+                parseTolerance(properties, prefix + "quantity.tolerance", defaults.quantityTolerance()),
+                notionalTolerance, timestampTolerance, minPrice, maxPrice);
+    }
+
+    private static double parseTolerance(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number for " + key + ", got " + value);
+        }
+    }
+
+    /**
+     * Whether any rules are configured, besides {@link #DEFAULT_RULE}.
+     */
+    public boolean isEmpty() {
+        return names.length == 1;
+    }
+
+    /**
+     * Number of rules, {@link #DEFAULT_RULE} included.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * The rule for a trade of {@code symbol} priced at {@code price}.
+     */
+    public int rule(String symbol, double price) {
+        return select(candidates(symbol), price);
+    }
+
+    /**
+     * The rules that can apply to {@code symbol}, in order; the last one always matches.
+     */
+    public int[] candidates(String symbol) {
+        if (isEmpty()) {
+            return DEFAULT_ONLY;
+        }
+        int[] candidates = candidatesBySymbol.get(symbol);
+        if (candidates == null) {
+            candidates = listedCandidates.getOrDefault(key(symbol, caseInsensitive), otherCandidates);
+            candidatesBySymbol.put(symbol, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * The first of {@code candidates} whose price band holds {@code price}.
+     */
+    public int select(int[] candidates, double price) {
+        int last = candidates.length - 1;
+        for (int i = 0; i < last; i++) {
+            int rule = candidates[i];
+            if (price >= minPrices[rule] && price < maxPrices[rule]) {
+                return rule;
+            }
+        }
+        return candidates[last];
+    }
+
+    /**
+     * Every symbol's candidates, indexed by its code in {@code symbols}. The table covers the
+     * symbols present now; later ones are looked up by name.
+     */
+    public SymbolTable forSymbols(SymbolDictionary symbols) {
+        SymbolTable table = lastTable;
+        int size = symbols.size();
+        if (table != null && table.symbols == symbols && table.candidates.length == size) {
+            return table;
+        }
+
+        int[][] candidates = new int[size][];
+        for (int code = 0; code < size; code++) {
+            candidates[code] = candidates(symbols.symbol(code));
+        }
+        table = new SymbolTable(this, symbols, candidates);
+        lastTable = table;
+        return table;
+    }
+
+    /**
+     * {@link TradeField#mask()}s of the fields the rule compares.
+     */
+    public int comparedFields(int rule) {
+        return comparedFields[rule];
+    }
+
+    public double priceTolerance(int rule) {
+        return priceTolerances[rule];
+    }
+
+    public double quantityTolerance(int rule) {
+        return quantityTolerances[rule];
+    }
+
+    /**
+     * Largest absolute difference of price times quantity; infinite unless the rule sets it.
+     */
+    public double notionalTolerance(int rule) {
+        return notionalTolerances[rule];
+    }
+
+    /**
+     * Largest absolute difference of the execution timestamps, in nanos; unlimited unless set
+     * (a trade with a timestamp still differs from one without).
+     */
+    public long timestampTolerance(int rule) {
+        return timestampTolerances[rule];
+    }
+
+    /**
+     * Whether two execution timestamps (epoch nanos, or {@code TradeStore.NO_TIMESTAMP}) differ
+     * by more than the rule's tolerance, or only one of them is there.
+     */
+    public boolean timestampsDiffer(int rule, long timestampA, long timestampB) {
+        if (timestampA == TradeStore.NO_TIMESTAMP || timestampB == TradeStore.NO_TIMESTAMP) {
+            return timestampA != timestampB;
+        }
+        return Math.abs(timestampA - timestampB) > timestampTolerances[rule];
+    }
+
+    public String name(int rule) {
+        return names[rule];
+    }
+
+    /**
+     * Hash of the rule settings, for detecting that they changed between runs.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Rule candidates by symbol code, for comparing {@link com.traderecon.core.TradeStore} rows.
+     */
+    public static final class SymbolTable {
+
+        private final ToleranceRules rules;
+        private final SymbolDictionary symbols;
+        private final int[][] candidates;
+
+        private SymbolTable(ToleranceRules rules, SymbolDictionary symbols, int[][] candidates) {
+            this.rules = rules;
+            this.symbols = symbols;
+            this.candidates = candidates;
+        }
+
+        public int rule(int symbolCode, double price) {
+            int[] symbolCandidates = symbolCode < candidates.length
+                    ? candidates[symbolCode]
+                    : rules.candidates(symbols.symbol(symbolCode));
+            return rules.select(symbolCandidates, price);
+        }
+
+        public ToleranceRules rules() {
+            return rules;
+        }
+
+        /**
+         * Number of symbol codes the table covers; later codes are looked up by name.
+         */
+        public int size() {
+            return candidates.length;
+        }
+    }
+
+    /**
+     * The rules in order, cut after the first one without a price band (the later ones can't
+     * apply), and ending with {@link #DEFAULT_RULE} if none is unbounded.
+     */
+    private int[] candidates(List<Integer> rules, Map<List<Integer>, int[]> shared) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int rule : rules) {
+            candidates.add(rule);
+            if (minPrices[rule] == Double.NEGATIVE_INFINITY && maxPrices[rule] == Double.POSITIVE_INFINITY) {
+                break;
+            }
+        }
+        int last = candidates.isEmpty() ? -1 : candidates.get(candidates.size() - 1);
+        if (last < 0 || minPrices[last] != Double.NEGATIVE_INFINITY || maxPrices[last] != Double.POSITIVE_INFINITY) {
+            candidates.add(DEFAULT_RULE);
+        }
+        return shared.computeIfAbsent(candidates, key -> key.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Both ascending lists of rule indexes merged into one.
+     */
+    private static List<Integer> merge(List<Integer> first, List<Integer> second) {
+        List<Integer> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() || j < second.size()) {
+            if (j == second.size() || (i < first.size() && first.get(i) < second.get(j))) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private static String key(String symbol, boolean caseInsensitive) {
+        return caseInsensitive ? SymbolDictionary.fold(symbol) : symbol;
+    }
+
+    private static List<String> list(String value) {
+        List<String> items = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(",")) {
+                if (!item.isBlank()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    private static long fingerprint(Properties properties) {
+        long hash = 0;
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            if (key.startsWith("tolerance.rule") || key.startsWith("asset.class.")) {
+                hash = hash * 31 + key.hashCode();
+                hash = hash * 31 + properties.getProperty(key).hashCode();
+            }
+        }
+        return hash;
+    }
+
+    private record Rule(String name, int fields, double priceTolerance, double quantityTolerance,
+                        double notionalTolerance, long timestampTolerance, double minPrice, double maxPrice) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.traderecon.core;
+
+import java.util.List;
+
+/**
+ * Outcome of reconciling one aggregation group, e.g. a parent order in one system against its
+ * fills in the other. {@link #result()} compares the two sides' aggregates: its trades are
+ * summary trades whose id is the group key, quantity the summed quantity and price the
+ * quantity-weighted average price. The constituents are views over the loaded trade lists, not
+ * copies; a side the group is absent from has no constituents.
+ */
+public record AggregateMatchResult(MatchResult result, List<Trade> tradesA, List<Trade> tradesB) {
+
+    public String key() {
+        return result.tradeId();
+    }
+
+    public MatchStatus matchStatus() {
+        return result.matchStatus();
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateMatchResult{" +
+                "key='" + key() + '\'' +
+                ", matchStatus=" + matchStatus() +
+                ", tradesA=" + tradesA.size() +
+                ", tradesB=" + tradesB.size() +
+                ", differences=" + result.differences() +
+                '}';
+    }
+}
@@ -0,0 +1,14 @@
+package com.traderecon.core;
+
+/**
+ * How a break (any result other than {@link MatchStatus#MATCHED}) moved between two
+ * reconciliation runs.
+ */
+public enum BreakChange {
+    /** Matched or unknown in the previous run, a break now. */
+    OPENED,
+    /** A break in the previous run, matched or gone from both systems now. */
+    CLOSED,
+    /** A break in both runs, but with a different status, differences or trade values. */
+    CHANGED
+}
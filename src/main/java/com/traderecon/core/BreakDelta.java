@@ -0,0 +1,44 @@
+package com.traderecon.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entry of an incremental reconciliation's delta report.
+ *
+ * @param previousStatus status in the previous run, or {@code null} if the trade is new
+ * @param previousDifferenceMask {@link TradeField} mask of the previous run's result
+ * @param current this run's result, or {@code null} if the trade is gone from both systems
+ */
+public record BreakDelta(
+        BreakChange change,
+        String tradeId,
+        MatchStatus previousStatus,
+        int previousDifferenceMask,
+        MatchResult current
+) {
+
+    /**
+     * Labels of the fields that differed in the previous run.
+     */
+    public List<String> previousDifferences() {
+        List<String> labels = new ArrayList<>(Integer.bitCount(previousDifferenceMask));
+        for (TradeField field : TradeField.values()) {
+            if ((previousDifferenceMask & field.mask()) != 0) {
+                labels.add(field.label());
+            }
+        }
+        return labels;
+    }
+
+    @Override
+    public String toString() {
+        return "BreakDelta{" +
+                "change=" + change +
+                ", tradeId='" + tradeId + '\'' +
+                ", previousStatus=" + previousStatus +
+                ", previousDifferences=" + previousDifferences() +
+                ", current=" + current +
+                '}';
+    }
+}
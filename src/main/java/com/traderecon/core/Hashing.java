@@ -0,0 +1,24 @@
+package com.traderecon.core;
+
+/**
+ * Hashing shared by the fingerprints that are compared across runs, such as those of settings,
+ * trades and input files.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3: spreads every input bit over the whole result. Chain
+     * values as {@code hash = mix(hash ^ value)}.
+     */
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,9 +1,85 @@
 package com.traderecon.core;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Outcome of reconciling one trade id. Mismatched fields are kept as a bitmask of
+ * {@link TradeField#mask()} values; the text returned by {@link #differences()} is only
+ * rendered when a report or {@link #toString()} asks for it.
+ */
 public record MatchResult(MatchStatus matchStatus, String tradeId, Trade tradeA, Trade tradeB,
-                          List<String> differences) {
+                          int differenceMask) {
+
+    private static final TradeField[] FIELDS = TradeField.values();
+
+    /**
+     * Mask with every compared field set; used by missing results.
+     */
+    public static final int ALL_FIELDS = (1 << FIELDS.length) - 1;
+
+    /**
+     * Differences reported for every missing trade, shared by all of them.
+     */
+    public static final List<String> MISSING_DIFFERENCES = List.of(
+            "Action missing",
+            "Symbol missing",
+            "Price missing",
+            "Quantity missing"
+    );
+
+    public static MatchResult missingInA(Trade tradeB) {
+        return new MatchResult(MatchStatus.MISSING_IN_A, tradeB.tradeId(), null, tradeB, ALL_FIELDS);
+    }
+
+    public static MatchResult missingInB(Trade tradeA) {
+        return new MatchResult(MatchStatus.MISSING_IN_B, tradeA.tradeId(), tradeA, null, ALL_FIELDS);
+    }
+
+    /**
+     * A pair of trades booked under different ids, matched on their economics. Differences are
+     * those of the regular comparison.
+     */
+    public static MatchResult fuzzyMatch(Trade tradeA, Trade tradeB, int differenceMask) {
+        return new MatchResult(MatchStatus.FUZZY_MATCHED, tradeA.tradeId(), tradeA, tradeB, differenceMask);
+    }
+
+    /**
+     * Renders the differing ids of a {@link MatchStatus#FUZZY_MATCHED} pair, e.g.
+     * {@code "Trade ID T1 != Trade ID X9"}; reports list it ahead of the field differences.
+     */
+    public String idDifference() {
+        return "Trade ID " + tradeA.tradeId() + " != Trade ID " + tradeB.tradeId();
+    }
+
+    public boolean hasDifference(TradeField field) {
+        return (differenceMask & field.mask()) != 0;
+    }
+
+    /**
+     * Renders the differences, e.g. {@code "Price 180.5 != 180.4"}. Builds a new list on every
+     * call, except for matched and missing results.
+     */
+    public List<String> differences() {
+        if (matchStatus == MatchStatus.MISSING_IN_A || matchStatus == MatchStatus.MISSING_IN_B) {
+            return MISSING_DIFFERENCES;
+        }
+        boolean fuzzy = matchStatus == MatchStatus.FUZZY_MATCHED;
+        if (differenceMask == 0 && !fuzzy) {
+            return List.of();
+        }
+
+        List<String> differences = new ArrayList<>(Integer.bitCount(differenceMask) + 1);
+        if (fuzzy) {
+            differences.add(idDifference());
+        }
+        for (TradeField field : FIELDS) {
+            if (hasDifference(field)) {
+                differences.add(field.describe(tradeA, tradeB));
+            }
+        }
+        return differences;
+    }
 
     @Override
     public String toString() {
@@ -12,7 +88,7 @@ public record MatchResult(MatchStatus matchStatus, String tradeId, Trade tradeA,
                 ", tradeId='" + tradeId + '\'' +
                 ", tradeA=" + tradeA +
                 ", tradeB=" + tradeB +
-                ", differences=" + differences +
+                ", differences=" + differences() +
                 '}';
     }
 
@@ -35,9 +111,4 @@ public record MatchResult(MatchStatus matchStatus, String tradeId, Trade tradeA,
     public Trade tradeB() {
         return tradeB;
     }
-
-    @Override
-    public List<String> differences() {
-        return differences;
-    }
 }
@@ -4,5 +4,10 @@ public enum MatchStatus {
     MATCHED,
     MISMATCHED,
     MISSING_IN_A,
-    MISSING_IN_B
+    MISSING_IN_B,
+    /**
+     * A trade missing in B paired with a trade missing in A that has another id but the same
+     * economics, see {@code FuzzyMatcher}.
+     */
+    FUZZY_MATCHED
 }
@@ -0,0 +1,116 @@
+package com.traderecon.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of reconciling one trade id across N systems. {@code trades} holds one entry per
+ * system, {@code null} where the system doesn't have the trade. Each present trade is compared
+ * with the reference trade, the one of the first system that has it, and
+ * {@code differenceMasks} records per system the {@link TradeField#mask()}s of the fields that
+ * differ from the reference ({@code 0} for the reference itself and for absent systems).
+ */
+public record MultiMatchResult(String tradeId, List<Trade> trades, int[] differenceMasks) {
+
+    private static final TradeField[] FIELDS = TradeField.values();
+
+    public enum Status {
+        /**
+         * Every system has the trade and all of them agree.
+         */
+        MATCHED,
+        /**
+         * At least two systems have the trade and some field differs between them.
+         */
+        MISMATCHED,
+        /**
+         * Some systems don't have the trade; those that do agree.
+         */
+        MISSING
+    }
+
+    public Status status() {
+        for (int mask : differenceMasks) {
+            if (mask != 0) {
+                return Status.MISMATCHED;
+            }
+        }
+        return presentCount() == trades.size() ? Status.MATCHED : Status.MISSING;
+    }
+
+    public int systemCount() {
+        return trades.size();
+    }
+
+    public boolean isPresentIn(int system) {
+        return trades.get(system) != null;
+    }
+
+    public int presentCount() {
+        int present = 0;
+        for (Trade trade : trades) {
+            if (trade != null) {
+                present++;
+            }
+        }
+        return present;
+    }
+
+    /**
+     * The system whose trade the others are compared with: the first one that has it.
+     */
+    public int referenceSystem() {
+        for (int system = 0; system < trades.size(); system++) {
+            if (trades.get(system) != null) {
+                return system;
+            }
+        }
+        throw new IllegalStateException("No system has trade " + tradeId);
+    }
+
+    public boolean hasDifference(int system, TradeField field) {
+        return (differenceMasks[system] & field.mask()) != 0;
+    }
+
+    /**
+     * Renders the missing systems and every field difference against the reference, e.g.
+     * {@code ["Missing in custodian", "frontOffice vs middleOffice: Price 180.5 != 180.4"]}.
+     *
+     * @param systemNames one name per system, in input order
+     */
+    public List<String> differences(List<String> systemNames) {
+        List<String> differences = new ArrayList<>();
+        int reference = referenceSystem();
+        for (int system = 0; system < trades.size(); system++) {
+            if (trades.get(system) == null) {
+                differences.add("Missing in " + systemNames.get(system));
+            }
+        }
+        for (int system = reference + 1; system < trades.size(); system++) {
+            if (differenceMasks[system] == 0) {
+                continue;
+            }
+            for (TradeField field : FIELDS) {
+                if (hasDifference(system, field)) {
+                    differences.add(systemNames.get(reference) + " vs " + systemNames.get(system) + ": "
+                            + field.describe(trades.get(reference), trades.get(system)));
+                }
+            }
+        }
+        return differences;
+    }
+
+    @Override
+    public String toString() {
+        List<String> systemNames = new ArrayList<>(trades.size());
+        for (int system = 0; system < trades.size(); system++) {
+            systemNames.add("system" + (system + 1));
+        }
+        return "MultiMatchResult{" +
+                "tradeId='" + tradeId + '\'' +
+                ", status=" + status() +
+                ", trades=" + trades +
+                ", differences=" + differences(systemNames) +
+                '}';
+    }
+}
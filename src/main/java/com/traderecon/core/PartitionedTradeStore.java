@@ -0,0 +1,76 @@
+package com.traderecon.core;
+
+/**
+ * One input split into {@link TradeStore}s by trade id hash. Two inputs partitioned with the
+ * same partition count put every trade id into the same partition index, so each pair of
+ * partitions can be reconciled on its own. Inputs split by time slice instead (see
+ * {@link TradePartitioner}) keep a trade's bookings together only when their timestamps share a
+ * slice.
+ */
+public final class PartitionedTradeStore {
+
+    private final TradeStore[] partitions;
+    private final SymbolDictionary symbols;
+    private final TradePartitioner partitioner;
+
+    public PartitionedTradeStore(TradeStore[] partitions, SymbolDictionary symbols) {
+        this(partitions, symbols, TradePartitioner.BY_TRADE_ID);
+    }
+
+    public PartitionedTradeStore(TradeStore[] partitions, SymbolDictionary symbols, TradePartitioner partitioner) {
+        this.partitions = partitions;
+        this.symbols = symbols;
+        this.partitioner = partitioner;
+    }
+
+    /**
+     * Maps an id hash (see {@link TradeStore#idHash(int)}) to a partition. Uses the high bits
+     * of the hash, the low bits are left to the per-partition hash indexes.
+     */
+    public static int partitionOf(int idHash, int partitionCount) {
+        return (int) (((idHash & 0xFFFFFFFFL) * partitionCount) >>> 32);
+    }
+
+    public static PartitionedTradeStore partition(TradeStore store, int partitionCount) {
+        return partition(store, partitionCount, TradePartitioner.BY_TRADE_ID);
+    }
+
+    public static PartitionedTradeStore partition(TradeStore store, int partitionCount, TradePartitioner partitioner) {
+        SymbolDictionary symbols = store.symbols();
+        TradeStore[] partitions = new TradeStore[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new TradeStore(symbols, store.size() / partitionCount + 16);
+        }
+
+        for (int row = 0; row < store.size(); row++) {
+            partitions[partitioner.partitionOf(store.idHash(row), store.timestampNanos(row), partitionCount)]
+                    .addRow(store, row);
+        }
+
+        return new PartitionedTradeStore(partitions, symbols, partitioner);
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    public TradeStore partition(int index) {
+        return partitions[index];
+    }
+
+    public SymbolDictionary symbols() {
+        return symbols;
+    }
+
+    public TradePartitioner partitioner() {
+        return partitioner;
+    }
+
+    public int size() {
+        int size = 0;
+        for (TradeStore partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,137 @@
+package com.traderecon.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trade counts and notional (price times quantity) per status, symbol and side, accumulated
+ * straight from the store rows into primitive arrays: summarizing a reconciliation allocates
+ * nothing per trade. A pair is counted under system A's symbol, side and notional, a missing
+ * trade under those of the system that has it.
+ * <p>
+ * Not thread-safe: parallel reconciliations give each partition its own summary and
+ * {@link #merge} them at the end.
+ */
+public final class ReconciliationSummary implements StoreResultSink {
+
+    private static final MatchStatus[] STATUSES = MatchStatus.values();
+    private static final ActionEnum[] ACTIONS = ActionEnum.values();
+    private static final int CELLS_PER_SYMBOL = ACTIONS.length * STATUSES.length;
+
+    private final SymbolDictionary symbols;
+    private long[] counts;
+    private double[] notionals;
+
+    public ReconciliationSummary(SymbolDictionary symbols) {
+        this.symbols = symbols;
+        int cells = Math.max(1, symbols.size()) * CELLS_PER_SYMBOL;
+        this.counts = new long[cells];
+        this.notionals = new double[cells];
+    }
+
+    /**
+     * One status, symbol and side with at least one trade.
+     */
+    public record Row(MatchStatus status, String symbol, ActionEnum side, long count, double notional) {
+    }
+
+    @Override
+    public void matched(TradeStore storeA, int rowA, TradeStore storeB, int rowB) {
+        add(MatchStatus.MATCHED, storeA, rowA);
+    }
+
+    @Override
+    public void mismatched(TradeStore storeA, int rowA, TradeStore storeB, int rowB, int differenceMask) {
+        add(MatchStatus.MISMATCHED, storeA, rowA);
+    }
+
+    @Override
+    public void missing(MatchStatus status, TradeStore store, int row) {
+        add(status, store, row);
+    }
+
+    private void add(MatchStatus status, TradeStore store, int row) {
+        int cell = (store.symbolCode(row) * ACTIONS.length + store.action(row).ordinal()) * STATUSES.length
+                + status.ordinal();
+        if (cell >= counts.length) {
+            grow(cell + 1);
+        }
+        counts[cell]++;
+        notionals[cell] += store.price(row) * store.quantity(row);
+    }
+
+    /**
+     * Adds {@code other}'s counts and notionals to this summary.
+     */
+    public void merge(ReconciliationSummary other) {
+        if (other.symbols != symbols) {
+            throw new IllegalArgumentException("Summaries must share one symbol dictionary");
+        }
+        if (other.counts.length > counts.length) {
+            grow(other.counts.length);
+        }
+        for (int cell = 0; cell < other.counts.length; cell++) {
+            counts[cell] += other.counts[cell];
+            notionals[cell] += other.notionals[cell];
+        }
+    }
+
+    /**
+     * Number of trade ids with the given status.
+     */
+    public long count(MatchStatus status) {
+        long count = 0;
+        for (int cell = status.ordinal(); cell < counts.length; cell += STATUSES.length) {
+            count += counts[cell];
+        }
+        return count;
+    }
+
+    public double notional(MatchStatus status) {
+        double notional = 0;
+        for (int cell = status.ordinal(); cell < notionals.length; cell += STATUSES.length) {
+            notional += notionals[cell];
+        }
+        return notional;
+    }
+
+    /**
+     * Number of trade ids summarized, across all statuses.
+     */
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * The non-empty cells, by symbol, side and status.
+     */
+    public List<Row> rows() {
+        List<Row> rows = new ArrayList<>();
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (counts[cell] != 0) {
+                int symbolCode = cell / CELLS_PER_SYMBOL;
+                rows.add(new Row(STATUSES[cell % STATUSES.length], symbols.symbol(symbolCode),
+                        ACTIONS[cell / STATUSES.length % ACTIONS.length], counts[cell], notionals[cell]));
+            }
+        }
+        rows.sort(Comparator.comparing(Row::symbol).thenComparing(Row::side).thenComparing(Row::status));
+        return rows;
+    }
+
+    private void grow(int minCells) {
+        int cells = counts.length;
+        while (cells < minCells) {
+            cells *= 2;
+        }
+        // whole symbols only, so a cell's symbol, side and status stay derivable from its index
+        cells = (cells + CELLS_PER_SYMBOL - 1) / CELLS_PER_SYMBOL * CELLS_PER_SYMBOL;
+        counts = Arrays.copyOf(counts, cells);
+        notionals = Arrays.copyOf(notionals, cells);
+    }
+}
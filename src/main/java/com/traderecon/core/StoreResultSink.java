@@ -0,0 +1,71 @@
+package com.traderecon.core;
+
+import java.util.function.Consumer;
+
+/**
+ * Receives the outcome of each trade id of a {@link TradeStore} reconciliation as row indexes,
+ * so the sink decides what to allocate per result: a {@link MatchResult} for every trade
+ * ({@link #all}), only for the breaks ({@link #exceptions}), or nothing at all
+ * ({@link ReconciliationSummary}).
+ */
+public interface StoreResultSink {
+
+    void matched(TradeStore storeA, int rowA, TradeStore storeB, int rowB);
+
+    void mismatched(TradeStore storeA, int rowA, TradeStore storeB, int rowB, int differenceMask);
+
+    /**
+     * @param status {@link MatchStatus#MISSING_IN_A} for a row of system B, or
+     *               {@link MatchStatus#MISSING_IN_B} for a row of system A
+     */
+    void missing(MatchStatus status, TradeStore store, int row);
+
+    /**
+     * Hands every result to {@code sink} as a {@link MatchResult}.
+     */
+    static StoreResultSink all(Consumer<MatchResult> sink) {
+        return new MatchResultSink(sink, true);
+    }
+
+    /**
+     * Hands only the {@link MatchStatus#MISMATCHED} and missing results to {@code sink}; matched
+     * pairs are dropped without allocating anything.
+     */
+    static StoreResultSink exceptions(Consumer<MatchResult> sink) {
+        return new MatchResultSink(sink, false);
+    }
+}
+
+/**
+ * Materializes the results as {@link MatchResult}s, with {@code Trade} views of the rows.
+ */
+final class MatchResultSink implements StoreResultSink {
+
+    private final Consumer<MatchResult> sink;
+    private final boolean includeMatched;
+
+    MatchResultSink(Consumer<MatchResult> sink, boolean includeMatched) {
+        this.sink = sink;
+        this.includeMatched = includeMatched;
+    }
+
+    @Override
+    public void matched(TradeStore storeA, int rowA, TradeStore storeB, int rowB) {
+        if (includeMatched) {
+            Trade tradeA = storeA.trade(rowA);
+            sink.accept(new MatchResult(MatchStatus.MATCHED, tradeA.tradeId(), tradeA, storeB.trade(rowB), 0));
+        }
+    }
+
+    @Override
+    public void mismatched(TradeStore storeA, int rowA, TradeStore storeB, int rowB, int differenceMask) {
+        Trade tradeA = storeA.trade(rowA);
+        sink.accept(new MatchResult(MatchStatus.MISMATCHED, tradeA.tradeId(), tradeA, storeB.trade(rowB), differenceMask));
+    }
+
+    @Override
+    public void missing(MatchStatus status, TradeStore store, int row) {
+        Trade trade = store.trade(row);
+        sink.accept(status == MatchStatus.MISSING_IN_A ? MatchResult.missingInA(trade) : MatchResult.missingInB(trade));
+    }
+}
@@ -0,0 +1,72 @@
+package com.traderecon.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps every distinct symbol to a dense int code. Stores that share a dictionary can compare
+ * symbols by code. Safe for concurrent use by parallel loaders.
+ * <p>
+ * Each code also gets a {@link #foldedCode(int) folded code}, assigned once when the symbol is
+ * added: symbols that are {@link String#equalsIgnoreCase equal ignoring case} share a folded
+ * code, so case-insensitive comparison is an int compare as well.
+ */
+public final class SymbolDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<String, Integer> foldedCodes = new HashMap<>();
+    private volatile String[] symbols = new String[64];
+    private volatile int[] folded = new int[64];
+    private int size;
+
+    public int code(String symbol) {
+        Integer code = codes.get(symbol);
+        return code != null ? code : add(symbol);
+    }
+
+    public String symbol(int code) {
+        return symbols[code];
+    }
+
+    /**
+     * Code shared by every symbol that equals {@code symbol(code)} ignoring case.
+     */
+    public int foldedCode(int code) {
+        return folded[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Folds {@code symbol} char by char the way {@link String#equalsIgnoreCase} compares, so two
+     * symbols fold to the same string exactly when they are equal ignoring case.
+     */
+    public static String fold(String symbol) {
+        StringBuilder folded = new StringBuilder(symbol.length());
+        for (int i = 0; i < symbol.length(); i++) {
+            folded.append(Character.toLowerCase(Character.toUpperCase(symbol.charAt(i))));
+        }
+        return folded.toString();
+    }
+
+    private synchronized int add(String symbol) {
+        Integer existing = codes.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            folded = Arrays.copyOf(folded, size * 2);
+        }
+        symbols[size] = symbol;
+        folded[size] = foldedCodes.computeIfAbsent(fold(symbol), key -> foldedCodes.size());
+        // published after the array writes, so a code obtained from the map is always readable
+        codes.put(symbol, size);
+        return size++;
+    }
+}
@@ -1,10 +1,12 @@
 package com.traderecon.core;
 
-import java.time.LocalDateTime;
 import java.util.Objects;
 
+/**
+ * @param timestamp execution time in epoch nanos (UTC), or {@link TradeStore#NO_TIMESTAMP}
+ */
 public record Trade(String tradeId, String symbol, double price, double quantity, ActionEnum action,
-                    LocalDateTime timestamp) {
+                    long timestamp) {
 
     @Override
     public String toString() {
@@ -14,7 +16,7 @@ public record Trade(String tradeId, String symbol, double price, double quantity
                 ", price=" + price +
                 ", quantity=" + quantity +
                 ", action=" + action +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + TradeStore.toLocalDateTime(timestamp) +
                 '}';
     }
 
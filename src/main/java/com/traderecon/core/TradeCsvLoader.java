@@ -1,15 +1,16 @@
 package com.traderecon.core;
 
+import com.traderecon.io.TimestampParser;
 import com.traderecon.io.TradeLoader;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -33,6 +34,19 @@ public class TradeCsvLoader implements TradeLoader {
         return trades;
     }
 
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer) {
+        try (Stream<String> lines = Files.lines(Path.of(filePath))) {
+            lines.skip(1)
+                    .map(this::parseTrade)
+                    .filter(Objects::nonNull)
+                    .forEachOrdered(consumer);
+
+        } catch (IOException e) {
+            System.err.println("❌ Error reading file: " + filePath + " - " + e.getMessage());
+        }
+    }
+
     private Trade parseTrade(String line) {
         try {
             String[] parts = line.split(",");
@@ -47,8 +61,8 @@ public class TradeCsvLoader implements TradeLoader {
             ActionEnum action = ActionEnum.valueOf(parts[2].trim().toUpperCase());
             double price = Double.parseDouble(parts[3].trim());
             double quantity = Double.parseDouble(parts[4].trim());
-//            LocalDateTime timestamp = LocalDateTime.parse(parts[5].trim());
-            LocalDateTime timestamp = LocalDateTime.now();
+            // the execution time column is optional
+            long timestamp = parts.length > 5 ? TimestampParser.parse(parts[5].trim()) : TradeStore.NO_TIMESTAMP;
 
             return new Trade(tradeId, symbol, price, quantity, action, timestamp);
 
@@ -0,0 +1,52 @@
+package com.traderecon.core;
+
+/**
+ * Trade fields that are compared during reconciliation. A {@link MatchResult} records the
+ * mismatched ones as a bitmask of {@link #mask()} values.
+ */
+public enum TradeField {
+    ACTION("Action"),
+    SYMBOL("Symbol"),
+    PRICE("Price"),
+    QUANTITY("Quantity"),
+    /**
+     * Price times quantity; only compared by tolerance rules that ask for it.
+     */
+    NOTIONAL("Notional"),
+    /**
+     * Execution time; only compared when a timestamp tolerance is configured.
+     */
+    TIMESTAMP("Timestamp");
+
+    private final String label;
+    private final int mask;
+
+    TradeField(String label) {
+        this.label = label;
+        this.mask = 1 << ordinal();
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Human-readable description of this field differing between the two trades.
+     */
+    public String describe(Trade tradeA, Trade tradeB) {
+        return switch (this) {
+            case ACTION -> "Action " + tradeA.action() + " != Action " + tradeB.action();
+            case SYMBOL -> "Symbol " + tradeA.symbol() + " != Symbol " + tradeB.symbol();
+            case PRICE -> "Price " + tradeA.price() + " != " + tradeB.price();
+            case QUANTITY -> "Quantity " + tradeA.quantity() + " != Quantity " + tradeB.quantity();
+            case NOTIONAL -> "Notional " + tradeA.price() * tradeA.quantity() + " != Notional "
+                    + tradeB.price() * tradeB.quantity();
+            case TIMESTAMP -> "Timestamp " + TradeStore.toLocalDateTime(tradeA.timestamp()) + " != Timestamp "
+                    + TradeStore.toLocalDateTime(tradeB.timestamp());
+        };
+    }
+}
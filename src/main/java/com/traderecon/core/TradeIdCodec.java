@@ -0,0 +1,97 @@
+package com.traderecon.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs trade ids of the usual "short prefix + number" shape, such as {@code T000012345} or
+ * {@code TRD-0042}, into a single {@code long} key, so that they are hashed and compared as a
+ * primitive instead of byte by byte. Ids of any other shape are {@link #UNENCODED}.
+ * <p>
+ * An id is encodable when it ends in a run of 1 to {@value #MAX_DIGITS} digits preceded by at
+ * most {@value #MAX_PREFIX} characters from {@code [A-Za-z0-9-]}. The key holds a marker bit,
+ * the prefix (6 bits per character), the digit count (so that leading zeros are kept apart) and
+ * the number. The encoding depends on the id alone, so keys can be compared across stores and
+ * persisted.
+ */
+public final class TradeIdCodec {
+
+    /**
+     * Key of an id that doesn't have the encodable shape.
+     */
+    public static final long UNENCODED = 0;
+
+    static final int MAX_PREFIX = 4;
+    static final int MAX_DIGITS = 10;
+
+    private static final int NUMBER_BITS = 34;
+    private static final int WIDTH_BITS = 4;
+    private static final long MARKER = 1L << 63;
+
+    private TradeIdCodec() {
+    }
+
+    /**
+     * Encodes the UTF-8 id in {@code [start, end)} of {@code buffer}.
+     *
+     * @return the key, or {@link #UNENCODED}
+     */
+    public static long encode(ByteBuffer buffer, int start, int end) {
+        int digitsStart = end;
+        while (digitsStart > start && isDigit(buffer.get(digitsStart - 1))) {
+            digitsStart--;
+        }
+
+        int width = end - digitsStart;
+        if (width == 0 || width > MAX_DIGITS || digitsStart - start > MAX_PREFIX) {
+            return UNENCODED;
+        }
+
+        long prefix = 0;
+        for (int i = start; i < digitsStart; i++) {
+            int code = prefixCode(buffer.get(i));
+            if (code == 0) {
+                return UNENCODED;
+            }
+            prefix = (prefix << 6) | code;
+        }
+
+        long number = 0;
+        for (int i = digitsStart; i < end; i++) {
+            number = number * 10 + (buffer.get(i) - '0');
+        }
+
+        return MARKER | prefix << (NUMBER_BITS + WIDTH_BITS) | (long) width << NUMBER_BITS | number;
+    }
+
+    /**
+     * Hash of an encoded key (the murmur3 64-bit finalizer, folded to an int).
+     */
+    public static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * @return 1-63 for a prefix character, 0 for anything else
+     */
+    private static int prefixCode(byte b) {
+        if (b >= 'A' && b <= 'Z') {
+            return 1 + b - 'A';
+        }
+        if (b >= 'a' && b <= 'z') {
+            return 27 + b - 'a';
+        }
+        if (isDigit(b)) {
+            return 53 + b - '0';
+        }
+        return b == '-' ? 63 : 0;
+    }
+}
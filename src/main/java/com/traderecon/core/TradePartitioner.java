@@ -0,0 +1,76 @@
+package com.traderecon.core;
+
+import java.time.Duration;
+
+/**
+ * How trades are routed to the partitions of a {@link PartitionedTradeStore}: by trade id hash
+ * ({@link #BY_TRADE_ID}), which puts both bookings of a trade into the same partition index, or
+ * by time slice of the execution timestamp ({@link #byTimeSlice}), which keeps each partition to
+ * the trades of a few slices so that time-sliced inputs are reconciled slice by slice.
+ * <p>
+ * Time slices are dealt to the partitions round-robin; trades without a timestamp fall back to
+ * their id hash. Two bookings of one trade whose timestamps straddle a slice boundary land in
+ * different partitions, so reconcilers carry the rows a partition finds missing over to a last
+ * pass by trade id (see {@link #isByTradeId()}).
+ */
+public final class TradePartitioner {
+
+    public static final TradePartitioner BY_TRADE_ID = new TradePartitioner(0);
+
+    private final long sliceNanos;
+
+    private TradePartitioner(long sliceNanos) {
+        this.sliceNanos = sliceNanos;
+    }
+
+    /**
+     * @param slice width of a time slice, positive
+     */
+    public static TradePartitioner byTimeSlice(Duration slice) {
+        long sliceNanos = slice.toNanos();
+        if (sliceNanos <= 0) {
+            throw new IllegalArgumentException("Time slices must be positive: " + slice);
+        }
+        return new TradePartitioner(sliceNanos);
+    }
+
+    /**
+     * Whether both bookings of a trade always land in the same partition index.
+     */
+    public boolean isByTradeId() {
+        return sliceNanos == 0;
+    }
+
+    /**
+     * Width of a time slice in nanos, or {@code 0} when partitioning by trade id.
+     */
+    public long sliceNanos() {
+        return sliceNanos;
+    }
+
+    /**
+     * @param idHash     see {@link TradeStore#idHash(int)}
+     * @param epochNanos execution time, or {@link TradeStore#NO_TIMESTAMP}
+     */
+    public int partitionOf(int idHash, long epochNanos, int partitionCount) {
+        if (sliceNanos == 0 || epochNanos == TradeStore.NO_TIMESTAMP) {
+            return PartitionedTradeStore.partitionOf(idHash, partitionCount);
+        }
+        return (int) Math.floorMod(Math.floorDiv(epochNanos, sliceNanos), (long) partitionCount);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TradePartitioner other && other.sliceNanos == sliceNanos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(sliceNanos);
+    }
+
+    @Override
+    public String toString() {
+        return sliceNanos == 0 ? "trade id" : "time slices of " + Duration.ofNanos(sliceNanos);
+    }
+}
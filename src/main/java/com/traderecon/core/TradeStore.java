@@ -0,0 +1,411 @@
+package com.traderecon.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented trade storage: one primitive array per field instead of one {@link Trade}
+ * object per row. Symbols are dictionary-encoded through a {@link SymbolDictionary}, actions
+ * are stored as their ordinal, timestamps as epoch nanos (UTC) and trade ids as UTF-8 bytes
+ * packed into a single arena with a precomputed hash per row. Ids of the usual "prefix + number"
+ * shape also get a {@link TradeIdCodec} key, which hashes and compares them as a {@code long}.
+ * <p>
+ * {@link #trade(int)} materializes a {@code Trade} on demand, for reporting.
+ */
+public final class TradeStore {
+
+    /**
+     * Timestamp value for rows without one.
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final ActionEnum[] ACTIONS = ActionEnum.values();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int COLUMN_BLOCK_BYTES = 1 << 20;
+
+    private final SymbolDictionary symbols;
+
+    private int size;
+    private int[] symbolCodes;
+    private byte[] actions;
+    private double[] prices;
+    private double[] quantities;
+    private long[] timestamps;
+    private long[] idKeys;
+    private int[] idHashes;
+    private int[] idOffsets;
+    private byte[] idArena;
+
+    public TradeStore(SymbolDictionary symbols, int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.symbols = symbols;
+        this.symbolCodes = new int[capacity];
+        this.actions = new byte[capacity];
+        this.prices = new double[capacity];
+        this.quantities = new double[capacity];
+        this.timestamps = new long[capacity];
+        this.idKeys = new long[capacity];
+        this.idHashes = new int[capacity];
+        this.idOffsets = new int[capacity + 1];
+        this.idArena = new byte[capacity * 12];
+    }
+
+    public static TradeStore of(List<Trade> trades, SymbolDictionary symbols) {
+        TradeStore store = new TradeStore(symbols, trades.size());
+        for (Trade trade : trades) {
+            store.add(trade);
+        }
+        return store;
+    }
+
+    /**
+     * Concatenates stores that share one dictionary, keeping their order.
+     */
+    public static TradeStore concat(List<TradeStore> parts, SymbolDictionary symbols) {
+        int rows = 0;
+        for (TradeStore part : parts) {
+            rows += part.size;
+        }
+
+        TradeStore store = new TradeStore(symbols, rows);
+        for (TradeStore part : parts) {
+            store.addAll(part);
+        }
+        return store;
+    }
+
+    public int add(Trade trade) {
+        byte[] id = trade.tradeId().getBytes(StandardCharsets.UTF_8);
+        return add(ByteBuffer.wrap(id), 0, id.length, symbols.code(trade.symbol()), trade.action(),
+                trade.price(), trade.quantity(), trade.timestamp());
+    }
+
+    /**
+     * Adds a row whose trade id is the byte range {@code [idStart, idEnd)} of {@code buffer}.
+     *
+     * @return the row index
+     */
+    public int add(ByteBuffer buffer, int idStart, int idEnd, int symbolCode, ActionEnum action,
+                   double price, double quantity, long epochNanos) {
+        int idLength = idEnd - idStart;
+        ensureCapacity(size + 1, idLength);
+
+        int offset = idOffsets[size];
+        buffer.get(idStart, idArena, offset, idLength);
+        idOffsets[size + 1] = offset + idLength;
+        long idKey = TradeIdCodec.encode(buffer, idStart, idEnd);
+        idKeys[size] = idKey;
+        idHashes[size] = idKey != TradeIdCodec.UNENCODED ? TradeIdCodec.hash(idKey) : bytesHash(buffer, idStart, idEnd);
+
+        symbolCodes[size] = symbolCode;
+        actions[size] = (byte) action.ordinal();
+        prices[size] = price;
+        quantities[size] = quantity;
+        timestamps[size] = epochNanos;
+
+        return size++;
+    }
+
+    /**
+     * Copies one row of another store that shares this store's dictionary.
+     *
+     * @return the row index in this store
+     */
+    public int addRow(TradeStore other, int row) {
+        if (other.symbols != symbols) {
+            throw new IllegalArgumentException("Stores must share one symbol dictionary");
+        }
+
+        int offset = other.idOffsets[row];
+        int idLength = other.idOffsets[row + 1] - offset;
+        ensureCapacity(size + 1, idLength);
+
+        int target = idOffsets[size];
+        System.arraycopy(other.idArena, offset, idArena, target, idLength);
+        idOffsets[size + 1] = target + idLength;
+        idKeys[size] = other.idKeys[row];
+        idHashes[size] = other.idHashes[row];
+
+        symbolCodes[size] = other.symbolCodes[row];
+        actions[size] = other.actions[row];
+        prices[size] = other.prices[row];
+        quantities[size] = other.quantities[row];
+        timestamps[size] = other.timestamps[row];
+
+        return size++;
+    }
+
+    public void addAll(TradeStore other) {
+        if (other.symbols != symbols) {
+            throw new IllegalArgumentException("Stores must share one symbol dictionary");
+        }
+
+        int arenaBytes = other.idOffsets[other.size];
+        ensureCapacity(size + other.size, arenaBytes);
+
+        int base = idOffsets[size];
+        System.arraycopy(other.idArena, 0, idArena, base, arenaBytes);
+        for (int i = 1; i <= other.size; i++) {
+            idOffsets[size + i] = base + other.idOffsets[i];
+        }
+
+        System.arraycopy(other.idKeys, 0, idKeys, size, other.size);
+        System.arraycopy(other.idHashes, 0, idHashes, size, other.size);
+        System.arraycopy(other.symbolCodes, 0, symbolCodes, size, other.size);
+        System.arraycopy(other.actions, 0, actions, size, other.size);
+        System.arraycopy(other.prices, 0, prices, size, other.size);
+        System.arraycopy(other.quantities, 0, quantities, size, other.size);
+        System.arraycopy(other.timestamps, 0, timestamps, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SymbolDictionary symbols() {
+        return symbols;
+    }
+
+    public String tradeId(int row) {
+        return new String(idArena, idOffsets[row], idOffsets[row + 1] - idOffsets[row], StandardCharsets.UTF_8);
+    }
+
+    public int idHash(int row) {
+        return idHashes[row];
+    }
+
+    /**
+     * The {@link TradeIdCodec} key of the row's trade id, or {@link TradeIdCodec#UNENCODED}.
+     */
+    public long idKey(int row) {
+        return idKeys[row];
+    }
+
+    /**
+     * Compares the trade id of {@code row} with the trade id of {@code otherRow} in {@code other}.
+     */
+    public boolean idEquals(int row, TradeStore other, int otherRow) {
+        long key = idKeys[row];
+        long otherKey = other.idKeys[otherRow];
+        if (key != TradeIdCodec.UNENCODED || otherKey != TradeIdCodec.UNENCODED) {
+            // the encoding is a function of the id, so an encoded id never equals an unencoded one
+            return key == otherKey;
+        }
+        return idHashes[row] == other.idHashes[otherRow]
+                && Arrays.equals(idArena, idOffsets[row], idOffsets[row + 1],
+                other.idArena, other.idOffsets[otherRow], other.idOffsets[otherRow + 1]);
+    }
+
+    public int symbolCode(int row) {
+        return symbolCodes[row];
+    }
+
+    public String symbol(int row) {
+        return symbols.symbol(symbolCodes[row]);
+    }
+
+    public ActionEnum action(int row) {
+        return ACTIONS[actions[row]];
+    }
+
+    public double price(int row) {
+        return prices[row];
+    }
+
+    public double quantity(int row) {
+        return quantities[row];
+    }
+
+    public long timestampNanos(int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * Materializes the row as a {@link Trade}.
+     */
+    public Trade trade(int row) {
+        return new Trade(tradeId(row), symbol(row), prices[row], quantities[row], action(row), timestamps[row]);
+    }
+
+    /**
+     * Writes the columns in a fixed binary layout, with every symbol code translated through
+     * {@code symbolRemap}. {@link #readColumns} reads them back.
+     */
+    public void writeColumns(WritableByteChannel channel, int[] symbolRemap) throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(COLUMN_BLOCK_BYTES);
+        int[] remapped = new int[Math.min(size, COLUMN_BLOCK_BYTES / Integer.BYTES)];
+
+        for (int from = 0; from < size; from += remapped.length) {
+            int count = Math.min(remapped.length, size - from);
+            for (int i = 0; i < count; i++) {
+                remapped[i] = symbolRemap[symbolCodes[from + i]];
+            }
+            writeInts(channel, block, remapped, 0, count);
+        }
+        writeBytes(channel, block, actions, 0, size);
+        for (int from = 0; from < size; from += COLUMN_BLOCK_BYTES / Double.BYTES) {
+            int count = Math.min(COLUMN_BLOCK_BYTES / Double.BYTES, size - from);
+            block.clear();
+            block.asDoubleBuffer().put(prices, from, count);
+            drain(channel, block, count * Double.BYTES);
+        }
+        for (int from = 0; from < size; from += COLUMN_BLOCK_BYTES / Double.BYTES) {
+            int count = Math.min(COLUMN_BLOCK_BYTES / Double.BYTES, size - from);
+            block.clear();
+            block.asDoubleBuffer().put(quantities, from, count);
+            drain(channel, block, count * Double.BYTES);
+        }
+        for (int from = 0; from < size; from += COLUMN_BLOCK_BYTES / Long.BYTES) {
+            int count = Math.min(COLUMN_BLOCK_BYTES / Long.BYTES, size - from);
+            block.clear();
+            block.asLongBuffer().put(timestamps, from, count);
+            drain(channel, block, count * Long.BYTES);
+        }
+        for (int from = 0; from < size; from += COLUMN_BLOCK_BYTES / Long.BYTES) {
+            int count = Math.min(COLUMN_BLOCK_BYTES / Long.BYTES, size - from);
+            block.clear();
+            block.asLongBuffer().put(idKeys, from, count);
+            drain(channel, block, count * Long.BYTES);
+        }
+        writeInts(channel, block, idHashes, 0, size);
+        writeInts(channel, block, idOffsets, 0, size + 1);
+        writeBytes(channel, block, idArena, 0, idOffsets[size]);
+    }
+
+    /**
+     * Reads a store written by {@link #writeColumns}, mapping each column of the file region
+     * that starts at {@code position}. Symbol codes are translated through {@code symbolRemap}
+     * into {@code symbols}.
+     */
+    public static TradeStore readColumns(FileChannel channel, long position, int rows, SymbolDictionary symbols,
+                                         int[] symbolRemap) throws IOException {
+        TradeStore store = new TradeStore(symbols, rows);
+
+        position = readInts(channel, position, store.symbolCodes, rows);
+        for (int i = 0; i < rows; i++) {
+            store.symbolCodes[i] = symbolRemap[store.symbolCodes[i]];
+        }
+        channel.map(FileChannel.MapMode.READ_ONLY, position, rows).get(store.actions, 0, rows);
+        position += rows;
+        channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Double.BYTES).asDoubleBuffer()
+                .get(store.prices, 0, rows);
+        position += (long) rows * Double.BYTES;
+        channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Double.BYTES).asDoubleBuffer()
+                .get(store.quantities, 0, rows);
+        position += (long) rows * Double.BYTES;
+        channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Long.BYTES).asLongBuffer()
+                .get(store.timestamps, 0, rows);
+        position += (long) rows * Long.BYTES;
+        channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Long.BYTES).asLongBuffer()
+                .get(store.idKeys, 0, rows);
+        position += (long) rows * Long.BYTES;
+        position = readInts(channel, position, store.idHashes, rows);
+        position = readInts(channel, position, store.idOffsets, rows + 1);
+
+        int arenaBytes = store.idOffsets[rows];
+        store.idArena = new byte[Math.max(arenaBytes, 16)];
+        channel.map(FileChannel.MapMode.READ_ONLY, position, arenaBytes).get(store.idArena, 0, arenaBytes);
+
+        store.size = rows;
+        return store;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] target, int count) throws IOException {
+        channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES).asIntBuffer()
+                .get(target, 0, count);
+        return position + (long) count * Integer.BYTES;
+    }
+
+    private static void writeInts(WritableByteChannel channel, ByteBuffer block, int[] values, int from, int count)
+            throws IOException {
+        int perBlock = block.capacity() / Integer.BYTES;
+        for (int offset = from; offset < from + count; offset += perBlock) {
+            int chunk = Math.min(perBlock, from + count - offset);
+            block.clear();
+            block.asIntBuffer().put(values, offset, chunk);
+            drain(channel, block, chunk * Integer.BYTES);
+        }
+    }
+
+    private static void writeBytes(WritableByteChannel channel, ByteBuffer block, byte[] values, int from, int count)
+            throws IOException {
+        for (int offset = from; offset < from + count; offset += block.capacity()) {
+            int chunk = Math.min(block.capacity(), from + count - offset);
+            block.clear();
+            block.put(values, offset, chunk);
+            drain(channel, block, chunk);
+        }
+    }
+
+    private static void drain(WritableByteChannel channel, ByteBuffer block, int bytes) throws IOException {
+        block.position(0).limit(bytes);
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+    }
+
+    public static long toEpochNanos(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + timestamp.getNano();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        if (epochNanos == NO_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    private void ensureCapacity(int rows, int extraIdBytes) {
+        if (rows > prices.length) {
+            int capacity = Math.max(rows, prices.length * 2);
+            symbolCodes = Arrays.copyOf(symbolCodes, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            idKeys = Arrays.copyOf(idKeys, capacity);
+            idHashes = Arrays.copyOf(idHashes, capacity);
+            idOffsets = Arrays.copyOf(idOffsets, capacity + 1);
+        }
+
+        long arenaBytes = (long) idOffsets[size] + extraIdBytes;
+        if (arenaBytes > idArena.length) {
+            long capacity = Math.max(arenaBytes, idArena.length * 2L);
+            idArena = Arrays.copyOf(idArena, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    /**
+     * The hash {@link #idHash(int)} returns for a trade id given as UTF-8 bytes.
+     */
+    public static int idHash(ByteBuffer buffer, int start, int end) {
+        long key = TradeIdCodec.encode(buffer, start, end);
+        return key != TradeIdCodec.UNENCODED ? TradeIdCodec.hash(key) : bytesHash(buffer, start, end);
+    }
+
+    private static int bytesHash(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        // murmur3 finalizer, so sequential ids spread over the whole table
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
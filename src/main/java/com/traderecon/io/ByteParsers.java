@@ -0,0 +1,127 @@
+package com.traderecon.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for parsing trade fields straight out of a byte buffer without creating a
+ * {@code String} per field. All ranges are absolute positions {@code [start, end)}.
+ */
+public final class ByteParsers {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private ByteParsers() {
+    }
+
+    public static boolean isWhitespace(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    public static int trimStart(ByteBuffer buffer, int start, int end) {
+        while (start < end && isWhitespace(buffer.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    public static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && isWhitespace(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    public static int indexOf(ByteBuffer buffer, byte value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static String toString(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Case-insensitive (ASCII) comparison of a byte range against an upper-case constant.
+     */
+    public static boolean equalsIgnoreCase(ByteBuffer buffer, int start, int end, String upperCase) {
+        int length = upperCase.length();
+        if (end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(start + i);
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != upperCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a decimal number. Plain {@code [sign]digits[.digits]} values whose mantissa fits
+     * in 53 bits are converted exactly (one correctly rounded division, identical to
+     * {@link Double#parseDouble}); anything else falls back to {@link Double#parseDouble}.
+     *
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end) {
+            byte sign = buffer.get(i);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                i++;
+            }
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > 18) {
+                    return parseDoubleSlow(buffer, start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenDot) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return parseDoubleSlow(buffer, start, end);
+            }
+        }
+
+        if (digits == 0 || mantissa > MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseDoubleSlow(buffer, start, end);
+        }
+
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double parseDoubleSlow(ByteBuffer buffer, int start, int end) {
+        return Double.parseDouble(toString(buffer, start, end));
+    }
+}
@@ -0,0 +1,197 @@
+package com.traderecon.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Base for report writers that encode straight into a large direct buffer and drain it to a
+ * {@link FileChannel}, instead of building a {@code String} per row. Writers can also drain a
+ * smaller heap buffer to any channel, e.g. an HTTP response body.
+ */
+abstract class ChannelReportWriter implements Closeable {
+
+    static final int BUFFER_BYTES = 1 << 20;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final double MAX_PLAIN_DOUBLE = 1e7;
+    private static final double MIN_PLAIN_DOUBLE = 1e-3;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[20];
+    private long bytesWritten;
+
+    ChannelReportWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    ChannelReportWriter(WritableByteChannel channel, int bufferBytes) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferBytes);
+    }
+
+    /**
+     * Bytes handed to the channel so far, including what is still buffered.
+     */
+    public long bytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            drain();
+            if (bytes.length > buffer.capacity()) {
+                bytesWritten += channel.write(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes the string as UTF-8; ASCII is copied char by char without an intermediate array.
+     */
+    void put(String value) throws IOException {
+        int length = value.length();
+        if (buffer.remaining() < length) {
+            drain();
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    /**
+     * Writes the string as a quoted JSON string, escaping quotes, backslashes and control characters.
+     */
+    void putJsonString(String value) throws IOException {
+        put((byte) '"');
+
+        int plainFrom = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                put(value.substring(plainFrom, i));
+                put((byte) '\\');
+                switch (c) {
+                    case '"' -> put((byte) '"');
+                    case '\\' -> put((byte) '\\');
+                    case '\n' -> put((byte) 'n');
+                    case '\r' -> put((byte) 'r');
+                    case '\t' -> put((byte) 't');
+                    default -> {
+                        put((byte) 'u');
+                        put((byte) '0');
+                        put((byte) '0');
+                        put(HEX_DIGITS[c >> 4]);
+                        put(HEX_DIGITS[c & 0xF]);
+                    }
+                }
+                plainFrom = i + 1;
+            }
+        }
+
+        put(plainFrom == 0 ? value : value.substring(plainFrom));
+        put((byte) '"');
+    }
+
+    void put(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        if (buffer.remaining() < digits.length - position) {
+            drain();
+        }
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    /**
+     * Writes the same text as {@link Double#toString(double)}. Values in plain notation with up
+     * to six fraction digits are encoded directly; anything else goes through {@code toString}.
+     */
+    void put(double value) throws IOException {
+        double magnitude = Math.abs(value);
+        if (magnitude >= MAX_PLAIN_DOUBLE || (magnitude < MIN_PLAIN_DOUBLE && value != 0)
+                || Double.isNaN(value) || (value == 0 && Double.doubleToRawLongBits(value) != 0)) {
+            put(Double.toString(value));
+            return;
+        }
+
+        for (int fractionDigits = 1; fractionDigits < POWERS_OF_TEN.length; fractionDigits++) {
+            long scale = POWERS_OF_TEN[fractionDigits];
+            long scaled = Math.round(magnitude * scale);
+            // the shortest decimal that parses back to the value is what Double.toString prints
+            if ((double) scaled / scale == magnitude) {
+                if (value < 0) {
+                    put((byte) '-');
+                }
+                put(scaled / scale);
+                put((byte) '.');
+                putFraction(scaled % scale, fractionDigits);
+                return;
+            }
+        }
+
+        put(Double.toString(value));
+    }
+
+    private void putFraction(long fraction, int fractionDigits) throws IOException {
+        for (int i = fractionDigits - 1; i >= 0; i--) {
+            put((byte) ('0' + (fraction / POWERS_OF_TEN[i]) % 10));
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,45 @@
+package com.traderecon.io;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trade file as a timed {@link TradeFeed}: trades are pushed at a fixed rate, in file
+ * order, optionally after an initial delay. Pacing follows a schedule rather than sleeping a
+ * fixed gap per trade, so a slow consumer doesn't make the feed drift.
+ */
+public class CsvReplayFeed implements TradeFeed {
+
+    private final TradeLoader loader;
+    private final String filePath;
+    private final double tradesPerSecond;
+    private final long startDelayNanos;
+
+    /**
+     * @param tradesPerSecond replay rate, or {@code 0} to push trades as fast as they are parsed
+     */
+    public CsvReplayFeed(TradeLoader loader, String filePath, double tradesPerSecond, long startDelay, TimeUnit unit) {
+        this.loader = loader;
+        this.filePath = filePath;
+        this.tradesPerSecond = tradesPerSecond;
+        this.startDelayNanos = unit.toNanos(startDelay);
+    }
+
+    @Override
+    public void run(Listener listener) {
+        long start = System.nanoTime() + startDelayNanos;
+        double nanosPerTrade = tradesPerSecond > 0 ? 1e9 / tradesPerSecond : 0;
+        long[] sent = {0};
+
+        loader.forEachTrade(filePath, trade -> {
+            long due = start + (long) (sent[0]++ * nanosPerTrade);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            listener.onTrade(trade);
+        });
+
+        listener.onComplete();
+    }
+}
@@ -0,0 +1,91 @@
+package com.traderecon.io;
+
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeField;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * CSV report with the same columns and values the runner has always exported.
+ */
+public final class CsvReportWriter extends ChannelReportWriter implements ReportWriter {
+
+    private static final byte[] HEADER = ("TradeID,Status,SymbolA,ActionA,PriceA,QuantityA,SymbolB,ActionB,PriceB,"
+            + "QuantityB,Differences\n").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY_TRADE = ",,,".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MISSING_DIFFERENCES = String.join(";", MatchResult.MISSING_DIFFERENCES)
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] STATUSES = statusNames();
+
+    private static final TradeField[] FIELDS = TradeField.values();
+
+    public CsvReportWriter(Path path) throws IOException {
+        super(path);
+        put(HEADER);
+    }
+
+    @Override
+    public void write(MatchResult result) throws IOException {
+        put(result.tradeId());
+        put((byte) ',');
+        put(STATUSES[result.matchStatus().ordinal()]);
+        put((byte) ',');
+        putTrade(result.tradeA());
+        put((byte) ',');
+        putTrade(result.tradeB());
+        put((byte) ',');
+        putDifferences(result);
+        put((byte) '\n');
+    }
+
+    private void putTrade(Trade trade) throws IOException {
+        if (trade == null) {
+            put(EMPTY_TRADE);
+            return;
+        }
+
+        put(trade.symbol());
+        put((byte) ',');
+        put(trade.action().name());
+        put((byte) ',');
+        put(trade.price());
+        put((byte) ',');
+        put(trade.quantity());
+    }
+
+    private void putDifferences(MatchResult result) throws IOException {
+        MatchStatus status = result.matchStatus();
+        if (status == MatchStatus.MISSING_IN_A || status == MatchStatus.MISSING_IN_B) {
+            put(MISSING_DIFFERENCES);
+            return;
+        }
+
+        boolean first = true;
+        if (status == MatchStatus.FUZZY_MATCHED) {
+            put(result.idDifference());
+            first = false;
+        }
+        for (TradeField field : FIELDS) {
+            if (result.hasDifference(field)) {
+                if (!first) {
+                    put((byte) ';');
+                }
+                put(field.describe(result.tradeA(), result.tradeB()));
+                first = false;
+            }
+        }
+    }
+
+    private static byte[][] statusNames() {
+        MatchStatus[] statuses = MatchStatus.values();
+        byte[][] names = new byte[statuses.length][];
+        for (MatchStatus status : statuses) {
+            names[status.ordinal()] = status.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,125 @@
+package com.traderecon.io;
+
+import com.traderecon.core.BreakDelta;
+import com.traderecon.core.MatchResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Delta report of an incremental reconciliation, in the configured {@code report.format}:
+ * <pre>
+ * Change,TradeID,PreviousStatus,PreviousDifferences,Status,Differences
+ * CHANGED,T002,MISMATCHED,Price,MISMATCHED,Price 50.0 != 40.0;Quantity 10.0 != Quantity 12.0
+ * </pre>
+ * or one JSON object per delta with the same fields. Previous differences are field labels,
+ * since the previous run's values aren't kept.
+ */
+public final class DeltaReportWriter extends ChannelReportWriter {
+
+    private static final byte[] CSV_HEADER = "Change,TradeID,PreviousStatus,PreviousDifferences,Status,Differences\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final boolean json;
+
+    public DeltaReportWriter(String format, Path path) throws IOException {
+        super(path);
+        this.json = switch (format.trim().toUpperCase(Locale.ROOT)) {
+            case "CSV" -> false;
+            case "JSON", "JSONL" -> true;
+            default -> throw new IllegalArgumentException("Unsupported report format: " + format);
+        };
+
+        if (!json) {
+            put(CSV_HEADER);
+        }
+    }
+
+    public void write(BreakDelta delta) throws IOException {
+        if (json) {
+            writeJson(delta);
+        } else {
+            writeCsv(delta);
+        }
+    }
+
+    /**
+     * I/O failures are rethrown as {@link UncheckedIOException}, as in {@link ReportWriter#asConsumer()}.
+     */
+    public Consumer<BreakDelta> asConsumer() {
+        return delta -> {
+            try {
+                write(delta);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private void writeCsv(BreakDelta delta) throws IOException {
+        MatchResult current = delta.current();
+
+        put(delta.change().name());
+        put((byte) ',');
+        put(delta.tradeId());
+        put((byte) ',');
+        if (delta.previousStatus() != null) {
+            put(delta.previousStatus().name());
+            put((byte) ',');
+            put(String.join(";", delta.previousDifferences()));
+        } else {
+            put((byte) ',');
+        }
+        put((byte) ',');
+        if (current != null) {
+            put(current.matchStatus().name());
+            put((byte) ',');
+            put(String.join(";", current.differences()));
+        } else {
+            put((byte) ',');
+        }
+        put((byte) '\n');
+    }
+
+    private void writeJson(BreakDelta delta) throws IOException {
+        MatchResult current = delta.current();
+
+        put("{\"change\":\"");
+        put(delta.change().name());
+        put("\",\"tradeId\":");
+        putJsonString(delta.tradeId());
+        put(",\"previousStatus\":");
+        putJsonStatus(delta.previousStatus() == null ? null : delta.previousStatus().name());
+        put(",\"previousDifferences\":");
+        putJsonArray(delta.previousStatus() == null ? List.of() : delta.previousDifferences());
+        put(",\"status\":");
+        putJsonStatus(current == null ? null : current.matchStatus().name());
+        put(",\"differences\":");
+        putJsonArray(current == null ? List.of() : current.differences());
+        put("}\n");
+    }
+
+    private void putJsonStatus(String status) throws IOException {
+        if (status == null) {
+            put("null");
+        } else {
+            putJsonString(status);
+        }
+    }
+
+    private void putJsonArray(List<String> values) throws IOException {
+        put((byte) '[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                put((byte) ',');
+            }
+            putJsonString(values.get(i));
+        }
+        put((byte) ']');
+    }
+}
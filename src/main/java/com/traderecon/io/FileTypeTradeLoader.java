@@ -0,0 +1,76 @@
+package com.traderecon.io;
+
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradePartitioner;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.StageMetrics;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Loads every file with the {@link MappedTradeLoader} of its {@link TradeFileFormat}, so one
+ * run can reconcile a CSV export against a JSON Lines feed or a FIX drop-copy log. Files whose
+ * format can't be told are read as CSV. The loaders share the symbols of their {@code Trade}s.
+ */
+public class FileTypeTradeLoader implements TradeLoader {
+
+    private final SymbolDictionary interned = new SymbolDictionary();
+    private final Map<TradeFileFormat, MappedTradeLoader> loaders = new EnumMap<>(TradeFileFormat.class);
+
+    /**
+     * The loader of the file's format.
+     */
+    public synchronized MappedTradeLoader loader(String filePath) {
+        TradeFileFormat format = TradeFileFormat.of(Path.of(filePath));
+        return loaders.computeIfAbsent(format == null ? TradeFileFormat.CSV : format,
+                key -> key.newLoader(interned));
+    }
+
+    @Override
+    public List<Trade> loadTrades(String filePath) {
+        return loader(filePath).loadTrades(filePath);
+    }
+
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer) {
+        loader(filePath).forEachTrade(filePath, consumer);
+    }
+
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer, StageMetrics metrics) {
+        loader(filePath).forEachTrade(filePath, consumer, metrics);
+    }
+
+    @Override
+    public TradeStore loadStore(String filePath, SymbolDictionary symbols) {
+        return loader(filePath).loadStore(filePath, symbols);
+    }
+
+    @Override
+    public TradeStore loadStore(String filePath, SymbolDictionary symbols, StageMetrics metrics) {
+        return loader(filePath).loadStore(filePath, symbols, metrics);
+    }
+
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount) {
+        return loader(filePath).loadPartitionedStore(filePath, symbols, partitionCount);
+    }
+
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                      StageMetrics metrics) {
+        return loader(filePath).loadPartitionedStore(filePath, symbols, partitionCount, metrics);
+    }
+
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                      TradePartitioner partitioner, StageMetrics metrics) {
+        return loader(filePath).loadPartitionedStore(filePath, symbols, partitionCount, partitioner, metrics);
+    }
+}
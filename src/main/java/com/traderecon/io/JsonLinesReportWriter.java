@@ -0,0 +1,118 @@
+package com.traderecon.io;
+
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeField;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * JSON Lines report: one object per result, e.g.
+ * <pre>
+ * {"tradeId":"T002","status":"MISMATCHED","tradeA":{"symbol":"GOOG","action":"SELL","price":50.0,"quantity":2700.1},
+ *  "tradeB":{...},"differences":["Price 50.0 != 40.0"]}
+ * </pre>
+ */
+public class JsonLinesReportWriter extends ChannelReportWriter implements ReportWriter {
+
+    private static final byte[] TRADE_ID = ascii("{\"tradeId\":");
+    private static final byte[] STATUS = ascii(",\"status\":\"");
+    private static final byte[] TRADE_A = ascii("\",\"tradeA\":");
+    private static final byte[] TRADE_B = ascii(",\"tradeB\":");
+    private static final byte[] DIFFERENCES = ascii(",\"differences\":[");
+    private static final byte[] SYMBOL = ascii("{\"symbol\":");
+    private static final byte[] ACTION = ascii(",\"action\":\"");
+    private static final byte[] PRICE = ascii("\",\"price\":");
+    private static final byte[] QUANTITY = ascii(",\"quantity\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] END = ascii("]}\n");
+    private static final byte[] MISSING_DIFFERENCES = ascii("\"" + String.join("\",\"", MatchResult.MISSING_DIFFERENCES) + "\"");
+
+    private static final TradeField[] FIELDS = TradeField.values();
+
+    public JsonLinesReportWriter(Path path) throws IOException {
+        super(path);
+    }
+
+    /**
+     * Writes to {@code channel} through a heap buffer of {@code bufferBytes}; closing the writer
+     * closes the channel.
+     */
+    public JsonLinesReportWriter(WritableByteChannel channel, int bufferBytes) {
+        super(channel, bufferBytes);
+    }
+
+    @Override
+    public void write(MatchResult result) throws IOException {
+        put(TRADE_ID);
+        putJsonString(result.tradeId());
+        put(STATUS);
+        put(result.matchStatus().name());
+        put(TRADE_A);
+        putTrade(result.tradeA());
+        put(TRADE_B);
+        putTrade(result.tradeB());
+        put(DIFFERENCES);
+        putDifferences(result);
+        put(END);
+    }
+
+    private void putTrade(Trade trade) throws IOException {
+        if (trade == null) {
+            put(NULL);
+            return;
+        }
+
+        put(SYMBOL);
+        putJsonString(trade.symbol());
+        put(ACTION);
+        put(trade.action().name());
+        put(PRICE);
+        putNumber(trade.price());
+        put(QUANTITY);
+        putNumber(trade.quantity());
+        put((byte) '}');
+    }
+
+    private void putDifferences(MatchResult result) throws IOException {
+        MatchStatus status = result.matchStatus();
+        if (status == MatchStatus.MISSING_IN_A || status == MatchStatus.MISSING_IN_B) {
+            put(MISSING_DIFFERENCES);
+            return;
+        }
+
+        boolean first = true;
+        if (status == MatchStatus.FUZZY_MATCHED) {
+            putJsonString(result.idDifference());
+            first = false;
+        }
+        for (TradeField field : FIELDS) {
+            if (result.hasDifference(field)) {
+                if (!first) {
+                    put((byte) ',');
+                }
+                putJsonString(field.describe(result.tradeA(), result.tradeB()));
+                first = false;
+            }
+        }
+    }
+
+    /**
+     * JSON has no NaN or infinity literals; those are written as {@code null}.
+     */
+    private void putNumber(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            put(NULL);
+        } else {
+            put(value);
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
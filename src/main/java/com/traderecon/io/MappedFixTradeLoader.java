@@ -0,0 +1,222 @@
+package com.traderecon.io;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+
+import java.nio.ByteBuffer;
+
+/**
+ * FIX drop-copy log loader over {@link MappedTradeLoader}: one message per line, fields split by
+ * SOH or, in logs written for people, by {@code |}. Anything before {@code 8=FIX} (a log
+ * engine's timestamp, say) is ignored. The fields are scanned once, tag by tag, and only those of
+ * a trade are kept:
+ * <ul>
+ *   <li>execution reports ({@code 35=8}) are trades when their ExecType (150) is a fill:
+ *   {@code F}, or {@code 1} and {@code 2} of FIX 4.2; one without an ExecType counts as a
+ *   fill. The trade id is the ExecID (17);</li>
+ *   <li>trade capture reports ({@code 35=AE}) are trades, with the TradeReportID (571) as id.</li>
+ * </ul>
+ * Symbol (55), Side (54: {@code 1} buy, {@code 2}, {@code 5} and {@code 6} sell), LastPx (31),
+ * LastQty (32) and the optional TransactTime (60) make up the rest of the trade. Other messages
+ * (sessions, orders, acknowledgements, busts) and blank lines are skipped; a line without a FIX
+ * message or a trade without one of its fields is skipped as malformed. Body length and checksum
+ * are not verified.
+ */
+public class MappedFixTradeLoader extends MappedTradeLoader {
+
+    private static final byte SOH = 0x01;
+
+    private static final int MSG_TYPE = 35;
+    private static final int EXEC_ID = 17;
+    private static final int TRADE_REPORT_ID = 571;
+    private static final int EXEC_TYPE = 150;
+    private static final int SYMBOL = 55;
+    private static final int SIDE = 54;
+    private static final int LAST_PX = 31;
+    private static final int LAST_QTY = 32;
+    private static final int TRANSACT_TIME = 60;
+
+    public MappedFixTradeLoader() {
+    }
+
+    MappedFixTradeLoader(SymbolDictionary interned) {
+        super(interned);
+    }
+
+    @Override
+    protected boolean parseLine(ByteBuffer buffer, int start, int end, RowSink sink) {
+        int message = messageStart(buffer, start, end);
+        if (message < 0) {
+            if (ByteParsers.trimStart(buffer, start, end) == end) {
+                return true;
+            }
+            System.err.println("Skipping malformed line: " + ByteParsers.toString(buffer, start, end));
+            return false;
+        }
+
+        // the byte that ends BeginString separates every field of the message
+        byte delimiter = SOH;
+        for (int i = message; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == SOH || b == '|') {
+                delimiter = b;
+                break;
+            }
+        }
+
+        boolean captureReport = false;
+        boolean fill = true;
+        int execIdStart = -1, execIdEnd = -1, reportIdStart = -1, reportIdEnd = -1;
+        int symbolStart = -1, symbolEnd = -1, sideStart = -1, sideEnd = -1;
+        int priceStart = -1, priceEnd = -1, quantityStart = -1, quantityEnd = -1;
+        int timestampStart = -1, timestampEnd = -1;
+
+        int i = message;
+        while (i < end) {
+            int fieldEnd = ByteParsers.indexOf(buffer, delimiter, i, end);
+            if (fieldEnd < 0) {
+                fieldEnd = end;
+            }
+
+            int tag = 0;
+            int equals = i;
+            for (; equals < fieldEnd; equals++) {
+                byte b = buffer.get(equals);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                tag = tag * 10 + (b - '0');
+            }
+            if (equals == i || equals == fieldEnd || buffer.get(equals) != '=') {
+                // trailing whitespace after the checksum, say
+                if (ByteParsers.trimStart(buffer, i, fieldEnd) != fieldEnd) {
+                    System.err.println("Skipping malformed line: " + ByteParsers.toString(buffer, start, end));
+                    return false;
+                }
+                i = fieldEnd + 1;
+                continue;
+            }
+
+            int value = equals + 1;
+            switch (tag) {
+                case MSG_TYPE -> {
+                    if (ByteParsers.equalsIgnoreCase(buffer, value, fieldEnd, "AE")) {
+                        captureReport = true;
+                    } else if (!(fieldEnd - value == 1 && buffer.get(value) == '8')) {
+                        // not a trade
+                        return true;
+                    }
+                }
+                case EXEC_ID -> {
+                    execIdStart = value;
+                    execIdEnd = fieldEnd;
+                }
+                case TRADE_REPORT_ID -> {
+                    reportIdStart = value;
+                    reportIdEnd = fieldEnd;
+                }
+                case EXEC_TYPE -> {
+                    byte execType = fieldEnd - value == 1 ? buffer.get(value) : 0;
+                    fill = execType == 'F' || execType == '1' || execType == '2';
+                }
+                case SYMBOL -> {
+                    symbolStart = value;
+                    symbolEnd = fieldEnd;
+                }
+                case SIDE -> {
+                    // a capture report repeats Side per party; the first one is the trade's
+                    if (sideStart < 0) {
+                        sideStart = value;
+                        sideEnd = fieldEnd;
+                    }
+                }
+                case LAST_PX -> {
+                    priceStart = value;
+                    priceEnd = fieldEnd;
+                }
+                case LAST_QTY -> {
+                    quantityStart = value;
+                    quantityEnd = fieldEnd;
+                }
+                case TRANSACT_TIME -> {
+                    timestampStart = value;
+                    timestampEnd = fieldEnd;
+                }
+                default -> {
+                }
+            }
+            i = fieldEnd + 1;
+        }
+
+        if (!captureReport && !fill) {
+            return true;
+        }
+
+        try {
+            int idStart = captureReport ? reportIdStart : execIdStart;
+            int idEnd = captureReport ? reportIdEnd : execIdEnd;
+            require(idStart, captureReport ? TRADE_REPORT_ID : EXEC_ID);
+            require(symbolStart, SYMBOL);
+            require(sideStart, SIDE);
+            require(priceStart, LAST_PX);
+            require(quantityStart, LAST_QTY);
+
+            ActionEnum action = parseSide(buffer, sideStart, sideEnd);
+            double price = parseNumber(buffer, priceStart, priceEnd);
+            double quantity = parseNumber(buffer, quantityStart, quantityEnd);
+            long timestamp = timestampStart < 0 ? TradeStore.NO_TIMESTAMP
+                    : parseTimestamp(buffer, timestampStart, timestampEnd);
+
+            idStart = ByteParsers.trimStart(buffer, idStart, idEnd);
+            idEnd = ByteParsers.trimEnd(buffer, idStart, idEnd);
+            symbolStart = ByteParsers.trimStart(buffer, symbolStart, symbolEnd);
+            symbolEnd = ByteParsers.trimEnd(buffer, symbolStart, symbolEnd);
+            sink.row(buffer, idStart, idEnd, symbolStart, symbolEnd, action, price, quantity, timestamp);
+            return true;
+
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse line: " + ByteParsers.toString(buffer, start, end)
+                    + " (" + e.getMessage() + ")");
+            return false;
+        }
+    }
+
+    /**
+     * @return where {@code 8=FIX} starts, or {@code -1} if the line holds no message
+     */
+    private static int messageStart(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i + 5 <= end; i++) {
+            if (buffer.get(i) == '8' && buffer.get(i + 1) == '=' && buffer.get(i + 2) == 'F'
+                    && buffer.get(i + 3) == 'I' && buffer.get(i + 4) == 'X'
+                    && (i == start || buffer.get(i - 1) == SOH || buffer.get(i - 1) == '|' || buffer.get(i - 1) == ' ')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ActionEnum parseSide(ByteBuffer buffer, int start, int end) {
+        start = ByteParsers.trimStart(buffer, start, end);
+        end = ByteParsers.trimEnd(buffer, start, end);
+        if (end - start == 1) {
+            switch (buffer.get(start)) {
+                case '1' -> {
+                    return ActionEnum.BUY;
+                }
+                case '2', '5', '6' -> {
+                    return ActionEnum.SELL;
+                }
+                default -> {
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported side " + ByteParsers.toString(buffer, start, end));
+    }
+
+    private static void require(int valueStart, int tag) {
+        if (valueStart < 0) {
+            throw new IllegalArgumentException("no tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.traderecon.io;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON Lines loader over {@link MappedTradeLoader}: one object per line, such as
+ * <pre>
+ * {"tradeId":"T000000001","symbol":"AAPL","side":"BUY","price":187.25,"quantity":100,"timestamp":"2024-03-15T14:30:05.123Z"}
+ * </pre>
+ * The line is scanned once, key by key, without building a tree: the values of {@code tradeId},
+ * {@code symbol}, {@code side} (or {@code action}), {@code price}, {@code quantity} and the
+ * optional {@code timestamp} are decoded in place, and every other value, nested or not, is
+ * skipped over. Numbers may be quoted and a {@code null} counts as absent. Blank lines are
+ * skipped; lines that aren't one object or lack a field are skipped as malformed.
+ */
+public class MappedJsonLinesTradeLoader extends MappedTradeLoader {
+
+    public MappedJsonLinesTradeLoader() {
+    }
+
+    MappedJsonLinesTradeLoader(SymbolDictionary interned) {
+        super(interned);
+    }
+
+    @Override
+    protected boolean parseLine(ByteBuffer buffer, int start, int end, RowSink sink) {
+        int i = ByteParsers.trimStart(buffer, start, end);
+        if (i == end) {
+            return true;
+        }
+
+        int idStart = -1, idEnd = -1, symbolStart = -1, symbolEnd = -1;
+        int sideStart = -1, sideEnd = -1, priceStart = -1, priceEnd = -1;
+        int quantityStart = -1, quantityEnd = -1, timestampStart = -1, timestampEnd = -1;
+        try {
+            i = expect(buffer, i, end, '{');
+            i = ByteParsers.trimStart(buffer, i, end);
+            if (i < end && buffer.get(i) == '}') {
+                i++;
+            } else {
+                while (true) {
+                    i = expect(buffer, i, end, '"');
+                    int keyStart = i;
+                    int keyEnd = stringEnd(buffer, i, end);
+                    i = expect(buffer, ByteParsers.trimStart(buffer, keyEnd + 1, end), end, ':');
+                    i = ByteParsers.trimStart(buffer, i, end);
+
+                    int valueEnd = valueEnd(buffer, i, end);
+                    // the value without its quotes; null leaves the field absent
+                    int from = i;
+                    int to = valueEnd;
+                    if (buffer.get(i) == '"') {
+                        from++;
+                        to--;
+                    } else if (ByteParsers.equalsIgnoreCase(buffer, i, valueEnd, "NULL")) {
+                        from = -1;
+                    }
+
+                    if (is(buffer, keyStart, keyEnd, "tradeId")) {
+                        idStart = from;
+                        idEnd = to;
+                    } else if (is(buffer, keyStart, keyEnd, "symbol")) {
+                        symbolStart = from;
+                        symbolEnd = to;
+                    } else if (is(buffer, keyStart, keyEnd, "side") || is(buffer, keyStart, keyEnd, "action")) {
+                        sideStart = from;
+                        sideEnd = to;
+                    } else if (is(buffer, keyStart, keyEnd, "price")) {
+                        priceStart = from;
+                        priceEnd = to;
+                    } else if (is(buffer, keyStart, keyEnd, "quantity")) {
+                        quantityStart = from;
+                        quantityEnd = to;
+                    } else if (is(buffer, keyStart, keyEnd, "timestamp")) {
+                        timestampStart = from;
+                        timestampEnd = to;
+                    }
+
+                    i = ByteParsers.trimStart(buffer, valueEnd, end);
+                    if (i < end && buffer.get(i) == '}') {
+                        i++;
+                        break;
+                    }
+                    i = ByteParsers.trimStart(buffer, expect(buffer, i, end, ','), end);
+                }
+            }
+            if (ByteParsers.trimStart(buffer, i, end) != end) {
+                throw new IllegalArgumentException("text after the object");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping malformed line: " + ByteParsers.toString(buffer, start, end)
+                    + " (" + e.getMessage() + ")");
+            return false;
+        }
+
+        try {
+            require(idStart, "tradeId");
+            require(symbolStart, "symbol");
+            require(sideStart, "side");
+            require(priceStart, "price");
+            require(quantityStart, "quantity");
+
+            ActionEnum action = parseAction(buffer, sideStart, sideEnd);
+            double price = parseNumber(buffer, priceStart, priceEnd);
+            double quantity = parseNumber(buffer, quantityStart, quantityEnd);
+            long timestamp = timestampStart < 0 ? TradeStore.NO_TIMESTAMP
+                    : parseTimestamp(buffer, timestampStart, timestampEnd);
+
+            if (ByteParsers.indexOf(buffer, (byte) '\\', idStart, idEnd) < 0
+                    && ByteParsers.indexOf(buffer, (byte) '\\', symbolStart, symbolEnd) < 0) {
+                idStart = ByteParsers.trimStart(buffer, idStart, idEnd);
+                idEnd = ByteParsers.trimEnd(buffer, idStart, idEnd);
+                symbolStart = ByteParsers.trimStart(buffer, symbolStart, symbolEnd);
+                symbolEnd = ByteParsers.trimEnd(buffer, symbolStart, symbolEnd);
+                sink.row(buffer, idStart, idEnd, symbolStart, symbolEnd, action, price, quantity, timestamp);
+            } else {
+                // escaped id or symbol: both are decoded into a buffer of their own
+                byte[] id = unescape(buffer, idStart, idEnd).strip().getBytes(StandardCharsets.UTF_8);
+                byte[] symbol = unescape(buffer, symbolStart, symbolEnd).strip().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer decoded = ByteBuffer.allocate(id.length + symbol.length).put(id).put(symbol);
+                sink.row(decoded, 0, id.length, id.length, id.length + symbol.length, action, price, quantity,
+                        timestamp);
+            }
+            return true;
+
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse line: " + ByteParsers.toString(buffer, start, end)
+                    + " (" + e.getMessage() + ")");
+            return false;
+        }
+    }
+
+    private static int expect(ByteBuffer buffer, int i, int end, char expected) {
+        if (i >= end || buffer.get(i) != expected) {
+            throw new IllegalArgumentException("expected '" + expected + "'");
+        }
+        return i + 1;
+    }
+
+    private static void require(int valueStart, String key) {
+        if (valueStart < 0) {
+            throw new IllegalArgumentException("no " + key);
+        }
+    }
+
+    /**
+     * Whether the key's raw bytes are exactly {@code name}.
+     */
+    private static boolean is(ByteBuffer buffer, int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (buffer.get(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param i just after an opening quote
+     * @return the position of the closing quote
+     */
+    private static int stringEnd(ByteBuffer buffer, int i, int end) {
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                return i;
+            }
+            if (b == '\\') {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    /**
+     * @param i the first byte of a value
+     * @return just after the value: a string with its quotes, an object or array with everything
+     * nested in it, or a number or literal up to the next delimiter
+     */
+    private static int valueEnd(ByteBuffer buffer, int i, int end) {
+        if (i >= end) {
+            throw new IllegalArgumentException("missing value");
+        }
+        byte first = buffer.get(i);
+        if (first == '"') {
+            return stringEnd(buffer, i + 1, end) + 1;
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    i = stringEnd(buffer, i + 1, end);
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            throw new IllegalArgumentException("unterminated " + (first == '{' ? "object" : "array"));
+        }
+
+        int valueStart = i;
+        while (i < end) {
+            byte b = buffer.get(i);
+            if (b == ',' || b == '}' || b == ']' || ByteParsers.isWhitespace(b)) {
+                break;
+            }
+            i++;
+        }
+        if (i == valueStart) {
+            throw new IllegalArgumentException("missing value");
+        }
+        return i;
+    }
+
+    /**
+     * Decodes the escapes of a string's contents (without its quotes).
+     */
+    private static String unescape(ByteBuffer buffer, int start, int end) {
+        String raw = ByteParsers.toString(buffer, start, end);
+        StringBuilder text = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    text.append((char) Integer.parseInt(raw, i + 1, i + 5, 16));
+                    i += 4;
+                }
+                default -> text.append(escaped);
+            }
+        }
+        return text.toString();
+    }
+}
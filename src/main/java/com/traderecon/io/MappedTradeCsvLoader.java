@@ -0,0 +1,69 @@
+package com.traderecon.io;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CSV loader over {@link MappedTradeLoader}: {@code tradeId,symbol,side,price,quantity} and an
+ * optional execution time after a header line. Column layout and skip rules are the same as
+ * {@link com.traderecon.core.TradeCsvLoader}.
+ */
+public class MappedTradeCsvLoader extends MappedTradeLoader {
+
+    public MappedTradeCsvLoader() {
+    }
+
+    MappedTradeCsvLoader(SymbolDictionary interned) {
+        super(interned);
+    }
+
+    @Override
+    protected boolean hasHeader() {
+        return true;
+    }
+
+    @Override
+    protected boolean parseLine(ByteBuffer buffer, int start, int end, RowSink sink) {
+        int comma0 = ByteParsers.indexOf(buffer, (byte) ',', start, end);
+        int comma1 = comma0 < 0 ? -1 : ByteParsers.indexOf(buffer, (byte) ',', comma0 + 1, end);
+        int comma2 = comma1 < 0 ? -1 : ByteParsers.indexOf(buffer, (byte) ',', comma1 + 1, end);
+        int comma3 = comma2 < 0 ? -1 : ByteParsers.indexOf(buffer, (byte) ',', comma2 + 1, end);
+        if (comma3 < 0) {
+            System.err.println("Skipping malformed line: " + ByteParsers.toString(buffer, start, end));
+            return false;
+        }
+
+        int quantityEnd = ByteParsers.indexOf(buffer, (byte) ',', comma3 + 1, end);
+        int timestampEnd = -1;
+        if (quantityEnd < 0) {
+            quantityEnd = end;
+        } else {
+            timestampEnd = ByteParsers.indexOf(buffer, (byte) ',', quantityEnd + 1, end);
+            if (timestampEnd < 0) {
+                timestampEnd = end;
+            }
+        }
+
+        try {
+            int idStart = ByteParsers.trimStart(buffer, start, comma0);
+            int idEnd = ByteParsers.trimEnd(buffer, idStart, comma0);
+            int symbolStart = ByteParsers.trimStart(buffer, comma0 + 1, comma1);
+            int symbolEnd = ByteParsers.trimEnd(buffer, symbolStart, comma1);
+            ActionEnum action = parseAction(buffer, comma1 + 1, comma2);
+            double price = parseNumber(buffer, comma2 + 1, comma3);
+            double quantity = parseNumber(buffer, comma3 + 1, quantityEnd);
+            long timestamp = timestampEnd < 0 ? TradeStore.NO_TIMESTAMP : parseTimestamp(buffer, quantityEnd + 1, timestampEnd);
+
+            sink.row(buffer, idStart, idEnd, symbolStart, symbolEnd, action, price, quantity, timestamp);
+            return true;
+
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse line: " + ByteParsers.toString(buffer, start, end)
+                    + " (" + e.getMessage() + ")");
+            return false;
+        }
+    }
+}
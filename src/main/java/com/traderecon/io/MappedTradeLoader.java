@@ -0,0 +1,502 @@
+package com.traderecon.io;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradePartitioner;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Loader of line-oriented trade files (one trade per line) that memory-maps the input, splits it
+ * into newline-aligned chunks and parses every chunk on its own core directly from the mapped
+ * bytes. Subclasses only scan a line for the fields of a trade ({@link #parseLine}); only the
+ * trade id (and each distinct symbol once per chunk) become {@code String}s, while numbers, the
+ * action and the optional execution time ({@link TimestampParser}) are decoded in place.
+ * <p>
+ * {@link #loadStore} skips {@code Trade} objects altogether and copies the id bytes straight
+ * into a {@link TradeStore}. The {@code Trade}s of {@link #loadTrades} and {@link #forEachTrade}
+ * share one {@code String} per distinct symbol across every file this loader reads, so symbol
+ * comparisons between them mostly stop at the identity check.
+ */
+public abstract class MappedTradeLoader implements TradeLoader {
+
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int CHUNKS_PER_CORE = 4;
+
+    private static final ActionEnum[] ACTIONS = ActionEnum.values();
+    private static final StageMetrics UNRECORDED = StageMetrics.detached("load");
+
+    private final SymbolDictionary interned;
+
+    protected MappedTradeLoader() {
+        this(new SymbolDictionary());
+    }
+
+    /**
+     * @param interned where the symbols of {@code Trade}s are interned, shared by loaders whose
+     *                 trades are compared with each other
+     */
+    MappedTradeLoader(SymbolDictionary interned) {
+        this.interned = interned;
+    }
+
+    /**
+     * Scans one line, without its line terminator, and hands the trade on it to {@code sink}.
+     * A line that holds no trade but isn't malformed either (a blank line, a message of another
+     * type) is skipped by returning {@code true} without calling {@code sink}. Called from
+     * several threads at once.
+     *
+     * @return {@code false} if the line was skipped as malformed
+     */
+    protected abstract boolean parseLine(ByteBuffer buffer, int start, int end, RowSink sink);
+
+    /**
+     * Whether the first line of the file is a header rather than a trade.
+     */
+    protected boolean hasHeader() {
+        return false;
+    }
+
+    @Override
+    public List<Trade> loadTrades(String filePath) {
+        List<Trade> trades = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+
+            List<List<Trade>> chunks = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> {
+                        List<Trade> chunk = new ArrayList<>();
+                        parseChunk(channel, bounds[i], bounds[i + 1], new TradeRowSink(chunk::add, interned), UNRECORDED);
+                        return chunk;
+                    })
+                    .toList();
+
+            trades = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+            for (List<Trade> chunk : chunks) {
+                trades.addAll(chunk);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("❌ Error reading file: " + filePath + " - " + e.getMessage());
+        }
+
+        return trades;
+    }
+
+    /**
+     * Parses the file chunk by chunk on the calling thread, handing every trade to the consumer
+     * in file order without holding more than one mapped chunk at a time.
+     */
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer) {
+        forEachTrade(filePath, consumer, UNRECORDED);
+    }
+
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer, StageMetrics metrics) {
+        long begin = metrics.begin();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            metrics.addBytes(channel.size());
+            long[] bounds = chunkBounds(channel);
+            long[] rows = new long[1];
+            TradeRowSink sink = new TradeRowSink(trade -> {
+                rows[0]++;
+                consumer.accept(trade);
+            }, interned);
+
+            for (int i = 0; i < bounds.length - 1; i++) {
+                parseChunk(channel, bounds[i], bounds[i + 1], sink, metrics);
+            }
+            metrics.addRowsOut(rows[0]);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("❌ Error reading file: " + filePath + " - " + e.getMessage());
+        } finally {
+            metrics.end(begin);
+        }
+    }
+
+    /**
+     * Parses chunks in parallel into one store per chunk and concatenates them in file order.
+     */
+    @Override
+    public TradeStore loadStore(String filePath, SymbolDictionary symbols) {
+        return loadStore(filePath, symbols, UNRECORDED);
+    }
+
+    @Override
+    public TradeStore loadStore(String filePath, SymbolDictionary symbols, StageMetrics metrics) {
+        long begin = metrics.begin();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            metrics.addBytes(channel.size());
+            long[] bounds = chunkBounds(channel);
+
+            List<TradeStore> chunks = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> {
+                        int estimatedRows = (int) Math.min(Integer.MAX_VALUE - 8, (bounds[i + 1] - bounds[i]) / 32);
+                        StoreRowSink sink = new StoreRowSink(new TradeStore(symbols, estimatedRows));
+                        parseChunk(channel, bounds[i], bounds[i + 1], sink, metrics);
+                        return sink.store;
+                    })
+                    .toList();
+
+            TradeStore store = chunks.size() == 1 ? chunks.get(0) : TradeStore.concat(chunks, symbols);
+            metrics.addRowsOut(store.size());
+            return store;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("❌ Error reading file: " + filePath + " - " + e.getMessage());
+            return new TradeStore(symbols, 0);
+        } finally {
+            metrics.end(begin);
+        }
+    }
+
+    /**
+     * Routes every row to its partition while parsing, so each chunk produces one small store per
+     * partition; the partitions are then concatenated (in chunk order) in parallel.
+     */
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount) {
+        return loadPartitionedStore(filePath, symbols, partitionCount, UNRECORDED);
+    }
+
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                      StageMetrics metrics) {
+        return loadPartitionedStore(filePath, symbols, partitionCount, TradePartitioner.BY_TRADE_ID, metrics);
+    }
+
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                      TradePartitioner partitioner, StageMetrics metrics) {
+        long begin = metrics.begin();
+        TradeStore[] partitions = new TradeStore[partitionCount];
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            metrics.addBytes(channel.size());
+            long[] bounds = chunkBounds(channel);
+
+            List<TradeStore[]> chunks = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> {
+                        long estimatedRows = (bounds[i + 1] - bounds[i]) / 32;
+                        PartitioningRowSink sink = new PartitioningRowSink(symbols, partitioner, partitionCount,
+                                (int) Math.min(Integer.MAX_VALUE - 8, estimatedRows / partitionCount));
+                        parseChunk(channel, bounds[i], bounds[i + 1], sink, metrics);
+                        return sink.partitions;
+                    })
+                    .toList();
+
+            IntStream.range(0, partitionCount).parallel().forEach(p -> partitions[p] = TradeStore.concat(
+                    chunks.stream().map(chunk -> chunk[p]).toList(), symbols));
+
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("❌ Error reading file: " + filePath + " - " + e.getMessage());
+            for (int p = 0; p < partitionCount; p++) {
+                partitions[p] = new TradeStore(symbols, 0);
+            }
+        }
+
+        PartitionedTradeStore store = new PartitionedTradeStore(partitions, symbols, partitioner);
+        metrics.addRowsOut(store.size());
+        metrics.end(begin);
+        return store;
+    }
+
+    /**
+     * Returns chunk boundaries {@code b[0] < b[1] < ... < b[n]} where every boundary except the
+     * last sits just after a newline. {@code b[0]} skips the header line, if there is one.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long start = hasHeader() ? nextLineStart(channel, 0, size) : 0;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long body = size - start;
+        long chunkCount = Math.max(1, Math.min((long) cores * CHUNKS_PER_CORE, body / MIN_CHUNK_BYTES));
+        chunkCount = Math.max(chunkCount, (body + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        for (long i = 1; i < chunkCount; i++) {
+            long boundary = nextLineStart(channel, start + body * i / chunkCount, size);
+            if (boundary > bounds.get(bounds.size() - 1) && boundary < size) {
+                bounds.add(boundary);
+            }
+        }
+        bounds.add(size);
+
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        // position - 1 so that a boundary landing right after a newline stays where it is
+        long from = Math.max(0, position - 1);
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+
+        while (from < size) {
+            probe.clear();
+            int read = channel.read(probe, from);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return from + i + 1;
+                }
+            }
+            from += read;
+        }
+
+        return size;
+    }
+
+    /**
+     * Counts every data line as a row in, and lines that can't be parsed as parse failures.
+     */
+    private void parseChunk(FileChannel channel, long start, long end, RowSink sink, StageMetrics metrics) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int limit = buffer.limit();
+
+        int lineStart = 0;
+        long lines = 0;
+        while (lineStart < limit) {
+            int lineEnd = ByteParsers.indexOf(buffer, (byte) '\n', lineStart, limit);
+            int next = lineEnd < 0 ? limit : lineEnd + 1;
+            if (lineEnd < 0) {
+                lineEnd = limit;
+            }
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            if (!parseLine(buffer, lineStart, lineEnd, sink)) {
+                metrics.parseFailure();
+            }
+            lines++;
+            lineStart = next;
+        }
+        metrics.addRowsIn(lines);
+    }
+
+    /**
+     * The action spelled by the range, ignoring case and surrounding whitespace.
+     *
+     * @throws IllegalArgumentException if it is no action
+     */
+    protected static ActionEnum parseAction(ByteBuffer buffer, int start, int end) {
+        start = ByteParsers.trimStart(buffer, start, end);
+        end = ByteParsers.trimEnd(buffer, start, end);
+
+        for (ActionEnum action : ACTIONS) {
+            if (ByteParsers.equalsIgnoreCase(buffer, start, end, action.name())) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + ActionEnum.class.getCanonicalName() + "."
+                + ByteParsers.toString(buffer, start, end).toUpperCase());
+    }
+
+    protected static double parseNumber(ByteBuffer buffer, int start, int end) {
+        start = ByteParsers.trimStart(buffer, start, end);
+        end = ByteParsers.trimEnd(buffer, start, end);
+        return ByteParsers.parseDouble(buffer, start, end);
+    }
+
+    protected static long parseTimestamp(ByteBuffer buffer, int start, int end) {
+        start = ByteParsers.trimStart(buffer, start, end);
+        end = ByteParsers.trimEnd(buffer, start, end);
+        return TimestampParser.parse(buffer, start, end);
+    }
+
+    /**
+     * Receives one parsed row; id and symbol are trimmed byte ranges of {@code buffer}, usually
+     * the mapped chunk, and the timestamp is epoch nanos or {@link TradeStore#NO_TIMESTAMP}.
+     */
+    protected interface RowSink {
+        void row(ByteBuffer buffer, int idStart, int idEnd, int symbolStart, int symbolEnd,
+                 ActionEnum action, double price, double quantity, long timestamp);
+    }
+
+    private static final class TradeRowSink implements RowSink {
+        private final Consumer<Trade> consumer;
+        private final SymbolCache symbols;
+
+        TradeRowSink(Consumer<Trade> consumer, SymbolDictionary interned) {
+            this.consumer = consumer;
+            this.symbols = new SymbolCache(interned);
+        }
+
+        @Override
+        public void row(ByteBuffer buffer, int idStart, int idEnd, int symbolStart, int symbolEnd,
+                        ActionEnum action, double price, double quantity, long timestamp) {
+            String tradeId = ByteParsers.toString(buffer, idStart, idEnd);
+            String symbol = symbols.symbol(buffer, symbolStart, symbolEnd);
+            consumer.accept(new Trade(tradeId, symbol, price, quantity, action, timestamp));
+        }
+    }
+
+    private static final class StoreRowSink implements RowSink {
+        private final TradeStore store;
+        private final SymbolCache symbols;
+
+        StoreRowSink(TradeStore store) {
+            this.store = store;
+            this.symbols = new SymbolCache(store.symbols());
+        }
+
+        @Override
+        public void row(ByteBuffer buffer, int idStart, int idEnd, int symbolStart, int symbolEnd,
+                        ActionEnum action, double price, double quantity, long timestamp) {
+            store.add(buffer, idStart, idEnd, symbols.code(buffer, symbolStart, symbolEnd), action, price, quantity,
+                    timestamp);
+        }
+    }
+
+    private static final class PartitioningRowSink implements RowSink {
+        private final TradeStore[] partitions;
+        private final TradePartitioner partitioner;
+        private final SymbolCache symbols;
+
+        PartitioningRowSink(SymbolDictionary dictionary, TradePartitioner partitioner, int partitionCount,
+                            int estimatedRows) {
+            this.partitions = new TradeStore[partitionCount];
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = new TradeStore(dictionary, estimatedRows);
+            }
+            this.partitioner = partitioner;
+            this.symbols = new SymbolCache(dictionary);
+        }
+
+        @Override
+        public void row(ByteBuffer buffer, int idStart, int idEnd, int symbolStart, int symbolEnd,
+                        ActionEnum action, double price, double quantity, long timestamp) {
+            int partition = partitioner.partitionOf(TradeStore.idHash(buffer, idStart, idEnd), timestamp,
+                    partitions.length);
+            partitions[partition].add(buffer, idStart, idEnd, symbols.code(buffer, symbolStart, symbolEnd), action,
+                    price, quantity, timestamp);
+        }
+    }
+
+    /**
+     * Small open-addressing cache so that a chunk looks up one dictionary code per distinct
+     * symbol; the cached {@code String} is the dictionary's own instance.
+     */
+    private static final class SymbolCache {
+        private static final int MAX_SIZE = 1 << 16;
+
+        private final SymbolDictionary dictionary;
+        private String[] table = new String[256];
+        private int[] codes = new int[256];
+        private int size;
+
+        SymbolCache(SymbolDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        String symbol(ByteBuffer buffer, int start, int end) {
+            int slot = slot(buffer, start, end);
+            return slot >= 0 ? table[slot] : dictionary.symbol(dictionary.code(ByteParsers.toString(buffer, start, end)));
+        }
+
+        int code(ByteBuffer buffer, int start, int end) {
+            int slot = slot(buffer, start, end);
+            return slot >= 0 ? codes[slot] : dictionary.code(ByteParsers.toString(buffer, start, end));
+        }
+
+        /**
+         * @return the slot of the symbol, adding it if needed, or {@code -1} if it isn't cacheable
+         */
+        private int slot(ByteBuffer buffer, int start, int end) {
+            // same as String.hashCode for ASCII, so resize() can rehash from the strings
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < 0) {
+                    // non-ASCII symbols are rare, don't bother caching them
+                    return -1;
+                }
+                hash = 31 * hash + b;
+            }
+
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            while (table[slot] != null) {
+                if (matches(table[slot], buffer, start, end)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (size >= MAX_SIZE) {
+                return -1;
+            }
+
+            String symbol = ByteParsers.toString(buffer, start, end);
+            codes[slot] = dictionary.code(symbol);
+            table[slot] = dictionary.symbol(codes[slot]);
+            if (++size * 2 > table.length) {
+                resize();
+                return slot(buffer, start, end);
+            }
+            return slot;
+        }
+
+        private static boolean matches(String symbol, ByteBuffer buffer, int start, int end) {
+            if (symbol.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < symbol.length(); i++) {
+                if (symbol.charAt(i) != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void resize() {
+            String[] oldTable = table;
+            int[] oldCodes = codes;
+            table = new String[oldTable.length * 2];
+            codes = new int[oldTable.length * 2];
+            int mask = table.length - 1;
+
+            for (int i = 0; i < oldTable.length; i++) {
+                if (oldTable[i] != null) {
+                    int slot = mix(oldTable[i].hashCode()) & mask;
+                    while (table[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = oldTable[i];
+                    codes[slot] = oldCodes[i];
+                }
+            }
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.traderecon.io;
+
+import com.traderecon.core.MultiMatchResult;
+import com.traderecon.core.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Report of an N-way reconciliation, in the configured {@code report.format}, with the symbol,
+ * action, price and quantity of every system:
+ * <pre>
+ * TradeID,Status,frontOfficeSymbol,frontOfficeAction,frontOfficePrice,frontOfficeQuantity,...,Differences
+ * T002,MISMATCHED,GOOG,SELL,50.0,2700.1,...,frontOffice vs custodian: Price 50.0 != 40.0
+ * </pre>
+ * or one JSON object per trade, with the systems' trades keyed by system name.
+ */
+public final class MultiReportWriter extends ChannelReportWriter {
+
+    private final List<String> systemNames;
+    private final boolean json;
+
+    public MultiReportWriter(String format, Path path, List<String> systemNames) throws IOException {
+        super(path);
+        this.systemNames = List.copyOf(systemNames);
+        this.json = switch (format.trim().toUpperCase(Locale.ROOT)) {
+            case "CSV" -> false;
+            case "JSON", "JSONL" -> true;
+            default -> throw new IllegalArgumentException("Unsupported report format: " + format);
+        };
+
+        if (!json) {
+            put("TradeID,Status");
+            for (String name : this.systemNames) {
+                put("," + name + "Symbol," + name + "Action," + name + "Price," + name + "Quantity");
+            }
+            put(",Differences\n");
+        }
+    }
+
+    public void write(MultiMatchResult result) throws IOException {
+        if (json) {
+            writeJson(result);
+        } else {
+            writeCsv(result);
+        }
+    }
+
+    /**
+     * I/O failures are rethrown as {@link UncheckedIOException}, as in {@link ReportWriter#asConsumer()}.
+     */
+    public Consumer<MultiMatchResult> asConsumer() {
+        return result -> {
+            try {
+                write(result);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private void writeCsv(MultiMatchResult result) throws IOException {
+        put(result.tradeId());
+        put((byte) ',');
+        put(result.status().name());
+        for (Trade trade : result.trades()) {
+            put((byte) ',');
+            if (trade == null) {
+                put(",,,");
+                continue;
+            }
+            put(trade.symbol());
+            put((byte) ',');
+            put(trade.action().name());
+            put((byte) ',');
+            put(trade.price());
+            put((byte) ',');
+            put(trade.quantity());
+        }
+        put((byte) ',');
+        put(String.join(";", result.differences(systemNames)));
+        put((byte) '\n');
+    }
+
+    private void writeJson(MultiMatchResult result) throws IOException {
+        put("{\"tradeId\":");
+        putJsonString(result.tradeId());
+        put(",\"status\":\"");
+        put(result.status().name());
+        put("\",\"trades\":{");
+        for (int system = 0; system < systemNames.size(); system++) {
+            if (system > 0) {
+                put((byte) ',');
+            }
+            putJsonString(systemNames.get(system));
+            put((byte) ':');
+            putJsonTrade(result.trades().get(system));
+        }
+        put("},\"differences\":[");
+        List<String> differences = result.differences(systemNames);
+        for (int i = 0; i < differences.size(); i++) {
+            if (i > 0) {
+                put((byte) ',');
+            }
+            putJsonString(differences.get(i));
+        }
+        put("]}\n");
+    }
+
+    private void putJsonTrade(Trade trade) throws IOException {
+        if (trade == null) {
+            put("null");
+            return;
+        }
+        put("{\"symbol\":");
+        putJsonString(trade.symbol());
+        put(",\"action\":\"");
+        put(trade.action().name());
+        put("\",\"price\":");
+        putJsonNumber(trade.price());
+        put(",\"quantity\":");
+        putJsonNumber(trade.quantity());
+        put((byte) '}');
+    }
+
+    /**
+     * JSON has no NaN or infinity literals; those are written as {@code null}.
+     */
+    private void putJsonNumber(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            put("null");
+        } else {
+            put(value);
+        }
+    }
+}
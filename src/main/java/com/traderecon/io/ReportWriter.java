@@ -0,0 +1,43 @@
+package com.traderecon.io;
+
+import com.traderecon.core.MatchResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes reconciliation results one at a time, so a report can be produced while
+ * reconciliation is still running. Implementations are not thread-safe; callers that emit
+ * from several threads must serialize calls.
+ */
+public interface ReportWriter extends Closeable {
+
+    void write(MatchResult result) throws IOException;
+
+    /**
+     * Bytes of report produced so far, including what is still buffered.
+     */
+    long bytesWritten();
+
+    /**
+     * Flushes buffered output and closes the report.
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Adapts this writer to the {@code Consumer} sinks the reconcilers emit to. I/O failures
+     * are rethrown as {@link UncheckedIOException}.
+     */
+    default Consumer<MatchResult> asConsumer() {
+        return result -> {
+            try {
+                write(result);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.traderecon.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Picks the {@link ReportWriter} for a configured {@code report.format}.
+ */
+public final class ReportWriters {
+
+    private ReportWriters() {
+    }
+
+    /**
+     * @param format {@code CSV}, or {@code JSON} / {@code JSONL} for JSON Lines (case-insensitive)
+     * @throws IllegalArgumentException for any other format
+     */
+    public static ReportWriter create(String format, Path path) throws IOException {
+        return switch (format.trim().toUpperCase(Locale.ROOT)) {
+            case "CSV" -> new CsvReportWriter(path);
+            case "JSON", "JSONL" -> new JsonLinesReportWriter(path);
+            default -> throw new IllegalArgumentException("Unsupported report format: " + format);
+        };
+    }
+
+    /**
+     * File extension used for reports in the given format, without the dot.
+     */
+    public static String extension(String format) {
+        return switch (format.trim().toUpperCase(Locale.ROOT)) {
+            case "JSON", "JSONL" -> "jsonl";
+            default -> "csv";
+        };
+    }
+
+    /**
+     * Whether reports in the given format start with a header line.
+     */
+    public static boolean hasHeader(String format) {
+        return extension(format).equals("csv");
+    }
+
+    /**
+     * Concatenates reports written in {@code format} into {@code target}, keeping only the first
+     * one's header line.
+     *
+     * @return the size of {@code target}
+     */
+    public static long concatenate(String format, List<Path> reports, Path target) throws IOException {
+        boolean hasHeader = hasHeader(format);
+
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < reports.size(); i++) {
+                try (FileChannel input = FileChannel.open(reports.get(i), StandardOpenOption.READ)) {
+                    long position = hasHeader && i > 0 ? lineEnd(input) : 0;
+                    long size = input.size();
+                    while (position < size) {
+                        position += input.transferTo(position, size - position, output);
+                    }
+                }
+            }
+            return output.size();
+        }
+    }
+
+    /**
+     * @return the position just after the first line of {@code channel}
+     */
+    private static long lineEnd(FileChannel channel) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long position = 0;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return position;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.traderecon.io;
+
+import com.traderecon.core.Hashing;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+/**
+ * Caches parsed inputs as binary columnar snapshots next to the source file
+ * ({@code <input>.snap}). A snapshot is keyed by the input's path, size, modification time
+ * and a content hash; when all four still match, the store is mapped straight from the
+ * snapshot instead of being parsed. Stale or unreadable snapshots are rebuilt from the
+ * delegate loader. Failing to write a snapshot only costs the next run a re-parse.
+ */
+public class SnapshotTradeLoader implements TradeLoader {
+
+    static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final long MAGIC = 0x5452534E41503031L; // "TRSNAP01"
+    // 3: timestamps are parsed from the input instead of being the load time
+    private static final int VERSION = 3;
+    private static final int PREAMBLE_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final long HASH_BLOCK_BYTES = 64L << 20;
+    private static final long HASH_PRIME = 0x9E3779B97F4A7C15L;
+
+    private final TradeLoader delegate;
+
+    public SnapshotTradeLoader(TradeLoader delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Trade> loadTrades(String filePath) {
+        TradeStore store = loadStore(filePath, new SymbolDictionary());
+        List<Trade> trades = new ArrayList<>(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            trades.add(store.trade(row));
+        }
+        return trades;
+    }
+
+    /**
+     * Streams from the delegate: callers of this method can't hold the whole input anyway.
+     */
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer) {
+        delegate.forEachTrade(filePath, consumer);
+    }
+
+    @Override
+    public void forEachTrade(String filePath, Consumer<Trade> consumer, StageMetrics metrics) {
+        delegate.forEachTrade(filePath, consumer, metrics);
+    }
+
+    @Override
+    public TradeStore loadStore(String filePath, SymbolDictionary symbols) {
+        return loadStore(filePath, symbols, StageMetrics.detached("load"));
+    }
+
+    @Override
+    public PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                      StageMetrics metrics) {
+        return PartitionedTradeStore.partition(loadStore(filePath, symbols, metrics), partitionCount);
+    }
+
+    /**
+     * A snapshot hit counts the snapshot's size as bytes read; a miss records what the delegate
+     * parsed.
+     */
+    @Override
+    public TradeStore loadStore(String filePath, SymbolDictionary symbols, StageMetrics metrics) {
+        Path input = Path.of(filePath).toAbsolutePath().normalize();
+        Path snapshot = snapshotPath(input);
+
+        SourceKey key;
+        try {
+            key = SourceKey.of(input);
+        } catch (IOException e) {
+            return delegate.loadStore(filePath, symbols, metrics);
+        }
+
+        try {
+            long begin = metrics.begin();
+            TradeStore cached = readSnapshot(snapshot, key, symbols);
+            if (cached != null) {
+                metrics.end(begin);
+                metrics.addRowsIn(cached.size());
+                metrics.addRowsOut(cached.size());
+                metrics.addBytes(Files.size(snapshot));
+                return cached;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Ignoring unreadable snapshot " + snapshot + " (" + e.getMessage() + ")");
+        }
+
+        TradeStore store = delegate.loadStore(filePath, symbols, metrics);
+        try {
+            writeSnapshot(snapshot, key, store);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not write snapshot " + snapshot + " (" + e.getMessage() + ")");
+        }
+        return store;
+    }
+
+    static Path snapshotPath(Path input) {
+        return input.resolveSibling(input.getFileName() + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * @return the cached store, or {@code null} if there is no snapshot or it is stale
+     */
+    private TradeStore readSnapshot(Path snapshot, SourceKey key, SymbolDictionary symbols) throws IOException {
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < PREAMBLE_BYTES) {
+                return null;
+            }
+            ByteBuffer preamble = channel.map(FileChannel.MapMode.READ_ONLY, 0, PREAMBLE_BYTES);
+            if (preamble.getLong() != MAGIC || preamble.getInt() != VERSION) {
+                return null;
+            }
+            int headerBytes = preamble.getInt();
+
+            byte[] header = new byte[headerBytes];
+            channel.map(FileChannel.MapMode.READ_ONLY, PREAMBLE_BYTES, headerBytes).get(header);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+
+            String path = in.readUTF();
+            long size = in.readLong();
+            long modifiedMillis = in.readLong();
+            long contentHash = in.readLong();
+            if (!path.equals(key.path()) || size != key.size() || modifiedMillis != key.modifiedMillis()
+                    || contentHash != key.contentHash()) {
+                System.out.println("Snapshot " + snapshot + " is stale, rebuilding it");
+                return null;
+            }
+
+            int rows = in.readInt();
+            int[] symbolRemap = new int[in.readInt()];
+            for (int i = 0; i < symbolRemap.length; i++) {
+                symbolRemap[i] = symbols.code(in.readUTF());
+            }
+
+            return TradeStore.readColumns(channel, PREAMBLE_BYTES + headerBytes, rows, symbols, symbolRemap);
+        }
+    }
+
+    private void writeSnapshot(Path snapshot, SourceKey key, TradeStore store) throws IOException {
+        SymbolDictionary symbols = store.symbols();
+        int[] symbolRemap = new int[symbols.size()];
+        List<String> snapshotSymbols = new ArrayList<>();
+        Arrays.fill(symbolRemap, -1);
+        for (int row = 0; row < store.size(); row++) {
+            int code = store.symbolCode(row);
+            if (symbolRemap[code] < 0) {
+                symbolRemap[code] = snapshotSymbols.size();
+                snapshotSymbols.add(symbols.symbol(code));
+            }
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        try (DataOutputStream header = new DataOutputStream(headerBytes)) {
+            header.writeUTF(key.path());
+            header.writeLong(key.size());
+            header.writeLong(key.modifiedMillis());
+            header.writeLong(key.contentHash());
+            header.writeInt(store.size());
+            header.writeInt(snapshotSymbols.size());
+            for (String symbol : snapshotSymbols) {
+                header.writeUTF(symbol);
+            }
+        }
+
+        ByteBuffer preamble = ByteBuffer.allocate(PREAMBLE_BYTES);
+        preamble.putLong(MAGIC).putInt(VERSION).putInt(headerBytes.size()).flip();
+
+        // written under a temporary name and moved into place, so readers never see half a snapshot
+        Path temporary = Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(preamble);
+                channel.write(ByteBuffer.wrap(headerBytes.toByteArray()));
+                store.writeColumns(channel, symbolRemap);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * 64-bit hash of the whole file, computed over 64 MiB blocks in parallel and then combined
+     * in block order.
+     */
+    static long contentHash(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long blocks = (size + HASH_BLOCK_BYTES - 1) / HASH_BLOCK_BYTES;
+
+            long[] blockHashes = LongStream.range(0, blocks)
+                    .parallel()
+                    .map(block -> {
+                        long start = block * HASH_BLOCK_BYTES;
+                        try {
+                            return hashBlock(channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                    Math.min(HASH_BLOCK_BYTES, size - start)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toArray();
+
+            long hash = size;
+            for (long blockHash : blockHashes) {
+                hash = Hashing.mix(hash ^ blockHash);
+            }
+            return hash;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long hashBlock(MappedByteBuffer block) {
+        long hash = 0;
+        int limit = block.limit();
+        int i = 0;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            hash = Long.rotateLeft(hash ^ block.getLong(i), 29) * HASH_PRIME;
+        }
+        for (; i < limit; i++) {
+            hash = Long.rotateLeft(hash ^ block.get(i), 29) * HASH_PRIME;
+        }
+        return Hashing.mix(hash);
+    }
+
+    private record SourceKey(String path, long size, long modifiedMillis, long contentHash) {
+
+        static SourceKey of(Path input) throws IOException {
+            return new SourceKey(input.toString(), Files.size(input),
+                    Files.getLastModifiedTime(input).toMillis(), SnapshotTradeLoader.contentHash(input));
+        }
+    }
+}
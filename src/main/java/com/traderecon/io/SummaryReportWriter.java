@@ -0,0 +1,76 @@
+package com.traderecon.io;
+
+import com.traderecon.core.ReconciliationSummary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Report of a summary-only reconciliation, in the configured {@code report.format}: one line
+ * per status, symbol and side,
+ * <pre>
+ * Status,Symbol,Side,Count,Notional
+ * MATCHED,GOOG,SELL,1204,3251678.5
+ * </pre>
+ * or one JSON object per line with the same fields.
+ */
+public final class SummaryReportWriter extends ChannelReportWriter {
+
+    private static final byte[] CSV_HEADER = "Status,Symbol,Side,Count,Notional\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final boolean json;
+
+    public SummaryReportWriter(String format, Path path) throws IOException {
+        super(path);
+        this.json = switch (format.trim().toUpperCase(Locale.ROOT)) {
+            case "CSV" -> false;
+            case "JSON", "JSONL" -> true;
+            default -> throw new IllegalArgumentException("Unsupported report format: " + format);
+        };
+
+        if (!json) {
+            put(CSV_HEADER);
+        }
+    }
+
+    public void write(ReconciliationSummary.Row row) throws IOException {
+        if (json) {
+            writeJson(row);
+        } else {
+            writeCsv(row);
+        }
+    }
+
+    private void writeCsv(ReconciliationSummary.Row row) throws IOException {
+        put(row.status().name());
+        put((byte) ',');
+        put(row.symbol());
+        put((byte) ',');
+        put(row.side().name());
+        put((byte) ',');
+        put(row.count());
+        put((byte) ',');
+        put(row.notional());
+        put((byte) '\n');
+    }
+
+    private void writeJson(ReconciliationSummary.Row row) throws IOException {
+        put("{\"status\":\"");
+        put(row.status().name());
+        put("\",\"symbol\":");
+        putJsonString(row.symbol());
+        put(",\"side\":\"");
+        put(row.side().name());
+        put("\",\"count\":");
+        put(row.count());
+        put(",\"notional\":");
+        if (Double.isNaN(row.notional()) || Double.isInfinite(row.notional())) {
+            put("null");
+        } else {
+            put(row.notional());
+        }
+        put("}\n");
+    }
+}
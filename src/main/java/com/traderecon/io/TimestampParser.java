@@ -0,0 +1,251 @@
+package com.traderecon.io;
+
+import com.traderecon.core.TradeStore;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses execution timestamps straight out of a byte buffer or a {@code CharSequence} into
+ * epoch nanos (UTC), without {@code java.time} objects or {@code String}s. Accepted layouts:
+ * <ul>
+ *   <li>ISO-8601 {@code 2024-03-15T14:30:05.123456789}, with a space instead of the {@code T},
+ *   without fraction or seconds, or a bare date; optionally followed by {@code Z} or an offset
+ *   ({@code +01:00}, {@code +0100}, {@code +01}). Times without one are UTC;</li>
+ *   <li>FIX UTCTimestamp {@code 20240315-14:30:05.123};</li>
+ *   <li>epoch numbers: seconds, milliseconds, microseconds or nanoseconds, told apart by their
+ *   number of digits (up to 10, 13, 16 or 19), or seconds with a fraction ({@code 1710513005.25}).</li>
+ * </ul>
+ * An empty range is a trade without a timestamp, {@link TradeStore#NO_TIMESTAMP}. Ranges are
+ * absolute positions {@code [start, end)}, as in {@link ByteParsers}.
+ */
+public final class TimestampParser {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SECONDS_PER_DAY = 86_400;
+    /**
+     * Largest number of seconds, either side of the epoch, whose nanos fit in a {@code long}
+     * (around the years 1677 and 2262).
+     */
+    private static final long MAX_SECONDS = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private TimestampParser() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range is not a timestamp in one of the layouts
+     */
+    public static long parse(ByteBuffer buffer, int start, int end) {
+        return parse((Object) buffer, start, end);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range is not a timestamp in one of the layouts
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        return parse((Object) text, start, end);
+    }
+
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * One implementation for both sources; {@link #at} tells them apart with a type check the
+     * JIT folds away at each call site.
+     */
+    private static long parse(Object source, int start, int end) {
+        if (start == end) {
+            return TradeStore.NO_TIMESTAMP;
+        }
+
+        int length = end - start;
+        int year;
+        int month;
+        int day;
+        int i;
+        boolean fix;
+        if (length >= 10 && at(source, start + 4) == '-' && at(source, start + 7) == '-') {
+            year = digits(source, start, 4, end);
+            month = digits(source, start + 5, 2, end);
+            day = digits(source, start + 8, 2, end);
+            i = start + 10;
+            fix = false;
+        } else if (length >= 9 && at(source, start + 8) == '-') {
+            year = digits(source, start, 4, end);
+            month = digits(source, start + 4, 2, end);
+            day = digits(source, start + 6, 2, end);
+            i = start + 8;
+            fix = true;
+        } else {
+            return parseEpoch(source, start, end);
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw invalid(source, start, end);
+        }
+
+        long seconds = epochDay(year, month, day) * SECONDS_PER_DAY;
+        long nanos = 0;
+        int separator = i < end ? at(source, i) : -1;
+        if (fix ? separator == '-' : separator == 'T' || separator == 't' || separator == ' ') {
+            int hour = digits(source, i + 1, 2, end);
+            int minute = i + 3 < end && at(source, i + 3) == ':' ? digits(source, i + 4, 2, end) : -1;
+            i += 6;
+            int second = 0;
+            if (i < end && at(source, i) == ':') {
+                second = digits(source, i + 1, 2, end);
+                i += 3;
+                if (i < end && at(source, i) == '.') {
+                    int fractionStart = ++i;
+                    while (i < end && isDigit(at(source, i)) && i - fractionStart < 9) {
+                        nanos = nanos * 10 + (at(source, i++) - '0');
+                    }
+                    if (i == fractionStart) {
+                        throw invalid(source, start, end);
+                    }
+                    nanos *= POWERS_OF_TEN[9 - (i - fractionStart)];
+                }
+            }
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+                throw invalid(source, start, end);
+            }
+            seconds += hour * 3600L + minute * 60L + second;
+        } else if (fix) {
+            throw invalid(source, start, end);
+        }
+
+        if (i < end) {
+            int zone = at(source, i);
+            if (zone == 'Z' || zone == 'z') {
+                i++;
+            } else if (zone == '+' || zone == '-') {
+                int hours = digits(source, i + 1, 2, end);
+                i += 3;
+                if (i < end && at(source, i) == ':') {
+                    i++;
+                }
+                int minutes = 0;
+                if (i < end) {
+                    minutes = digits(source, i, 2, end);
+                    i += 2;
+                }
+                if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) {
+                    throw invalid(source, start, end);
+                }
+                seconds -= (zone == '+' ? 1 : -1) * (hours * 3600L + minutes * 60L);
+            }
+        }
+        if (i != end || Math.abs(seconds) > MAX_SECONDS) {
+            throw invalid(source, start, end);
+        }
+        return seconds * NANOS_PER_SECOND + nanos;
+    }
+
+    private static long parseEpoch(Object source, int start, int end) {
+        int i = start;
+        boolean negative = at(source, i) == '-';
+        if (negative) {
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        for (; i < end && isDigit(at(source, i)); i++) {
+            int digit = at(source, i) - '0';
+            if (++digits > 19 || value > (Long.MAX_VALUE - digit) / 10) {
+                throw invalid(source, start, end);
+            }
+            value = value * 10 + digit;
+        }
+        if (digits == 0) {
+            throw invalid(source, start, end);
+        }
+
+        long unit;
+        long fraction = 0;
+        if (i < end && at(source, i) == '.') {
+            // seconds with a fraction
+            int fractionStart = ++i;
+            while (i < end && isDigit(at(source, i)) && i - fractionStart < 9) {
+                fraction = fraction * 10 + (at(source, i++) - '0');
+            }
+            if (i == fractionStart) {
+                throw invalid(source, start, end);
+            }
+            fraction *= POWERS_OF_TEN[9 - (i - fractionStart)];
+            unit = NANOS_PER_SECOND;
+        } else if (digits <= 10) {
+            unit = NANOS_PER_SECOND;
+        } else if (digits <= 13) {
+            unit = 1_000_000L;
+        } else if (digits <= 16) {
+            unit = 1_000L;
+        } else {
+            unit = 1;
+        }
+
+        if (value > (Long.MAX_VALUE - fraction) / unit) {
+            throw invalid(source, start, end);
+        }
+        long nanos = value * unit + fraction;
+
+        if (i != end) {
+            throw invalid(source, start, end);
+        }
+        return negative ? -nanos : nanos;
+    }
+
+    /**
+     * Days since 1970-01-01 of a valid date, proleptic Gregorian (H. Hinnant's {@code days_from_civil}).
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        return month == 2 && leap ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * The value of {@code count} decimal digits at {@code from}, or {@code -1} if they aren't
+     * all digits or run past {@code end}.
+     */
+    private static int digits(Object source, int from, int count, int end) {
+        if (from + count > end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int c = at(source, i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int at(Object source, int index) {
+        return source instanceof ByteBuffer buffer ? buffer.get(index) : ((CharSequence) source).charAt(index);
+    }
+
+    private static IllegalArgumentException invalid(Object source, int start, int end) {
+        String text = source instanceof ByteBuffer buffer
+                ? ByteParsers.toString(buffer, start, end)
+                : ((CharSequence) source).subSequence(start, end).toString();
+        return new IllegalArgumentException("Invalid timestamp: " + text);
+    }
+}
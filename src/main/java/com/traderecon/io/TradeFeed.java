@@ -0,0 +1,26 @@
+package com.traderecon.io;
+
+import com.traderecon.core.Trade;
+
+/**
+ * Push-based counterpart of {@link TradeLoader}: instead of returning the trades of a finished
+ * file, a feed hands each trade to a {@link Listener} as it becomes available, and may never end.
+ */
+public interface TradeFeed {
+
+    /**
+     * Pushes trades to the listener on the calling thread until the feed ends, then calls
+     * {@link Listener#onComplete()}.
+     */
+    void run(Listener listener);
+
+    interface Listener {
+
+        void onTrade(Trade trade);
+
+        /**
+         * Called once, after the last trade.
+         */
+        void onComplete();
+    }
+}
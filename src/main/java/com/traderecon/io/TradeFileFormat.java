@@ -0,0 +1,91 @@
+package com.traderecon.io;
+
+import com.traderecon.core.SymbolDictionary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Layouts of trade input files, told apart by extension or, failing that, by the first line.
+ */
+public enum TradeFileFormat {
+
+    /**
+     * {@code .csv}; see {@link MappedTradeCsvLoader}.
+     */
+    CSV,
+    /**
+     * {@code .jsonl}, {@code .ndjson} or {@code .json}; see {@link MappedJsonLinesTradeLoader}.
+     */
+    JSON_LINES,
+    /**
+     * {@code .fix} or {@code .log}; see {@link MappedFixTradeLoader}.
+     */
+    FIX;
+
+    private static final int SNIFF_BYTES = 4096;
+
+    /**
+     * The format of {@code path} by its extension, or else by its first non-blank line: an object
+     * is JSON Lines, a line holding {@code 8=FIX} is FIX and one with commas is CSV.
+     *
+     * @return {@code null} if the file can't be read or none of the formats fit
+     */
+    public static TradeFileFormat of(Path path) {
+        String name = path.getFileName() == null ? "" : path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+            return JSON_LINES;
+        }
+        if (name.endsWith(".fix") || name.endsWith(".log")) {
+            return FIX;
+        }
+
+        byte[] head;
+        try (InputStream input = Files.newInputStream(path)) {
+            head = input.readNBytes(SNIFF_BYTES);
+        } catch (IOException e) {
+            return null;
+        }
+        int start = 0;
+        while (start < head.length && ByteParsers.isWhitespace(head[start])) {
+            start++;
+        }
+        int end = start;
+        while (end < head.length && head[end] != '\n') {
+            end++;
+        }
+        String firstLine = new String(head, start, end - start, StandardCharsets.UTF_8);
+        if (firstLine.startsWith("{")) {
+            return JSON_LINES;
+        }
+        if (firstLine.contains("8=FIX")) {
+            return FIX;
+        }
+        return firstLine.indexOf(',') >= 0 ? CSV : null;
+    }
+
+    /**
+     * A new loader for files of this format.
+     */
+    public MappedTradeLoader newLoader() {
+        return newLoader(new SymbolDictionary());
+    }
+
+    /**
+     * @param interned see {@link MappedTradeLoader#MappedTradeLoader(SymbolDictionary)}
+     */
+    MappedTradeLoader newLoader(SymbolDictionary interned) {
+        return switch (this) {
+            case CSV -> new MappedTradeCsvLoader(interned);
+            case JSON_LINES -> new MappedJsonLinesTradeLoader(interned);
+            case FIX -> new MappedFixTradeLoader(interned);
+        };
+    }
+}
@@ -1,8 +1,104 @@
 package com.traderecon.io;
 
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
 import com.traderecon.core.Trade;
+import com.traderecon.core.TradePartitioner;
+import com.traderecon.core.TradeStore;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TradeLoader {
     List<Trade> loadTrades(String filePath);
-}
\ No newline at end of file
+
+    /**
+     * Streams every trade of the file to the consumer in file order. Implementations should
+     * override this so that callers which can't hold a whole file in memory don't have to.
+     */
+    default void forEachTrade(String filePath, Consumer<Trade> consumer) {
+        loadTrades(filePath).forEach(consumer);
+    }
+
+    /**
+     * Loads the file into a columnar {@link TradeStore}. Stores reconciled against each other
+     * must share one {@link SymbolDictionary}.
+     */
+    default TradeStore loadStore(String filePath, SymbolDictionary symbols) {
+        return TradeStore.of(loadTrades(filePath), symbols);
+    }
+
+    /**
+     * Loads the file hash-partitioned by trade id into {@code partitionCount} stores.
+     */
+    default PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount) {
+        return PartitionedTradeStore.partition(loadStore(filePath, symbols), partitionCount);
+    }
+
+    /**
+     * {@link #loadStore(String, SymbolDictionary)}, recording wall time, rows, bytes read and
+     * (where the implementation can tell) parse failures into {@code metrics}.
+     */
+    default TradeStore loadStore(String filePath, SymbolDictionary symbols, StageMetrics metrics) {
+        long begin = metrics.begin();
+        TradeStore store = loadStore(filePath, symbols);
+        metrics.end(begin);
+        recordLoad(filePath, store.size(), metrics);
+        return store;
+    }
+
+    /**
+     * {@link #loadPartitionedStore(String, SymbolDictionary, int)}, recording into {@code metrics}
+     * like {@link #loadStore(String, SymbolDictionary, StageMetrics)}.
+     */
+    default PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                       StageMetrics metrics) {
+        long begin = metrics.begin();
+        PartitionedTradeStore store = loadPartitionedStore(filePath, symbols, partitionCount);
+        metrics.end(begin);
+        recordLoad(filePath, store.size(), metrics);
+        return store;
+    }
+
+    /**
+     * Loads the file split into {@code partitionCount} stores by {@code partitioner}, recording
+     * into {@code metrics} like {@link #loadStore(String, SymbolDictionary, StageMetrics)}.
+     */
+    default PartitionedTradeStore loadPartitionedStore(String filePath, SymbolDictionary symbols, int partitionCount,
+                                                       TradePartitioner partitioner, StageMetrics metrics) {
+        if (partitioner.isByTradeId()) {
+            return loadPartitionedStore(filePath, symbols, partitionCount, metrics);
+        }
+        return PartitionedTradeStore.partition(loadStore(filePath, symbols, metrics), partitionCount, partitioner);
+    }
+
+    /**
+     * {@link #forEachTrade(String, Consumer)}, recording into {@code metrics} like
+     * {@link #loadStore(String, SymbolDictionary, StageMetrics)}. The recorded time includes the
+     * time the consumer spends on each trade.
+     */
+    default void forEachTrade(String filePath, Consumer<Trade> consumer, StageMetrics metrics) {
+        long begin = metrics.begin();
+        int[] rows = new int[1];
+        forEachTrade(filePath, trade -> {
+            rows[0]++;
+            consumer.accept(trade);
+        });
+        metrics.end(begin);
+        recordLoad(filePath, rows[0], metrics);
+    }
+
+    private static void recordLoad(String filePath, int rows, StageMetrics metrics) {
+        metrics.addRowsIn(rows);
+        metrics.addRowsOut(rows);
+        try {
+            metrics.addBytes(Files.size(Path.of(filePath)));
+        } catch (IOException e) {
+            // the loader has already reported the unreadable file
+        }
+    }
+}
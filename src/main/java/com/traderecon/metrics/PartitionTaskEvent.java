@@ -0,0 +1,31 @@
+package com.traderecon.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the reconciliation of one partition on the parallel path; comparing the
+ * durations across partitions shows skew.
+ */
+@Name("com.traderecon.PartitionTask")
+@Label("Partition Task")
+@Category({"Trade Reconciliation"})
+@Description("Reconciliation of one partition on one worker thread")
+@StackTrace(false)
+class PartitionTaskEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Partition")
+    int partition;
+
+    @Label("Rows In")
+    long rowsIn;
+
+    @Label("Rows Out")
+    long rowsOut;
+}
@@ -0,0 +1,186 @@
+package com.traderecon.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Metrics of one reconciliation run, as an ordered set of {@link StageMetrics}. When the run
+ * finishes, every stage is committed as a JFR {@code com.traderecon.Stage} event, and the whole
+ * run can be written as a JSON summary:
+ * <pre>
+ * {"run":"2026-10-17T09:30:00Z","wallNanos":812000000,"stages":[
+ *   {"name":"loadA","wallNanos":...,"busyNanos":...,"rowsIn":...,"rowsOut":...,"bytes":...,
+ *    "duplicates":0,"parseFailures":0,"tasks":[]}, ...]}
+ * </pre>
+ */
+public class RunMetrics {
+
+    public static final String LOAD_A = "loadA";
+    public static final String LOAD_B = "loadB";
+    public static final String MAP = "map";
+    public static final String INDEX = "index";
+    public static final String COMPARE = "compare";
+    public static final String FUZZY_MATCH = "fuzzyMatch";
+    public static final String WRITE_REPORT = "writeReport";
+    public static final String SHARD = "shard";
+    public static final String WORKERS = "workers";
+    public static final String MERGE = "merge";
+
+    private static final Pattern STAGE = Pattern.compile("\\{\"name\":\"((?:[^\"\\\\]|\\\\.)*)\",\"wallNanos\":(\\d+),"
+            + "\"busyNanos\":(\\d+),\"rowsIn\":(\\d+),\"rowsOut\":(\\d+),\"bytes\":(\\d+),"
+            + "\"duplicates\":(\\d+),\"parseFailures\":(\\d+)");
+
+    private final String run;
+    private final long startNanos;
+    private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+    private long endNanos;
+
+    public RunMetrics() {
+        this(Instant.now().toString());
+    }
+
+    public RunMetrics(String run) {
+        this.run = run;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the named stage, creating it on first use. Stages are reported in creation order.
+     */
+    public synchronized StageMetrics stage(String name) {
+        return stages.computeIfAbsent(name, stageName -> new StageMetrics(stageName, startNanos));
+    }
+
+    public synchronized List<StageMetrics> stages() {
+        return new ArrayList<>(stages.values());
+    }
+
+    /**
+     * Ends the run and commits one JFR event per stage.
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+        for (StageMetrics stage : stages()) {
+            stage.commitEvent(run);
+        }
+    }
+
+    public long wallNanos() {
+        return (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    public void writeJson(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, toJson());
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"run\":");
+        appendString(json, run);
+        json.append(",\"wallNanos\":").append(wallNanos()).append(",\"stages\":[");
+
+        List<StageMetrics> stages = stages();
+        for (int i = 0; i < stages.size(); i++) {
+            StageMetrics stage = stages.get(i);
+            json.append(i == 0 ? "\n  " : ",\n  ").append("{\"name\":");
+            appendString(json, stage.name());
+            json.append(",\"wallNanos\":").append(stage.wallNanos())
+                    .append(",\"busyNanos\":").append(stage.busyNanos())
+                    .append(",\"rowsIn\":").append(stage.rowsIn())
+                    .append(",\"rowsOut\":").append(stage.rowsOut())
+                    .append(",\"bytes\":").append(stage.bytes())
+                    .append(",\"duplicates\":").append(stage.duplicates())
+                    .append(",\"parseFailures\":").append(stage.parseFailures())
+                    .append(",\"tasks\":[");
+
+            List<TaskTiming> tasks = stage.tasks();
+            for (int t = 0; t < tasks.size(); t++) {
+                TaskTiming task = tasks.get(t);
+                json.append(t == 0 ? "" : ",").append("{\"partition\":").append(task.partition())
+                        .append(",\"thread\":");
+                appendString(json, task.thread());
+                json.append(",\"startOffsetNanos\":").append(task.startOffsetNanos())
+                        .append(",\"nanos\":").append(task.nanos())
+                        .append(",\"rowsIn\":").append(task.rowsIn())
+                        .append(",\"rowsOut\":").append(task.rowsOut())
+                        .append('}');
+            }
+            json.append("]}");
+        }
+
+        return json.append("\n]}\n").toString();
+    }
+
+    /**
+     * Folds the stages of a summary written by {@link #toJson()}, typically by another process,
+     * into this run's stages of the same name. Task timings are not merged.
+     *
+     * @return the number of stages merged
+     */
+    public int mergeJson(String json) {
+        Matcher matcher = STAGE.matcher(json);
+        int merged = 0;
+        while (matcher.find()) {
+            stage(unescape(matcher.group(1))).merge(Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3)),
+                    Long.parseLong(matcher.group(4)), Long.parseLong(matcher.group(5)), Long.parseLong(matcher.group(6)),
+                    Long.parseLong(matcher.group(7)), Long.parseLong(matcher.group(8)));
+            merged++;
+        }
+        return merged;
+    }
+
+    /**
+     * One line per stage, for the console.
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (StageMetrics stage : stages()) {
+            summary.append(String.format("%-12s %,10.1f ms  rows in %,12d  out %,12d  bytes %,14d  duplicates %,d  parse failures %,d%n",
+                    stage.name(), stage.wallNanos() / 1e6, stage.rowsIn(), stage.rowsOut(), stage.bytes(),
+                    stage.duplicates(), stage.parseFailures()));
+        }
+        return summary.append(String.format("%-12s %,10.1f ms%n", "total", wallNanos() / 1e6)).toString();
+    }
+
+    private static String unescape(String value) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\') {
+                unescaped.append(c);
+            } else if (value.charAt(i + 1) == 'u') {
+                unescaped.append((char) Integer.parseInt(value.substring(i + 2, i + 6), 16));
+                i += 5;
+            } else {
+                unescaped.append(value.charAt(++i));
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
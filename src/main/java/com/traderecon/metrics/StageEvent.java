@@ -0,0 +1,51 @@
+package com.traderecon.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed once per stage when a run finishes, carrying the stage's totals.
+ */
+@Name("com.traderecon.Stage")
+@Label("Reconciliation Stage")
+@Category({"Trade Reconciliation"})
+@Description("Totals of one stage of a reconciliation run")
+@StackTrace(false)
+class StageEvent extends jdk.jfr.Event {
+
+    @Label("Run")
+    String run;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Wall Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long wallTime;
+
+    @Label("Busy Time")
+    @Description("Time summed over every thread that worked on the stage")
+    @Timespan(Timespan.NANOSECONDS)
+    long busyTime;
+
+    @Label("Rows In")
+    long rowsIn;
+
+    @Label("Rows Out")
+    long rowsOut;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Parse Failures")
+    long parseFailures;
+}
@@ -0,0 +1,202 @@
+package com.traderecon.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timings of one stage of a run (load A, index, compare, ...). Safe to update from
+ * several threads at once: time is recorded as intervals, so a stage worked on by many threads
+ * reports both its wall time (first start to last end) and its busy time (sum of intervals).
+ */
+public class StageMetrics {
+
+    private final String name;
+    private final long runStartNanos;
+
+    private final LongAccumulator firstStart = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator lastEnd = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder rowsIn = new LongAdder();
+    private final LongAdder rowsOut = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private final LongAccumulator mergedWallNanos = new LongAccumulator(Math::max, 0);
+    private final ConcurrentLinkedQueue<TaskTiming> tasks = new ConcurrentLinkedQueue<>();
+
+    StageMetrics(String name, long runStartNanos) {
+        this.name = name;
+        this.runStartNanos = runStartNanos;
+    }
+
+    /**
+     * A stage that belongs to no run, for callers that don't collect metrics.
+     */
+    public static StageMetrics detached(String name) {
+        return new StageMetrics(name, System.nanoTime());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the start of an interval, to pass to {@link #end(long)}
+     */
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    public void end(long begin) {
+        long end = System.nanoTime();
+        firstStart.accumulate(begin);
+        lastEnd.accumulate(end);
+        busyNanos.add(end - begin);
+    }
+
+    /**
+     * Records work done in many short intervals between {@code begin} and {@code end}, for
+     * callers that time each piece locally and report once.
+     */
+    public void add(long begin, long end, long busyNanos) {
+        firstStart.accumulate(begin);
+        lastEnd.accumulate(end);
+        this.busyNanos.add(busyNanos);
+    }
+
+    public void addRowsIn(long rows) {
+        rowsIn.add(rows);
+    }
+
+    public void addRowsOut(long rows) {
+        rowsOut.add(rows);
+    }
+
+    /**
+     * Bytes read by a load stage, or written by the report stage.
+     */
+    public void addBytes(long count) {
+        bytes.add(count);
+    }
+
+    public void duplicate() {
+        duplicates.increment();
+    }
+
+    public void parseFailure() {
+        parseFailures.increment();
+    }
+
+    /**
+     * Adds the totals of the same stage run elsewhere, e.g. in a shard worker process. Its
+     * intervals can't be placed on this run's clock, so the stage's wall time becomes the longest
+     * merged wall time if that exceeds its own.
+     */
+    public void merge(long wallNanos, long busyNanos, long rowsIn, long rowsOut, long bytes, long duplicates,
+                      long parseFailures) {
+        mergedWallNanos.accumulate(wallNanos);
+        this.busyNanos.add(busyNanos);
+        this.rowsIn.add(rowsIn);
+        this.rowsOut.add(rowsOut);
+        this.bytes.add(bytes);
+        this.duplicates.add(duplicates);
+        this.parseFailures.add(parseFailures);
+    }
+
+    /**
+     * Starts timing one partition task of the parallel path; see {@link Task#end(long, long)}.
+     */
+    public Task beginTask(int partition) {
+        return new Task(partition);
+    }
+
+    public long wallNanos() {
+        long start = firstStart.get();
+        return Math.max(start == Long.MAX_VALUE ? 0 : lastEnd.get() - start, mergedWallNanos.get());
+    }
+
+    public long busyNanos() {
+        return busyNanos.sum();
+    }
+
+    public long rowsIn() {
+        return rowsIn.sum();
+    }
+
+    public long rowsOut() {
+        return rowsOut.sum();
+    }
+
+    public long bytes() {
+        return bytes.sum();
+    }
+
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    public long parseFailures() {
+        return parseFailures.sum();
+    }
+
+    /**
+     * Partition tasks in partition order.
+     */
+    public List<TaskTiming> tasks() {
+        List<TaskTiming> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparingInt(TaskTiming::partition));
+        return sorted;
+    }
+
+    void commitEvent(String run) {
+        StageEvent event = new StageEvent();
+        if (event.isEnabled()) {
+            event.run = run;
+            event.stage = name;
+            event.wallTime = wallNanos();
+            event.busyTime = busyNanos();
+            event.rowsIn = rowsIn();
+            event.rowsOut = rowsOut();
+            event.bytes = bytes();
+            event.duplicates = duplicates();
+            event.parseFailures = parseFailures();
+            event.commit();
+        }
+    }
+
+    /**
+     * A partition task in progress. Ending it records a {@link TaskTiming} and commits a JFR
+     * {@code com.traderecon.PartitionTask} event spanning the task. Task time is not added to the
+     * stage's busy time, which the work inside the task already records.
+     */
+    public final class Task {
+
+        private final int partition;
+        private final long begin;
+        private final PartitionTaskEvent event = new PartitionTaskEvent();
+
+        private Task(int partition) {
+            this.partition = partition;
+            this.event.begin();
+            this.begin = System.nanoTime();
+        }
+
+        public void end(long rowsIn, long rowsOut) {
+            long end = System.nanoTime();
+            tasks.add(new TaskTiming(partition, Thread.currentThread().getName(), begin - runStartNanos, end - begin,
+                    rowsIn, rowsOut));
+
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.partition = partition;
+                event.rowsIn = rowsIn;
+                event.rowsOut = rowsOut;
+                event.commit();
+            }
+        }
+    }
+}
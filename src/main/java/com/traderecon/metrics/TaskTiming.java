@@ -0,0 +1,9 @@
+package com.traderecon.metrics;
+
+/**
+ * One partition reconciled on the parallel path.
+ *
+ * @param startOffsetNanos start of the task relative to the start of the run
+ */
+public record TaskTiming(int partition, String thread, long startOffsetNanos, long nanos, long rowsIn, long rowsOut) {
+}
@@ -0,0 +1,232 @@
+package com.traderecon.server;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A run's results held in memory for queries, with secondary indexes by {@link MatchStatus},
+ * symbol and side. Every index is a posting list of result positions in run order:
+ * <ul>
+ *   <li>one per status, per side and per side and status, so a filter without a symbol is
+ *   answered by slicing a single list;</li>
+ *   <li>one per symbol, side and status (a cell), stored back to back, so a filter with a symbol
+ *   covers at most {@code sides * statuses} cells whose sizes add up to the total and whose
+ *   lists are merged for the page.</li>
+ * </ul>
+ * Totals and counts therefore cost nothing per result, and a page costs its offset and size.
+ * <p>
+ * A result's symbol and side are those of trade A, or of trade B if A is missing. Immutable once
+ * built, so any number of threads can query it.
+ */
+public final class ResultIndex {
+
+    private static final MatchStatus[] STATUSES = MatchStatus.values();
+    private static final ActionEnum[] ACTIONS = ActionEnum.values();
+    private static final int CELLS_PER_SYMBOL = ACTIONS.length * STATUSES.length;
+
+    private final MatchResult[] results;
+    private final int[][] byStatus;
+    private final int[][] bySide;
+    private final int[][] bySideAndStatus;
+    private final int[] cellStarts;
+    private final int[] cellPositions;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final boolean caseInsensitiveSymbols;
+
+    /**
+     * Filters of a query; {@code null} matches anything.
+     */
+    public record Filter(MatchStatus status, String symbol, ActionEnum side) {
+    }
+
+    /**
+     * One page of the results that pass a filter, and how many pass it in all.
+     */
+    public record Page(int total, int offset, List<MatchResult> results) {
+    }
+
+    /**
+     * @param caseInsensitiveSymbols whether symbol filters ignore case, as symbol comparison does
+     */
+    public ResultIndex(List<MatchResult> results, boolean caseInsensitiveSymbols) {
+        this.results = results.toArray(new MatchResult[0]);
+        this.caseInsensitiveSymbols = caseInsensitiveSymbols;
+
+        // symbols repeat, so each spelling is folded once
+        Map<String, Integer> idsBySpelling = new HashMap<>();
+        int[] cellOf = new int[this.results.length];
+        for (int position = 0; position < cellOf.length; position++) {
+            MatchResult result = this.results[position];
+            Trade trade = result.tradeA() != null ? result.tradeA() : result.tradeB();
+            int symbolId = idsBySpelling.computeIfAbsent(trade.symbol(),
+                    symbol -> symbolIds.computeIfAbsent(key(symbol), key -> symbolIds.size()));
+            cellOf[position] = cell(symbolId, trade.action().ordinal(), result.matchStatus().ordinal());
+        }
+
+        int cells = symbolIds.size() * CELLS_PER_SYMBOL;
+        this.cellStarts = new int[cells + 1];
+        this.cellPositions = group(cellOf, cells, IntUnaryOperator.identity(), cellStarts);
+        this.byStatus = split(cellOf, STATUSES.length, cell -> cell % STATUSES.length);
+        this.bySide = split(cellOf, ACTIONS.length, cell -> cell / STATUSES.length % ACTIONS.length);
+        this.bySideAndStatus = split(cellOf, CELLS_PER_SYMBOL, cell -> cell % CELLS_PER_SYMBOL);
+    }
+
+    public int size() {
+        return results.length;
+    }
+
+    /**
+     * The results that pass {@code filter}, in run order, from {@code offset} on.
+     */
+    public Page query(Filter filter, int offset, int limit) {
+        List<MatchResult> page = new ArrayList<>(Math.min(limit, 1024));
+        if (filter.symbol() == null) {
+            int[] positions = positions(filter.status(), filter.side());
+            int total = positions == null ? results.length : positions.length;
+            for (int i = offset; i < total && page.size() < limit; i++) {
+                page.add(results[positions == null ? i : positions[i]]);
+            }
+            return new Page(total, offset, page);
+        }
+
+        int[] cells = cells(filter);
+        int[] cursors = new int[cells.length];
+        int total = 0;
+        for (int i = 0; i < cells.length; i++) {
+            cursors[i] = cellStarts[cells[i]];
+            total += cellStarts[cells[i] + 1] - cursors[i];
+        }
+        if (cells.length == 1) {
+            for (int i = cursors[0] + offset; i < cellStarts[cells[0] + 1] && page.size() < limit; i++) {
+                page.add(results[cellPositions[i]]);
+            }
+            return new Page(total, offset, page);
+        }
+
+        // merges the cells' lists back into run order, skipping the first offset results
+        for (int seen = 0; seen < total && page.size() < limit; seen++) {
+            int next = -1;
+            for (int i = 0; i < cells.length; i++) {
+                if (cursors[i] < cellStarts[cells[i] + 1]
+                        && (next < 0 || cellPositions[cursors[i]] < cellPositions[cursors[next]])) {
+                    next = i;
+                }
+            }
+            int position = cellPositions[cursors[next]++];
+            if (seen >= offset) {
+                page.add(results[position]);
+            }
+        }
+        return new Page(total, offset, page);
+    }
+
+    /**
+     * Number of results per status among those that pass the symbol and side of {@code filter}.
+     */
+    public Map<MatchStatus, Integer> counts(Filter filter) {
+        int[] counts = new int[STATUSES.length];
+        if (filter.symbol() != null) {
+            for (int cell : cells(new Filter(null, filter.symbol(), filter.side()))) {
+                counts[cell % STATUSES.length] += cellStarts[cell + 1] - cellStarts[cell];
+            }
+        } else {
+            for (MatchStatus status : STATUSES) {
+                counts[status.ordinal()] = positions(status, filter.side()).length;
+            }
+        }
+
+        Map<MatchStatus, Integer> byStatusCounts = new EnumMap<>(MatchStatus.class);
+        for (MatchStatus status : STATUSES) {
+            byStatusCounts.put(status, counts[status.ordinal()]);
+        }
+        return byStatusCounts;
+    }
+
+    /**
+     * The posting list of a filter without a symbol, or {@code null} for every result.
+     */
+    private int[] positions(MatchStatus status, ActionEnum side) {
+        if (status != null && side != null) {
+            return bySideAndStatus[side.ordinal() * STATUSES.length + status.ordinal()];
+        }
+        if (status != null) {
+            return byStatus[status.ordinal()];
+        }
+        return side != null ? bySide[side.ordinal()] : null;
+    }
+
+    /**
+     * The cells of the filter's symbol that pass its status and side; none for an unknown symbol.
+     */
+    private int[] cells(Filter filter) {
+        Integer symbolId = symbolIds.get(key(filter.symbol()));
+        if (symbolId == null) {
+            return new int[0];
+        }
+
+        int[] cells = new int[CELLS_PER_SYMBOL];
+        int count = 0;
+        for (int side = 0; side < ACTIONS.length; side++) {
+            for (int status = 0; status < STATUSES.length; status++) {
+                if ((filter.side() == null || filter.side().ordinal() == side)
+                        && (filter.status() == null || filter.status().ordinal() == status)) {
+                    cells[count++] = cell(symbolId, side, status);
+                }
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    private String key(String symbol) {
+        return caseInsensitiveSymbols ? SymbolDictionary.fold(symbol) : symbol;
+    }
+
+    private static int cell(int symbolId, int side, int status) {
+        return (symbolId * ACTIONS.length + side) * STATUSES.length + status;
+    }
+
+    /**
+     * One posting list per group of cells.
+     */
+    private static int[][] split(int[] cellOf, int groups, IntUnaryOperator group) {
+        int[] starts = new int[groups + 1];
+        int[] positions = group(cellOf, groups, group, starts);
+        int[][] lists = new int[groups][];
+        for (int i = 0; i < groups; i++) {
+            lists[i] = Arrays.copyOfRange(positions, starts[i], starts[i + 1]);
+        }
+        return lists;
+    }
+
+    /**
+     * Counting sort of the positions by group, stable so that each group stays in run order.
+     *
+     * @param starts filled with where each group starts, and the total at {@code starts[groups]}
+     */
+    private static int[] group(int[] cellOf, int groups, IntUnaryOperator group, int[] starts) {
+        for (int cell : cellOf) {
+            starts[group.applyAsInt(cell) + 1]++;
+        }
+        for (int i = 0; i < groups; i++) {
+            starts[i + 1] += starts[i];
+        }
+
+        int[] fill = Arrays.copyOf(starts, groups);
+        int[] positions = new int[cellOf.length];
+        for (int position = 0; position < cellOf.length; position++) {
+            positions[fill[group.applyAsInt(cellOf[position])]++] = position;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,265 @@
+package com.traderecon.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.io.JsonLinesReportWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-only HTTP service over the {@link ResultIndex} of a run, on the JDK's built-in server with
+ * one virtual thread per request:
+ * <pre>
+ * GET /results?status=MISMATCHED&amp;symbol=GOOG&amp;side=BUY&amp;offset=0&amp;limit=100
+ * GET /summary?symbol=GOOG&amp;side=BUY
+ * </pre>
+ * Every filter is optional. {@code /results} answers with one page of results as JSON Lines, in
+ * the layout of JSON reports, and the number of results that pass the filters in
+ * {@code X-Total-Count}; {@code /summary} answers with the number of results per status.
+ * Invalid parameters get a 400 with a JSON {@code error}.
+ */
+public class ResultQueryServer implements AutoCloseable {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int RESPONSE_BUFFER_BYTES = 32 * 1024;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private static final Set<String> RESULT_PARAMETERS = Set.of("status", "symbol", "side", "offset", "limit");
+    private static final Set<String> SUMMARY_PARAMETERS = Set.of("symbol", "side");
+
+    private final ResultIndex index;
+    private final int maxPageSize;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ResultQueryServer(ResultIndex index, AppConfig config) throws IOException {
+        this(index, config.getServerPort(), config.getServerMaxPageSize());
+    }
+
+    /**
+     * @param port {@code 0} to pick a free port, see {@link #port()}
+     */
+    public ResultQueryServer(ResultIndex index, int port, int maxPageSize) throws IOException {
+        // headers and body are separate writes; with Nagle's algorithm on, every response on a
+        // kept-alive connection waits for the client's delayed ACK (about 40 ms). The JDK server
+        // reads this once, when its first instance is created.
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        this.index = index;
+        this.maxPageSize = maxPageSize;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/results", exchange -> handle(exchange, RESULT_PARAMETERS, this::results));
+        server.createContext("/summary", exchange -> handle(exchange, SUMMARY_PARAMETERS, this::summary));
+        server.createContext("/", exchange -> {
+            try {
+                sendError(exchange, 404, "Unknown path: " + exchange.getRequestURI().getPath());
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * The port the server listens on.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits for the ones in progress.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Set<String> known, Handler handler) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                sendError(exchange, 404, "Unknown path: " + exchange.getRequestURI().getPath());
+                return;
+            }
+
+            Map<String, String> parameters;
+            try {
+                parameters = parameters(exchange.getRequestURI(), known);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            handler.handle(exchange, parameters);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void results(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        ResultIndex.Filter filter;
+        int offset;
+        int limit;
+        try {
+            filter = new ResultIndex.Filter(status(parameters.get("status")), parameters.get("symbol"),
+                    side(parameters.get("side")));
+            offset = nonNegative(parameters, "offset", 0);
+            limit = Math.min(nonNegative(parameters, "limit", DEFAULT_PAGE_SIZE), maxPageSize);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        ResultIndex.Page page = index.query(filter, offset, limit);
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(page.total()));
+        exchange.getResponseHeaders().set("X-Offset", Integer.toString(offset));
+        exchange.getResponseHeaders().set("X-Limit", Integer.toString(limit));
+        // encoded up front, so the response carries its length instead of being chunked
+        ByteArrayOutputStream body = new ByteArrayOutputStream(RESPONSE_BUFFER_BYTES);
+        try (JsonLinesReportWriter writer = new JsonLinesReportWriter(Channels.newChannel(body), RESPONSE_BUFFER_BYTES)) {
+            for (MatchResult result : page.results()) {
+                writer.write(result);
+            }
+        }
+        exchange.sendResponseHeaders(200, body.size() == 0 ? -1 : body.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(out);
+        }
+    }
+
+    private void summary(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        ResultIndex.Filter filter;
+        try {
+            filter = new ResultIndex.Filter(null, parameters.get("symbol"), side(parameters.get("side")));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        Map<MatchStatus, Integer> counts = index.counts(filter);
+        StringBuilder json = new StringBuilder(160).append("{\"total\":");
+        json.append(counts.values().stream().mapToLong(Integer::longValue).sum());
+        json.append(",\"counts\":{");
+        boolean first = true;
+        for (Map.Entry<MatchStatus, Integer> count : counts.entrySet()) {
+            json.append(first ? "\"" : ",\"").append(count.getKey().name()).append("\":").append(count.getValue());
+            first = false;
+        }
+        json.append("}}\n");
+        send(exchange, 200, json.toString());
+    }
+
+    private static MatchStatus status(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return MatchStatus.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown status: " + value);
+        }
+    }
+
+    private static ActionEnum side(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ActionEnum.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown side: " + value);
+        }
+    }
+
+    private static int nonNegative(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be a non-negative integer: " + value);
+    }
+
+    /**
+     * The query parameters, decoded; an empty value counts as absent.
+     *
+     * @throws IllegalArgumentException for a parameter not in {@code known}, or one given twice
+     */
+    private static Map<String, String> parameters(URI uri, Set<String> known) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown parameter: " + name);
+            }
+            if (!value.isEmpty() && parameters.put(name, value) != null) {
+                throw new IllegalArgumentException("Parameter given more than once: " + name);
+            }
+        }
+        return parameters;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"").replaceAll("\\p{Cntrl}", " ") + "\"}\n");
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
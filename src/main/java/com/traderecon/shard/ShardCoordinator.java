@@ -0,0 +1,211 @@
+package com.traderecon.shard;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.io.ReportWriters;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Sharded reconciliation across worker processes, for books too large for one JVM. Both inputs
+ * are split by trade id into {@code shard.count} shards (see {@link ShardSplitter}), one
+ * {@link ShardWorker} JVM reconciles each shard, and the shard reports are concatenated into
+ * the final report while the workers' run summaries are merged into this run's metrics.
+ * <p>
+ * Workers share nothing with the coordinator but the files of a working directory, created
+ * under {@code shard.dir}: this run's configuration snapshot, shard inputs, reports, summaries
+ * and one log per shard. A worker
+ * that exits with an error, or without leaving its report, is started again up to
+ * {@code shard.max.attempts} times in all. The working directory is deleted after a successful
+ * run and kept after a failed one, for its logs.
+ */
+public class ShardCoordinator {
+
+    private final AppConfig appConfig;
+    private final RunMetrics metrics;
+
+    public ShardCoordinator(AppConfig appConfig, RunMetrics metrics) {
+        this.appConfig = appConfig;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reconciles the two inputs into {@code reportPath}, in the configured report format. The
+     * report holds the same results as a single-process run, grouped by shard.
+     *
+     * @throws IllegalStateException if a shard still fails after its last attempt
+     */
+    public void reconcile(String systemAPath, String systemBPath, Path reportPath) throws IOException {
+        Path shardDirectory = Files.createDirectories(Path.of(appConfig.getShardDirectory()));
+        Path workDirectory = Files.createTempDirectory(shardDirectory, "recon-shards-");
+        Path config = writeConfig(workDirectory);
+
+        ShardSplitter splitter = new ShardSplitter(appConfig.getShardCount());
+        StageMetrics shardStage = metrics.stage(RunMetrics.SHARD);
+        Path[] shardsA = splitter.split(Path.of(systemAPath), workDirectory, "systemA", shardStage);
+        Path[] shardsB = splitter.split(Path.of(systemBPath), workDirectory, "systemB", shardStage);
+
+        List<Path> reports = runWorkers(workDirectory, config, shardsA, shardsB);
+        for (int shard = 0; shard < reports.size(); shard++) {
+            metrics.mergeJson(Files.readString(summaryPath(workDirectory, shard)));
+        }
+        mergeReports(reports, reportPath);
+
+        deleteRecursively(workDirectory);
+    }
+
+    /**
+     * Writes the settings of this run's snapshot for the workers, so that every shard and every
+     * retry compares with the same settings however the watched file changes meanwhile.
+     */
+    private Path writeConfig(Path workDirectory) throws IOException {
+        Path config = workDirectory.resolve("config.properties");
+        try (Writer writer = Files.newBufferedWriter(config)) {
+            appConfig.getProperties().store(writer, "Configuration snapshot of a sharded run");
+        }
+        return config;
+    }
+
+    private List<Path> runWorkers(Path workDirectory, Path config, Path[] shardsA, Path[] shardsB) throws IOException {
+        StageMetrics workersStage = metrics.stage(RunMetrics.WORKERS);
+        long begin = workersStage.begin();
+
+        List<Path> reports = new ArrayList<>(shardsA.length);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Path>> shards = new ArrayList<>(shardsA.length);
+            for (int shard = 0; shard < shardsA.length; shard++) {
+                int index = shard;
+                shards.add(executor.submit(() -> runShard(workDirectory, config, index, shardsA[index], shardsB[index], workersStage)));
+            }
+
+            try {
+                for (Future<Path> shard : shards) {
+                    reports.add(shard.get());
+                }
+            } catch (ExecutionException e) {
+                // stops the other shards' workers too
+                executor.shutdownNow();
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for shard workers", e);
+            }
+        }
+
+        workersStage.end(begin);
+        workersStage.addRowsIn(shardsA.length);
+        workersStage.addRowsOut(reports.size());
+        return reports;
+    }
+
+    /**
+     * Runs a shard's worker until it succeeds or runs out of attempts.
+     *
+     * @return the shard's report
+     */
+    private Path runShard(Path workDirectory, Path config, int shard, Path shardA, Path shardB,
+                          StageMetrics workersStage)
+            throws IOException, InterruptedException {
+        Path report = workDirectory.resolve("report-" + shard + "." + ReportWriters.extension(appConfig.getReportFormat()));
+        Path summary = summaryPath(workDirectory, shard);
+        Path log = workDirectory.resolve("shard-" + shard + ".log");
+        int maxAttempts = appConfig.getShardMaxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            StageMetrics.Task task = workersStage.beginTask(shard);
+            Process process = new ProcessBuilder(workerCommand(config, shardA, shardB, report, summary))
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                    .start();
+
+            int exitCode;
+            try {
+                exitCode = process.waitFor();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+            // rows are accounted for by the stages merged from the worker's summary
+            task.end(0, 0);
+
+            if (exitCode == 0 && Files.exists(report) && Files.exists(summary)) {
+                return report;
+            }
+            if (attempt >= maxAttempts) {
+                throw new IllegalStateException("Shard " + shard + " failed after " + attempt + " attempts (exit code "
+                        + exitCode + "), see " + log.toAbsolutePath());
+            }
+            System.err.println("⚠️ Worker of shard " + shard + " failed (exit code " + exitCode + "), running it again ("
+                    + "attempt " + (attempt + 1) + " of " + maxAttempts + ")");
+        }
+    }
+
+    /**
+     * The same JVM and class path as this process, so workers run the same code, and the
+     * configuration written by {@link #writeConfig}.
+     */
+    private List<String> workerCommand(Path config, Path shardA, Path shardB, Path report, Path summary) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : appConfig.getShardWorkerJvmOptions().split("\\s+")) {
+            if (!option.isEmpty()) {
+                command.add(option);
+            }
+        }
+        command.add("-D" + AppConfig.CONFIG_FILE_PROPERTY + "=" + config.toAbsolutePath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(shardA.toAbsolutePath().toString());
+        command.add(shardB.toAbsolutePath().toString());
+        command.add(report.toAbsolutePath().toString());
+        command.add(summary.toAbsolutePath().toString());
+        return command;
+    }
+
+    /**
+     * Concatenates the shard reports, keeping only the first one's header line.
+     */
+    private void mergeReports(List<Path> reports, Path reportPath) throws IOException {
+        StageMetrics mergeStage = metrics.stage(RunMetrics.MERGE);
+        long begin = mergeStage.begin();
+        mergeStage.addBytes(ReportWriters.concatenate(appConfig.getReportFormat(), reports, reportPath));
+        mergeStage.end(begin);
+    }
+
+    private static Path summaryPath(Path workDirectory, int shard) {
+        return workDirectory.resolve("summary-" + shard + ".json");
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.traderecon.shard;
+
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.ByteParsers;
+import com.traderecon.metrics.StageMetrics;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a trade CSV into shard files by trade id, so that both systems' copies of a trade land
+ * in the same shard. Lines are copied byte for byte without being parsed, in file order, and
+ * every shard starts with the input's header line, so a shard is itself a valid input and keeps
+ * the first-occurrence rule for duplicate ids. Lines without a trade id are routed like any
+ * other; the worker loading the shard skips them as malformed.
+ */
+public class ShardSplitter {
+
+    private static final int BUFFER_BYTES = 4 << 20;
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 16;
+
+    private final int shardCount;
+
+    public ShardSplitter(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * The shard of a trade id given as UTF-8 bytes. The id hash is mixed once more before it is
+     * mapped to a shard: the plain hash would leave every row of a shard in the same range of
+     * {@link PartitionedTradeStore#partitionOf}, should a worker partition its shard again.
+     */
+    public static int shardOf(ByteBuffer buffer, int idStart, int idEnd, int shardCount) {
+        int hash = TradeStore.idHash(buffer, idStart, idEnd) * 0x9E3779B9;
+        return PartitionedTradeStore.partitionOf(hash ^ (hash >>> 15), shardCount);
+    }
+
+    /**
+     * Writes {@code <prefix>-<shard>.csv} for every shard into {@code directory}.
+     *
+     * @return the shard files, indexed by shard
+     */
+    public Path[] split(Path input, Path directory, String prefix, StageMetrics metrics) throws IOException {
+        Path[] shards = new Path[shardCount];
+        OutputStream[] outputs = new OutputStream[shardCount];
+        long begin = metrics.begin();
+
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                shards[shard] = directory.resolve(prefix + "-" + shard + ".csv");
+                outputs[shard] = new BufferedOutputStream(Files.newOutputStream(shards[shard]), OUTPUT_BUFFER_BYTES);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            boolean header = true;
+            long lines = 0;
+            while (true) {
+                int read = channel.read(buffer);
+                buffer.flip();
+
+                int limit = buffer.limit();
+                int lineStart = 0;
+                while (lineStart < limit) {
+                    int newline = ByteParsers.indexOf(buffer, (byte) '\n', lineStart, limit);
+                    if (newline < 0 && read >= 0) {
+                        break;
+                    }
+                    int next = newline < 0 ? limit : newline + 1;
+
+                    if (header) {
+                        for (OutputStream output : outputs) {
+                            output.write(buffer.array(), lineStart, next - lineStart);
+                        }
+                        header = false;
+                    } else {
+                        outputs[shardOf(buffer, lineStart, next)].write(buffer.array(), lineStart, next - lineStart);
+                        lines++;
+                    }
+                    lineStart = next;
+                }
+
+                if (read < 0) {
+                    break;
+                }
+                buffer.position(lineStart);
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    // a single line longer than the buffer
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+            }
+
+            metrics.addBytes(channel.size());
+            metrics.addRowsIn(lines);
+            metrics.addRowsOut(lines);
+        } finally {
+            IOException failure = null;
+            for (OutputStream output : outputs) {
+                try {
+                    if (output != null) {
+                        output.close();
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            metrics.end(begin);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        return shards;
+    }
+
+    private int shardOf(ByteBuffer buffer, int lineStart, int lineEnd) {
+        int comma = ByteParsers.indexOf(buffer, (byte) ',', lineStart, lineEnd);
+        int idEnd = comma < 0 ? lineEnd : comma;
+        int idStart = ByteParsers.trimStart(buffer, lineStart, idEnd);
+        return shardOf(buffer, idStart, ByteParsers.trimEnd(buffer, idStart, idEnd), shardCount);
+    }
+}
@@ -0,0 +1,84 @@
+package com.traderecon.shard;
+
+import com.traderecon.compare.ReconciliationService;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.ReportWriter;
+import com.traderecon.io.ReportWriters;
+import com.traderecon.io.TradeLoader;
+import com.traderecon.metrics.RunMetrics;
+import com.traderecon.metrics.StageMetrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/**
+ * Worker process of sharded reconciliation: reconciles one shard of each system with
+ * {@link ReconciliationService} and writes the shard's report, in the configured format, and
+ * its JSON run summary. Both are written under a temporary name and moved into place once
+ * complete, so a worker that dies leaves no report behind and the coordinator runs the shard
+ * again.
+ * <p>
+ * Usage: {@code ShardWorker <systemA shard> <systemB shard> <report> <summary>}
+ * <p>
+ * Exits with status 0 on success, 1 if the shard could not be reconciled and 2 on bad usage.
+ */
+public class ShardWorker {
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: ShardWorker <systemA shard> <systemB shard> <report> <summary>");
+            System.exit(2);
+        }
+
+        try {
+            run(args[0], args[1], Path.of(args[2]), Path.of(args[3]));
+        } catch (Exception e) {
+            System.err.println("❌ Shard failed: " + e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void run(String systemAPath, String systemBPath, Path reportPath, Path summaryPath) throws Exception {
+        AppConfig config = AppConfig.fromSystemProperty();
+        RunMetrics metrics = new RunMetrics();
+        ReconciliationService service = new ReconciliationService(config, metrics);
+
+        // shards are scratch files read once, so there is nothing to gain from snapshots
+        TradeLoader loader = new MappedTradeCsvLoader();
+        SymbolDictionary symbols = new SymbolDictionary();
+        TradeStore storeA = loader.loadStore(systemAPath, symbols, metrics.stage(RunMetrics.LOAD_A));
+        TradeStore storeB = loader.loadStore(systemBPath, symbols, metrics.stage(RunMetrics.LOAD_B));
+
+        Path partialReport = partial(reportPath);
+        StageMetrics writeStage = metrics.stage(RunMetrics.WRITE_REPORT);
+        try (ReportWriter writer = ReportWriters.create(config.getReportFormat(), partialReport)) {
+            Consumer<MatchResult> sink = writer.asConsumer();
+            long[] results = new long[1];
+            service.reconcileStores(storeA, storeB, result -> {
+                sink.accept(result);
+                results[0]++;
+            });
+            writeStage.addRowsIn(results[0]);
+            writeStage.addRowsOut(results[0]);
+            writeStage.addBytes(writer.bytesWritten());
+        }
+        metrics.finish();
+
+        Path partialSummary = partial(summaryPath);
+        metrics.writeJson(partialSummary);
+        Files.move(partialSummary, summaryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the report last: its presence is what marks the shard as done
+        Files.move(partialReport, reportPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path partial(Path path) {
+        return path.resolveSibling(path.getFileName() + ".partial");
+    }
+}
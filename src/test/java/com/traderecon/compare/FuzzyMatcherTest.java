@@ -0,0 +1,125 @@
+package com.traderecon.compare;
+
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyMatcherTest {
+
+    private static final long START = TradeStore.toEpochNanos(LocalDateTime.of(2024, 1, 2, 9, 0));
+
+    private final AppConfig config = new AppConfig();
+    private final ReconciliationService service = new ReconciliationService(config);
+
+    @Test
+    void pairsATradeRebookedUnderAnotherId() {
+        Trade tradeA = trade("T1", "AAPL", ActionEnum.BUY, 100.00, 10, START);
+        Trade tradeB = trade("X1", "aapl", ActionEnum.BUY, 100.005, 10, START + 60_000_000_000L);
+        Trade otherSide = trade("X2", "AAPL", ActionEnum.SELL, 100.00, 10, START);
+        MatchResult matched = new MatchResult(MatchStatus.MATCHED, "T9", tradeA, tradeA, 0);
+
+        List<MatchResult> results = service.matchFuzzy(List.of(matched, MatchResult.missingInB(tradeA),
+                MatchResult.missingInA(otherSide), MatchResult.missingInA(tradeB)));
+
+        assertEquals(List.of(MatchStatus.MATCHED, MatchStatus.FUZZY_MATCHED, MatchStatus.MISSING_IN_A),
+                results.stream().map(MatchResult::matchStatus).toList());
+        assertEquals("X1", results.get(1).tradeB().tradeId());
+        assertEquals("X2", results.get(2).tradeB().tradeId());
+    }
+
+    @Test
+    void leavesNoCompatiblePairUnpairedAndNoPairOutOfTolerance() {
+        List<MatchResult> missing = leftovers(5_000, 0.5, 20, new Random(42));
+        List<MatchResult> results = service.matchFuzzy(missing);
+
+        Map<String, List<Trade>> unpairedB = new HashMap<>();
+        int pairs = 0;
+        for (MatchResult result : results) {
+            if (result.matchStatus() == MatchStatus.FUZZY_MATCHED) {
+                pairs++;
+                assertTrue(compatible(result.tradeA(), result.tradeB()), result::toString);
+            } else if (result.matchStatus() == MatchStatus.MISSING_IN_A) {
+                unpairedB.computeIfAbsent(group(result.tradeB()), group -> new ArrayList<>()).add(result.tradeB());
+            }
+        }
+        assertTrue(pairs > 0);
+        assertEquals(missing.size(), results.size() + pairs);
+
+        for (MatchResult result : results) {
+            if (result.matchStatus() == MatchStatus.MISSING_IN_B) {
+                for (Trade tradeB : unpairedB.getOrDefault(group(result.tradeA()), List.of())) {
+                    assertFalse(compatible(result.tradeA(), tradeB), () -> result.tradeA() + " and " + tradeB);
+                }
+            }
+        }
+    }
+
+    @Test
+    void doesNotDependOnTheOrderOfTheResults() {
+        List<MatchResult> missing = leftovers(2_000, 0.5, 5, new Random(7));
+        List<MatchResult> shuffled = new ArrayList<>(missing);
+        Collections.shuffle(shuffled, new Random(7));
+
+        assertEquals(Results.keys(service.matchFuzzy(missing)), Results.keys(service.matchFuzzy(shuffled)));
+    }
+
+    /**
+     * {@code rows} trades missing in B and as many missing in A, of which a share are A's trades
+     * rebooked under a new id with the price and timestamp nudged inside the tolerances.
+     */
+    private List<MatchResult> leftovers(int rows, double rebookedRate, int symbols, Random random) {
+        long toleranceNanos = config.getFuzzyTimestampToleranceMillis() * 1_000_000L;
+        List<MatchResult> missing = new ArrayList<>(2 * rows);
+        for (int i = 0; i < rows; i++) {
+            Trade tradeA = randomTrade(String.format("A%09d", i), symbols, random);
+            missing.add(MatchResult.missingInB(tradeA));
+
+            Trade tradeB = random.nextDouble() < rebookedRate
+                    ? trade("R" + tradeA.tradeId(), tradeA.symbol(), tradeA.action(),
+                    tradeA.price() + (random.nextDouble() - 0.5) * config.getFuzzyPriceTolerance(), tradeA.quantity(),
+                    tradeA.timestamp() + (long) ((random.nextDouble() - 0.5) * toleranceNanos))
+                    : randomTrade(String.format("B%09d", i), symbols, random);
+            missing.add(MatchResult.missingInA(tradeB));
+        }
+        return missing;
+    }
+
+    private static Trade randomTrade(String tradeId, int symbols, Random random) {
+        return trade(tradeId, "SYM" + random.nextInt(symbols), random.nextBoolean() ? ActionEnum.BUY : ActionEnum.SELL,
+                Math.round((50 + random.nextDouble() * 100) * 100) / 100.0, 1 + random.nextInt(20),
+                START + (long) (random.nextDouble() * 8 * 3_600_000_000_000L));
+    }
+
+    private static Trade trade(String tradeId, String symbol, ActionEnum action, double price, double quantity,
+                               long timestamp) {
+        return new Trade(tradeId, symbol, price, quantity, action, timestamp);
+    }
+
+    private static String group(Trade trade) {
+        return trade.symbol().toLowerCase() + "|" + trade.action() + "|" + trade.quantity();
+    }
+
+    private boolean compatible(Trade tradeA, Trade tradeB) {
+        return tradeA.symbol().equalsIgnoreCase(tradeB.symbol())
+                && tradeA.action() == tradeB.action()
+                && Math.abs(tradeA.quantity() - tradeB.quantity()) <= config.getQuantityTolerance()
+                && Math.abs(tradeA.price() - tradeB.price()) <= config.getFuzzyPriceTolerance()
+                && Math.abs(tradeA.timestamp() - tradeB.timestamp()) <= config.getFuzzyTimestampToleranceMillis() * 1_000_000L;
+    }
+}
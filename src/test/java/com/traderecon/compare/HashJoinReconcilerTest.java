@@ -0,0 +1,100 @@
+package com.traderecon.compare;
+
+import com.traderecon.bench.TradeFileGenerator;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashJoinReconcilerTest {
+
+    private final ReconciliationService service = new ReconciliationService(new AppConfig());
+
+    @Test
+    void matchesReconcileTradesOnAGeneratedPair(@TempDir Path directory) throws IOException {
+        Path fileA = directory.resolve("systemA.csv");
+        Path fileB = directory.resolve("systemB.csv");
+        new TradeFileGenerator(42, 50).writePair(fileA, fileB, new TradeFileGenerator.PairSpec(
+                20_000, 0.05, 0.05, 0.01, TradeFileGenerator.MismatchMix.EVEN));
+
+        TradeLoader loader = new MappedTradeCsvLoader();
+        assertSameResults(loader.loadTrades(fileA.toString()), loader.loadTrades(fileB.toString()));
+    }
+
+    @Test
+    void keepsTheFirstOccurrenceOfADuplicateIdOnEitherSide() {
+        List<Trade> systemA = List.of(
+                trade("T1", "AAPL", 100, 10), trade("T1", "AAPL", 101, 10),
+                trade("T2", "MSFT", 50, 5));
+        List<Trade> systemB = List.of(
+                trade("T1", "AAPL", 100, 10),
+                trade("T2", "MSFT", 51, 5), trade("T2", "MSFT", 50, 5),
+                trade("T3", "IBM", 20, 1), trade("T3", "IBM", 21, 1));
+
+        List<MatchResult> results = assertSameResults(systemA, systemB);
+        assertEquals(MatchStatus.MATCHED, status(results, "T1"));
+        assertEquals(MatchStatus.MISMATCHED, status(results, "T2"));
+        assertEquals(MatchStatus.MISSING_IN_A, status(results, "T3"));
+        assertEquals(3, results.size());
+
+        // the same pair with the larger side indexed instead
+        assertSameResults(systemB, systemA);
+    }
+
+    @Test
+    void reportsTradesMissingOnEachSide() {
+        List<Trade> systemA = List.of(trade("T1", "AAPL", 100, 10), trade("T2", "MSFT", 50, 5));
+        List<Trade> systemB = List.of(trade("T2", "MSFT", 50, 5), trade("T3", "IBM", 20, 1),
+                trade("T4", "IBM", 20, 2));
+
+        List<MatchResult> results = assertSameResults(systemA, systemB);
+        assertEquals(MatchStatus.MISSING_IN_B, status(results, "T1"));
+        assertEquals(MatchStatus.MATCHED, status(results, "T2"));
+        assertEquals(MatchStatus.MISSING_IN_A, status(results, "T3"));
+        assertEquals(MatchStatus.MISSING_IN_A, status(results, "T4"));
+
+        assertSameResults(systemB, systemA);
+    }
+
+    @Test
+    void handlesEmptyInputs() {
+        List<Trade> trades = List.of(trade("T1", "AAPL", 100, 10), trade("T1", "AAPL", 100, 11),
+                trade("T2", "MSFT", 50, 5));
+
+        assertTrue(assertSameResults(List.of(), List.of()).isEmpty());
+        assertEquals(2, assertSameResults(trades, List.of()).size());
+        assertEquals(2, assertSameResults(List.of(), trades).size());
+    }
+
+    private List<MatchResult> assertSameResults(List<Trade> systemA, List<Trade> systemB) {
+        List<MatchResult> expected = service.reconcileTrades(systemA, systemB);
+        List<MatchResult> actual = service.reconcileTradesHashJoin(systemA, systemB);
+        assertEquals(Results.keys(expected), Results.keys(actual));
+        return actual;
+    }
+
+    private static MatchStatus status(List<MatchResult> results, String tradeId) {
+        return results.stream()
+                .filter(result -> result.tradeId().equals(tradeId))
+                .map(MatchResult::matchStatus)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    static Trade trade(String tradeId, String symbol, double price, double quantity) {
+        return new Trade(tradeId, symbol, price, quantity, ActionEnum.BUY, TradeStore.NO_TIMESTAMP);
+    }
+}
@@ -0,0 +1,63 @@
+package com.traderecon.compare;
+
+import com.traderecon.bench.TradeFileGenerator;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.PartitionedTradeStore;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelReconcilerTest {
+
+    private static final ReconciliationService SERVICE = new ReconciliationService(new AppConfig());
+    private static final TradeLoader LOADER = new MappedTradeCsvLoader();
+
+    @TempDir
+    static Path directory;
+    static Path fileA;
+    static Path fileB;
+    static List<String> expected;
+
+    @BeforeAll
+    static void writePair() throws IOException {
+        fileA = directory.resolve("systemA.csv");
+        fileB = directory.resolve("systemB.csv");
+        new TradeFileGenerator(42, 50).writePair(fileA, fileB, new TradeFileGenerator.PairSpec(
+                20_000, 0.05, 0.05, 0.01, TradeFileGenerator.MismatchMix.EVEN));
+        expected = Results.keys(SERVICE.reconcileTrades(LOADER.loadTrades(fileA.toString()),
+                LOADER.loadTrades(fileB.toString())));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8})
+    void storesGiveTheSequentialResults(int threads) {
+        SymbolDictionary symbols = new SymbolDictionary();
+        int partitions = ParallelReconciler.partitionCount(threads);
+        PartitionedTradeStore storeA = LOADER.loadPartitionedStore(fileA.toString(), symbols, partitions);
+        PartitionedTradeStore storeB = LOADER.loadPartitionedStore(fileB.toString(), symbols, partitions);
+
+        List<MatchResult> results = SERVICE.reconcileStoresParallel(storeA, storeB, threads);
+        assertEquals(expected, Results.keys(results));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8})
+    void tradesGiveTheSequentialResults(int threads) {
+        List<Trade> systemA = LOADER.loadTrades(fileA.toString());
+        List<Trade> systemB = LOADER.loadTrades(fileB.toString());
+
+        assertEquals(expected, Results.keys(SERVICE.reconcileTradesParallel(systemA, systemB, threads)));
+    }
+}
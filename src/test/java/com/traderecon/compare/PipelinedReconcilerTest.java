@@ -0,0 +1,59 @@
+package com.traderecon.compare;
+
+import com.traderecon.bench.TradeFileGenerator;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PipelinedReconcilerTest {
+
+    private final ReconciliationService service = new ReconciliationService(new AppConfig());
+    private final TradeLoader loader = new MappedTradeCsvLoader();
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4})
+    void givesTheBatchResults(int joiners) throws IOException {
+        Path fileA = directory.resolve("systemA.csv");
+        Path fileB = directory.resolve("systemB.csv");
+        new TradeFileGenerator(42, 50).writePair(fileA, fileB, new TradeFileGenerator.PairSpec(
+                20_000, 0.05, 0.05, 0.01, TradeFileGenerator.MismatchMix.EVEN));
+
+        assertSameResults(fileA, fileB, joiners);
+    }
+
+    @Test
+    void handlesAnEmptyInput() throws IOException {
+        Path fileA = directory.resolve("systemA.csv");
+        Path fileB = directory.resolve("systemB.csv");
+        new TradeFileGenerator(42, 50).writeFile(fileA, 1_000);
+        Files.writeString(fileB, "tradeId,symbol,side,price,quantity\n");
+
+        assertSameResults(fileA, fileB, 2);
+        assertSameResults(fileB, fileA, 2);
+    }
+
+    private void assertSameResults(Path fileA, Path fileB, int joiners) {
+        List<MatchResult> expected = service.reconcileTrades(loader.loadTrades(fileA.toString()),
+                loader.loadTrades(fileB.toString()));
+        List<MatchResult> pipelined = new ArrayList<>(expected.size());
+        service.reconcilePipelined(loader, fileA.toString(), fileB.toString(), joiners, pipelined::add);
+
+        assertEquals(Results.keys(expected), Results.keys(pipelined));
+    }
+}
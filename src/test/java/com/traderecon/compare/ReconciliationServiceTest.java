@@ -0,0 +1,80 @@
+package com.traderecon.compare;
+
+import com.traderecon.bench.TradeFileGenerator;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.SymbolDictionary;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeField;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static com.traderecon.compare.HashJoinReconcilerTest.trade;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReconciliationServiceTest {
+
+    @Test
+    void tradesAndStoresApplyTheSameToleranceRules(@TempDir Path directory) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("tolerance.rules", "wide,band");
+        properties.setProperty("tolerance.rule.wide.symbols", "SYM1,sym2,SYM3");
+        properties.setProperty("tolerance.rule.wide.price.tolerance", "0.05");
+        properties.setProperty("tolerance.rule.band.price.band", "0,500");
+        properties.setProperty("tolerance.rule.band.quantity.tolerance", "1");
+        ReconciliationService service = new ReconciliationService(new AppConfig(properties));
+
+        Path fileA = directory.resolve("systemA.csv");
+        Path fileB = directory.resolve("systemB.csv");
+        new TradeFileGenerator(42, 200).writePair(fileA, fileB, new TradeFileGenerator.PairSpec(
+                20_000, 0.02, 0.2, 0, TradeFileGenerator.MismatchMix.EVEN));
+        TradeLoader loader = new MappedTradeCsvLoader();
+        SymbolDictionary symbols = new SymbolDictionary();
+
+        List<MatchResult> fromTrades = service.reconcileTrades(loader.loadTrades(fileA.toString()),
+                loader.loadTrades(fileB.toString()));
+        List<MatchResult> fromStores = service.reconcileStores(loader.loadStore(fileA.toString(), symbols),
+                loader.loadStore(fileB.toString(), symbols));
+        assertEquals(Results.keys(fromStores), Results.keys(fromTrades));
+    }
+
+    @Test
+    void resolvesRulesForSymbolsSeenAfterTheFirstComparison() {
+        Properties properties = new Properties();
+        properties.setProperty("tolerance.rules", "wide");
+        properties.setProperty("tolerance.rule.wide.symbols", "WIDE");
+        properties.setProperty("tolerance.rule.wide.price.tolerance", "1");
+        ReconciliationService service = new ReconciliationService(new AppConfig(properties));
+
+        for (int i = 0; i < 100; i++) {
+            Trade trade = trade("T" + i, "SYM" + i, 100, 10);
+            assertEquals(0, service.getDifferenceMask(trade, trade));
+        }
+        assertEquals(0, service.getDifferenceMask(trade("T1", "WIDE", 100, 10), trade("T1", "wide", 100.5, 10)));
+        assertEquals(TradeField.PRICE.mask(),
+                service.getDifferenceMask(trade("T2", "SYM7", 100, 10), trade("T2", "sym7", 100.5, 10)));
+    }
+
+    @Test
+    void comparesSymbolsByCaseOnlyWhenConfigured() {
+        Properties properties = new Properties();
+        properties.setProperty("compare.symbols.caseInsensitive", "false");
+        ReconciliationService caseSensitive = new ReconciliationService(new AppConfig(properties));
+        ReconciliationService caseInsensitive = new ReconciliationService(new AppConfig());
+        Trade tradeA = trade("T1", "AAPL", 100, 10);
+        Trade tradeB = trade("T1", "aapl", 100, 10);
+
+        assertEquals(MatchStatus.MISMATCHED, caseSensitive.compareTrades(tradeA, tradeB).matchStatus());
+        assertEquals(MatchStatus.MATCHED, caseInsensitive.compareTrades(tradeA, tradeB).matchStatus());
+        assertEquals(MatchStatus.MISMATCHED,
+                caseInsensitive.compareTrades(tradeA, trade("T1", "AAPL.O", 100, 10)).matchStatus());
+    }
+}
@@ -0,0 +1,34 @@
+package com.traderecon.compare;
+
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.Trade;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Order-insensitive view of results, for comparing reconciliation strategies with
+ * {@code assertEquals}: one line per result, sorted.
+ */
+final class Results {
+
+    private Results() {
+    }
+
+    static List<String> keys(Collection<MatchResult> results) {
+        return results.stream().map(Results::key).sorted().toList();
+    }
+
+    private static String key(MatchResult result) {
+        return result.matchStatus() + "|" + result.tradeId() + "|" + key(result.tradeA()) + "|"
+                + key(result.tradeB()) + "|" + result.differences();
+    }
+
+    private static String key(Trade trade) {
+        if (trade == null) {
+            return "-";
+        }
+        return trade.tradeId() + "," + trade.symbol() + "," + trade.action() + "," + trade.price() + ","
+                + trade.quantity() + "," + trade.timestamp();
+    }
+}
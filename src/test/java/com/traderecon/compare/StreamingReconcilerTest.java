@@ -0,0 +1,93 @@
+package com.traderecon.compare;
+
+import com.traderecon.bench.TradeFileGenerator;
+import com.traderecon.config.AppConfig;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.io.CsvReplayFeed;
+import com.traderecon.io.MappedTradeCsvLoader;
+import com.traderecon.io.TradeFeed;
+import com.traderecon.io.TradeLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.traderecon.compare.HashJoinReconcilerTest.trade;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingReconcilerTest {
+
+    private final ReconciliationService service = new ReconciliationService(new AppConfig());
+
+    @Test
+    void unpacedReplayGivesTheBatchResults(@TempDir Path directory) throws Exception {
+        Path fileA = directory.resolve("systemA.csv");
+        Path fileB = directory.resolve("systemB.csv");
+        new TradeFileGenerator(42, 50).writePair(fileA, fileB, new TradeFileGenerator.PairSpec(
+                20_000, 0.05, 0.05, 0.01, TradeFileGenerator.MismatchMix.EVEN));
+        TradeLoader loader = new MappedTradeCsvLoader();
+
+        List<MatchResult> results = new ArrayList<>();
+        StreamingReconciler engine = new StreamingReconciler(service, Duration.ofHours(1), Integer.MAX_VALUE,
+                results::add);
+        engine.start();
+        Thread feedA = Thread.ofPlatform().start(() -> replay(loader, fileA).run(engine.systemA()));
+        Thread feedB = Thread.ofPlatform().start(() -> replay(loader, fileB).run(engine.systemB()));
+        feedA.join();
+        feedB.join();
+        engine.awaitCompletion();
+
+        assertEquals(Results.keys(service.reconcileTrades(loader.loadTrades(fileA.toString()),
+                loader.loadTrades(fileB.toString()))), Results.keys(results));
+        assertEquals(0, engine.expiredEarly());
+    }
+
+    @Test
+    void expiresTheOldestTradeBeyondMaxPending() throws InterruptedException {
+        List<MatchResult> results = new ArrayList<>();
+        StreamingReconciler engine = new StreamingReconciler(service, Duration.ofHours(1), 1, results::add);
+        engine.start();
+        TradeFeed.Listener systemA = engine.systemA();
+        TradeFeed.Listener systemB = engine.systemB();
+        systemA.onTrade(trade("T1", "AAPL", 100, 10));
+        systemA.onTrade(trade("T2", "AAPL", 100, 10));
+        systemB.onTrade(trade("T1", "AAPL", 100, 10));
+        systemA.onComplete();
+        systemB.onComplete();
+        engine.awaitCompletion();
+
+        assertEquals(List.of("MISSING_IN_B|T1", "MISSING_IN_B|T2", "MISSING_IN_A|T1"),
+                results.stream().map(result -> result.matchStatus() + "|" + result.tradeId()).toList());
+        assertEquals(2, engine.expiredEarly());
+    }
+
+    @Test
+    void reportsACounterpartArrivingAfterTheWindowAsMissing() throws InterruptedException {
+        List<MatchResult> results = new ArrayList<>();
+        StreamingReconciler engine = new StreamingReconciler(service, Duration.ofMillis(20), Integer.MAX_VALUE,
+                results::add);
+        engine.start();
+        engine.systemA().onTrade(trade("T1", "AAPL", 100, 10));
+        engine.systemA().onTrade(trade("T2", "AAPL", 100, 10));
+        engine.systemB().onTrade(trade("T2", "AAPL", 100, 10));
+        TimeUnit.MILLISECONDS.sleep(200);
+        engine.systemB().onTrade(trade("T1", "AAPL", 100, 10));
+        engine.systemA().onComplete();
+        engine.systemB().onComplete();
+        engine.awaitCompletion();
+
+        assertEquals(List.of(MatchStatus.MATCHED, MatchStatus.MISSING_IN_B, MatchStatus.MISSING_IN_A),
+                results.stream().map(MatchResult::matchStatus).toList());
+        assertEquals(0, engine.expiredEarly());
+    }
+
+    private static CsvReplayFeed replay(TradeLoader loader, Path file) {
+        return new CsvReplayFeed(loader, file.toString(), 0, 0, TimeUnit.MILLISECONDS);
+    }
+}
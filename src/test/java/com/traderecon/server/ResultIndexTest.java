@@ -0,0 +1,114 @@
+package com.traderecon.server;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import com.traderecon.core.Trade;
+import com.traderecon.core.TradeStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultIndexTest {
+
+    private static final List<MatchStatus> STATUSES = withNull(MatchStatus.values());
+    private static final List<ActionEnum> SIDES = withNull(ActionEnum.values());
+    private static final List<String> SYMBOLS = Arrays.asList(null, "SYM0", "sym3", "SYM7", "NONE");
+
+    private final List<MatchResult> results = results(5_000, 10, new Random(42));
+    private final ResultIndex index = new ResultIndex(results, true);
+
+    @Test
+    void pagesEqualAScanOfTheResults() {
+        for (MatchStatus status : STATUSES) {
+            for (String symbol : SYMBOLS) {
+                for (ActionEnum side : SIDES) {
+                    ResultIndex.Filter filter = new ResultIndex.Filter(status, symbol, side);
+                    List<MatchResult> expected = scan(filter);
+                    for (int offset : new int[]{0, 1, 37, expected.size() - 1, expected.size() + 5}) {
+                        offset = Math.max(0, offset);
+                        ResultIndex.Page page = index.query(filter, offset, 100);
+
+                        assertEquals(expected.size(), page.total(), filter::toString);
+                        assertEquals(expected.subList(Math.min(offset, expected.size()),
+                                Math.min(offset + 100, expected.size())), page.results(), filter::toString);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void countsEqualAScanOfTheResults() {
+        for (String symbol : SYMBOLS) {
+            for (ActionEnum side : SIDES) {
+                Map<MatchStatus, Integer> expected = new EnumMap<>(MatchStatus.class);
+                for (MatchStatus status : MatchStatus.values()) {
+                    expected.put(status, scan(new ResultIndex.Filter(status, symbol, side)).size());
+                }
+                assertEquals(expected, index.counts(new ResultIndex.Filter(null, symbol, side)));
+            }
+        }
+    }
+
+    @Test
+    void matchesSymbolsExactlyWhenCaseSensitive() {
+        ResultIndex caseSensitive = new ResultIndex(results, false);
+
+        assertEquals(0, caseSensitive.query(new ResultIndex.Filter(null, "sym3", null), 0, 10).total());
+        assertEquals(scan(new ResultIndex.Filter(null, "SYM3", null)).size(),
+                caseSensitive.query(new ResultIndex.Filter(null, "SYM3", null), 0, 10).total());
+    }
+
+    @Test
+    void answersAnEmptyRun() {
+        ResultIndex empty = new ResultIndex(List.of(), true);
+
+        assertEquals(0, empty.query(new ResultIndex.Filter(MatchStatus.MATCHED, "SYM0", ActionEnum.BUY), 0, 10).total());
+        assertEquals(0, empty.counts(new ResultIndex.Filter(null, null, null)).get(MatchStatus.MISMATCHED));
+    }
+
+    private List<MatchResult> scan(ResultIndex.Filter filter) {
+        List<MatchResult> matching = new ArrayList<>();
+        for (MatchResult result : results) {
+            Trade trade = result.tradeA() != null ? result.tradeA() : result.tradeB();
+            if ((filter.status() == null || filter.status() == result.matchStatus())
+                    && (filter.symbol() == null || filter.symbol().equalsIgnoreCase(trade.symbol()))
+                    && (filter.side() == null || filter.side() == trade.action())) {
+                matching.add(result);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Results of random statuses over {@code symbols} symbols; a trade missing in A is only in B.
+     */
+    static List<MatchResult> results(int count, int symbols, Random random) {
+        List<MatchResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Trade trade = new Trade(String.format("T%09d", i), "SYM" + random.nextInt(symbols), 100, 10,
+                    random.nextBoolean() ? ActionEnum.BUY : ActionEnum.SELL, TradeStore.NO_TIMESTAMP);
+            MatchStatus status = MatchStatus.values()[random.nextInt(MatchStatus.values().length)];
+            results.add(switch (status) {
+                case MISSING_IN_A -> MatchResult.missingInA(trade);
+                case MISSING_IN_B -> MatchResult.missingInB(trade);
+                default -> new MatchResult(status, trade.tradeId(), trade, trade, 0);
+            });
+        }
+        return results;
+    }
+
+    private static <T> List<T> withNull(T[] values) {
+        List<T> list = new ArrayList<>(Arrays.asList(values));
+        list.add(0, null);
+        return list;
+    }
+}
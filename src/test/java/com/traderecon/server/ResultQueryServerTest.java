@@ -0,0 +1,110 @@
+package com.traderecon.server;
+
+import com.traderecon.core.ActionEnum;
+import com.traderecon.core.MatchResult;
+import com.traderecon.core.MatchStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultQueryServerTest {
+
+    private static final String TRADE_ID = "{\"tradeId\":\"";
+
+    private final ResultIndex index = new ResultIndex(ResultIndexTest.results(2_000, 10, new Random(42)), true);
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ResultQueryServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new ResultQueryServer(index, 0, 50);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void servesThePagesOfTheIndex() throws Exception {
+        for (String query : List.of("", "?status=MISMATCHED", "?symbol=sym4&side=SELL&offset=10&limit=20",
+                "?status=missing_in_a&symbol=SYM1&offset=3", "?offset=1990&limit=100")) {
+            ResultIndex.Filter filter = filter(query);
+            ResultIndex.Page expected = index.query(filter, offset(query), Math.min(limit(query), 50));
+
+            HttpResponse<String> response = get("/results" + query);
+            assertEquals(200, response.statusCode(), query);
+            assertEquals(Integer.toString(expected.total()), response.headers().firstValue("X-Total-Count").orElse(""), query);
+            assertEquals(expected.results().stream().map(MatchResult::tradeId).toList(),
+                    response.body().lines()
+                            .map(line -> line.substring(TRADE_ID.length(), line.indexOf('"', TRADE_ID.length())))
+                            .toList(), query);
+        }
+    }
+
+    @Test
+    void servesTheCountsOfTheIndex() throws Exception {
+        HttpResponse<String> response = get("/summary?symbol=SYM2&side=BUY");
+
+        assertEquals(200, response.statusCode());
+        int total = index.counts(new ResultIndex.Filter(null, "SYM2", ActionEnum.BUY)).values().stream()
+                .mapToInt(Integer::intValue).sum();
+        assertTrue(response.body().startsWith("{\"total\":" + total + ","), response.body());
+    }
+
+    @Test
+    void rejectsBadQueries() throws Exception {
+        assertEquals(400, get("/results?status=LOST").statusCode());
+        assertEquals(400, get("/results?limit=-1").statusCode());
+        assertEquals(400, get("/results?colour=red").statusCode());
+        assertEquals(404, get("/results/all").statusCode());
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/results"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.port() + path);
+    }
+
+    private static ResultIndex.Filter filter(String query) {
+        String status = parameter(query, "status");
+        String side = parameter(query, "side");
+        return new ResultIndex.Filter(status == null ? null : MatchStatus.valueOf(status.toUpperCase()),
+                parameter(query, "symbol"), side == null ? null : ActionEnum.valueOf(side));
+    }
+
+    private static int offset(String query) {
+        String offset = parameter(query, "offset");
+        return offset == null ? 0 : Integer.parseInt(offset);
+    }
+
+    private static int limit(String query) {
+        String limit = parameter(query, "limit");
+        return limit == null ? ResultQueryServer.DEFAULT_PAGE_SIZE : Integer.parseInt(limit);
+    }
+
+    private static String parameter(String query, String name) {
+        for (String pair : query.replaceFirst("^\\?", "").split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+}